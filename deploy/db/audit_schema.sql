@@ -34,21 +34,63 @@ CREATE TABLE `audit_logs` (
   `error_message` varchar(500) DEFAULT NULL COMMENT '错误信息',
   `tenant_id` bigint DEFAULT NULL COMMENT '租户ID',
   `app_id` bigint DEFAULT NULL COMMENT '应用ID',
+  `event_id` varchar(64) DEFAULT NULL COMMENT '事件ID（幂等键）',
   `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
   KEY `idx_operation_time` (`operation_time`),
-  KEY `idx_operation_type` (`operation_type`),
+  KEY `idx_operation_type_time` (`operation_type`, `operation_time`),
   KEY `idx_operator_id` (`operator_id`),
   KEY `idx_operator_id_time` (`operator_id`, `operation_time`),
   KEY `idx_tenant_id` (`tenant_id`),
   KEY `idx_tenant_id_time` (`tenant_id`, `operation_time`),
   KEY `idx_app_id` (`app_id`),
-  KEY `idx_module` (`module`),
-  KEY `idx_result` (`result`),
-  KEY `idx_target` (`target_type`, `target_id`)
+  KEY `idx_module_time` (`module`, `operation_time`),
+  KEY `idx_result_time` (`result`, `operation_time`),
+  KEY `idx_target` (`target_type`, `target_id`),
+  UNIQUE KEY `uk_event_id` (`event_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审计日志表';
 
+-- 审计统计汇总表（分钟/小时/天粒度，计数以 INSERT ... ON DUPLICATE KEY UPDATE 累加）
+DROP TABLE IF EXISTS `audit_stats_rollup`;
+CREATE TABLE `audit_stats_rollup` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `granularity` varchar(10) NOT NULL COMMENT '粒度：MINUTE/HOUR/DAY',
+  `bucket_time` datetime NOT NULL COMMENT '时间桶起始时间',
+  `tenant_id` bigint NOT NULL DEFAULT 0 COMMENT '租户ID，空值记为0',
+  `module` varchar(50) NOT NULL DEFAULT '' COMMENT '操作模块',
+  `operation_type` varchar(50) NOT NULL DEFAULT '' COMMENT '操作类型',
+  `result` varchar(20) NOT NULL DEFAULT '' COMMENT '操作结果',
+  `event_count` bigint NOT NULL DEFAULT 0 COMMENT '日志数',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_bucket_dims` (`granularity`, `bucket_time`, `tenant_id`, `module`, `operation_type`, `result`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审计统计汇总表';
+
+-- 审计操作人汇总表（小时/天粒度，仅保存每个时间桶的高频操作人）
+DROP TABLE IF EXISTS `audit_operator_rollup`;
+CREATE TABLE `audit_operator_rollup` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `granularity` varchar(10) NOT NULL COMMENT '粒度：HOUR/DAY',
+  `bucket_time` datetime NOT NULL COMMENT '时间桶起始时间',
+  `operator_id` bigint NOT NULL DEFAULT 0 COMMENT '操作人ID，空值记为0',
+  `operator_name` varchar(50) NOT NULL DEFAULT '' COMMENT '操作人名称',
+  `event_count` bigint NOT NULL DEFAULT 0 COMMENT '操作次数',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_bucket_operator` (`granularity`, `bucket_time`, `operator_id`, `operator_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审计操作人汇总表';
+
+-- 归档检查点表
+DROP TABLE IF EXISTS `archive_checkpoint`;
+CREATE TABLE `archive_checkpoint` (
+  `table_name` varchar(64) NOT NULL COMMENT '源表名',
+  `cutoff_date` date NOT NULL COMMENT '归档截止日期',
+  `last_id` bigint NOT NULL DEFAULT 0 COMMENT '已归档的最大主键',
+  `archived_rows` bigint NOT NULL DEFAULT 0 COMMENT '本轮已逐批归档的行数',
+  `status` varchar(16) NOT NULL COMMENT '状态：RUNNING/DONE',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`table_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='数据归档检查点表';
+
 -- 插入示例数据
 INSERT INTO `audit_logs` (
   `operation_type`, `operation_desc`, `module`, `sub_module`,
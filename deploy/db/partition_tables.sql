@@ -175,6 +175,8 @@ PARTITION BY RANGE (TO_DAYS(created_at)) (
 -- ============================================
 -- 5. 创建存储过程:自动添加下月分区
 -- ============================================
+-- audit-service 的 PartitionMaintenanceJob 每天预建未来分区(从 pmax 拆分,不丢数据)
+-- 并按 app.archive.*-months 归档过期分区;启用该任务时无需创建第5~7节的存储过程和事件
 
 DELIMITER $$
 
@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 审计服务启动类
@@ -13,6 +14,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 @SpringBootApplication(scanBasePackages = "com.qoobot.openidaas")
 @EnableDiscoveryClient
 @EnableFeignClients(basePackages = "com.qoobot.openidaas.common.feign")
+@EnableScheduling
 public class AuditServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,15 @@
+package com.qoobot.openidaas.audit.alert;
+
+/**
+ * 告警发送渠道
+ * 实现类注册为 Spring Bean 即可接收告警；在告警分发线程中调用，可以执行阻塞 IO，抛出的异常只影响当前渠道
+ *
+ * @author QooBot
+ */
+public interface AlertSink {
+
+    /**
+     * 发送一条告警
+     */
+    void send(AuditAlert alert);
+}
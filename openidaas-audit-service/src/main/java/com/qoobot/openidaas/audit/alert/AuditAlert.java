@@ -0,0 +1,37 @@
+package com.qoobot.openidaas.audit.alert;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 告警内容
+ *
+ * @author QooBot
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AuditAlert {
+
+    private final String alertType;
+    private final AuditAlertManager.AlertSeverity severity;
+    private final String message;
+    private final long timestamp;
+
+    /**
+     * 转为结构化日志、Webhook 等使用的键值形式
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("alertType", alertType);
+        data.put("severity", severity.name());
+        data.put("message", message);
+        data.put("timestamp", timestamp);
+        data.put("service", "audit-service");
+        return data;
+    }
+}
@@ -1,78 +1,187 @@
 package com.qoobot.openidaas.audit.alert;
 
 import com.qoobot.openidaas.audit.log.StructuredLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * 审计告警组件
  * 监控关键指标并在异常情况下发送告警
+ *
+ * 错误、操作、慢查询和安全事件按秒分桶计入滑动窗口（最近 window-seconds 秒），突发过去后错误率随之回落；
+ * 计数和冷却判断都是 CAS，不加锁。每种告警类型独立冷却，同一类型在冷却期内只会发出一次。
+ * 告警交给有界线程池异步发送到所有 {@link AlertSink}，队列满时丢弃并计数，调用方不会被阻塞
  */
 @Slf4j
 @Component
 public class AuditAlertManager {
 
     private final StructuredLogger structuredLogger;
-    
+    private final List<AlertSink> sinks;
+    private final MeterRegistry meterRegistry;
+
     // 告警是否启用
     @Value("${audit.alert.enabled:true}")
-    private boolean alertEnabled;
-    
+    private boolean alertEnabled = true;
+
+    // 滑动窗口长度（秒）
+    @Value("${audit.alert.window-seconds:60}")
+    private int windowSeconds = 60;
+
+    // 每种告警类型的冷却时间
+    @Value("${audit.alert.cooldown-ms:300000}")
+    private long cooldownMs = 300_000;
+
     // 告警阈值配置
     @Value("${audit.alert.error-rate-threshold:0.5}")
-    private double errorRateThreshold;
-    
+    private double errorRateThreshold = 0.5;
+
+    @Value("${audit.alert.error-rate-min-operations:20}")
+    private long errorRateMinOperations = 20;
+
     @Value("${audit.alert.slow-query-threshold:5000}")
-    private long slowQueryThreshold;
-    
+    private long slowQueryThreshold = 5000;
+
+    @Value("${audit.alert.slow-query-count-threshold:5}")
+    private long slowQueryCountThreshold = 5;
+
     @Value("${audit.alert.high-failure-count-threshold:10}")
-    private int highFailureCountThreshold;
-    
-    // 计数器
-    private final AtomicInteger errorCount = new AtomicInteger(0);
-    private final AtomicInteger slowQueryCount = new AtomicInteger(0);
-    private final AtomicInteger securityEventCount = new AtomicInteger(0);
-    private final AtomicInteger totalOperations = new AtomicInteger(0);
-    
-    // 最后告警时间（防止告警风暴）
-    private volatile long lastAlertTime = 0;
-    private static final long ALERT_COOLDOWN = 5 * 60 * 1000; // 5分钟冷却时间
-    
-    public AuditAlertManager(StructuredLogger structuredLogger) {
+    private long highFailureCountThreshold = 10;
+
+    // 告警分发线程池
+    @Value("${audit.alert.dispatch.threads:1}")
+    private int dispatchThreads = 1;
+
+    @Value("${audit.alert.dispatch.queue-capacity:1000}")
+    private int dispatchQueueCapacity = 1000;
+
+    // 滑动窗口计数器
+    private SlidingWindowCounter errorWindow;
+    private SlidingWindowCounter operationWindow;
+    private SlidingWindowCounter slowQueryWindow;
+    private SlidingWindowCounter securityEventWindow;
+
+    // 各告警类型最后一次告警时间
+    private final Map<String, AtomicLong> lastAlertTimes = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor dispatcher;
+    private Counter droppedCounter;
+    private LongSupplier clock = System::currentTimeMillis;
+
+    public AuditAlertManager(StructuredLogger structuredLogger, List<AlertSink> sinks, MeterRegistry meterRegistry) {
         this.structuredLogger = structuredLogger;
+        this.sinks = sinks;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        errorWindow = new SlidingWindowCounter(windowSeconds);
+        operationWindow = new SlidingWindowCounter(windowSeconds);
+        slowQueryWindow = new SlidingWindowCounter(windowSeconds);
+        securityEventWindow = new SlidingWindowCounter(windowSeconds);
+        droppedCounter = Counter.builder("audit.alert.dropped")
+                .description("Alerts dropped because the dispatch queue was full")
+                .register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        int threads = Math.max(1, dispatchThreads);
+        dispatcher = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, dispatchQueueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "audit-alert-dispatch-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+                dispatcher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 记录成功的操作，作为错误率的分母
+     */
+    public void recordSuccess(long count) {
+        operationWindow.add(clock.getAsLong(), count);
     }
 
     /**
      * 记录错误
      */
     public void recordError(String operation, String error) {
-        int count = errorCount.incrementAndGet();
-        totalOperations.incrementAndGet();
-        
-        log.error("Error recorded: operation={}, error={}, totalErrors={}", operation, error, count);
-        
+        recordError(operation, error, 1);
+    }
+
+    /**
+     * 记录一次失败涉及的 count 条操作，如整批写入失败
+     */
+    public void recordError(String operation, String error, long count) {
+        long now = clock.getAsLong();
+        errorWindow.add(now, count);
+        operationWindow.add(now, count);
+
+        log.error("Error recorded: operation={}, count={}, error={}", operation, count, error);
+
         // 检查是否需要告警
-        checkAndAlertError(operation, error, count);
+        checkAndAlertError(operation, now);
+    }
+
+    /**
+     * 记录一次查询耗时，超过 slow-query-threshold 的计为慢查询
+     */
+    public void recordQuery(String query, long duration) {
+        if (duration >= slowQueryThreshold) {
+            recordSlowQuery(query, duration);
+        }
     }
 
     /**
      * 记录慢查询
      */
     public void recordSlowQuery(String query, long duration) {
-        int count = slowQueryCount.incrementAndGet();
-        
-        log.warn("Slow query detected: duration={}ms, totalSlowQueries={}", duration, count);
-        
-        // 持续慢查询告警
-        if (count >= 5) {
-            sendAlert("HIGH_SLOW_QUERY_COUNT", 
-                    String.format("Slow queries detected: %d queries exceeded threshold", count),
-                    AlertSeverity.HIGH);
+        long now = clock.getAsLong();
+        slowQueryWindow.add(now, 1);
+
+        log.warn("Slow query detected: query={}, duration={}ms", query, duration);
+
+        // 窗口内慢查询过多时告警
+        if (!coolingDown("HIGH_SLOW_QUERY_COUNT", now)) {
+            long count = slowQueryWindow.sum(now);
+            if (count >= slowQueryCountThreshold) {
+                sendAlert("HIGH_SLOW_QUERY_COUNT",
+                        String.format("Slow queries detected: %d queries exceeded %dms in the last %ds",
+                                count, slowQueryThreshold, windowSeconds),
+                        AlertSeverity.HIGH);
+            }
         }
     }
 
@@ -80,40 +189,48 @@ public class AuditAlertManager {
      * 记录安全事件
      */
     public void recordSecurityEvent(String eventType, String severity, String description) {
-        int count = securityEventCount.incrementAndGet();
-        
+        securityEventWindow.add(clock.getAsLong(), 1);
+
         structuredLogger.logSecurityEvent(eventType, severity, "system", "unknown", description);
-        
+
         // 紧急安全事件立即告警
         if ("EMERGENCY".equals(severity) || "HIGH".equals(severity)) {
-            sendAlert("SECURITY_EVENT", 
-                    String.format("Security event detected: type=%s, severity=%s, description=%s", 
+            sendAlert("SECURITY_EVENT",
+                    String.format("Security event detected: type=%s, severity=%s, description=%s",
                             eventType, severity, description),
                     AlertSeverity.EMERGENCY);
         }
     }
 
     /**
-     * 检查并触发错误告警
+     * 检查并触发错误告警，冷却中的类型不再计算窗口
      */
-    private void checkAndAlertError(String operation, String error, int errorCount) {
-        int total = totalOperations.get();
-        if (total > 10) {
-            double errorRate = (double) errorCount / total;
-            
-            if (errorRate > errorRateThreshold) {
-                sendAlert("HIGH_ERROR_RATE", 
-                        String.format("High error rate detected: %.2f%% (operation=%s)", 
-                                errorRate * 100, operation),
-                        AlertSeverity.HIGH);
+    private void checkAndAlertError(String operation, long now) {
+        long errors = -1;
+        if (!coolingDown("HIGH_ERROR_RATE", now)) {
+            errors = errorWindow.sum(now);
+            long total = operationWindow.sum(now);
+            if (total >= errorRateMinOperations) {
+                double errorRate = (double) errors / total;
+                if (errorRate > errorRateThreshold) {
+                    sendAlert("HIGH_ERROR_RATE",
+                            String.format("High error rate detected: %.2f%% of %d operations in the last %ds (operation=%s)",
+                                    errorRate * 100, total, windowSeconds, operation),
+                            AlertSeverity.HIGH);
+                }
             }
         }
-        
-        if (errorCount >= highFailureCountThreshold) {
-            sendAlert("HIGH_FAILURE_COUNT", 
-                    String.format("High failure count detected: %d errors (operation=%s)", 
-                            errorCount, operation),
-                    AlertSeverity.HIGH);
+
+        if (!coolingDown("HIGH_FAILURE_COUNT", now)) {
+            if (errors < 0) {
+                errors = errorWindow.sum(now);
+            }
+            if (errors >= highFailureCountThreshold) {
+                sendAlert("HIGH_FAILURE_COUNT",
+                        String.format("High failure count detected: %d errors in the last %ds (operation=%s)",
+                                errors, windowSeconds, operation),
+                        AlertSeverity.HIGH);
+            }
         }
     }
 
@@ -124,64 +241,72 @@ public class AuditAlertManager {
         if (!alertEnabled) {
             return;
         }
-        
-        // 检查冷却时间
-        long now = System.currentTimeMillis();
-        if (now - lastAlertTime < ALERT_COOLDOWN && severity != AlertSeverity.EMERGENCY) {
-            log.warn("Alert cooldown active, skipping alert: {}", alertType);
+
+        // 检查冷却时间，同一类型并发触发时只有一个线程能占用本次告警
+        long now = clock.getAsLong();
+        if (severity != AlertSeverity.EMERGENCY && !tryAcquire(alertType, now)) {
+            log.debug("Alert cooldown active, skipping alert: {}", alertType);
             return;
         }
-        
-        lastAlertTime = now;
-        
-        // 构建告警信息
-        Map<String, Object> alertData = new HashMap<>();
-        alertData.put("alertType", alertType);
-        alertData.put("severity", severity.name());
-        alertData.put("message", message);
-        alertData.put("timestamp", System.currentTimeMillis());
-        alertData.put("service", "audit-service");
-        
+
+        AuditAlert alert = new AuditAlert(alertType, severity, message, now);
+
         // 记录告警日志
-        log.error("ALERT | type={}, severity={}, message={}", 
+        log.error("ALERT | type={}, severity={}, message={}",
                 alertType, severity.name(), message);
-        
-        // 这里可以集成各种告警渠道：
-        // 1. 邮件告警
-        // 2. 短信告警
-        // 3. 企业微信/钉钉
-        // 4. Slack
-        // 5. PagerDuty
-        // 6. Prometheus Alertmanager
-        
-        // 示例：记录到结构化日志
-        structuredLogger.logAuditError("ALERT", message, alertData);
-        
-        // TODO: 实现实际的告警发送逻辑
-        // sendEmailAlert(alertData);
-        // sendWebhookAlert(alertData);
+
+        meterRegistry.counter("audit.alerts.fired", "type", alertType).increment();
+        try {
+            dispatcher.execute(() -> dispatch(alert));
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment();
+            log.warn("Alert dispatch queue full, dropping alert: {}", alertType);
+        }
+    }
+
+    private void dispatch(AuditAlert alert) {
+        for (AlertSink sink : sinks) {
+            try {
+                sink.send(alert);
+            } catch (Exception e) {
+                log.warn("Alert sink {} failed: {}", sink.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean coolingDown(String alertType, long now) {
+        AtomicLong last = lastAlertTimes.get(alertType);
+        return last != null && now - last.get() < cooldownMs;
+    }
+
+    private boolean tryAcquire(String alertType, long now) {
+        AtomicLong last = lastAlertTimes.computeIfAbsent(alertType, type -> new AtomicLong(Long.MIN_VALUE / 2));
+        long previous = last.get();
+        return now - previous >= cooldownMs && last.compareAndSet(previous, now);
     }
 
     /**
      * 重置计数器
      */
     public void resetCounters() {
-        errorCount.set(0);
-        slowQueryCount.set(0);
-        securityEventCount.set(0);
-        totalOperations.set(0);
+        errorWindow.reset();
+        operationWindow.reset();
+        slowQueryWindow.reset();
+        securityEventWindow.reset();
+        lastAlertTimes.clear();
         log.info("Alert counters reset");
     }
 
     /**
-     * 获取当前指标
+     * 获取当前窗口内的指标
      */
-    public Map<String, Integer> getMetrics() {
-        Map<String, Integer> metrics = new HashMap<>();
-        metrics.put("errorCount", errorCount.get());
-        metrics.put("slowQueryCount", slowQueryCount.get());
-        metrics.put("securityEventCount", securityEventCount.get());
-        metrics.put("totalOperations", totalOperations.get());
+    public Map<String, Long> getMetrics() {
+        long now = clock.getAsLong();
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("errorCount", errorWindow.sum(now));
+        metrics.put("slowQueryCount", slowQueryWindow.sum(now));
+        metrics.put("securityEventCount", securityEventWindow.sum(now));
+        metrics.put("totalOperations", operationWindow.sum(now));
         return metrics;
     }
 
@@ -0,0 +1,63 @@
+package com.qoobot.openidaas.audit.alert;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按秒分桶的滑动窗口计数器
+ * 环形数组每个槽位把秒数（高 32 位）和该秒计数（低 32 位）打包在一个 long 中，用 CAS 更新：
+ * 槽位属于更早的秒时整体替换为新的一秒，不需要加锁也不会丢计数；内存固定为 windowSeconds 个 long
+ *
+ * @author QooBot
+ */
+final class SlidingWindowCounter {
+
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final int windowSeconds;
+    private final AtomicLongArray slots;
+
+    SlidingWindowCounter(int windowSeconds) {
+        this.windowSeconds = Math.max(1, windowSeconds);
+        this.slots = new AtomicLongArray(this.windowSeconds);
+    }
+
+    /**
+     * 在 nowMillis 所在的一秒计入 count 次
+     */
+    void add(long nowMillis, long count) {
+        long second = nowMillis / 1000;
+        int index = (int) (second % windowSeconds);
+        long stamp = second << 32;
+        while (true) {
+            long current = slots.get(index);
+            long next = (current & ~COUNT_MASK) == stamp
+                    ? current + Math.min(count, COUNT_MASK - (current & COUNT_MASK))
+                    : stamp | Math.min(count, COUNT_MASK);
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 截至 nowMillis 的最近 windowSeconds 秒（含当前秒）内的计数
+     */
+    long sum(long nowMillis) {
+        long second = nowMillis / 1000;
+        long total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            long slot = slots.get(i);
+            long age = second - (slot >>> 32);
+            if (age >= 0 && age < windowSeconds) {
+                total += slot & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    void reset() {
+        for (int i = 0; i < windowSeconds; i++) {
+            slots.set(i, 0);
+        }
+    }
+}
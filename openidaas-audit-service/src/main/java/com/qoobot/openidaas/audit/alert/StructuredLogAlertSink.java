@@ -0,0 +1,22 @@
+package com.qoobot.openidaas.audit.alert;
+
+import com.qoobot.openidaas.audit.log.StructuredLogger;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把告警写入结构化日志的默认渠道，由日志采集侧转发
+ *
+ * @author QooBot
+ */
+@Component
+@RequiredArgsConstructor
+public class StructuredLogAlertSink implements AlertSink {
+
+    private final StructuredLogger structuredLogger;
+
+    @Override
+    public void send(AuditAlert alert) {
+        structuredLogger.logAuditError("ALERT", alert.getMessage(), alert.toMap());
+    }
+}
@@ -0,0 +1,488 @@
+package com.qoobot.openidaas.audit.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据归档引擎
+ * 源表按时间列 RANGE 分区且没有附加条件时，截止日期之前的整个分区用 EXCHANGE PARTITION 换出为独立归档表
+ * （或直接 DROP PARTITION），不逐行搬运；其余数据按主键分批：每批在一个短事务内 INSERT ... SELECT 到归档表、
+ * DELETE 源表行并更新检查点，批间按 max-rows-per-second 限速，中断后从检查点继续
+ *
+ * 开启导出时，归档的行同时以 NDJSON 追加写入本地 gzip 文件，每批一个 gzip 成员；
+ * 批事务提交失败时该批会在重试时再次导出，导出文件可能含重复行
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArchiveEngine {
+
+    /**
+     * TO_DAYS('1970-01-01')
+     */
+    private static final long TO_DAYS_EPOCH = 719528;
+
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_DONE = "DONE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.archive.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${app.archive.max-rows-per-second:2000}")
+    private int maxRowsPerSecond = 2000;
+
+    @Value("${app.archive.max-run-minutes:0}")
+    private long maxRunMinutes = 0;
+
+    @Value("${app.archive.partition-mode:EXCHANGE}")
+    private PartitionMode partitionMode = PartitionMode.EXCHANGE;
+
+    @Value("${app.archive.export.enabled:false}")
+    private boolean exportEnabled = false;
+
+    @Value("${app.archive.export.dir:${java.io.tmpdir}/openidaas-archive}")
+    private String exportDir = System.getProperty("java.io.tmpdir") + "/openidaas-archive";
+
+    /**
+     * 归档 spec 中时间早于 cutoff 的数据
+     */
+    public ArchiveResult archive(ArchiveTableSpec spec, LocalDate cutoff) {
+        ArchiveResult result = new ArchiveResult(spec.getTable());
+        Counter rowsCounter = Counter.builder("audit.archive.rows")
+                .description("Rows moved out of source tables by the archive job")
+                .tag("table", spec.getTable())
+                .register(meterRegistry);
+        Throttle throttle = new Throttle(maxRowsPerSecond);
+        long startNanos = System.nanoTime();
+
+        List<PartitionInfo> partitions = listPartitions(spec.getTable());
+        result.setPartitions(archivePartitions(spec, partitions, cutoff, throttle));
+
+        ensureArchiveTable(spec, !partitions.isEmpty());
+        archiveRows(spec, cutoff, result, rowsCounter, throttle, startNanos);
+        return result;
+    }
+
+    /**
+     * 分批删除 spec 中时间早于 cutoff 的行，不写归档表、不 OPTIMIZE，用于过期后即可丢弃的数据。
+     * 每批一条 DELETE ... LIMIT 自动提交，批间按 max-rows-per-second 限速，超过 max-run-minutes 时暂停，
+     * 剩余行由下次运行继续删除
+     */
+    public ArchiveResult purge(ArchiveTableSpec spec, LocalDateTime cutoff) {
+        ArchiveResult result = new ArchiveResult(spec.getTable());
+        Counter purgedCounter = Counter.builder("audit.archive.purged")
+                .description("Expired rows deleted without archiving")
+                .tag("table", spec.getTable())
+                .register(meterRegistry);
+        Throttle throttle = new Throttle(maxRowsPerSecond);
+        long startNanos = System.nanoTime();
+        long runNanos = TimeUnit.MINUTES.toNanos(maxRunMinutes);
+        int limit = Math.max(1, batchSize);
+        String sql = "DELETE FROM " + spec.getTable() + " WHERE " + spec.getTimeColumn() + " < ?"
+                + spec.conditionClause() + " LIMIT ?";
+
+        while (true) {
+            if (maxRunMinutes > 0 && System.nanoTime() - startNanos >= runNanos) {
+                log.info("清理 {} 超过最长运行时间，已删除 {} 条", spec.getTable(), result.getRows());
+                result.setCompleted(false);
+                return result;
+            }
+            int deleted = jdbcTemplate.update(sql, cutoff, limit);
+            result.setRows(result.getRows() + deleted);
+            purgedCounter.increment(deleted);
+            if (deleted < limit) {
+                return result;
+            }
+            throttle.acquire(deleted);
+        }
+    }
+
+    /**
+     * 只归档上界不晚于 cutoff 的整个分区，不处理其余行
+     *
+     * @return 归档的分区数
+     */
+    public int archivePartitions(ArchiveTableSpec spec, LocalDate cutoff) {
+        return archivePartitions(spec, listPartitions(spec.getTable()), cutoff, new Throttle(maxRowsPerSecond));
+    }
+
+    private int archivePartitions(ArchiveTableSpec spec, List<PartitionInfo> partitions, LocalDate cutoff,
+                                  Throttle throttle) {
+        if (partitionMode == PartitionMode.NONE || spec.getCondition() != null) {
+            return 0;
+        }
+        int archived = 0;
+        for (PartitionInfo partition : partitions) {
+            if (partition.coveredBy(spec.getTimeColumn(), cutoff, ZoneId.systemDefault())
+                    && archivePartition(spec, partition, cutoff, throttle)) {
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    private void archiveRows(ArchiveTableSpec spec, LocalDate cutoff, ArchiveResult result, Counter rowsCounter,
+                             Throttle throttle, long startNanos) {
+        String table = spec.getTable();
+        String pk = spec.getPrimaryKey();
+        String timeFilter = spec.getTimeColumn() + " < ?" + spec.conditionClause();
+
+        long[] checkpoint = loadCheckpoint(table, cutoff);
+        long lastId = checkpoint[0];
+        long archived = checkpoint[1];
+        if (lastId > 0) {
+            log.info("从检查点继续归档 {}，last_id: {}，已归档: {}", table, lastId, archived);
+        }
+
+        // 上界只取一次，之后的扫描只在 (lastId, maxId] 的主键区间内进行
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT MAX(" + pk + ") FROM " + table + " WHERE " + timeFilter, Long.class, cutoff);
+        long runNanos = TimeUnit.MINUTES.toNanos(maxRunMinutes);
+        while (maxId != null && lastId < maxId) {
+            if (maxRunMinutes > 0 && System.nanoTime() - startNanos >= runNanos) {
+                log.info("归档 {} 超过最长运行时间，暂停于 last_id: {}", table, lastId);
+                result.setCompleted(false);
+                return;
+            }
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT " + pk + " FROM " + table + " WHERE " + pk + " > ? AND " + pk + " <= ? AND "
+                            + timeFilter + " ORDER BY " + pk + " LIMIT ?",
+                    Long.class, lastId, maxId, cutoff, Math.max(1, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            long chunkLastId = ids.get(ids.size() - 1);
+            long chunkArchived = archived + ids.size();
+            transactionTemplate.executeWithoutResult(status -> moveChunk(spec, cutoff, ids, chunkLastId, chunkArchived));
+            lastId = chunkLastId;
+            archived = chunkArchived;
+            result.setRows(result.getRows() + ids.size());
+            rowsCounter.increment(ids.size());
+            throttle.acquire(ids.size());
+        }
+        saveCheckpoint(table, cutoff, lastId, archived, STATUS_DONE);
+    }
+
+    /**
+     * 一个事务内导出、复制、删除一批行并推进检查点
+     */
+    private void moveChunk(ArchiveTableSpec spec, LocalDate cutoff, List<Long> ids, long lastId, long archived) {
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] args = ids.toArray();
+        String where = " WHERE " + spec.getPrimaryKey() + " IN (" + in + ")";
+        if (exportEnabled) {
+            export(spec, cutoff, jdbcTemplate.queryForList("SELECT * FROM " + spec.getTable() + where, args));
+        }
+        jdbcTemplate.update("INSERT INTO " + spec.getArchiveTable() + " SELECT * FROM " + spec.getTable() + where, args);
+        jdbcTemplate.update("DELETE FROM " + spec.getTable() + where, args);
+        saveCheckpoint(spec.getTable(), cutoff, lastId, archived, STATUS_RUNNING);
+    }
+
+    /**
+     * 整体归档一个分区；EXCHANGE 模式下分区数据换出到 {归档表}_{分区名}，随后删除空分区
+     *
+     * @return 是否已归档
+     */
+    private boolean archivePartition(ArchiveTableSpec spec, PartitionInfo partition, LocalDate cutoff,
+                                     Throttle throttle) {
+        String table = spec.getTable();
+        String name = ArchiveTableSpec.identifier(partition.getName());
+        if (exportEnabled) {
+            exportPartition(spec, name, cutoff, throttle);
+        }
+        if (partitionMode == PartitionMode.EXCHANGE) {
+            String target = ArchiveTableSpec.identifier(spec.getArchiveTable() + "_" + name);
+            if (!tableExists(target)) {
+                jdbcTemplate.execute("CREATE TABLE " + target + " LIKE " + table);
+                jdbcTemplate.execute("ALTER TABLE " + target + " REMOVE PARTITIONING");
+                jdbcTemplate.execute("ALTER TABLE " + table + " EXCHANGE PARTITION " + name + " WITH TABLE " + target);
+            } else if (partitionHasRows(table, name)) {
+                // 上次换出后未删除分区，之后又写入了数据
+                log.warn("归档表 {} 已存在且分区 {}.{} 非空，跳过", target, table, name);
+                return false;
+            }
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + name);
+        log.info("分区归档完成: {}.{}，方式: {}", table, name, partitionMode);
+        return true;
+    }
+
+    private void exportPartition(ArchiveTableSpec spec, String partition, LocalDate cutoff, Throttle throttle) {
+        String pk = spec.getPrimaryKey();
+        String sql = "SELECT * FROM " + spec.getTable() + " PARTITION (" + partition + ") WHERE " + pk
+                + " > ? ORDER BY " + pk + " LIMIT ?";
+        long lastId = 0;
+        int limit = Math.max(1, batchSize);
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, lastId, limit);
+            if (rows.isEmpty()) {
+                return;
+            }
+            export(spec, cutoff, rows);
+            throttle.acquire(rows.size());
+            if (rows.size() < limit) {
+                return;
+            }
+            lastId = ((Number) rows.get(rows.size() - 1).get(pk)).longValue();
+        }
+    }
+
+    /**
+     * 追加一批行到 {源表}-{截止日期}.ndjson.gz
+     */
+    private void export(ArchiveTableSpec spec, LocalDate cutoff, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(exportDir, spec.getTable() + "-" + cutoff + ".ndjson.gz");
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)),
+                    StandardCharsets.UTF_8))) {
+                for (Map<String, Object> row : rows) {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("导出归档数据失败: " + file, e);
+        }
+    }
+
+    /**
+     * 返回 [last_id, archived_rows]；检查点属于同一截止日期且未完成时继续，否则从头开始
+     */
+    private long[] loadCheckpoint(String table, LocalDate cutoff) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT cutoff_date, last_id, archived_rows, status FROM archive_checkpoint WHERE table_name = ?",
+                table);
+        if (!rows.isEmpty()) {
+            Map<String, Object> row = rows.get(0);
+            if (STATUS_RUNNING.equals(row.get("status")) && cutoff.toString().equals(String.valueOf(row.get("cutoff_date")))) {
+                return new long[]{((Number) row.get("last_id")).longValue(), ((Number) row.get("archived_rows")).longValue()};
+            }
+        }
+        saveCheckpoint(table, cutoff, 0, 0, STATUS_RUNNING);
+        return new long[]{0, 0};
+    }
+
+    private void saveCheckpoint(String table, LocalDate cutoff, long lastId, long archived, String status) {
+        jdbcTemplate.update("INSERT INTO archive_checkpoint (table_name, cutoff_date, last_id, archived_rows, status) "
+                        + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE cutoff_date = VALUES(cutoff_date), "
+                        + "last_id = VALUES(last_id), archived_rows = VALUES(archived_rows), status = VALUES(status)",
+                table, cutoff, lastId, archived, status);
+    }
+
+    /**
+     * 读取 information_schema 中的分区定义及统计信息，读取失败时按未分区处理
+     */
+    List<PartitionInfo> listPartitions(String table) {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT PARTITION_NAME, PARTITION_METHOD, PARTITION_EXPRESSION, PARTITION_DESCRIPTION, "
+                            + "TABLE_ROWS, DATA_LENGTH, INDEX_LENGTH "
+                            + "FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? "
+                            + "AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION", table);
+            List<PartitionInfo> partitions = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                partitions.add(new PartitionInfo((String) row.get("PARTITION_NAME"), (String) row.get("PARTITION_METHOD"),
+                        (String) row.get("PARTITION_EXPRESSION"), (String) row.get("PARTITION_DESCRIPTION"),
+                        longValue(row.get("TABLE_ROWS")), longValue(row.get("DATA_LENGTH")) + longValue(row.get("INDEX_LENGTH"))));
+            }
+            return partitions;
+        } catch (DataAccessException e) {
+            log.debug("无法读取 {} 的分区信息，按未分区处理: {}", table, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private boolean partitionHasRows(String table, String partition) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM " + table + " PARTITION (" + partition + ") LIMIT 1").isEmpty();
+    }
+
+    private void ensureArchiveTable(ArchiveTableSpec spec, boolean sourcePartitioned) {
+        if (tableExists(spec.getArchiveTable())) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + spec.getArchiveTable() + " LIKE " + spec.getTable());
+        if (sourcePartitioned) {
+            jdbcTemplate.execute("ALTER TABLE " + spec.getArchiveTable() + " REMOVE PARTITIONING");
+        }
+        log.info("创建归档表: {}", spec.getArchiveTable());
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables "
+                + "WHERE table_schema = DATABASE() AND table_name = ?", Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    /**
+     * 分区归档方式
+     */
+    public enum PartitionMode {
+        /**
+         * 分区换出为独立归档表后删除空分区
+         */
+        EXCHANGE,
+        /**
+         * 直接删除分区（通常配合导出使用）
+         */
+        DROP,
+        /**
+         * 不按分区处理，全部逐批归档
+         */
+        NONE
+    }
+
+    /**
+     * information_schema.PARTITIONS 中的一个分区
+     */
+    @Getter
+    @AllArgsConstructor
+    static final class PartitionInfo {
+
+        private final String name;
+        private final String method;
+        private final String expression;
+        private final String description;
+
+        /**
+         * 行数估计值（InnoDB 统计信息）
+         */
+        private final long rows;
+
+        /**
+         * 数据与索引占用字节数
+         */
+        private final long bytes;
+
+        /**
+         * 按 TO_DAYS(timeColumn) 做 RANGE 分区时返回分区上界日期，其他情况（含 MAXVALUE）返回 null
+         */
+        LocalDate toDaysBound(String timeColumn) {
+            if (!"RANGE".equalsIgnoreCase(method) || !isToDays(timeColumn) || description == null
+                    || "MAXVALUE".equalsIgnoreCase(description)) {
+                return null;
+            }
+            try {
+                return LocalDate.ofEpochDay(Long.parseLong(description.trim()) - TO_DAYS_EPOCH);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean isMaxValue() {
+            return "MAXVALUE".equalsIgnoreCase(description);
+        }
+
+        private boolean isToDays(String timeColumn) {
+            return expression != null && expression.replace("`", "").replace(" ", "").toLowerCase(Locale.ROOT)
+                    .equals("to_days(" + timeColumn.toLowerCase(Locale.ROOT) + ")");
+        }
+
+        /**
+         * 分区是否按 timeColumn 做 RANGE 分区且上界不晚于 cutoff，即分区内全部数据都早于 cutoff
+         */
+        boolean coveredBy(String timeColumn, LocalDate cutoff, ZoneId zone) {
+            if (method == null || expression == null || description == null
+                    || "MAXVALUE".equalsIgnoreCase(description)) {
+                return false;
+            }
+            String expr = expression.replace("`", "").replace(" ", "").toLowerCase(Locale.ROOT);
+            String column = timeColumn.toLowerCase(Locale.ROOT);
+            try {
+                if ("RANGE".equalsIgnoreCase(method)) {
+                    long bound = Long.parseLong(description.trim());
+                    if (expr.equals("to_days(" + column + ")")) {
+                        return bound <= cutoff.toEpochDay() + TO_DAYS_EPOCH;
+                    }
+                    if (expr.equals("unix_timestamp(" + column + ")")) {
+                        return bound <= cutoff.atStartOfDay(zone).toEpochSecond();
+                    }
+                    return false;
+                }
+                if ("RANGE COLUMNS".equalsIgnoreCase(method) && expr.equals(column)) {
+                    String value = description.replace("'", "").trim();
+                    LocalDate bound = LocalDate.parse(value.substring(0, Math.min(10, value.length())));
+                    // 上界带时间部分时需早于 cutoff 当天
+                    return value.length() > 10 && !value.substring(10).trim().matches("0{2}:0{2}(:0{2})?")
+                            ? bound.isBefore(cutoff) : !bound.isAfter(cutoff);
+                }
+            } catch (RuntimeException e) {
+                return false;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 按行数限速：累计行数超出 rowsPerSecond 对应的时间时暂停
+     */
+    private static final class Throttle {
+
+        private final int rowsPerSecond;
+        private final long startNanos = System.nanoTime();
+        private long rows;
+
+        private Throttle(int rowsPerSecond) {
+            this.rowsPerSecond = rowsPerSecond;
+        }
+
+        private void acquire(int count) {
+            if (rowsPerSecond <= 0) {
+                return;
+            }
+            rows += count;
+            long expectedNanos = rows * TimeUnit.SECONDS.toNanos(1) / rowsPerSecond;
+            long waitNanos = expectedNanos - (System.nanoTime() - startNanos);
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+        }
+    }
+}
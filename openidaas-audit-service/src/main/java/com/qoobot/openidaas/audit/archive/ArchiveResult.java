@@ -0,0 +1,29 @@
+package com.qoobot.openidaas.audit.archive;
+
+import lombok.Data;
+
+/**
+ * 单次归档结果
+ *
+ * @author QooBot
+ */
+@Data
+public class ArchiveResult {
+
+    private final String table;
+
+    /**
+     * 整体归档（交换或删除）的分区数
+     */
+    private int partitions;
+
+    /**
+     * 逐批归档的行数
+     */
+    private long rows;
+
+    /**
+     * 是否处理完截止日期前的全部数据；超过运行时长暂停时为 false，下次从检查点继续
+     */
+    private boolean completed = true;
+}
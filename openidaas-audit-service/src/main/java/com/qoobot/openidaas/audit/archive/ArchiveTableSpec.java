@@ -0,0 +1,50 @@
+package com.qoobot.openidaas.audit.archive;
+
+import lombok.Getter;
+
+import java.util.regex.Pattern;
+
+/**
+ * 归档表定义：源表、归档表、主键列、时间列及附加过滤条件
+ * 表名和列名会直接拼入 SQL，构造时校验为合法标识符；附加条件只能来自代码常量
+ *
+ * @author QooBot
+ */
+@Getter
+public class ArchiveTableSpec {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]{1,64}");
+
+    private final String table;
+    private final String archiveTable;
+    private final String primaryKey;
+    private final String timeColumn;
+    private final String condition;
+
+    public ArchiveTableSpec(String table, String timeColumn, String condition) {
+        this(table, table + "_archive", "id", timeColumn, condition);
+    }
+
+    public ArchiveTableSpec(String table, String archiveTable, String primaryKey, String timeColumn,
+                            String condition) {
+        this.table = identifier(table);
+        this.archiveTable = identifier(archiveTable);
+        this.primaryKey = identifier(primaryKey);
+        this.timeColumn = identifier(timeColumn);
+        this.condition = condition;
+    }
+
+    /**
+     * 以 " AND (...)" 形式返回附加条件，没有时返回空串
+     */
+    String conditionClause() {
+        return condition != null ? " AND (" + condition + ")" : "";
+    }
+
+    static String identifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("非法的表名或列名: " + name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,212 @@
+package com.qoobot.openidaas.audit.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 按月 RANGE 分区维护
+ * 只处理按 TO_DAYS(时间列) 做 RANGE 分区的表：预建未来 future-months 个月的分区（存在 MAXVALUE 分区时从中拆分），
+ * 超过保留期的分区交给 {@link ArchiveEngine} 整体换出或删除，并把各分区的行数和占用空间注册为指标
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionManager {
+
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter DAY_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final ArchiveEngine archiveEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 已注册分区指标，key 为 表名/分区名
+     */
+    private final Map<String, PartitionGauges> gauges = new ConcurrentHashMap<>();
+
+    @Value("${app.partition.future-months:3}")
+    private int futureMonths = 3;
+
+    /**
+     * 预建分区、归档过期分区并刷新分区指标
+     *
+     * @param retentionMonths 保留月数，0 表示不清理；带附加条件的表不会整体清理分区
+     */
+    public void maintain(ArchiveTableSpec spec, int retentionMonths, LocalDate today) {
+        try {
+            int created = createFuturePartitions(spec, today);
+            int archived = 0;
+            if (retentionMonths > 0) {
+                archived = archiveEngine.archivePartitions(spec,
+                        today.withDayOfMonth(1).minusMonths(retentionMonths));
+            }
+            refreshMetrics(spec.getTable());
+            log.info("分区维护完成: {}，新建分区 {} 个，归档过期分区 {} 个", spec.getTable(), created, archived);
+        } catch (RuntimeException e) {
+            Counter.builder("audit.partition.maintenance.failed")
+                    .description("Partition maintenance runs that failed")
+                    .tag("table", spec.getTable())
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 补齐到 today 所在月之后 future-months 个月的分区
+     *
+     * @return 新建的分区数
+     */
+    public int createFuturePartitions(ArchiveTableSpec spec, LocalDate today) {
+        List<ArchiveEngine.PartitionInfo> partitions = archiveEngine.listPartitions(spec.getTable());
+        List<PlannedPartition> planned = planFuturePartitions(partitions, spec.getTimeColumn(), today, futureMonths);
+        if (planned.isEmpty()) {
+            return 0;
+        }
+
+        String definitions = planned.stream()
+                .map(partition -> "PARTITION " + partition.getName() + " VALUES LESS THAN (TO_DAYS('"
+                        + partition.getBound() + "'))")
+                .collect(Collectors.joining(", "));
+        ArchiveEngine.PartitionInfo maxValue = partitions.stream()
+                .filter(ArchiveEngine.PartitionInfo::isMaxValue)
+                .findFirst()
+                .orElse(null);
+        if (maxValue != null) {
+            String name = ArchiveTableSpec.identifier(maxValue.getName());
+            if (maxValue.getRows() > 0) {
+                // 数据已落入 MAXVALUE 分区，拆分时需要复制这些行
+                log.warn("分区 {}.{} 中约有 {} 行，拆分分区时将随之复制", spec.getTable(), name, maxValue.getRows());
+            }
+            jdbcTemplate.execute("ALTER TABLE " + spec.getTable() + " REORGANIZE PARTITION " + name + " INTO ("
+                    + definitions + ", PARTITION " + name + " VALUES LESS THAN MAXVALUE)");
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + spec.getTable() + " ADD PARTITION (" + definitions + ")");
+        }
+        log.info("为 {} 新建分区: {}", spec.getTable(),
+                planned.stream().map(PlannedPartition::getName).collect(Collectors.joining(",")));
+        return planned.size();
+    }
+
+    /**
+     * 以 information_schema 中的统计值刷新分区行数与占用空间指标，已不存在的分区移除对应指标
+     */
+    public void refreshMetrics(String table) {
+        Set<String> current = new HashSet<>();
+        for (ArchiveEngine.PartitionInfo partition : archiveEngine.listPartitions(table)) {
+            String key = table + "/" + partition.getName();
+            current.add(key);
+            PartitionGauges partitionGauges = gauges.computeIfAbsent(key,
+                    k -> new PartitionGauges(table, partition.getName()));
+            partitionGauges.rows.set(partition.getRows());
+            partitionGauges.bytes.set(partition.getBytes());
+        }
+        gauges.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(table + "/") && !current.contains(entry.getKey())) {
+                entry.getValue().meters.forEach(meterRegistry::remove);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 计算需要追加的月分区：从现有最大上界起按自然月补齐，直到覆盖 today 所在月之后 futureMonths 个月
+     * 表未分区或不是按 TO_DAYS(timeColumn) 做 RANGE 分区时返回空列表
+     */
+    static List<PlannedPartition> planFuturePartitions(List<ArchiveEngine.PartitionInfo> partitions,
+                                                       String timeColumn, LocalDate today, int futureMonths) {
+        LocalDate last = null;
+        Set<String> names = new HashSet<>();
+        for (ArchiveEngine.PartitionInfo partition : partitions) {
+            names.add(partition.getName());
+            if (partition.isMaxValue()) {
+                continue;
+            }
+            LocalDate bound = partition.toDaysBound(timeColumn);
+            if (bound == null) {
+                return List.of();
+            }
+            if (last == null || bound.isAfter(last)) {
+                last = bound;
+            }
+        }
+        if (last == null) {
+            return List.of();
+        }
+
+        LocalDate target = today.withDayOfMonth(1).plusMonths(futureMonths + 1L);
+        List<PlannedPartition> planned = new ArrayList<>();
+        while (last.isBefore(target)) {
+            LocalDate bound = last.withDayOfMonth(1).plusMonths(1);
+            String name = last.format(MONTH_NAME);
+            if (!names.add(name)) {
+                // 上一个分区的上界不在月初时，同月的分区名已被占用
+                name = last.format(DAY_NAME);
+                names.add(name);
+            }
+            planned.add(new PlannedPartition(name, bound));
+            last = bound;
+        }
+        return planned;
+    }
+
+    /**
+     * 待创建的分区：名称与上界（不含）
+     */
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    static final class PlannedPartition {
+
+        private final String name;
+        private final LocalDate bound;
+    }
+
+    private final class PartitionGauges {
+
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final List<Meter> meters = new ArrayList<>(2);
+
+        private PartitionGauges(String table, String partition) {
+            meters.add(Gauge.builder("audit.partition.rows", rows, AtomicLong::get)
+                    .description("Estimated rows per table partition")
+                    .tag("table", table)
+                    .tag("partition", partition)
+                    .register(meterRegistry));
+            meters.add(Gauge.builder("audit.partition.bytes", bytes, AtomicLong::get)
+                    .description("Data and index bytes per table partition")
+                    .baseUnit("bytes")
+                    .tag("table", table)
+                    .tag("partition", partition)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -151,12 +151,12 @@ public class AuditLogAspect {
             auditLog.setExecutionTime(executionTime);
             auditLog.setOperationTime(LocalDateTime.now());
 
-            // 记录审计日志
+            // 记录审计日志，同步模式也只入队，由写入管道批量落库
             try {
                 if (audit.async()) {
                     auditService.sendAuditLogAsync(auditLog);
                 } else {
-                    auditService.recordAuditLog(auditLog);
+                    auditService.submitAuditLog(auditLog);
                 }
             } catch (Exception e) {
                 log.error("记录审计日志失败", e);
@@ -0,0 +1,85 @@
+package com.qoobot.openidaas.audit.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 审计日志 Kafka 消费配置
+ * 批量监听、手动提交位点：每次拉取的消息落库后才提交；
+ * 无法处理的消息（反序列化失败、缺少必填字段）不重试，直接转入死信主题，
+ * 落库失败按固定间隔重试整批，重试耗尽后同样转入死信主题
+ *
+ * @author QooBot
+ */
+@Configuration
+public class AuditKafkaConfig {
+
+    public static final String BATCH_LISTENER_FACTORY = "auditBatchListenerFactory";
+
+    @Value("${audit.kafka.dead-letter-topic:audit-log-topic.DLT}")
+    private String deadLetterTopic;
+
+    @Value("${audit.kafka.consumer.concurrency:3}")
+    private int concurrency;
+
+    @Value("${audit.kafka.consumer.retry-interval-ms:1000}")
+    private long retryIntervalMs;
+
+    @Value("${audit.kafka.consumer.max-retries:3}")
+    private long maxRetries;
+
+    @Bean(BATCH_LISTENER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> auditBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            KafkaProperties kafkaProperties) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                deadLetterTemplate(kafkaProperties),
+                // 分区为负数时由生产者选择分区，死信主题无需与源主题分区数一致
+                (record, ex) -> new TopicPartition(deadLetterTopic, -1));
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(retryIntervalMs, maxRetries));
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    /**
+     * 死信消息生产者：反序列化失败的消息按原始字节转发，其余按 JSON 序列化
+     */
+    private KafkaTemplate<String, Object> deadLetterTemplate(KafkaProperties kafkaProperties) {
+        Map<Class<?>, Serializer<?>> delegates = new LinkedHashMap<>();
+        delegates.put(byte[].class, new ByteArraySerializer());
+        delegates.put(Object.class, new JsonSerializer<>());
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null),
+                new StringSerializer(),
+                new DelegatingByTypeSerializer(delegates, true));
+        return new KafkaTemplate<>(producerFactory);
+    }
+}
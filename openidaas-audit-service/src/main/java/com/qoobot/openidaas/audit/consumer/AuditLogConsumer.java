@@ -0,0 +1,119 @@
+package com.qoobot.openidaas.audit.consumer;
+
+import com.qoobot.openidaas.audit.alert.AuditAlertManager;
+import com.qoobot.openidaas.audit.config.AuditKafkaConfig;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.audit.metrics.AuditMetricsCollector;
+import com.qoobot.openidaas.audit.pipeline.AuditLogBatchWriter;
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 审计日志 Kafka 消费者
+ * 每次拉取的消息按事件ID去重（批内去重 + 查询已落库的事件ID），以多行 INSERT 一次写入，
+ * 写库成功后才手动提交位点；重复投递的消息不会重复记录。查询只是减少无效写入，
+ * 再均衡期间两个消费者同时写入同一事件时，由 event_id 唯一索引与 INSERT ... ON DUPLICATE KEY UPDATE 保证只落库一次
+ *
+ * 遇到无法处理的消息时，先写入其之前的消息，再由错误处理器提交位点并将该消息转入死信主题
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogConsumer {
+
+    private static final int MAX_EVENT_ID_LENGTH = 64;
+
+    private final AuditLogBatchWriter batchWriter;
+    private final AuditLogMapper auditLogMapper;
+    private final AuditMetricsCollector metricsCollector;
+    private final AuditAlertManager alertManager;
+
+    @KafkaListener(id = "auditLogConsumer",
+            topics = "${audit.kafka.topic:audit-log-topic}",
+            groupId = "${spring.kafka.consumer.group-id:audit-service-group}",
+            containerFactory = AuditKafkaConfig.BATCH_LISTENER_FACTORY,
+            autoStartup = "${audit.kafka.consumer.auto-startup:true}")
+    public void consume(List<ConsumerRecord<String, AuditLogCreateDTO>> records, Acknowledgment ack) {
+        int poisonIndex = firstPoisonIndex(records);
+        persist(poisonIndex < 0 ? records : records.subList(0, poisonIndex));
+        if (poisonIndex >= 0) {
+            ConsumerRecord<String, AuditLogCreateDTO> poison = records.get(poisonIndex);
+            log.warn("无法处理的审计日志消息，转入死信主题，partition: {}，offset: {}",
+                    poison.partition(), poison.offset());
+            throw new BatchListenerFailedException("无法处理的审计日志消息",
+                    new IllegalArgumentException("消息为空、缺少操作类型或事件ID过长"), poisonIndex);
+        }
+        ack.acknowledge();
+    }
+
+    private void persist(List<ConsumerRecord<String, AuditLogCreateDTO>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<String, AuditLogCreateDTO> unique = new LinkedHashMap<>(records.size() * 2);
+        for (ConsumerRecord<String, AuditLogCreateDTO> record : records) {
+            AuditLogCreateDTO createDTO = record.value();
+            createDTO.setEventId(eventId(record));
+            unique.putIfAbsent(createDTO.getEventId(), createDTO);
+        }
+        Set<String> existing = new HashSet<>(auditLogMapper.selectExistingEventIds(unique.keySet()));
+        List<AuditLogCreateDTO> fresh = new ArrayList<>(unique.size());
+        for (AuditLogCreateDTO createDTO : unique.values()) {
+            if (!existing.contains(createDTO.getEventId())) {
+                fresh.add(createDTO);
+            }
+        }
+
+        try {
+            batchWriter.write(fresh);
+        } catch (RuntimeException e) {
+            // 由容器的错误处理器重试，这里只计入告警窗口
+            alertManager.recordError("consumeAuditLogs", e.getMessage(), fresh.size());
+            throw e;
+        }
+        alertManager.recordSuccess(fresh.size());
+        metricsCollector.incrementAsyncLogs(fresh.size());
+        log.debug("消费审计日志消息，数量：{}，写入：{}，重复：{}", records.size(), fresh.size(), records.size() - fresh.size());
+    }
+
+    /**
+     * 事件ID依次取消息体、消息键；都没有时以主题、分区与位点生成，重复投递时保持不变
+     */
+    private static String eventId(ConsumerRecord<String, AuditLogCreateDTO> record) {
+        if (StringUtils.isNotBlank(record.value().getEventId())) {
+            return record.value().getEventId();
+        }
+        if (StringUtils.isNotBlank(record.key())) {
+            return record.key();
+        }
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    private static int firstPoisonIndex(List<ConsumerRecord<String, AuditLogCreateDTO>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, AuditLogCreateDTO> record = records.get(i);
+            // 反序列化失败的消息值为 null
+            if (record.value() == null || StringUtils.isBlank(record.value().getOperationType())
+                    || eventId(record).length() > MAX_EVENT_ID_LENGTH) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
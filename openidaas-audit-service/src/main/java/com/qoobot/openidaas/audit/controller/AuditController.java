@@ -1,9 +1,11 @@
 package com.qoobot.openidaas.audit.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.qoobot.openidaas.audit.export.AuditExportFormat;
 import com.qoobot.openidaas.audit.service.AuditService;
 import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
 import com.qoobot.openidaas.common.dto.audit.AuditLogQueryDTO;
+import com.qoobot.openidaas.common.vo.CursorPageResultVO;
 import com.qoobot.openidaas.common.vo.ResultVO;
 import com.qoobot.openidaas.common.vo.audit.AuditLogVO;
 import com.qoobot.openidaas.common.vo.audit.AuditStatisticsVO;
@@ -17,6 +19,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.net.URLEncoder;
@@ -113,6 +116,45 @@ public class AuditController {
         return ResultVO.success(page);
     }
 
+    /**
+     * 游标分页查询审计日志
+     */
+    @GetMapping("/logs/cursor")
+    @Operation(summary = "游标分页查询审计日志", description = "按操作时间倒序游标分页查询审计日志，使用上一页返回的 nextCursor 获取下一页")
+    public ResultVO<CursorPageResultVO<AuditLogVO>> queryAuditLogsByCursor(
+            @Parameter(description = "游标，首页为空") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "20") Integer size,
+            @Parameter(description = "是否统计总记录数") @RequestParam(defaultValue = "false") Boolean withTotal,
+            @Parameter(description = "用户ID筛选") @RequestParam(required = false) Long operatorId,
+            @Parameter(description = "操作类型筛选") @RequestParam(required = false) String operationType,
+            @Parameter(description = "模块筛选") @RequestParam(required = false) String module,
+            @Parameter(description = "操作结果筛选") @RequestParam(required = false) String result,
+            @Parameter(description = "租户ID筛选") @RequestParam(required = false) Long tenantId,
+            @Parameter(description = "开始时间") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+        AuditLogQueryDTO queryDTO = new AuditLogQueryDTO();
+        queryDTO.setCursor(cursor);
+        queryDTO.setSize(size);
+        queryDTO.setWithTotal(withTotal);
+        queryDTO.setOperatorId(operatorId);
+        queryDTO.setOperationType(operationType);
+        queryDTO.setModule(module);
+        queryDTO.setResult(result);
+        queryDTO.setTenantId(tenantId);
+        queryDTO.setStartTime(startTime);
+        queryDTO.setEndTime(endTime);
+        return ResultVO.success(auditService.queryAuditLogsByCursor(queryDTO));
+    }
+
+    /**
+     * 按条件游标分页查询审计日志
+     */
+    @PostMapping("/logs/query/cursor")
+    @Operation(summary = "按条件游标分页查询审计日志", description = "根据条件游标分页查询审计日志，page 参数被忽略")
+    public ResultVO<CursorPageResultVO<AuditLogVO>> queryAuditLogsByCursor(@RequestBody AuditLogQueryDTO queryDTO) {
+        return ResultVO.success(auditService.queryAuditLogsByCursor(queryDTO));
+    }
+
     /**
      * 获取用户操作日志
      */
@@ -228,6 +270,18 @@ public class AuditController {
         return ResultVO.success(statistics);
     }
 
+    /**
+     * 重算统计汇总
+     */
+    @PostMapping("/statistics/rollup/rebuild")
+    @Operation(summary = "重算统计汇总", description = "按天从原始审计日志重算指定时间范围的统计汇总，仅支持今天之前的数据")
+    public ResultVO<Long> rebuildStatisticsRollup(
+            @Parameter(description = "开始时间") @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+        long count = auditService.rebuildStatisticsRollup(startTime, endTime);
+        return ResultVO.success(count);
+    }
+
     /**
      * 统计指定时间范围内的操作次数
      */
@@ -290,21 +344,24 @@ public class AuditController {
      * 导出审计日志
      */
     @GetMapping("/logs/export")
-    @Operation(summary = "导出审计日志", description = "导出指定时间范围内的审计日志为Excel文件")
-    public ResponseEntity<byte[]> exportAuditLogs(
+    @Operation(summary = "导出审计日志", description = "流式导出指定时间范围内的审计日志，支持 xlsx、csv、ndjson 格式")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
             @Parameter(description = "开始时间") @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
-            @Parameter(description = "结束时间") @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+            @Parameter(description = "结束时间") @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @Parameter(description = "导出格式：xlsx、csv、ndjson") @RequestParam(defaultValue = "xlsx") String format) {
 
-        byte[] data = auditService.exportAuditLogs(startTime, endTime);
-        String filename = "审计日志_" + startTime.toString() + "_至_" + endTime.toString() + ".xlsx";
+        AuditExportFormat exportFormat = AuditExportFormat.of(format);
+        String filename = "审计日志_" + startTime.toString() + "_至_" + endTime.toString() + "." + exportFormat.getExtension();
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         headers.setContentDispositionFormData("attachment", URLEncoder.encode(filename, StandardCharsets.UTF_8));
 
+        // 响应体在请求线程之外边查询边写出，不预先计算长度，以分块传输返回
+        StreamingResponseBody body = outputStream -> auditService.exportAuditLogs(startTime, endTime, exportFormat, outputStream);
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(data);
+                .body(body);
     }
 
     /**
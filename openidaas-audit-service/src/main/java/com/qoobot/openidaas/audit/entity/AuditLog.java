@@ -130,6 +130,11 @@ public class AuditLog extends BaseEntity {
      */
     private Long appId;
 
+    /**
+     * 事件ID（幂等键）
+     */
+    private String eventId;
+
     /**
      * 创建时间
      */
@@ -0,0 +1,34 @@
+package com.qoobot.openidaas.audit.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 操作人汇总行：某粒度时间桶内高频操作人的近似操作次数（由 Space-Saving 草图产生）
+ *
+ * @author QooBot
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditOperatorRollup {
+
+    /**
+     * 粒度：HOUR/DAY
+     */
+    private String granularity;
+
+    /**
+     * 时间桶起始时间
+     */
+    private LocalDateTime bucketTime;
+
+    private Long operatorId;
+
+    private String operatorName;
+
+    private Long eventCount;
+}
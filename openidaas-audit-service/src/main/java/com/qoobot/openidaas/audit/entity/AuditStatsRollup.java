@@ -0,0 +1,39 @@
+package com.qoobot.openidaas.audit.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 审计统计汇总行：某粒度时间桶内按租户、模块、操作类型、操作结果分组的日志数
+ * 维度为空时以 0 或空字符串存储，保证唯一键可用于累加写入
+ *
+ * @author QooBot
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditStatsRollup {
+
+    /**
+     * 粒度：MINUTE/HOUR/DAY
+     */
+    private String granularity;
+
+    /**
+     * 时间桶起始时间
+     */
+    private LocalDateTime bucketTime;
+
+    private Long tenantId;
+
+    private String module;
+
+    private String operationType;
+
+    private String result;
+
+    private Long eventCount;
+}
@@ -0,0 +1,34 @@
+package com.qoobot.openidaas.audit.export;
+
+import com.qoobot.openidaas.common.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 审计日志导出格式
+ *
+ * @author QooBot
+ */
+@Getter
+@AllArgsConstructor
+public enum AuditExportFormat {
+
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV("csv", "text/csv;charset=UTF-8"),
+    NDJSON("ndjson", "application/x-ndjson");
+
+    private final String extension;
+    private final String contentType;
+
+    /**
+     * 按扩展名（不区分大小写）解析导出格式
+     */
+    public static AuditExportFormat of(String format) {
+        for (AuditExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new BusinessException("不支持的导出格式：" + format);
+    }
+}
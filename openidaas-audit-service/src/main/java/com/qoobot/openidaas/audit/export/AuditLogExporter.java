@@ -0,0 +1,275 @@
+package com.qoobot.openidaas.audit.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qoobot.openidaas.audit.converter.AuditLogConverter;
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 审计日志流式导出
+ * 按 (operation_time, id) 键集分页逐块读取，每块写出后即可回收，不持有长事务或数据库游标；
+ * XLSX 使用 SXSSF 固定行窗口，CSV 与 NDJSON 逐行写出，导出任意行数时堆内存占用恒定
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogExporter {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] HEADERS = {"操作时间", "操作类型", "操作描述", "操作人", "操作人IP", "操作结果", "执行耗时", "模块", "目标"};
+
+    private static final int[] COLUMN_WIDTHS = {20, 14, 40, 16, 18, 10, 10, 14, 24};
+
+    private final AuditLogMapper auditLogMapper;
+    private final AuditLogConverter auditLogConverter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${audit.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    @Value("${audit.export.window-size:100}")
+    private int windowSize = 100;
+
+    @Value("${audit.export.max-rows:0}")
+    private long maxRows = 0;
+
+    /**
+     * 将时间范围内的审计日志按指定格式写入输出流，返回导出条数
+     */
+    public long export(LocalDateTime startTime, LocalDateTime endTime, AuditExportFormat format, OutputStream out)
+            throws IOException {
+        RowSink sink = switch (format) {
+            case XLSX -> new XlsxSink(windowSize);
+            case CSV -> new CsvSink(out);
+            case NDJSON -> new NdjsonSink(out, auditLogConverter, objectMapper);
+        };
+        try {
+            long count = 0;
+            int chunkSize = Math.max(1, fetchSize);
+            LocalDateTime afterTime = null;
+            Long afterId = null;
+            while (maxRows <= 0 || count < maxRows) {
+                int limit = maxRows > 0 ? (int) Math.min(chunkSize, maxRows - count) : chunkSize;
+                List<AuditLog> chunk = auditLogMapper.selectExportChunk(startTime, endTime, afterTime, afterId, limit);
+                for (AuditLog auditLog : chunk) {
+                    sink.write(auditLog);
+                }
+                count += chunk.size();
+                if (chunk.size() < limit) {
+                    break;
+                }
+                AuditLog last = chunk.get(chunk.size() - 1);
+                afterTime = last.getOperationTime();
+                afterId = last.getId();
+            }
+            sink.finish(out);
+            log.debug("导出审计日志完成，格式：{}，数量：{}", format, count);
+            return count;
+        } finally {
+            sink.close();
+        }
+    }
+
+    private interface RowSink {
+
+        void write(AuditLog auditLog) throws IOException;
+
+        void finish(OutputStream out) throws IOException;
+
+        default void close() throws IOException {
+        }
+    }
+
+    /**
+     * SXSSF 只在内存中保留最近 windowSize 行，其余行刷到压缩临时文件；
+     * 超过单表行数上限时续写到新工作表
+     */
+    private static final class XlsxSink implements RowSink {
+
+        private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+        private final SXSSFWorkbook workbook;
+        private final CellStyle headerStyle;
+        private SXSSFSheet sheet;
+        private int sheetCount;
+        private int rowNum;
+
+        XlsxSink(int windowSize) {
+            this.workbook = new SXSSFWorkbook(Math.max(1, windowSize));
+            this.workbook.setCompressTempFiles(true);
+            this.headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            newSheet();
+        }
+
+        private void newSheet() {
+            sheetCount++;
+            sheet = workbook.createSheet(sheetCount == 1 ? "审计日志" : "审计日志" + sheetCount);
+            // 流式写入无法按内容自动调整列宽，使用固定列宽
+            for (int i = 0; i < COLUMN_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+            }
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                headerRow.createCell(i).setCellValue(HEADERS[i]);
+                headerRow.getCell(i).setCellStyle(headerStyle);
+            }
+            rowNum = 1;
+        }
+
+        @Override
+        public void write(AuditLog auditLog) {
+            if (rowNum >= MAX_ROWS_PER_SHEET) {
+                newSheet();
+            }
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(formatTime(auditLog.getOperationTime()));
+            row.createCell(1).setCellValue(nullToEmpty(auditLog.getOperationType()));
+            row.createCell(2).setCellValue(nullToEmpty(auditLog.getOperationDesc()));
+            row.createCell(3).setCellValue(nullToEmpty(auditLog.getOperatorName()));
+            row.createCell(4).setCellValue(nullToEmpty(auditLog.getOperatorIp()));
+            row.createCell(5).setCellValue(nullToEmpty(auditLog.getResult()));
+            row.createCell(6).setCellValue(auditLog.getExecutionTime() != null ? auditLog.getExecutionTime() : 0);
+            row.createCell(7).setCellValue(nullToEmpty(auditLog.getModule()));
+            row.createCell(8).setCellValue(nullToEmpty(auditLog.getTargetName()));
+        }
+
+        @Override
+        public void finish(OutputStream out) throws IOException {
+            workbook.write(out);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // 删除临时文件
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV，带 UTF-8 BOM 以便 Excel 正确识别中文
+     */
+    private static final class CsvSink implements RowSink {
+
+        private final Writer writer;
+
+        CsvSink(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write('\uFEFF');
+            writeLine(HEADERS);
+        }
+
+        @Override
+        public void write(AuditLog auditLog) throws IOException {
+            writeLine(new String[]{
+                    formatTime(auditLog.getOperationTime()),
+                    auditLog.getOperationType(),
+                    auditLog.getOperationDesc(),
+                    auditLog.getOperatorName(),
+                    auditLog.getOperatorIp(),
+                    auditLog.getResult(),
+                    String.valueOf(auditLog.getExecutionTime() != null ? auditLog.getExecutionTime() : 0),
+                    auditLog.getModule(),
+                    auditLog.getTargetName()});
+        }
+
+        private void writeLine(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(values[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish(OutputStream out) throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * 每行一个完整的审计日志 JSON 对象
+     */
+    private static final class NdjsonSink implements RowSink {
+
+        private final OutputStream out;
+        private final AuditLogConverter converter;
+        private final ObjectMapper objectMapper;
+
+        NdjsonSink(OutputStream out, AuditLogConverter converter, ObjectMapper objectMapper) {
+            this.out = new BufferedOutputStream(out, 64 * 1024);
+            this.converter = converter;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void write(AuditLog auditLog) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(converter.toVO(auditLog)));
+            out.write('\n');
+        }
+
+        @Override
+        public void finish(OutputStream ignored) throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * 含分隔符、引号或换行的字段加引号；以公式字符开头的字段加单引号前缀，防止在表格软件中被当作公式执行
+     */
+    static String escape(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private static String formatTime(LocalDateTime time) {
+        return time != null ? time.format(DATE_FORMATTER) : "";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
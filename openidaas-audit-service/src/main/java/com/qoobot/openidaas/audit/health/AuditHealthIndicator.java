@@ -43,6 +43,16 @@ public class AuditHealthIndicator implements HealthIndicator {
         lastError = error;
     }
     
+    /**
+     * 批量记录处理结果
+     */
+    public void recordBatch(int success, int failure, String lastFailure) {
+        successCount.addAndGet(success);
+        failureCount.addAndGet(failure);
+        lastProcessedTime = System.currentTimeMillis();
+        lastError = failure > 0 ? lastFailure : null;
+    }
+    
     /**
      * 重置计数器
      */
@@ -1,5 +1,6 @@
 package com.qoobot.openidaas.audit.log;
 
+import com.qoobot.openidaas.audit.alert.AuditAlertManager;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -16,9 +17,11 @@ import org.springframework.stereotype.Component;
 public class LogAnalysisAspect {
 
     private final StructuredLogger structuredLogger;
+    private final AuditAlertManager alertManager;
 
-    public LogAnalysisAspect(StructuredLogger structuredLogger) {
+    public LogAnalysisAspect(StructuredLogger structuredLogger, AuditAlertManager alertManager) {
         this.structuredLogger = structuredLogger;
+        this.alertManager = alertManager;
     }
 
     /**
@@ -37,6 +40,8 @@ public class LogAnalysisAspect {
             if (duration > 1000) {
                 structuredLogger.logSlowQuery("Mapper", methodName, duration, 1000);
             }
+            // 慢查询告警按窗口计数
+            alertManager.recordQuery(methodName, duration);
             
             return result;
         } catch (Exception e) {
@@ -4,11 +4,13 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.common.dto.audit.AuditLogQueryDTO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -70,6 +72,46 @@ public interface AuditLogMapper extends BaseMapper<AuditLog> {
             @Param("endTime") LocalDateTime endTime,
             Page<AuditLog> page);
 
+    /**
+     * 游标分页查询：按 (operation_time, id) 倒序，从游标位置之后定位读取 limit 条；
+     * cursorTime 为空时读取第一页
+     */
+    List<AuditLog> selectByCursor(
+            @Param("query") AuditLogQueryDTO query,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit);
+
+    /**
+     * 统计满足查询条件的审计日志数量
+     */
+    long countByQuery(@Param("query") AuditLogQueryDTO query);
+
+    /**
+     * 按 (operation_time, id) 键集分页读取时间范围内的审计日志，用于流式导出；
+     * afterTime 为空时从头读取
+     */
+    List<AuditLog> selectExportChunk(
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            @Param("afterTime") LocalDateTime afterTime,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    /**
+     * 多行插入审计日志，单条语句写入整批记录；
+     * 事件ID已存在的行由唯一索引拦下并跳过（ON DUPLICATE KEY UPDATE id = id 不修改已有行），事件ID为空的行不受影响
+     */
+    int insertBatch(@Param("list") List<AuditLog> auditLogs);
+
+    /**
+     * 查询已记录的事件ID，消费端写入前先行过滤重复消息；并发写入同一事件时由 insertBatch 的唯一索引保证幂等
+     */
+    @Select("<script>SELECT event_id FROM audit_logs WHERE event_id IN " +
+            "<foreach collection='eventIds' item='eventId' open='(' separator=',' close=')'>#{eventId}</foreach>" +
+            "</script>")
+    List<String> selectExistingEventIds(@Param("eventIds") Collection<String> eventIds);
+
     /**
      * 统计指定时间范围内的操作次数
      */
@@ -0,0 +1,66 @@
+package com.qoobot.openidaas.audit.mapper;
+
+import com.qoobot.openidaas.audit.entity.AuditOperatorRollup;
+import com.qoobot.openidaas.audit.entity.AuditStatsRollup;
+import com.qoobot.openidaas.audit.rollup.RollupSegment;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 审计统计汇总Mapper
+ *
+ * @author QooBot
+ */
+@Mapper
+public interface AuditRollupMapper {
+
+    /**
+     * 累加写入统计汇总行，唯一键冲突时计数相加
+     */
+    int upsertStats(@Param("list") List<AuditStatsRollup> rows);
+
+    /**
+     * 累加写入操作人汇总行，唯一键冲突时计数相加
+     */
+    int upsertOperators(@Param("list") List<AuditOperatorRollup> rows);
+
+    /**
+     * 合并各区间片段的汇总行，按模块、操作类型、操作结果分组求和
+     */
+    List<AuditStatsRollup> sumStats(@Param("segments") List<RollupSegment> segments);
+
+    /**
+     * 合并各区间片段的操作人汇总行，返回次数最多的 limit 个操作人
+     */
+    List<AuditOperatorRollup> selectTopOperators(
+            @Param("segments") List<RollupSegment> segments,
+            @Param("limit") int limit);
+
+    /**
+     * 删除指定粒度下早于 before 的统计汇总行
+     */
+    @Delete("DELETE FROM audit_stats_rollup WHERE granularity = #{granularity} AND bucket_time < #{before}")
+    int deleteStatsBefore(@Param("granularity") String granularity, @Param("before") LocalDateTime before);
+
+    /**
+     * 删除指定粒度下早于 before 的操作人汇总行
+     */
+    @Delete("DELETE FROM audit_operator_rollup WHERE granularity = #{granularity} AND bucket_time < #{before}")
+    int deleteOperatorsBefore(@Param("granularity") String granularity, @Param("before") LocalDateTime before);
+
+    /**
+     * 删除 [from, to) 内所有粒度的统计汇总行
+     */
+    @Delete("DELETE FROM audit_stats_rollup WHERE bucket_time >= #{from} AND bucket_time < #{to}")
+    int deleteStatsRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 删除 [from, to) 内所有粒度的操作人汇总行
+     */
+    @Delete("DELETE FROM audit_operator_rollup WHERE bucket_time >= #{from} AND bucket_time < #{to}")
+    int deleteOperatorsRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -1,22 +1,52 @@
 package com.qoobot.openidaas.audit.metrics;
 
+import com.qoobot.openidaas.audit.util.SpaceSavingSketch;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 审计日志指标收集器
  * 使用Micrometer收集和暴露审计相关的指标
+ *
+ * 带标签的 Counter 注册一次后缓存复用，热路径不再查找注册表；标签取值数量有上限：
+ * 操作类型、模块最多 max-tag-values 个，租户只为高频的前 tenant-top-n 个保留独立标签，其余计入 other
  */
 @Slf4j
 @Component
 public class AuditMetricsCollector {
 
+    private static final String OPERATION_TYPE_METRIC = "audit.logs.by.operation.type";
+    private static final String MODULE_METRIC = "audit.logs.by.module";
+    private static final String TENANT_METRIC = "audit.logs.by.tenant";
+    private static final String OTHER_TAG = "other";
+    private static final String UNKNOWN_TAG = "unknown";
+    private static final int TENANT_SKETCH_CAPACITY = 1024;
+
     private final MeterRegistry meterRegistry;
+
+    @Value("${audit.metrics.max-tag-values:100}")
+    private int maxTagValues = 100;
+
+    @Value("${audit.metrics.tenant-top-n:50}")
+    private int tenantTopN = 50;
+
+    @Value("${audit.metrics.tenant-refresh-ms:60000}")
+    private long tenantRefreshMs = 60000;
     
     // 审计日志总数
     private final Counter totalLogsCounter;
@@ -30,15 +60,6 @@ public class AuditMetricsCollector {
     // 异步审计日志数
     private final Counter asyncLogsCounter;
     
-    // 按操作类型统计的Counter
-    private final Counter operationTypeCounter;
-    
-    // 按模块统计的Counter
-    private final Counter moduleCounter;
-    
-    // 按租户统计的Counter
-    private final Counter tenantCounter;
-    
     // 审计日志记录耗时Timer
     private final Timer recordLogTimer;
     
@@ -48,6 +69,20 @@ public class AuditMetricsCollector {
     // 审计日志导出耗时Timer
     private final Timer exportLogTimer;
 
+    // 按操作类型、模块缓存的Counter
+    private final ConcurrentHashMap<String, Counter> operationTypeCounters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> moduleCounters = new ConcurrentHashMap<>();
+
+    // 拥有独立标签的租户Counter，增删都在 tenantSketch 锁内
+    private final Map<Long, Counter> tenantCounters = new HashMap<>();
+    private final Counter otherTenantCounter;
+    private final Counter unknownTenantCounter;
+    private final SpaceSavingSketch<Long> tenantSketch = new SpaceSavingSketch<>(TENANT_SKETCH_CAPACITY);
+    private long tenantRefreshedAt = System.nanoTime();
+
+    // 自定义Gauge的当前值
+    private final ConcurrentHashMap<String, AtomicReference<Double>> gaugeValues = new ConcurrentHashMap<>();
+
     public AuditMetricsCollector(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
         
@@ -72,20 +107,8 @@ public class AuditMetricsCollector {
                 .tag("service", "audit-service")
                 .register(meterRegistry);
         
-        this.operationTypeCounter = Counter.builder("audit.logs.by.operation.type")
-                .description("Audit logs by operation type")
-                .tag("service", "audit-service")
-                .register(meterRegistry);
-        
-        this.moduleCounter = Counter.builder("audit.logs.by.module")
-                .description("Audit logs by module")
-                .tag("service", "audit-service")
-                .register(meterRegistry);
-        
-        this.tenantCounter = Counter.builder("audit.logs.by.tenant")
-                .description("Audit logs by tenant")
-                .tag("service", "audit-service")
-                .register(meterRegistry);
+        this.otherTenantCounter = buildTenantCounter(OTHER_TAG);
+        this.unknownTenantCounter = buildTenantCounter(UNKNOWN_TAG);
         
         // 初始化Timers
         this.recordLogTimer = Timer.builder("audit.log.record.duration")
@@ -132,49 +155,150 @@ public class AuditMetricsCollector {
      * 记录异步审计日志
      */
     public void incrementAsyncLogs() {
-        asyncLogsCounter.increment();
-        log.debug("Async audit logs counter incremented");
+        incrementAsyncLogs(1);
     }
-    
+
+    /**
+     * 批量记录异步审计日志
+     */
+    public void incrementAsyncLogs(long count) {
+        if (count > 0) {
+            asyncLogsCounter.increment(count);
+        }
+    }
+
     /**
      * 按操作类型记录审计日志
      */
     public void incrementByOperationType(String operationType) {
-        Counter.builder("audit.logs.by.operation.type")
-                .tag("service", "audit-service")
-                .tag("operation_type", operationType)
-                .description("Audit logs by operation type")
-                .register(meterRegistry)
-                .increment();
-        log.debug("Audit logs by operation type {} incremented", operationType);
+        operationTypeCounter(operationType).increment();
     }
-    
+
     /**
      * 按模块记录审计日志
      */
     public void incrementByModule(String module) {
-        Counter.builder("audit.logs.by.module")
-                .tag("service", "audit-service")
-                .tag("module", module)
-                .description("Audit logs by module")
-                .register(meterRegistry)
-                .increment();
-        log.debug("Audit logs by module {} incremented", module);
+        moduleCounter(module).increment();
     }
-    
+
     /**
      * 按租户记录审计日志
      */
     public void incrementByTenant(Long tenantId) {
-        Counter.builder("audit.logs.by.tenant")
-                .tag("service", "audit-service")
-                .tag("tenant_id", tenantId != null ? String.valueOf(tenantId) : "unknown")
+        incrementByTenant(Collections.singletonMap(tenantId, 1L));
+    }
+
+    /**
+     * 批量记录审计日志数量，按结果、操作类型、模块、租户汇总后每个指标只更新一次
+     */
+    public void incrementBatch(long success, long failed,
+                               Map<String, Long> byOperationType,
+                               Map<String, Long> byModule,
+                               Map<Long, Long> byTenant) {
+        totalLogsCounter.increment(success + failed);
+        successLogsCounter.increment(success);
+        failedLogsCounter.increment(failed);
+        byOperationType.forEach((operationType, count) -> operationTypeCounter(operationType).increment(count));
+        byModule.forEach((module, count) -> moduleCounter(module).increment(count));
+        incrementByTenant(byTenant);
+        log.debug("Batch audit logs counters incremented, success: {}, failed: {}", success, failed);
+    }
+
+    /**
+     * 租户按 Space-Saving 草图估计的前 tenant-top-n 名使用独立标签，其余计入 other；
+     * 每 tenant-refresh-ms 重新评估一次，跌出前列的租户移除其 Counter（重新进入时从 0 计数）。
+     * 每次评估后草图计数减半，排名反映近几个周期的流量，历史上的大租户安静后会让出独立标签
+     */
+    private void incrementByTenant(Map<Long, Long> byTenant) {
+        if (byTenant.isEmpty()) {
+            return;
+        }
+        Map<Counter, Long> increments = new HashMap<>();
+        synchronized (tenantSketch) {
+            byTenant.forEach((tenantId, count) -> {
+                if (tenantId != null) {
+                    tenantSketch.offer(tenantId, count);
+                }
+            });
+            long now = System.nanoTime();
+            if (now - tenantRefreshedAt >= TimeUnit.MILLISECONDS.toNanos(tenantRefreshMs)) {
+                refreshTenantCounters();
+                tenantSketch.decay();
+                tenantRefreshedAt = now;
+            }
+            byTenant.forEach((tenantId, count) -> increments.merge(tenantCounter(tenantId), count, Long::sum));
+        }
+        increments.forEach(Counter::increment);
+    }
+
+    private Counter tenantCounter(Long tenantId) {
+        if (tenantId == null) {
+            return unknownTenantCounter;
+        }
+        Counter counter = tenantCounters.get(tenantId);
+        if (counter != null) {
+            return counter;
+        }
+        // 未满 tenant-top-n 时新租户直接获得独立标签，满后等待下次评估
+        if (tenantCounters.size() >= tenantTopN) {
+            return otherTenantCounter;
+        }
+        counter = buildTenantCounter(String.valueOf(tenantId));
+        tenantCounters.put(tenantId, counter);
+        return counter;
+    }
+
+    private void refreshTenantCounters() {
+        Set<Long> top = new HashSet<>();
+        for (SpaceSavingSketch.Entry<Long> entry : tenantSketch.top(tenantTopN)) {
+            top.add(entry.getKey());
+        }
+        tenantCounters.entrySet().removeIf(entry -> {
+            if (top.contains(entry.getKey())) {
+                return false;
+            }
+            meterRegistry.remove(entry.getValue());
+            return true;
+        });
+    }
+
+    private Counter buildTenantCounter(String tenantTag) {
+        return Counter.builder(TENANT_METRIC)
                 .description("Audit logs by tenant")
-                .register(meterRegistry)
-                .increment();
-        log.debug("Audit logs by tenant {} incremented", tenantId);
+                .tag("service", "audit-service")
+                .tag("tenant_id", tenantTag)
+                .register(meterRegistry);
     }
-    
+
+    private Counter operationTypeCounter(String operationType) {
+        return taggedCounter(operationTypeCounters, OPERATION_TYPE_METRIC, "Audit logs by operation type",
+                "operation_type", operationType);
+    }
+
+    private Counter moduleCounter(String module) {
+        return taggedCounter(moduleCounters, MODULE_METRIC, "Audit logs by module", "module", module);
+    }
+
+    /**
+     * 取缓存的带标签 Counter；不同取值达到 max-tag-values 后新取值计入 other
+     */
+    private Counter taggedCounter(ConcurrentHashMap<String, Counter> counters, String name, String description,
+                                  String tagKey, String tagValue) {
+        String value = tagValue != null ? tagValue : UNKNOWN_TAG;
+        Counter counter = counters.get(value);
+        if (counter != null) {
+            return counter;
+        }
+        if (counters.size() >= maxTagValues) {
+            value = OTHER_TAG;
+        }
+        return counters.computeIfAbsent(value, key -> Counter.builder(name)
+                .description(description)
+                .tag("service", "audit-service")
+                .tag(tagKey, key)
+                .register(meterRegistry));
+    }
+
     /**
      * 记录审计日志记录耗时
      */
@@ -218,13 +342,17 @@ public class AuditMetricsCollector {
     }
     
     /**
-     * 记录自定义指标
+     * 记录自定义指标，同名同标签的Gauge只注册一次，之后只更新取值
      */
     public void recordCustomMetric(String name, String description, double value, String... tags) {
-        io.micrometer.core.instrument.Gauge.builder(name, () -> value)
-                .description(description)
-                .tags(tags)
-                .register(meterRegistry);
+        gaugeValues.computeIfAbsent(name + Arrays.toString(tags), key -> {
+            AtomicReference<Double> holder = new AtomicReference<>(value);
+            Gauge.builder(name, holder, AtomicReference::get)
+                    .description(description)
+                    .tags(tags)
+                    .register(meterRegistry);
+            return holder;
+        }).set(value);
     }
     
     /**
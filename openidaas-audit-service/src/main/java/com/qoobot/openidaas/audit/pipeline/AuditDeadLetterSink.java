@@ -0,0 +1,20 @@
+package com.qoobot.openidaas.audit.pipeline;
+
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+
+/**
+ * 审计日志死信渠道
+ * 写入管道重试并拆分批次后仍无法落库的单条日志交给该渠道保存，不影响同批其他日志；在写入线程中调用
+ *
+ * @author QooBot
+ */
+public interface AuditDeadLetterSink {
+
+    /**
+     * 保存一条无法落库的审计日志
+     *
+     * @param createDTO 审计日志
+     * @param cause     最后一次写入失败的异常
+     */
+    void send(AuditLogCreateDTO createDTO, Exception cause);
+}
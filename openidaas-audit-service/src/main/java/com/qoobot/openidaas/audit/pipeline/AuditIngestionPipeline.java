@@ -0,0 +1,326 @@
+package com.qoobot.openidaas.audit.pipeline;
+
+import com.qoobot.openidaas.audit.alert.AuditAlertManager;
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内审计日志异步写入管道
+ * 业务线程只把审计日志放入无锁环形缓冲区，后台线程按批量大小或刷新间隔（先到者为准）批量写库，
+ * 被审计的接口不再在关键路径上等待数据库写入
+ *
+ * 缓冲区满时按 overflow-policy 处理：CALLER_RUNS 由调用线程同步写入（默认，形成背压且不丢日志），
+ * BLOCK 最多等待 block-timeout-ms 后丢弃，DROP 直接丢弃并计数
+ *
+ * 批量写入失败时先按 retry-backoff-ms 指数退避重试整批（应对数据库短暂不可用），仍失败则对半拆分批次逐段写入，
+ * 直到定位出无法落库的单条日志，只将这些日志交给 {@link AuditDeadLetterSink}，同批其他日志照常写入
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditIngestionPipeline {
+
+    private final AuditLogBatchWriter batchWriter;
+    private final MeterRegistry meterRegistry;
+    private final AuditAlertManager alertManager;
+    private final AuditDeadLetterSink deadLetterSink;
+
+    @Value("${audit.ingestion.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${audit.ingestion.buffer-size:65536}")
+    private int bufferSize = 65536;
+
+    @Value("${audit.ingestion.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${audit.ingestion.flush-interval-ms:200}")
+    private long flushIntervalMs = 200;
+
+    @Value("${audit.ingestion.overflow-policy:CALLER_RUNS}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+
+    @Value("${audit.ingestion.block-timeout-ms:100}")
+    private long blockTimeoutMs = 100;
+
+    @Value("${audit.ingestion.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs = 10000;
+
+    @Value("${audit.ingestion.max-retries:2}")
+    private int maxRetries = 2;
+
+    @Value("${audit.ingestion.retry-backoff-ms:100}")
+    private long retryBackoffMs = 100;
+
+    private AuditRingBuffer<AuditLogCreateDTO> buffer;
+    private volatile boolean running;
+    private Thread worker;
+
+    private Timer flushTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter droppedCounter;
+    private Counter callerRunsCounter;
+    private Counter flushFailedCounter;
+    private Counter flushRetriedCounter;
+
+    @PostConstruct
+    public void start() {
+        buffer = new AuditRingBuffer<>(bufferSize);
+        Gauge.builder("audit.ingestion.queue.depth", buffer, AuditRingBuffer::size)
+                .description("Audit logs waiting in the ingestion buffer")
+                .register(meterRegistry);
+        Gauge.builder("audit.ingestion.queue.capacity", buffer, AuditRingBuffer::capacity)
+                .description("Capacity of the audit ingestion buffer")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("audit.ingestion.flush.duration")
+                .description("Audit ingestion batch flush duration")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("audit.ingestion.batch.size")
+                .description("Audit logs written per flush")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("audit.ingestion.dropped")
+                .description("Audit logs dropped because the ingestion buffer was full")
+                .register(meterRegistry);
+        callerRunsCounter = Counter.builder("audit.ingestion.caller.runs")
+                .description("Audit logs written on the caller thread because the ingestion buffer was full")
+                .register(meterRegistry);
+        flushFailedCounter = Counter.builder("audit.ingestion.flush.failed")
+                .description("Audit logs that could not be written and were sent to the dead-letter sink")
+                .register(meterRegistry);
+        flushRetriedCounter = Counter.builder("audit.ingestion.flush.retried")
+                .description("Audit log batch flushes retried after a write failure")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drain, "audit-ingestion");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("审计日志写入管道关闭超时，未写入数量：{}", buffer.size());
+            return;
+        }
+        // 后台线程退出后才入队的日志
+        List<AuditLogCreateDTO> rest = new ArrayList<>();
+        buffer.drainTo(rest, Integer.MAX_VALUE);
+        flush(rest);
+    }
+
+    /**
+     * 提交审计日志，返回 false 表示因缓冲区已满被丢弃
+     */
+    public boolean submit(AuditLogCreateDTO createDTO) {
+        if (!running) {
+            // 未启用或已关闭时同步写入
+            return writeOnCaller(createDTO);
+        }
+        if (buffer.offer(createDTO)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(worker);
+            }
+            return true;
+        }
+        return switch (overflowPolicy) {
+            case CALLER_RUNS -> {
+                callerRunsCounter.increment();
+                yield writeOnCaller(createDTO);
+            }
+            case BLOCK -> offerWithin(createDTO, TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs)) || drop();
+            case DROP -> drop();
+        };
+    }
+
+    /**
+     * 缓冲区中等待写入的数量
+     */
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    private boolean offerWithin(AuditLogCreateDTO createDTO, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        LockSupport.unpark(worker);
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+            if (buffer.offer(createDTO)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean drop() {
+        droppedCounter.increment();
+        long dropped = (long) droppedCounter.count();
+        if (dropped == 1 || dropped % 1000 == 0) {
+            log.warn("审计日志写入缓冲区已满，累计丢弃：{}", dropped);
+        }
+        return false;
+    }
+
+    private boolean writeOnCaller(AuditLogCreateDTO createDTO) {
+        try {
+            batchWriter.write(List.of(createDTO));
+            alertManager.recordSuccess(1);
+            return true;
+        } catch (Exception e) {
+            log.error("同步写入审计日志失败", e);
+            deadLetter(createDTO, e);
+            return false;
+        }
+    }
+
+    private void drain() {
+        List<AuditLogCreateDTO> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long flushAt = System.nanoTime() + flushIntervalNanos;
+        while (running) {
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            long now = System.nanoTime();
+            if (batch.size() >= batchSize || (!batch.isEmpty() && now - flushAt >= 0)) {
+                flush(batch);
+                flushAt = System.nanoTime() + flushIntervalNanos;
+            } else if (drained == 0) {
+                if (batch.isEmpty()) {
+                    flushAt = now + flushIntervalNanos;
+                }
+                LockSupport.parkNanos(this, Math.max(flushAt - now, 1));
+            }
+        }
+        // 关闭前写出剩余日志
+        do {
+            flush(batch);
+        } while (buffer.drainTo(batch, batchSize) > 0);
+    }
+
+    private void flush(List<AuditLogCreateDTO> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Exception failure = writeWithRetry(batch);
+            if (failure == null) {
+                batchSizeSummary.record(batch.size());
+                alertManager.recordSuccess(batch.size());
+            } else {
+                log.error("批量写入审计日志失败，拆分批次定位失败日志，数量：{}", batch.size(), failure);
+                int written = writeSplit(batch, failure);
+                if (written > 0) {
+                    batchSizeSummary.record(written);
+                    alertManager.recordSuccess(written);
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 写入整批，失败时指数退避重试，返回最后一次失败的异常，写入成功返回 null
+     */
+    private Exception writeWithRetry(List<AuditLogCreateDTO> batch) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                batchWriter.write(batch);
+                return null;
+            } catch (Exception e) {
+                if (attempt >= maxRetries || !backoff(backoffMs)) {
+                    return e;
+                }
+                log.warn("批量写入审计日志失败，{}ms 后第 {} 次重试，数量：{}", backoffMs, attempt + 1, batch.size());
+                flushRetriedCounter.increment();
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    /**
+     * 对半拆分写入已确认失败的批次，单条仍失败的日志转入死信渠道，返回写入成功的条数
+     */
+    private int writeSplit(List<AuditLogCreateDTO> batch, Exception failure) {
+        if (batch.size() == 1) {
+            deadLetter(batch.get(0), failure);
+            return 0;
+        }
+        int written = 0;
+        int middle = batch.size() / 2;
+        for (List<AuditLogCreateDTO> half : List.of(batch.subList(0, middle), batch.subList(middle, batch.size()))) {
+            try {
+                batchWriter.write(half);
+                written += half.size();
+            } catch (Exception e) {
+                written += writeSplit(half, e);
+            }
+        }
+        return written;
+    }
+
+    private boolean backoff(long backoffMs) {
+        // 不使用 LockSupport.park：入队达到批量大小时的唤醒会提前结束退避
+        try {
+            Thread.sleep(backoffMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void deadLetter(AuditLogCreateDTO createDTO, Exception cause) {
+        flushFailedCounter.increment();
+        alertManager.recordError("auditIngestion", cause.getMessage());
+        try {
+            deadLetterSink.send(createDTO, cause);
+        } catch (Exception e) {
+            log.error("审计日志转入死信渠道失败，日志丢失，操作类型：{}，事件ID：{}",
+                    createDTO.getOperationType(), createDTO.getEventId(), e);
+        }
+    }
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /** 由调用线程同步写入 */
+        CALLER_RUNS,
+        /** 等待空位，超时后丢弃 */
+        BLOCK,
+        /** 直接丢弃 */
+        DROP
+    }
+}
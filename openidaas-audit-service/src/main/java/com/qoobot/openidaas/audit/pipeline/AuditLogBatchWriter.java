@@ -0,0 +1,108 @@
+package com.qoobot.openidaas.audit.pipeline;
+
+import com.qoobot.openidaas.audit.converter.AuditLogConverter;
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.health.AuditHealthIndicator;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.audit.metrics.AuditMetricsCollector;
+import com.qoobot.openidaas.audit.rollup.AuditRollupAccumulator;
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import com.qoobot.openidaas.common.enumeration.AuditResultEnum;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 审计日志批量写入
+ * 整批一次转换，按块执行多行 INSERT（每块 insert-chunk-size 行），一个事务内完成；
+ * 指标按批汇总后更新，事务提交后计入统计汇总
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogBatchWriter {
+
+    private final AuditLogMapper auditLogMapper;
+    private final AuditLogConverter auditLogConverter;
+    private final AuditMetricsCollector metricsCollector;
+    private final AuditHealthIndicator healthIndicator;
+    private final AuditRollupAccumulator rollupAccumulator;
+
+    @Value("${audit.ingestion.insert-chunk-size:500}")
+    private int insertChunkSize = 500;
+
+    /**
+     * 写入一批审计日志，返回写入条数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int write(List<AuditLogCreateDTO> createDTOList) {
+        if (createDTOList == null || createDTOList.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<AuditLog> auditLogs = new ArrayList<>(createDTOList.size());
+        for (AuditLogCreateDTO createDTO : createDTOList) {
+            if (createDTO.getOperationTime() == null) {
+                createDTO.setOperationTime(now);
+            }
+            if (StringUtils.isBlank(createDTO.getResult())) {
+                createDTO.setResult(AuditResultEnum.SUCCESS.getCode());
+            }
+            AuditLog auditLog = auditLogConverter.toEntity(createDTO);
+            auditLog.setCreatedAt(now);
+            auditLog.setUpdatedAt(now);
+            auditLogs.add(auditLog);
+        }
+
+        int chunkSize = Math.max(1, insertChunkSize);
+        for (int from = 0; from < auditLogs.size(); from += chunkSize) {
+            auditLogMapper.insertBatch(auditLogs.subList(from, Math.min(from + chunkSize, auditLogs.size())));
+        }
+
+        recordMetrics(auditLogs);
+        rollupAccumulator.recordAfterCommit(auditLogs);
+        log.debug("批量写入审计日志，数量：{}", auditLogs.size());
+        return auditLogs.size();
+    }
+
+    /**
+     * 整批汇总后更新指标，每个指标每批只更新一次
+     */
+    private void recordMetrics(List<AuditLog> auditLogs) {
+        int success = 0;
+        String lastFailure = null;
+        Map<String, Long> byOperationType = new HashMap<>();
+        Map<String, Long> byModule = new HashMap<>();
+        Map<Long, Long> byTenant = new HashMap<>();
+        for (AuditLog auditLog : auditLogs) {
+            if (AuditResultEnum.SUCCESS.getCode().equals(auditLog.getResult())) {
+                success++;
+            } else {
+                lastFailure = auditLog.getErrorMessage();
+            }
+            if (auditLog.getOperationType() != null) {
+                byOperationType.merge(auditLog.getOperationType(), 1L, Long::sum);
+            }
+            if (auditLog.getModule() != null) {
+                byModule.merge(auditLog.getModule(), 1L, Long::sum);
+            }
+            if (auditLog.getTenantId() != null) {
+                byTenant.merge(auditLog.getTenantId(), 1L, Long::sum);
+            }
+        }
+        int failed = auditLogs.size() - success;
+        metricsCollector.incrementBatch(success, failed, byOperationType, byModule, byTenant);
+        healthIndicator.recordBatch(success, failed, lastFailure);
+    }
+}
@@ -0,0 +1,46 @@
+package com.qoobot.openidaas.audit.pipeline;
+
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 把无法落库的审计日志发送到与消费者共用的死信主题，异常信息按 DeadLetterPublishingRecoverer 的消息头记录
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KafkaAuditDeadLetterSink implements AuditDeadLetterSink {
+
+    private final KafkaTemplate<String, AuditLogCreateDTO> kafkaTemplate;
+
+    @Value("${audit.kafka.dead-letter-topic:audit-log-topic.DLT}")
+    private String deadLetterTopic = "audit-log-topic.DLT";
+
+    @Override
+    public void send(AuditLogCreateDTO createDTO, Exception cause) {
+        ProducerRecord<String, AuditLogCreateDTO> record =
+                new ProducerRecord<>(deadLetterTopic, createDTO.getEventId(), createDTO);
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_FQCN,
+                cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        if (cause.getMessage() != null) {
+            record.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+                    cause.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+        kafkaTemplate.send(record).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("审计日志转入死信主题失败，日志丢失，操作类型：{}，事件ID：{}",
+                        createDTO.getOperationType(), createDTO.getEventId(), ex);
+            }
+        });
+    }
+}
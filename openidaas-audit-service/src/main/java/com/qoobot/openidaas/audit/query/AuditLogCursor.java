@@ -0,0 +1,49 @@
+package com.qoobot.openidaas.audit.query;
+
+import com.qoobot.openidaas.common.exception.BusinessException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 审计日志分页游标
+ * 记录上一页最后一条日志的 (operation_time, id)，下一页从该位置之后按索引定位读取；
+ * 对外以 Base64URL 编码的不透明字符串传递
+ *
+ * @author QooBot
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AuditLogCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime operationTime;
+    private final Long id;
+
+    /**
+     * 编码游标
+     */
+    public static String encode(LocalDateTime operationTime, Long id) {
+        String raw = operationTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，格式错误时抛出业务异常
+     */
+    public static AuditLogCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            return new AuditLogCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.parseLong(raw.substring(index + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+}
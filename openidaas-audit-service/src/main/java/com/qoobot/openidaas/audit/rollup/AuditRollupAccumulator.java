@@ -0,0 +1,272 @@
+package com.qoobot.openidaas.audit.rollup;
+
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.entity.AuditOperatorRollup;
+import com.qoobot.openidaas.audit.entity.AuditStatsRollup;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.audit.mapper.AuditRollupMapper;
+import com.qoobot.openidaas.common.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 审计统计汇总累加器
+ * 写入路径在事务提交后把审计日志计入内存增量，后台线程每 flush-interval-ms 把增量以
+ * INSERT ... ON DUPLICATE KEY UPDATE 累加到分钟/小时/天汇总表，统计查询改读汇总表，不再扫描原始日志
+ *
+ * 汇总数据相对原始日志最多滞后一个刷新间隔；删除或归档原始日志不会回减汇总，
+ * 历史数据或需要校正时通过 rebuild 按天重算
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditRollupAccumulator {
+
+    /**
+     * 草图时间桶结束后保留的时间，容纳稍晚到达的日志
+     */
+    private static final long SKETCH_GRACE_MINUTES = 5;
+
+    private final AuditRollupMapper rollupMapper;
+    private final AuditLogMapper auditLogMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${audit.rollup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${audit.rollup.flush-interval-ms:5000}")
+    private long flushIntervalMs = 5000;
+
+    @Value("${audit.rollup.sketch-capacity:1000}")
+    private int sketchCapacity = 1000;
+
+    @Value("${audit.rollup.persist-top-k:100}")
+    private int persistTopK = 100;
+
+    @Value("${audit.rollup.write-chunk-size:500}")
+    private int writeChunkSize = 500;
+
+    @Value("${audit.rollup.minute-retention-days:7}")
+    private int minuteRetentionDays = 7;
+
+    @Value("${audit.rollup.hour-retention-days:90}")
+    private int hourRetentionDays = 90;
+
+    @Value("${audit.rollup.rebuild-fetch-size:1000}")
+    private int rebuildFetchSize = 1000;
+
+    private final Object flushLock = new Object();
+    private AuditRollupBuffer buffer;
+    private ScheduledExecutorService scheduler;
+    private Counter flushFailedCounter;
+
+    @PostConstruct
+    public void start() {
+        buffer = new AuditRollupBuffer(sketchCapacity);
+        Gauge.builder("audit.rollup.pending", buffer, AuditRollupBuffer::pendingSize)
+                .description("Audit statistics rollup counters waiting to be flushed")
+                .register(meterRegistry);
+        flushFailedCounter = Counter.builder("audit.rollup.flush.failed")
+                .description("Audit statistics rollup rows whose flush failed and will be retried")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-rollup-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purgeExpired, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * 计入一批已持久化的审计日志
+     */
+    public void record(Collection<AuditLog> auditLogs) {
+        if (!enabled || auditLogs == null || auditLogs.isEmpty()) {
+            return;
+        }
+        buffer.add(auditLogs);
+    }
+
+    /**
+     * 存在事务时在提交后计入，回滚的日志不进入汇总；无事务时立即计入
+     */
+    public void recordAfterCommit(Collection<AuditLog> auditLogs) {
+        if (!enabled || auditLogs == null || auditLogs.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(auditLogs);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(auditLogs);
+            }
+        });
+    }
+
+    /**
+     * 把内存增量写入汇总表；写入失败的增量放回内存，下次刷新重试
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<AuditStatsRollup> stats = buffer.drainStats();
+            List<AuditOperatorRollup> operators = buffer.drainOperators(persistTopK,
+                    LocalDateTime.now().minusMinutes(SKETCH_GRACE_MINUTES));
+            try {
+                writeChunks(stats, rollupMapper::upsertStats, buffer::restoreStats);
+            } catch (RuntimeException e) {
+                buffer.restoreOperators(operators);
+                throw e;
+            }
+            writeChunks(operators, rollupMapper::upsertOperators, buffer::restoreOperators);
+        }
+    }
+
+    /**
+     * 按天重算 [startTime, endTime) 覆盖的汇总：先删除这些天的汇总行，再从原始日志重新累加。
+     * 只允许重算今天之前的数据；单天失败时已处理的天保持重算结果，可重新执行
+     *
+     * @return 参与重算的审计日志数
+     */
+    public long rebuild(LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime from = RollupGranularity.DAY.floor(startTime);
+        LocalDateTime to = RollupGranularity.DAY.ceil(endTime);
+        if (to.isAfter(LocalDate.now().atStartOfDay())) {
+            throw new BusinessException("只能重算今天之前的统计汇总");
+        }
+        // 先写出内存增量，避免重算后再被累加一次
+        flush();
+
+        long total = 0;
+        for (LocalDateTime day = from; day.isBefore(to); day = day.plusDays(1)) {
+            total += rebuildDay(day);
+        }
+        log.info("统计汇总重算完成，时间范围：{} ~ {}，日志数量：{}", from, to, total);
+        return total;
+    }
+
+    /**
+     * 粒度汇总的最早保留时间，更早的数据只能从更粗粒度读取
+     */
+    public LocalDateTime retainedFrom(RollupGranularity granularity) {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        return switch (granularity) {
+            case MINUTE -> today.minusDays(minuteRetentionDays);
+            case HOUR -> today.minusDays(hourRetentionDays);
+            case DAY -> LocalDateTime.MIN;
+        };
+    }
+
+    private long rebuildDay(LocalDateTime day) {
+        LocalDateTime nextDay = day.plusDays(1);
+        rollupMapper.deleteStatsRange(day, nextDay);
+        rollupMapper.deleteOperatorsRange(day, nextDay);
+
+        AuditRollupBuffer dayBuffer = new AuditRollupBuffer(sketchCapacity);
+        int limit = Math.max(1, rebuildFetchSize);
+        LocalDateTime afterTime = null;
+        Long afterId = null;
+        long count = 0;
+        while (true) {
+            List<AuditLog> chunk = auditLogMapper.selectExportChunk(day, nextDay, afterTime, afterId, limit);
+            // 查询区间两端闭合，排除属于下一天的日志
+            List<AuditLog> sameDay = chunk.stream()
+                    .filter(auditLog -> auditLog.getOperationTime().isBefore(nextDay))
+                    .toList();
+            dayBuffer.add(sameDay);
+            count += sameDay.size();
+            if (chunk.size() < limit) {
+                break;
+            }
+            AuditLog last = chunk.get(chunk.size() - 1);
+            afterTime = last.getOperationTime();
+            afterId = last.getId();
+        }
+
+        // 重算失败直接抛出，重新执行即可，无需放回增量
+        writeChunks(dayBuffer.drainStats(), rollupMapper::upsertStats, rows -> { });
+        writeChunks(dayBuffer.drainOperators(persistTopK, LocalDateTime.MAX), rollupMapper::upsertOperators,
+                rows -> { });
+        return count;
+    }
+
+    /**
+     * 分块写入；某块失败时把该块及之后未写入的行交给 onFailure 后抛出
+     */
+    private <T> void writeChunks(List<T> rows, Consumer<List<T>> writer, Consumer<List<T>> onFailure) {
+        int chunkSize = Math.max(1, writeChunkSize);
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            try {
+                writer.accept(rows.subList(from, Math.min(from + chunkSize, rows.size())));
+            } catch (RuntimeException e) {
+                List<T> rest = rows.subList(from, rows.size());
+                flushFailedCounter.increment(rest.size());
+                onFailure.accept(rest);
+                throw e;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("写入统计汇总失败，增量将在下次刷新重试", e);
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            LocalDateTime minuteBefore = retainedFrom(RollupGranularity.MINUTE);
+            LocalDateTime hourBefore = retainedFrom(RollupGranularity.HOUR);
+            int deleted = rollupMapper.deleteStatsBefore(RollupGranularity.MINUTE.name(), minuteBefore)
+                    + rollupMapper.deleteStatsBefore(RollupGranularity.HOUR.name(), hourBefore)
+                    + rollupMapper.deleteOperatorsBefore(RollupGranularity.HOUR.name(), hourBefore);
+            if (deleted > 0) {
+                log.info("清理过期统计汇总，删除数量：{}", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理过期统计汇总失败", e);
+        }
+    }
+}
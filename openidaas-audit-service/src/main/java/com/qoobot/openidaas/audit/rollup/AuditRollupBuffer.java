@@ -0,0 +1,214 @@
+package com.qoobot.openidaas.audit.rollup;
+
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.entity.AuditOperatorRollup;
+import com.qoobot.openidaas.audit.entity.AuditStatsRollup;
+import com.qoobot.openidaas.audit.util.SpaceSavingSketch;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 尚未持久化的统计汇总增量
+ * 计数器按 (粒度, 时间桶, 租户, 模块, 操作类型, 操作结果) 累加，取出即清零；
+ * 操作人维度基数高，每个 HOUR/DAY 时间桶用一个 Space-Saving 草图只保留高频操作人
+ *
+ * @author QooBot
+ */
+class AuditRollupBuffer {
+
+    private static final RollupGranularity[] SKETCH_GRANULARITIES = {RollupGranularity.HOUR, RollupGranularity.DAY};
+
+    private final int sketchCapacity;
+    private final ConcurrentHashMap<StatsKey, Long> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<BucketKey, SketchHolder> sketches = new ConcurrentHashMap<>();
+
+    AuditRollupBuffer(int sketchCapacity) {
+        this.sketchCapacity = sketchCapacity;
+    }
+
+    /**
+     * 累加一批审计日志；批内先本地汇总，再合并到共享计数器
+     */
+    void add(Collection<AuditLog> auditLogs) {
+        Map<StatsKey, Long> stats = new HashMap<>();
+        Map<BucketKey, Map<OperatorKey, Long>> operators = new HashMap<>();
+        for (AuditLog auditLog : auditLogs) {
+            LocalDateTime time = auditLog.getOperationTime();
+            if (time == null) {
+                continue;
+            }
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                stats.merge(new StatsKey(granularity, granularity.floor(time),
+                        auditLog.getTenantId() != null ? auditLog.getTenantId() : 0L,
+                        emptyIfNull(auditLog.getModule()),
+                        emptyIfNull(auditLog.getOperationType()),
+                        emptyIfNull(auditLog.getResult())), 1L, Long::sum);
+            }
+            if (auditLog.getOperatorId() == null && auditLog.getOperatorName() == null) {
+                continue;
+            }
+            OperatorKey operator = new OperatorKey(
+                    auditLog.getOperatorId() != null ? auditLog.getOperatorId() : 0L,
+                    emptyIfNull(auditLog.getOperatorName()));
+            for (RollupGranularity granularity : SKETCH_GRANULARITIES) {
+                operators.computeIfAbsent(new BucketKey(granularity, granularity.floor(time)), k -> new HashMap<>())
+                        .merge(operator, 1L, Long::sum);
+            }
+        }
+        stats.forEach((key, count) -> counters.merge(key, count, Long::sum));
+        operators.forEach(this::offer);
+    }
+
+    /**
+     * 取出全部计数器增量，取出后对应计数器清零
+     */
+    List<AuditStatsRollup> drainStats() {
+        List<AuditStatsRollup> rows = new ArrayList<>(counters.size());
+        for (StatsKey key : counters.keySet()) {
+            Long count = counters.remove(key);
+            if (count != null) {
+                rows.add(new AuditStatsRollup(key.getGranularity().name(), key.getBucketTime(), key.getTenantId(),
+                        key.getModule(), key.getOperationType(), key.getResult(), count));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 写入失败时放回计数器增量，下次刷新重试
+     */
+    void restoreStats(List<AuditStatsRollup> rows) {
+        for (AuditStatsRollup row : rows) {
+            counters.merge(new StatsKey(RollupGranularity.valueOf(row.getGranularity()), row.getBucketTime(),
+                    row.getTenantId(), row.getModule(), row.getOperationType(), row.getResult()),
+                    row.getEventCount(), Long::sum);
+        }
+    }
+
+    /**
+     * 取出各时间桶草图中前 topK 个操作人自上次取出以来的增量；
+     * 桶结束时间早于 closeBefore 的草图取出后关闭并移除，之后到达的日志进入新草图
+     */
+    List<AuditOperatorRollup> drainOperators(int topK, LocalDateTime closeBefore) {
+        List<AuditOperatorRollup> rows = new ArrayList<>();
+        for (Map.Entry<BucketKey, SketchHolder> item : sketches.entrySet()) {
+            BucketKey bucket = item.getKey();
+            SketchHolder holder = item.getValue();
+            synchronized (holder) {
+                for (SpaceSavingSketch.Entry<OperatorKey> entry : holder.sketch.top(topK)) {
+                    long delta = entry.getCount() - entry.getFlushed();
+                    if (delta > 0) {
+                        entry.setFlushed(entry.getCount());
+                        rows.add(new AuditOperatorRollup(bucket.getGranularity().name(), bucket.getBucketTime(),
+                                entry.getKey().getOperatorId(), entry.getKey().getOperatorName(), delta));
+                    }
+                }
+                if (bucket.end().isBefore(closeBefore)) {
+                    holder.closed = true;
+                    sketches.remove(bucket, holder);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 写入失败时放回操作人增量：草图仍在时撤销已取出标记，已关闭时计入新草图
+     */
+    void restoreOperators(List<AuditOperatorRollup> rows) {
+        for (AuditOperatorRollup row : rows) {
+            BucketKey bucket = new BucketKey(RollupGranularity.valueOf(row.getGranularity()), row.getBucketTime());
+            OperatorKey operator = new OperatorKey(row.getOperatorId(), row.getOperatorName());
+            SketchHolder holder = sketches.get(bucket);
+            if (holder != null) {
+                synchronized (holder) {
+                    if (!holder.closed) {
+                        SpaceSavingSketch.Entry<OperatorKey> entry = holder.sketch.get(operator);
+                        if (entry != null) {
+                            entry.setFlushed(Math.max(entry.getError(), entry.getFlushed() - row.getEventCount()));
+                        }
+                        continue;
+                    }
+                }
+            }
+            offer(bucket, Map.of(operator, row.getEventCount()));
+        }
+    }
+
+    /**
+     * 待写入的计数器数量
+     */
+    int pendingSize() {
+        return counters.size();
+    }
+
+    private void offer(BucketKey bucket, Map<OperatorKey, Long> counts) {
+        while (true) {
+            SketchHolder holder = sketches.computeIfAbsent(bucket, k -> new SketchHolder(sketchCapacity));
+            synchronized (holder) {
+                if (!holder.closed) {
+                    counts.forEach(holder.sketch::offer);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String emptyIfNull(String value) {
+        return value != null ? value : "";
+    }
+
+    private static final class SketchHolder {
+
+        private final SpaceSavingSketch<OperatorKey> sketch;
+        private boolean closed;
+
+        private SketchHolder(int capacity) {
+            this.sketch = new SpaceSavingSketch<>(capacity);
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class StatsKey {
+
+        private final RollupGranularity granularity;
+        private final LocalDateTime bucketTime;
+        private final Long tenantId;
+        private final String module;
+        private final String operationType;
+        private final String result;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class BucketKey {
+
+        private final RollupGranularity granularity;
+        private final LocalDateTime bucketTime;
+
+        private LocalDateTime end() {
+            return bucketTime.plus(1, granularity.getUnit());
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    static final class OperatorKey {
+
+        private final Long operatorId;
+        private final String operatorName;
+    }
+}
@@ -0,0 +1,97 @@
+package com.qoobot.openidaas.audit.rollup;
+
+import com.qoobot.openidaas.audit.entity.AuditOperatorRollup;
+import com.qoobot.openidaas.audit.entity.AuditStatsRollup;
+import com.qoobot.openidaas.audit.mapper.AuditRollupMapper;
+import com.qoobot.openidaas.common.enumeration.AuditResultEnum;
+import com.qoobot.openidaas.common.vo.audit.AuditStatisticsVO;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于统计汇总表的审计统计查询
+ * 时间范围按分钟对齐后拆成天/小时/分钟片段，一次查询合并；
+ * 区间边缘超出分钟或小时汇总保留期时按更粗粒度向外取整
+ *
+ * @author QooBot
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditRollupQuery {
+
+    private final AuditRollupMapper rollupMapper;
+    private final AuditRollupAccumulator rollupAccumulator;
+
+    /**
+     * 统计 [startTime, endTime] 内的审计日志，topN 为热门操作用户数量
+     */
+    public AuditStatisticsVO getStatistics(LocalDateTime startTime, LocalDateTime endTime, int topN) {
+        LocalDateTime from = RollupGranularity.MINUTE.floor(startTime);
+        LocalDateTime to = RollupGranularity.MINUTE.floor(endTime).plusMinutes(1);
+
+        long total = 0;
+        long success = 0;
+        long failure = 0;
+        Map<String, Long> typeMap = new HashMap<>();
+        Map<String, Long> moduleMap = new HashMap<>();
+        List<RollupSegment> statsSegments = segments(RollupGranularity.MINUTE, from, to);
+        List<AuditStatsRollup> statsRows = statsSegments.isEmpty() ? List.of() : rollupMapper.sumStats(statsSegments);
+        for (AuditStatsRollup row : statsRows) {
+            long count = row.getEventCount();
+            total += count;
+            if (AuditResultEnum.SUCCESS.getCode().equals(row.getResult())) {
+                success += count;
+            } else if (AuditResultEnum.FAILURE.getCode().equals(row.getResult())) {
+                failure += count;
+            }
+            if (StringUtils.isNotEmpty(row.getOperationType())) {
+                typeMap.merge(row.getOperationType(), count, Long::sum);
+            }
+            if (StringUtils.isNotEmpty(row.getModule())) {
+                moduleMap.merge(row.getModule(), count, Long::sum);
+            }
+        }
+
+        // 操作人只有小时和天汇总
+        List<RollupSegment> operatorSegments = segments(RollupGranularity.HOUR, from, to);
+        List<AuditOperatorRollup> operatorRows = operatorSegments.isEmpty()
+                ? List.of() : rollupMapper.selectTopOperators(operatorSegments, topN);
+        Map<String, Long> userMap = new LinkedHashMap<>();
+        for (AuditOperatorRollup row : operatorRows) {
+            String name = StringUtils.isNotEmpty(row.getOperatorName())
+                    ? row.getOperatorName() : String.valueOf(row.getOperatorId());
+            userMap.merge(name, row.getEventCount(), Long::sum);
+        }
+
+        AuditStatisticsVO statistics = new AuditStatisticsVO();
+        statistics.setTotalOperations(total);
+        statistics.setSuccessCount(success);
+        statistics.setFailureCount(failure);
+        statistics.setOperationTypeDistribution(typeMap);
+        statistics.setModuleDistribution(moduleMap);
+        statistics.setTopUsers(userMap);
+        return statistics;
+    }
+
+    /**
+     * 把 [from, to) 的两端各自取整到仍在保留期内的最细粒度（不细于 finest）后拆分为查询片段
+     */
+    private List<RollupSegment> segments(RollupGranularity finest, LocalDateTime from, LocalDateTime to) {
+        return RollupGranularity.decompose(retained(finest, from).floor(from), retained(finest, to).ceil(to));
+    }
+
+    private RollupGranularity retained(RollupGranularity finest, LocalDateTime time) {
+        RollupGranularity granularity = finest;
+        while (granularity != RollupGranularity.DAY && time.isBefore(rollupAccumulator.retainedFrom(granularity))) {
+            granularity = RollupGranularity.values()[granularity.ordinal() + 1];
+        }
+        return granularity;
+    }
+}
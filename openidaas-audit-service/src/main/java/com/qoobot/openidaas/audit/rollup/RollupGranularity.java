@@ -0,0 +1,75 @@
+package com.qoobot.openidaas.audit.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 统计汇总粒度，由细到粗排列
+ *
+ * @author QooBot
+ */
+@Getter
+@AllArgsConstructor
+public enum RollupGranularity {
+
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    /**
+     * 向下取整到本粒度的桶起始时间
+     */
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * 向上取整到本粒度的桶边界
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+
+    /**
+     * 将 [from, to) 拆分为尽量粗的对齐区间：中间整天用 DAY，两侧不足一天的整点用 HOUR，剩余的分钟用 MINUTE；
+     * from、to 需已按分钟对齐
+     */
+    public static List<RollupSegment> decompose(LocalDateTime from, LocalDateTime to) {
+        List<RollupSegment> segments = new ArrayList<>();
+        decompose(MINUTE, from, to, segments);
+        return segments;
+    }
+
+    private static void decompose(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                  List<RollupSegment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (granularity == DAY) {
+            segments.add(new RollupSegment(DAY, from, to));
+            return;
+        }
+        RollupGranularity coarser = values()[granularity.ordinal() + 1];
+        LocalDateTime innerFrom = coarser.ceil(from);
+        LocalDateTime innerTo = coarser.floor(to);
+        if (!innerFrom.isBefore(innerTo)) {
+            segments.add(new RollupSegment(granularity, from, to));
+            return;
+        }
+        if (from.isBefore(innerFrom)) {
+            segments.add(new RollupSegment(granularity, from, innerFrom));
+        }
+        decompose(coarser, innerFrom, innerTo, segments);
+        if (innerTo.isBefore(to)) {
+            segments.add(new RollupSegment(granularity, innerTo, to));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.qoobot.openidaas.audit.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 统计查询区间片段：在 granularity 粒度的汇总行中读取 [from, to) 范围
+ *
+ * @author QooBot
+ */
+@Data
+@AllArgsConstructor
+public class RollupSegment {
+
+    private RollupGranularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
@@ -1,17 +1,20 @@
 package com.qoobot.openidaas.audit.schedule;
 
+import com.qoobot.openidaas.audit.archive.ArchiveEngine;
+import com.qoobot.openidaas.audit.archive.ArchiveResult;
+import com.qoobot.openidaas.audit.archive.ArchiveTableSpec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 
 /**
  * 数据归档定时任务
+ * 归档由 {@link ArchiveEngine} 按分区或按主键分批完成，过期 Token 只分批删除、不归档
  *
  * @author QooBot
  */
@@ -20,7 +23,14 @@ import java.time.format.DateTimeFormatter;
 @RequiredArgsConstructor
 public class DataArchiveJob {
 
-    private final JdbcTemplate jdbcTemplate;
+    static final ArchiveTableSpec AUDIT_LOGS = new ArchiveTableSpec("audit_logs", "created_at", null);
+    static final ArchiveTableSpec MFA_LOGS = new ArchiveTableSpec("mfa_logs", "created_at", null);
+    static final ArchiveTableSpec LOGIN_SESSIONS = new ArchiveTableSpec("login_sessions", "login_at", null);
+    static final ArchiveTableSpec SECURITY_EVENTS =
+            new ArchiveTableSpec("security_events", "created_at", "resolved = 1");
+    static final ArchiveTableSpec AUTH_TOKENS = new ArchiveTableSpec("auth_tokens", "expire_at", null);
+
+    private final ArchiveEngine archiveEngine;
 
     @Value("${app.archive.audit-logs-months:3}")
     private int auditLogsMonthsToArchive;
@@ -31,6 +41,9 @@ public class DataArchiveJob {
     @Value("${app.archive.login-sessions-months:6}")
     private int loginSessionsMonthsToArchive;
 
+    @Value("${app.archive.security-events-months:12}")
+    private int securityEventsMonthsToArchive;
+
     @Value("${app.archive.auth-tokens-days:7}")
     private int authTokenDaysToArchive;
 
@@ -40,42 +53,7 @@ public class DataArchiveJob {
      */
     @Scheduled(cron = "0 0 2 1 * ?")
     public void archiveAuditLogs() {
-        LocalDate cutoffDate = LocalDate.now().minusMonths(auditLogsMonthsToArchive);
-        String cutoffDateStr = cutoffDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-        log.info("开始归档审计日志,归档截止日期: {}", cutoffDateStr);
-
-        try {
-            // 1. 创建归档表(如果不存在)
-            createArchiveTableIfNotExists("audit_logs_archive", "audit_logs");
-
-            // 2. 归档数据
-            String archiveSql = String.format(
-                "INSERT INTO audit_logs_archive " +
-                "SELECT * FROM audit_logs WHERE created_at < '%s'",
-                cutoffDateStr
-            );
-
-            int archivedCount = jdbcTemplate.update(archiveSql);
-            log.info("归档审计日志 {} 条", archivedCount);
-
-            // 3. 删除已归档的数据
-            String deleteSql = String.format(
-                "DELETE FROM audit_logs WHERE created_at < '%s'",
-                cutoffDateStr
-            );
-
-            int deletedCount = jdbcTemplate.update(deleteSql);
-            log.info("删除审计日志 {} 条", deletedCount);
-
-            // 4. 优化表
-            jdbcTemplate.execute("OPTIMIZE TABLE audit_logs");
-
-            log.info("审计日志归档完成");
-
-        } catch (Exception e) {
-            log.error("归档审计日志失败", e);
-        }
+        archive(AUDIT_LOGS, auditLogsMonthsToArchive, "审计日志");
     }
 
     /**
@@ -84,38 +62,7 @@ public class DataArchiveJob {
      */
     @Scheduled(cron = "0 30 2 1 * ?")
     public void archiveMFALogs() {
-        LocalDate cutoffDate = LocalDate.now().minusMonths(mfaLogsMonthsToArchive);
-        String cutoffDateStr = cutoffDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-        log.info("开始归档MFA日志,归档截止日期: {}", cutoffDateStr);
-
-        try {
-            createArchiveTableIfNotExists("mfa_logs_archive", "mfa_logs");
-
-            String archiveSql = String.format(
-                "INSERT INTO mfa_logs_archive " +
-                "SELECT * FROM mfa_logs WHERE created_at < '%s'",
-                cutoffDateStr
-            );
-
-            int archivedCount = jdbcTemplate.update(archiveSql);
-            log.info("归档MFA日志 {} 条", archivedCount);
-
-            String deleteSql = String.format(
-                "DELETE FROM mfa_logs WHERE created_at < '%s'",
-                cutoffDateStr
-            );
-
-            int deletedCount = jdbcTemplate.update(deleteSql);
-            log.info("删除MFA日志 {} 条", deletedCount);
-
-            jdbcTemplate.execute("OPTIMIZE TABLE mfa_logs");
-
-            log.info("MFA日志归档完成");
-
-        } catch (Exception e) {
-            log.error("归档MFA日志失败", e);
-        }
+        archive(MFA_LOGS, mfaLogsMonthsToArchive, "MFA日志");
     }
 
     /**
@@ -124,38 +71,7 @@ public class DataArchiveJob {
      */
     @Scheduled(cron = "0 0 3 1 * ?")
     public void archiveLoginSessions() {
-        LocalDate cutoffDate = LocalDate.now().minusMonths(loginSessionsMonthsToArchive);
-        String cutoffDateStr = cutoffDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-        log.info("开始归档登录会话,归档截止日期: {}", cutoffDateStr);
-
-        try {
-            createArchiveTableIfNotExists("login_sessions_archive", "login_sessions");
-
-            String archiveSql = String.format(
-                "INSERT INTO login_sessions_archive " +
-                "SELECT * FROM login_sessions WHERE login_at < '%s'",
-                cutoffDateStr
-            );
-
-            int archivedCount = jdbcTemplate.update(archiveSql);
-            log.info("归档登录会话 {} 条", archivedCount);
-
-            String deleteSql = String.format(
-                "DELETE FROM login_sessions WHERE login_at < '%s'",
-                cutoffDateStr
-            );
-
-            int deletedCount = jdbcTemplate.update(deleteSql);
-            log.info("删除登录会话 {} 条", deletedCount);
-
-            jdbcTemplate.execute("OPTIMIZE TABLE login_sessions");
-
-            log.info("登录会话归档完成");
-
-        } catch (Exception e) {
-            log.error("归档登录会话失败", e);
-        }
+        archive(LOGIN_SESSIONS, loginSessionsMonthsToArchive, "登录会话");
     }
 
     /**
@@ -164,21 +80,16 @@ public class DataArchiveJob {
      */
     @Scheduled(cron = "0 30 3 * * ?")
     public void cleanupExpiredTokens() {
-        log.info("开始清理过期Token");
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(authTokenDaysToArchive);
+        log.info("开始清理过期Token,截止时间: {}", cutoff);
 
         try {
-            String deleteSql = String.format(
-                "DELETE FROM auth_tokens WHERE expire_at < NOW() - INTERVAL %d DAY",
-                authTokenDaysToArchive
-            );
-
-            int deletedCount = jdbcTemplate.update(deleteSql);
-            log.info("清理过期Token {} 条", deletedCount);
-
-            jdbcTemplate.execute("OPTIMIZE TABLE auth_tokens");
-
-            log.info("过期Token清理完成");
-
+            ArchiveResult result = archiveEngine.purge(AUTH_TOKENS, cutoff);
+            if (result.isCompleted()) {
+                log.info("过期Token清理完成, 删除 {} 条", result.getRows());
+            } else {
+                log.info("过期Token清理达到最长运行时间, 删除 {} 条, 剩余部分下次继续", result.getRows());
+            }
         } catch (Exception e) {
             log.error("清理过期Token失败", e);
         }
@@ -186,66 +97,27 @@ public class DataArchiveJob {
 
     /**
      * 归档安全事件
-     * 每月1日凌晨4点执行
+     * 每月1日凌晨4点执行，只归档已处理的事件
      */
     @Scheduled(cron = "0 0 4 1 * ?")
     public void archiveSecurityEvents() {
-        LocalDate cutoffDate = LocalDate.now().minusMonths(12); // 保留1年
-        String cutoffDateStr = cutoffDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        archive(SECURITY_EVENTS, securityEventsMonthsToArchive, "安全事件");
+    }
 
-        log.info("开始归档安全事件,归档截止日期: {}", cutoffDateStr);
+    private void archive(ArchiveTableSpec spec, int months, String label) {
+        LocalDate cutoffDate = LocalDate.now().minusMonths(months);
+        log.info("开始归档{},归档截止日期: {}", label, cutoffDate);
 
         try {
-            createArchiveTableIfNotExists("security_events_archive", "security_events");
-
-            // 只归档已处理的事件
-            String archiveSql = String.format(
-                "INSERT INTO security_events_archive " +
-                "SELECT * FROM security_events WHERE created_at < '%s' AND resolved = 1",
-                cutoffDateStr
-            );
-
-            int archivedCount = jdbcTemplate.update(archiveSql);
-            log.info("归档安全事件 {} 条", archivedCount);
-
-            String deleteSql = String.format(
-                "DELETE FROM security_events WHERE created_at < '%s' AND resolved = 1",
-                cutoffDateStr
-            );
-
-            int deletedCount = jdbcTemplate.update(deleteSql);
-            log.info("删除安全事件 {} 条", deletedCount);
-
-            jdbcTemplate.execute("OPTIMIZE TABLE security_events");
-
-            log.info("安全事件归档完成");
-
+            ArchiveResult result = archiveEngine.archive(spec, cutoffDate);
+            if (result.isCompleted()) {
+                log.info("{}归档完成, 分区 {} 个, 逐批归档 {} 条", label, result.getPartitions(), result.getRows());
+            } else {
+                log.info("{}归档达到最长运行时间, 分区 {} 个, 逐批归档 {} 条, 下次从检查点继续",
+                        label, result.getPartitions(), result.getRows());
+            }
         } catch (Exception e) {
-            log.error("归档安全事件失败", e);
-        }
-    }
-
-    /**
-     * 创建归档表(如果不存在)
-     */
-    private void createArchiveTableIfNotExists(String archiveTableName, String sourceTableName) {
-        String checkSql = String.format(
-            "SELECT COUNT(*) FROM information_schema.tables " +
-            "WHERE table_schema = DATABASE() AND table_name = '%s'",
-            archiveTableName
-        );
-
-        Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class);
-
-        if (count == null || count == 0) {
-            String createSql = String.format(
-                "CREATE TABLE %s LIKE %s",
-                archiveTableName,
-                sourceTableName
-            );
-
-            jdbcTemplate.execute(createSql);
-            log.info("创建归档表: {}", archiveTableName);
+            log.error("归档{}失败", label, e);
         }
     }
 }
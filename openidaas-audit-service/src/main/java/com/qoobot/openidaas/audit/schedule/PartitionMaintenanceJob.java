@@ -0,0 +1,62 @@
+package com.qoobot.openidaas.audit.schedule;
+
+import com.qoobot.openidaas.audit.archive.ArchiveTableSpec;
+import com.qoobot.openidaas.audit.archive.PartitionManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 分区维护定时任务
+ * 每天预建未来的月分区，并按与 {@link DataArchiveJob} 相同的保留月数整体归档过期分区，
+ * 取代 partition_tables.sql 中的 auto_add_partition_event 事件
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionMaintenanceJob {
+
+    private final PartitionManager partitionManager;
+
+    @Value("${app.partition.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.archive.audit-logs-months:3}")
+    private int auditLogsMonthsToArchive;
+
+    @Value("${app.archive.mfa-logs-months:3}")
+    private int mfaLogsMonthsToArchive;
+
+    @Value("${app.archive.login-sessions-months:6}")
+    private int loginSessionsMonthsToArchive;
+
+    /**
+     * 维护分区
+     * 每天凌晨1:30执行；安全事件只归档已处理的记录，不整体清理分区
+     */
+    @Scheduled(cron = "${app.partition.cron:0 30 1 * * ?}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        maintain(DataArchiveJob.AUDIT_LOGS, auditLogsMonthsToArchive, today);
+        maintain(DataArchiveJob.MFA_LOGS, mfaLogsMonthsToArchive, today);
+        maintain(DataArchiveJob.LOGIN_SESSIONS, loginSessionsMonthsToArchive, today);
+        maintain(DataArchiveJob.SECURITY_EVENTS, 0, today);
+    }
+
+    private void maintain(ArchiveTableSpec spec, int retentionMonths, LocalDate today) {
+        try {
+            partitionManager.maintain(spec, retentionMonths, today);
+        } catch (Exception e) {
+            log.error("分区维护失败: {}", spec.getTable(), e);
+        }
+    }
+}
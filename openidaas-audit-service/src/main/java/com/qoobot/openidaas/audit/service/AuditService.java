@@ -2,12 +2,14 @@ package com.qoobot.openidaas.audit.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.export.AuditExportFormat;
 import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
 import com.qoobot.openidaas.common.dto.audit.AuditLogQueryDTO;
+import com.qoobot.openidaas.common.vo.CursorPageResultVO;
 import com.qoobot.openidaas.common.vo.audit.AuditLogVO;
 import com.qoobot.openidaas.common.vo.audit.AuditStatisticsVO;
-import org.springframework.kafka.annotation.KafkaListener;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -24,15 +26,21 @@ public interface AuditService {
      */
     void recordAuditLog(AuditLogCreateDTO createDTO);
 
+    /**
+     * 提交审计日志到进程内写入管道，由后台线程批量写库，调用方不等待数据库写入
+     *
+     * @return 缓冲区已满且按策略丢弃时返回 false
+     */
+    boolean submitAuditLog(AuditLogCreateDTO createDTO);
+
     /**
      * 批量记录审计日志
      */
     void recordAuditLogs(List<AuditLogCreateDTO> createDTOList);
 
     /**
-     * 通过Kafka消息异步记录审计日志
+     * 异步记录审计日志（Kafka 消息由 AuditLogConsumer 批量消费）
      */
-    @KafkaListener(topics = "audit-log-topic", groupId = "audit-service-group")
     void recordAuditLogAsync(AuditLogCreateDTO createDTO);
 
     /**
@@ -45,6 +53,11 @@ public interface AuditService {
      */
     IPage<AuditLogVO> queryAuditLogs(AuditLogQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询审计日志，按操作时间倒序；翻页开销与页码无关，总数仅在 withTotal 为 true 时统计
+     */
+    CursorPageResultVO<AuditLogVO> queryAuditLogsByCursor(AuditLogQueryDTO queryDTO);
+
     /**
      * 获取用户操作日志
      */
@@ -90,6 +103,11 @@ public interface AuditService {
      */
     AuditStatisticsVO getAuditStatistics(LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * 按天重算统计汇总，返回参与重算的审计日志数
+     */
+    long rebuildStatisticsRollup(LocalDateTime startTime, LocalDateTime endTime);
+
     /**
      * 统计指定时间范围内的操作次数
      */
@@ -121,10 +139,15 @@ public interface AuditService {
     int cleanupExpiredLogs(LocalDateTime beforeTime);
 
     /**
-     * 导出审计日志
+     * 导出审计日志（XLSX），整个文件在内存中生成，大批量导出请使用流式导出
      */
     byte[] exportAuditLogs(LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * 流式导出审计日志，边读取边写入输出流，返回导出条数
+     */
+    long exportAuditLogs(LocalDateTime startTime, LocalDateTime endTime, AuditExportFormat format, OutputStream out);
+
     /**
      * 删除审计日志
      */
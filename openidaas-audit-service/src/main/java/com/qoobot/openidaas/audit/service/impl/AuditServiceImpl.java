@@ -6,9 +6,16 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.qoobot.openidaas.audit.alert.AuditAlertManager;
 import com.qoobot.openidaas.audit.converter.AuditLogConverter;
 import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.export.AuditExportFormat;
+import com.qoobot.openidaas.audit.export.AuditLogExporter;
 import com.qoobot.openidaas.audit.health.AuditHealthIndicator;
 import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
 import com.qoobot.openidaas.audit.metrics.AuditMetricsCollector;
+import com.qoobot.openidaas.audit.pipeline.AuditIngestionPipeline;
+import com.qoobot.openidaas.audit.pipeline.AuditLogBatchWriter;
+import com.qoobot.openidaas.audit.query.AuditLogCursor;
+import com.qoobot.openidaas.audit.rollup.AuditRollupAccumulator;
+import com.qoobot.openidaas.audit.rollup.AuditRollupQuery;
 import com.qoobot.openidaas.audit.service.AuditService;
 import com.qoobot.openidaas.audit.log.StructuredLogger;
 import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
@@ -16,23 +23,25 @@ import com.qoobot.openidaas.common.dto.audit.AuditLogQueryDTO;
 import com.qoobot.openidaas.common.enumeration.AuditResultEnum;
 import com.qoobot.openidaas.common.exception.BusinessException;
 import com.qoobot.openidaas.common.util.JsonUtil;
+import com.qoobot.openidaas.common.vo.CursorPageResultVO;
 import com.qoobot.openidaas.common.vo.audit.AuditLogVO;
 import com.qoobot.openidaas.common.vo.audit.AuditStatisticsVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -52,8 +61,20 @@ public class AuditServiceImpl implements AuditService {
     private final AuditHealthIndicator healthIndicator;
     private final StructuredLogger structuredLogger;
     private final AuditAlertManager alertManager;
+    private final AuditIngestionPipeline ingestionPipeline;
+    private final AuditLogBatchWriter batchWriter;
+    private final AuditLogExporter auditLogExporter;
+    private final AuditRollupAccumulator rollupAccumulator;
+    private final AuditRollupQuery rollupQuery;
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    @Value("${audit.kafka.topic:audit-log-topic}")
+    private String auditTopic = "audit-log-topic";
+
+    @Value("${audit.query.max-page-size:500}")
+    private int maxCursorPageSize = 500;
+
+    @Value("${audit.rollup.enabled:true}")
+    private boolean rollupEnabled = true;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -77,6 +98,8 @@ public class AuditServiceImpl implements AuditService {
                 auditLog.setUpdatedAt(LocalDateTime.now());
 
                 auditLogMapper.insert(auditLog);
+                rollupAccumulator.recordAfterCommit(List.of(auditLog));
+                alertManager.recordSuccess(1);
 
                 // 收集指标
                 metricsCollector.incrementTotalLogs();
@@ -119,21 +142,26 @@ public class AuditServiceImpl implements AuditService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public void recordAuditLogs(List<AuditLogCreateDTO> createDTOList) {
-        log.debug("批量记录审计日志，数量：{}", createDTOList.size());
+    public boolean submitAuditLog(AuditLogCreateDTO createDTO) {
+        return ingestionPipeline.submit(createDTO);
+    }
 
+    @Override
+    public void recordAuditLogs(List<AuditLogCreateDTO> createDTOList) {
         if (createDTOList == null || createDTOList.isEmpty()) {
             return;
         }
+        log.debug("批量记录审计日志，数量：{}", createDTOList.size());
 
         try {
-            for (AuditLogCreateDTO createDTO : createDTOList) {
-                recordAuditLog(createDTO);
-            }
-            log.debug("批量审计日志记录成功");
+            // 整批在写入器的一个事务内完成
+            int written = batchWriter.write(createDTOList);
+            alertManager.recordSuccess(written);
+            log.debug("批量审计日志记录成功，数量：{}", written);
         } catch (Exception e) {
-            log.error("批量记录审计日志失败", e);
+            log.error("批量记录审计日志失败，数量：{}", createDTOList.size(), e);
+            healthIndicator.recordFailure(e.getMessage());
+            alertManager.recordError("recordAuditLogs", e.getMessage(), createDTOList.size());
         }
     }
 
@@ -147,7 +175,11 @@ public class AuditServiceImpl implements AuditService {
     @Override
     public void sendAuditLogAsync(AuditLogCreateDTO createDTO) {
         try {
-            kafkaTemplate.send("audit-log-topic", createDTO);
+            // 事件ID作为消息键，重复投递的消息进入同一分区并在消费端去重
+            if (StringUtils.isBlank(createDTO.getEventId())) {
+                createDTO.setEventId(UUID.randomUUID().toString());
+            }
+            kafkaTemplate.send(auditTopic, createDTO.getEventId(), createDTO);
             log.debug("审计日志已发送到Kafka，操作类型：{}", createDTO.getOperationType());
         } catch (Exception e) {
             log.error("发送审计日志到Kafka失败", e);
@@ -232,6 +264,34 @@ public class AuditServiceImpl implements AuditService {
         return voPage;
     }
 
+    @Override
+    public CursorPageResultVO<AuditLogVO> queryAuditLogsByCursor(AuditLogQueryDTO queryDTO) {
+        log.debug("游标分页查询审计日志，查询条件：{}", queryDTO);
+
+        int size = Math.min(Math.max(queryDTO.getSize() != null ? queryDTO.getSize() : 20, 1), maxCursorPageSize);
+        AuditLogCursor cursor = StringUtils.isNotBlank(queryDTO.getCursor())
+                ? AuditLogCursor.decode(queryDTO.getCursor()) : null;
+
+        // 多取一条判断是否还有下一页，无需统计总数
+        List<AuditLog> records = auditLogMapper.selectByCursor(queryDTO,
+                cursor != null ? cursor.getOperationTime() : null,
+                cursor != null ? cursor.getId() : null,
+                size + 1);
+
+        String nextCursor = null;
+        if (records.size() > size) {
+            records = records.subList(0, size);
+            AuditLog last = records.get(size - 1);
+            nextCursor = AuditLogCursor.encode(last.getOperationTime(), last.getId());
+        }
+        Long total = Boolean.TRUE.equals(queryDTO.getWithTotal()) ? auditLogMapper.countByQuery(queryDTO) : null;
+
+        List<AuditLogVO> voList = records.stream()
+                .map(auditLogConverter::toVO)
+                .collect(Collectors.toList());
+        return CursorPageResultVO.of(size, nextCursor, total, voList);
+    }
+
     @Override
     public IPage<AuditLogVO> getUserAuditLogs(Long userId, Integer page, Integer size) {
         log.debug("获取用户操作日志，用户ID：{}", userId);
@@ -364,6 +424,10 @@ public class AuditServiceImpl implements AuditService {
     public AuditStatisticsVO getAuditStatistics(LocalDateTime startTime, LocalDateTime endTime) {
         log.debug("获取审计统计数据，开始时间：{}，结束时间：{}", startTime, endTime);
 
+        if (rollupEnabled) {
+            return rollupQuery.getStatistics(startTime, endTime, 10);
+        }
+
         AuditStatisticsVO statistics = new AuditStatisticsVO();
 
         // 总操作次数
@@ -415,6 +479,12 @@ public class AuditServiceImpl implements AuditService {
         return statistics;
     }
 
+    @Override
+    public long rebuildStatisticsRollup(LocalDateTime startTime, LocalDateTime endTime) {
+        log.info("重算统计汇总，开始时间：{}，结束时间：{}", startTime, endTime);
+        return rollupAccumulator.rebuild(startTime, endTime);
+    }
+
     @Override
     public long countOperationsByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
         return auditLogMapper.countByTimeRange(startTime, endTime);
@@ -455,65 +525,27 @@ public class AuditServiceImpl implements AuditService {
 
     @Override
     public byte[] exportAuditLogs(LocalDateTime startTime, LocalDateTime endTime) {
-        return metricsCollector.recordExportDuration(() -> {
-            log.debug("导出审计日志，开始时间：{}，结束时间：{}", startTime, endTime);
-
-            try (Workbook workbook = new XSSFWorkbook();
-                 ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-                // 创建工作表
-                Sheet sheet = workbook.createSheet("审计日志");
-
-                // 创建表头样式
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-                headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-                // 创建表头
-                Row headerRow = sheet.createRow(0);
-                String[] headers = {"操作时间", "操作类型", "操作描述", "操作人", "操作人IP", "操作结果", "执行耗时", "模块", "目标"};
-                for (int i = 0; i < headers.length; i++) {
-                    Cell cell = headerRow.createCell(i);
-                    cell.setCellValue(headers[i]);
-                    cell.setCellStyle(headerStyle);
-                }
-
-                // 查询数据
-                IPage<AuditLogVO> auditLogs = getAuditLogsByTimeRange(startTime, endTime, 1, 10000);
-
-                // 填充数据
-                int rowNum = 1;
-                for (AuditLogVO log : auditLogs.getRecords()) {
-                    Row row = sheet.createRow(rowNum++);
-                    row.createCell(0).setCellValue(log.getOperationTime() != null ? log.getOperationTime().format(DATE_FORMATTER) : "");
-                    row.createCell(1).setCellValue(log.getOperationType() != null ? log.getOperationType() : "");
-                    row.createCell(2).setCellValue(log.getOperationDesc() != null ? log.getOperationDesc() : "");
-                    row.createCell(3).setCellValue(log.getOperatorName() != null ? log.getOperatorName() : "");
-                    row.createCell(4).setCellValue(log.getOperatorIp() != null ? log.getOperatorIp() : "");
-                    row.createCell(5).setCellValue(log.getResult() != null ? log.getResult() : "");
-                    row.createCell(6).setCellValue(log.getExecutionTime() != null ? log.getExecutionTime() : 0);
-                    row.createCell(7).setCellValue(log.getModule() != null ? log.getModule() : "");
-                    row.createCell(8).setCellValue(log.getTargetName() != null ? log.getTargetName() : "");
-                }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportAuditLogs(startTime, endTime, AuditExportFormat.XLSX, out);
+        return out.toByteArray();
+    }
 
-                // 自动调整列宽
-                for (int i = 0; i < headers.length; i++) {
-                    sheet.autoSizeColumn(i);
-                }
+    @Override
+    public long exportAuditLogs(LocalDateTime startTime, LocalDateTime endTime, AuditExportFormat format, OutputStream out) {
+        return metricsCollector.recordExportDuration(() -> {
+            log.debug("导出审计日志，格式：{}，开始时间：{}，结束时间：{}", format, startTime, endTime);
 
-                byte[] result = out.toByteArray();
-                workbook.write(out);
+            CountingOutputStream countingOut = new CountingOutputStream(out);
+            try {
+                long recordCount = auditLogExporter.export(startTime, endTime, format, countingOut);
 
                 // 结构化日志
-                structuredLogger.logAuditExport("xlsx",
+                structuredLogger.logAuditExport(format.getExtension(),
                         String.format("%s ~ %s", startTime, endTime),
-                        auditLogs.getRecords().size(),
-                        result.length);
+                        recordCount,
+                        countingOut.getByteCount());
 
-                return result;
+                return recordCount;
 
             } catch (Exception e) {
                 log.error("导出审计日志失败", e);
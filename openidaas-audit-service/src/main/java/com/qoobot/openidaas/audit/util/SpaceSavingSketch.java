@@ -0,0 +1,174 @@
+package com.qoobot.openidaas.audit.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 高频项草图，用固定数量的计数器近似统计 Top-K
+ * 计数器满时替换计数最小的项，新项继承其计数作为误差上界；真实次数位于 [count - error, count]，
+ * 出现次数超过总数 1/capacity 的项一定被保留。计数器按最小堆组织，每次更新 O(log capacity)。
+ * 长期运行的统计可周期调用 {@link #decay()}，让近期流量的权重高于历史流量
+ *
+ * 非线程安全，由调用方加锁
+ *
+ * @author QooBot
+ */
+public class SpaceSavingSketch<K> {
+
+    private final int capacity;
+    private final Map<K, Entry<K>> entries;
+    private final Entry<K>[] heap;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+        this.heap = new Entry[capacity];
+    }
+
+    /**
+     * 累加 key 的出现次数
+     */
+    public void offer(K key, long increment) {
+        Entry<K> entry = entries.get(key);
+        if (entry != null) {
+            entry.count += increment;
+            siftDown(entry.index);
+            return;
+        }
+        if (size < capacity) {
+            entry = new Entry<>(key, increment, 0);
+            entry.index = size;
+            heap[size++] = entry;
+            entries.put(key, entry);
+            siftUp(entry.index);
+            return;
+        }
+        // 替换计数最小的项
+        Entry<K> min = heap[0];
+        entries.remove(min.key);
+        min.key = key;
+        min.error = min.count;
+        min.count += increment;
+        // 继承的计数不属于新项，视为已持久化，增量写入只落真实观测到的部分
+        min.flushed = min.error;
+        entries.put(key, min);
+        siftDown(0);
+    }
+
+    /**
+     * 按计数倒序返回前 n 项
+     */
+    public List<Entry<K>> top(int n) {
+        List<Entry<K>> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(heap[i]);
+        }
+        result.sort(Comparator.comparingLong((Entry<K> e) -> e.count).reversed());
+        return result.size() > n ? result.subList(0, n) : result;
+    }
+
+    /**
+     * 全部计数（含误差与已持久化计数）减半，相对顺序不变，堆无需调整
+     */
+    public void decay() {
+        for (int i = 0; i < size; i++) {
+            Entry<K> entry = heap[i];
+            entry.count >>= 1;
+            entry.error >>= 1;
+            entry.flushed >>= 1;
+        }
+    }
+
+    /**
+     * 返回 key 的计数项，未被跟踪时返回 null
+     */
+    public Entry<K> get(K key) {
+        return entries.get(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int index) {
+        Entry<K> entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(entry, index);
+    }
+
+    private void siftDown(int index) {
+        Entry<K> entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(entry, index);
+    }
+
+    private void place(Entry<K> entry, int index) {
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    /**
+     * 草图中的计数项；flushed 记录已持久化的计数（含继承误差），count - flushed 即待写入增量
+     */
+    public static final class Entry<K> {
+
+        private K key;
+        private long count;
+        private long error;
+        private long flushed;
+        private int index;
+
+        private Entry(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        public long getFlushed() {
+            return flushed;
+        }
+
+        public void setFlushed(long flushed) {
+            this.flushed = flushed;
+        }
+    }
+}
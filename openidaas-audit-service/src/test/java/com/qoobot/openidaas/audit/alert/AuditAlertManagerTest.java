@@ -0,0 +1,160 @@
+package com.qoobot.openidaas.audit.alert;
+
+import com.qoobot.openidaas.audit.log.StructuredLogger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 审计告警测试
+ *
+ * @author QooBot
+ */
+class AuditAlertManagerTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final List<AuditAlert> sent = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private AuditAlertManager alertManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        alertManager = newManager(sent::add);
+        alertManager.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        alertManager.stop();
+    }
+
+    @Test
+    void testErrorRate_DecaysAfterWindow() {
+        // 准备：一次突发错误触发告警
+        alertManager.recordSuccess(10);
+        alertManager.recordError("write", "db down", 20);
+
+        // 执行：窗口过去后只有成功操作
+        now.addAndGet(61_000);
+        ReflectionTestUtils.setField(alertManager, "cooldownMs", 0L);
+        alertManager.recordSuccess(1000);
+        alertManager.recordError("write", "timeout");
+
+        // 验证：突发只影响当时的窗口
+        alertManager.stop();
+        assertEquals(1, sent.stream().filter(alert -> alert.getAlertType().equals("HIGH_ERROR_RATE")).count());
+        assertEquals(1L, alertManager.getMetrics().get("errorCount"));
+        assertEquals(1001L, alertManager.getMetrics().get("totalOperations"));
+    }
+
+    @Test
+    void testErrorRate_RequiresMinimumOperations() {
+        // 执行
+        alertManager.recordError("write", "db down");
+        alertManager.recordError("write", "db down");
+
+        // 验证
+        alertManager.stop();
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    void testCooldown_PerAlertType() {
+        // 执行：失败数告警进入冷却后，慢查询告警仍能发出
+        alertManager.recordSuccess(100);
+        alertManager.recordError("write", "db down", 10);
+        alertManager.recordError("write", "db down", 10);
+        for (int i = 0; i < 5; i++) {
+            alertManager.recordQuery("selectPage", 6000);
+        }
+        alertManager.recordQuery("selectPage", 100);
+
+        // 验证
+        alertManager.stop();
+        List<String> types = new ArrayList<>();
+        sent.forEach(alert -> types.add(alert.getAlertType()));
+        assertEquals(List.of("HIGH_FAILURE_COUNT", "HIGH_SLOW_QUERY_COUNT"), types);
+        assertEquals(5L, alertManager.getMetrics().get("slowQueryCount"));
+    }
+
+    @Test
+    void testDispatch_BoundedQueueDropsWithoutBlocking() throws Exception {
+        // 准备：渠道阻塞，分发线程 1 个、队列容量 1
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        alertManager.stop();
+        alertManager = newManager(alert -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(alert);
+        });
+        ReflectionTestUtils.setField(alertManager, "dispatchQueueCapacity", 1);
+        alertManager.start();
+
+        // 执行
+        alertManager.sendAlert("A", "first", AuditAlertManager.AlertSeverity.HIGH);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        alertManager.sendAlert("B", "queued", AuditAlertManager.AlertSeverity.HIGH);
+        alertManager.sendAlert("C", "dropped", AuditAlertManager.AlertSeverity.HIGH);
+        release.countDown();
+
+        // 验证
+        alertManager.stop();
+        assertEquals(2, sent.size());
+        assertEquals(1, meterRegistry.get("audit.alert.dropped").counter().count());
+    }
+
+    @Test
+    void testSlidingWindowCounter_ExactUnderContention() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        long start = now.get();
+        int threads = 8;
+        int perThread = 100_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counter.add(start + (i % 3) * 1000, 1);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals((long) threads * perThread, counter.sum(start + 2000));
+        // 2 秒窗口只保留最近两秒的计数，旧槽位被新的一秒替换
+        SlidingWindowCounter shortWindow = new SlidingWindowCounter(2);
+        shortWindow.add(start, 5);
+        shortWindow.add(start + 1000, 3);
+        shortWindow.add(start + 2000, 1);
+        assertEquals(4, shortWindow.sum(start + 2000));
+        assertEquals(0, shortWindow.sum(start + 10_000));
+    }
+
+    private AuditAlertManager newManager(AlertSink sink) {
+        AuditAlertManager manager = new AuditAlertManager(mock(StructuredLogger.class), List.of(sink), meterRegistry);
+        ReflectionTestUtils.setField(manager, "clock", (LongSupplier) now::get);
+        return manager;
+    }
+}
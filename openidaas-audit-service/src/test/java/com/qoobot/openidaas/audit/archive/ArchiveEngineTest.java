@@ -0,0 +1,318 @@
+package com.qoobot.openidaas.audit.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 数据归档引擎测试
+ *
+ * @author QooBot
+ */
+class ArchiveEngineTest {
+
+    private static final LocalDate CUTOFF = LocalDate.of(2026, 1, 1);
+    private static final ArchiveTableSpec SPEC = new ArchiveTableSpec("audit_logs", "created_at", null);
+
+    private FakeJdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ArchiveEngine archiveEngine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = new FakeJdbcTemplate();
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        meterRegistry = new SimpleMeterRegistry();
+        archiveEngine = new ArchiveEngine(jdbcTemplate, transactionTemplate, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(archiveEngine, "batchSize", 2);
+        ReflectionTestUtils.setField(archiveEngine, "maxRowsPerSecond", 0);
+    }
+
+    @Test
+    void testPartitionCoverage() {
+        long toDaysCutoff = CUTOFF.toEpochDay() + 719528;
+
+        assertTrue(partition("RANGE", "to_days(`created_at`)", String.valueOf(toDaysCutoff)).coveredBy(
+                "created_at", CUTOFF, ZoneOffset.UTC));
+        assertFalse(partition("RANGE", "to_days(`created_at`)", String.valueOf(toDaysCutoff + 1)).coveredBy(
+                "created_at", CUTOFF, ZoneOffset.UTC));
+        assertFalse(partition("RANGE", "to_days(`login_at`)", String.valueOf(toDaysCutoff)).coveredBy(
+                "created_at", CUTOFF, ZoneOffset.UTC));
+        assertFalse(partition("RANGE", "to_days(`created_at`)", "MAXVALUE").coveredBy(
+                "created_at", CUTOFF, ZoneOffset.UTC));
+        assertTrue(partition("RANGE", "unix_timestamp(`created_at`)",
+                String.valueOf(CUTOFF.atStartOfDay().toEpochSecond(ZoneOffset.UTC))).coveredBy(
+                "created_at", CUTOFF, ZoneOffset.UTC));
+        assertTrue(partition("RANGE COLUMNS", "`created_at`", "'2026-01-01 00:00:00'").coveredBy(
+                "created_at", CUTOFF, ZoneOffset.UTC));
+        assertFalse(partition("RANGE COLUMNS", "`created_at`", "'2026-01-01 12:00:00'").coveredBy(
+                "created_at", CUTOFF, ZoneOffset.UTC));
+        assertFalse(partition("HASH", "`id`", null).coveredBy("created_at", CUTOFF, ZoneOffset.UTC));
+    }
+
+    @Test
+    void testArchiveRows_ChunkedWithCheckpoint() {
+        // 准备
+        jdbcTemplate.rows.putAll(Map.of(1L, 1, 2L, 2, 3L, 3, 5L, 5));
+        jdbcTemplate.tables.add("audit_logs_archive");
+
+        // 执行
+        ArchiveResult result = archiveEngine.archive(SPEC, CUTOFF);
+
+        // 验证：按主键每两行一个事务，每批都推进检查点，最后标记完成
+        assertTrue(result.isCompleted());
+        assertEquals(4, result.getRows());
+        assertTrue(jdbcTemplate.rows.isEmpty());
+        assertEquals(List.of(1L, 2L, 3L, 5L), jdbcTemplate.archived);
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        assertEquals(List.of("RUNNING:0", "RUNNING:2", "RUNNING:5", "DONE:5"), jdbcTemplate.checkpoints);
+        assertEquals(4, meterRegistry.get("audit.archive.rows").tag("table", "audit_logs").counter().count());
+        assertTrue(jdbcTemplate.statements.stream().noneMatch(sql -> sql.startsWith("OPTIMIZE")));
+    }
+
+    @Test
+    void testArchiveRows_ResumesFromCheckpoint() {
+        // 准备：上次运行在主键 2 处中断
+        jdbcTemplate.rows.putAll(Map.of(3L, 3, 4L, 4));
+        jdbcTemplate.tables.add("audit_logs_archive");
+        jdbcTemplate.checkpoint = new HashMap<>(Map.of("cutoff_date", CUTOFF, "last_id", 2L,
+                "archived_rows", 2L, "status", "RUNNING"));
+
+        // 执行
+        ArchiveResult result = archiveEngine.archive(SPEC, CUTOFF);
+
+        // 验证
+        assertEquals(2, result.getRows());
+        assertEquals(List.of("RUNNING:4", "DONE:4"), jdbcTemplate.checkpoints);
+        assertEquals(4L, jdbcTemplate.checkpoint.get("archived_rows"));
+    }
+
+    @Test
+    void testPurge_BatchedDeleteWithoutArchiveOrOptimize() {
+        // 准备
+        jdbcTemplate.rows.putAll(Map.of(1L, 1, 2L, 2, 3L, 3, 4L, 4, 5L, 5));
+        ArchiveTableSpec tokens = new ArchiveTableSpec("auth_tokens", "expire_at", null);
+
+        // 执行
+        ArchiveResult result = archiveEngine.purge(tokens, CUTOFF.atStartOfDay());
+
+        // 验证：每批最多两行，不足一批时结束，不写归档表也不 OPTIMIZE
+        assertTrue(result.isCompleted());
+        assertEquals(5, result.getRows());
+        assertTrue(jdbcTemplate.rows.isEmpty());
+        assertEquals(List.of("DELETE FROM auth_tokens WHERE expire_at < ? LIMIT ?",
+                        "DELETE FROM auth_tokens WHERE expire_at < ? LIMIT ?",
+                        "DELETE FROM auth_tokens WHERE expire_at < ? LIMIT ?"),
+                jdbcTemplate.queries);
+        assertTrue(jdbcTemplate.archived.isEmpty());
+        assertTrue(jdbcTemplate.statements.isEmpty());
+        assertEquals(5, meterRegistry.get("audit.archive.purged").tag("table", "auth_tokens").counter().count());
+    }
+
+    @Test
+    void testArchivePartition_ExchangeThenDrop() {
+        // 准备
+        long toDaysCutoff = CUTOFF.toEpochDay() + 719528;
+        jdbcTemplate.partitions.add(partitionRow("p202512", toDaysCutoff - 31));
+        jdbcTemplate.partitions.add(partitionRow("p202601", toDaysCutoff));
+        jdbcTemplate.partitions.add(partitionRow("p202602", toDaysCutoff + 31));
+        jdbcTemplate.partitions.add(partitionRow("pmax", null));
+
+        // 执行
+        ArchiveResult result = archiveEngine.archive(SPEC, CUTOFF);
+
+        // 验证：上界不晚于截止日期的两个分区被换出并删除，归档表去掉分区定义
+        assertEquals(2, result.getPartitions());
+        assertEquals(List.of(
+                "CREATE TABLE audit_logs_archive_p202512 LIKE audit_logs",
+                "ALTER TABLE audit_logs_archive_p202512 REMOVE PARTITIONING",
+                "ALTER TABLE audit_logs EXCHANGE PARTITION p202512 WITH TABLE audit_logs_archive_p202512",
+                "ALTER TABLE audit_logs DROP PARTITION p202512",
+                "CREATE TABLE audit_logs_archive_p202601 LIKE audit_logs",
+                "ALTER TABLE audit_logs_archive_p202601 REMOVE PARTITIONING",
+                "ALTER TABLE audit_logs EXCHANGE PARTITION p202601 WITH TABLE audit_logs_archive_p202601",
+                "ALTER TABLE audit_logs DROP PARTITION p202601",
+                "CREATE TABLE audit_logs_archive LIKE audit_logs",
+                "ALTER TABLE audit_logs_archive REMOVE PARTITIONING"), jdbcTemplate.statements);
+    }
+
+    @Test
+    void testArchivePartition_ConditionFallsBackToRows() {
+        // 准备：带附加条件的表即使分区也只能逐行归档
+        ArchiveTableSpec spec = new ArchiveTableSpec("security_events", "created_at", "resolved = 1");
+        jdbcTemplate.partitions.add(partitionRow("p202512", CUTOFF.toEpochDay() + 719528));
+        jdbcTemplate.tables.add("security_events_archive");
+        jdbcTemplate.rows.putAll(Map.of(1L, 1));
+
+        // 执行
+        ArchiveResult result = archiveEngine.archive(spec, CUTOFF);
+
+        // 验证
+        assertEquals(0, result.getPartitions());
+        assertEquals(1, result.getRows());
+        assertTrue(jdbcTemplate.queries.stream().filter(sql -> sql.startsWith("SELECT id FROM"))
+                .allMatch(sql -> sql.endsWith("AND (resolved = 1) ORDER BY id LIMIT ?")));
+    }
+
+    @Test
+    void testExport_WritesGzipNdjson(@TempDir Path dir) throws Exception {
+        // 准备
+        ReflectionTestUtils.setField(archiveEngine, "exportEnabled", true);
+        ReflectionTestUtils.setField(archiveEngine, "exportDir", dir.toString());
+        jdbcTemplate.rows.putAll(Map.of(1L, 1, 2L, 2, 3L, 3));
+        jdbcTemplate.tables.add("audit_logs_archive");
+
+        // 执行
+        archiveEngine.archive(SPEC, CUTOFF);
+
+        // 验证：每批一个 gzip 成员，整体可按单个 gzip 流连续读出
+        Path file = dir.resolve("audit_logs-2026-01-01.ndjson.gz");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            assertEquals(List.of("{\"id\":1}", "{\"id\":2}", "{\"id\":3}"),
+                    reader.lines().collect(Collectors.toList()));
+        }
+    }
+
+    private ArchiveEngine.PartitionInfo partition(String method, String expression, String description) {
+        return new ArchiveEngine.PartitionInfo("p", method, expression, description, 0, 0);
+    }
+
+    private Map<String, Object> partitionRow(String name, Long description) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("PARTITION_NAME", name);
+        row.put("PARTITION_METHOD", "RANGE");
+        row.put("PARTITION_EXPRESSION", "to_days(`created_at`)");
+        row.put("PARTITION_DESCRIPTION", description != null ? String.valueOf(description) : "MAXVALUE");
+        return row;
+    }
+
+    /**
+     * 按 SQL 前缀模拟引擎用到的语句，源表行以 id -> 值 保存，全部早于截止日期
+     */
+    private static class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final TreeMap<Long, Integer> rows = new TreeMap<>();
+        private final List<Long> archived = new ArrayList<>();
+        private final List<String> tables = new ArrayList<>();
+        private final List<Map<String, Object>> partitions = new ArrayList<>();
+        private final List<String> statements = new ArrayList<>();
+        private final List<String> queries = new ArrayList<>();
+        private final List<String> checkpoints = new ArrayList<>();
+        private Map<String, Object> checkpoint;
+
+        @Override
+        public void execute(String sql) {
+            statements.add(sql);
+            if (sql.startsWith("CREATE TABLE ")) {
+                tables.add(sql.split(" ")[2]);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            queries.add(sql);
+            if (sql.contains("information_schema.tables")) {
+                return (T) Integer.valueOf(tables.contains(args[0]) ? 1 : 0);
+            }
+            if (sql.startsWith("SELECT MAX(id)")) {
+                return (T) (rows.isEmpty() ? null : rows.lastKey());
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            queries.add(sql);
+            if (sql.startsWith("SELECT id FROM")) {
+                long lastId = ((Number) args[0]).longValue();
+                long maxId = ((Number) args[1]).longValue();
+                int limit = ((Number) args[3]).intValue();
+                return (List<T>) rows.subMap(lastId, false, maxId, true).keySet().stream()
+                        .limit(limit).collect(Collectors.toList());
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        public List<Map<String, Object>> queryForList(String sql, Object... args) {
+            queries.add(sql);
+            if (sql.contains("information_schema.PARTITIONS")) {
+                return partitions;
+            }
+            if (sql.contains("FROM archive_checkpoint")) {
+                return checkpoint != null ? List.of(checkpoint) : List.of();
+            }
+            if (sql.startsWith("SELECT * FROM")) {
+                List<Map<String, Object>> result = new ArrayList<>();
+                for (Object id : args) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("id", id);
+                    result.add(row);
+                }
+                return result;
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            queries.add(sql);
+            if (sql.startsWith("INSERT INTO archive_checkpoint")) {
+                checkpoint = new HashMap<>(Map.of("cutoff_date", args[1], "last_id", args[2],
+                        "archived_rows", args[3], "status", args[4]));
+                checkpoints.add(args[4] + ":" + args[2]);
+                return 1;
+            }
+            if (sql.endsWith(" LIMIT ?")) {
+                List<Long> expired = rows.keySet().stream()
+                        .limit(((Number) args[1]).intValue()).collect(Collectors.toList());
+                expired.forEach(rows::remove);
+                return expired.size();
+            }
+            List<Long> ids = Arrays.stream(args).map(id -> (Long) id).collect(Collectors.toList());
+            if (sql.startsWith("INSERT INTO")) {
+                archived.addAll(ids);
+            } else if (sql.startsWith("DELETE FROM")) {
+                ids.forEach(rows::remove);
+            }
+            return ids.size();
+        }
+    }
+}
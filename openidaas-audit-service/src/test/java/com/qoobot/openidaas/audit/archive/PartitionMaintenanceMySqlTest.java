@@ -0,0 +1,101 @@
+package com.qoobot.openidaas.audit.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分区维护 MySQL 测试
+ * 在真实的 MySQL 分区表上验证预建分区、过期分区换出与分区指标
+ *
+ * @author QooBot
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PartitionMaintenanceMySqlTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+    private static final ArchiveTableSpec SPEC = new ArchiveTableSpec("audit_logs", "created_at", null);
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>(DockerImageName.parse("mysql:8.0"));
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        meterRegistry = new SimpleMeterRegistry();
+        ArchiveEngine archiveEngine = new ArchiveEngine(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), new ObjectMapper(), meterRegistry);
+        partitionManager = new PartitionManager(archiveEngine, jdbcTemplate, meterRegistry);
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS audit_logs_archive_p202606");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS audit_logs");
+        jdbcTemplate.execute("CREATE TABLE audit_logs ("
+                + "id BIGINT NOT NULL AUTO_INCREMENT, "
+                + "operation_type VARCHAR(50), "
+                + "created_at DATETIME NOT NULL, "
+                + "PRIMARY KEY (id, created_at)) "
+                + "PARTITION BY RANGE (TO_DAYS(created_at)) ("
+                + "PARTITION p202606 VALUES LESS THAN (TO_DAYS('2026-07-01')), "
+                + "PARTITION p202607 VALUES LESS THAN (TO_DAYS('2026-08-01')), "
+                + "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+        jdbcTemplate.update("INSERT INTO audit_logs (operation_type, created_at) VALUES "
+                + "('LOGIN', '2026-06-10 08:00:00'), ('LOGIN', '2026-06-20 09:00:00'), "
+                + "('CREATE', '2026-07-15 10:00:00'), ('DELETE', '2026-10-01 11:00:00')");
+    }
+
+    @Test
+    void testMaintain_RollsPartitionsForward() {
+        // 执行
+        partitionManager.maintain(SPEC, 3, TODAY);
+
+        // 验证：预建到 2027-01，落入 pmax 的行随拆分进入 p202610
+        assertEquals(List.of("p202607", "p202608", "p202609", "p202610", "p202611", "p202612", "p202701", "pmax"),
+                jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_logs' "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION", String.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_logs PARTITION (p202610)", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_logs PARTITION (pmax)", Integer.class));
+
+        // 验证：保留 3 个月，2026-07-01 之前的分区整体换出到归档表
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs_archive_p202606", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs", Integer.class));
+
+        // 验证：分区指标与现存分区一致
+        assertEquals(8, meterRegistry.find("audit.partition.bytes").tag("table", "audit_logs").gauges().size());
+        assertNull(meterRegistry.find("audit.partition.rows").tag("partition", "p202606").gauge());
+    }
+
+    @Test
+    void testMaintain_Idempotent() {
+        // 执行
+        partitionManager.maintain(SPEC, 3, TODAY);
+        int created = partitionManager.createFuturePartitions(SPEC, TODAY);
+
+        // 验证
+        assertEquals(0, created);
+        assertEquals(0, partitionManager.createFuturePartitions(SPEC, TODAY.plusDays(10)));
+        assertEquals(1, partitionManager.createFuturePartitions(SPEC, TODAY.plusMonths(1)));
+    }
+}
@@ -0,0 +1,152 @@
+package com.qoobot.openidaas.audit.archive;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分区维护测试
+ *
+ * @author QooBot
+ */
+class PartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+    private static final ArchiveTableSpec SPEC = new ArchiveTableSpec("audit_logs", "created_at", null);
+
+    private ArchiveEngine archiveEngine;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() {
+        archiveEngine = mock(ArchiveEngine.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        partitionManager = new PartitionManager(archiveEngine, jdbcTemplate, meterRegistry);
+    }
+
+    @Test
+    void testPlan_FillsGapUpToFutureMonths() {
+        List<PartitionManager.PlannedPartition> planned = PartitionManager.planFuturePartitions(List.of(
+                monthly("p202608", "2026-09-01"),
+                monthly("p202609", "2026-10-01"),
+                maxValue("pmax", 0)), "created_at", TODAY, 2);
+
+        // 当前月及之后两个月
+        assertEquals(List.of(
+                new PartitionManager.PlannedPartition("p202610", LocalDate.of(2026, 11, 1)),
+                new PartitionManager.PlannedPartition("p202611", LocalDate.of(2026, 12, 1)),
+                new PartitionManager.PlannedPartition("p202612", LocalDate.of(2027, 1, 1))), planned);
+    }
+
+    @Test
+    void testPlan_NothingWhenCoveredOrUnmanaged() {
+        assertTrue(PartitionManager.planFuturePartitions(List.of(
+                monthly("p202612", "2027-01-01"),
+                maxValue("pmax", 0)), "created_at", TODAY, 2).isEmpty());
+        assertTrue(PartitionManager.planFuturePartitions(List.of(), "created_at", TODAY, 2).isEmpty());
+        // 分区列不是时间列
+        assertTrue(PartitionManager.planFuturePartitions(List.of(
+                monthly("p202601", "2026-02-01")), "login_at", TODAY, 2).isEmpty());
+    }
+
+    @Test
+    void testPlan_UnalignedBoundKeepsNamesUnique() {
+        List<PartitionManager.PlannedPartition> planned = PartitionManager.planFuturePartitions(List.of(
+                monthly("p202610", "2026-10-15")), "created_at", TODAY, 0);
+
+        assertEquals(List.of(new PartitionManager.PlannedPartition("p20261015", LocalDate.of(2026, 11, 1))),
+                planned);
+    }
+
+    @Test
+    void testCreate_SplitsMaxValuePartition() {
+        // 准备
+        when(archiveEngine.listPartitions("audit_logs")).thenReturn(List.of(
+                monthly("p202609", "2026-10-01"),
+                maxValue("pmax", 10)));
+
+        // 执行
+        int created = partitionManager.createFuturePartitions(SPEC, TODAY);
+
+        // 验证
+        assertEquals(4, created);
+        verify(jdbcTemplate).execute("ALTER TABLE audit_logs REORGANIZE PARTITION pmax INTO ("
+                + "PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')), "
+                + "PARTITION p202611 VALUES LESS THAN (TO_DAYS('2026-12-01')), "
+                + "PARTITION p202612 VALUES LESS THAN (TO_DAYS('2027-01-01')), "
+                + "PARTITION p202701 VALUES LESS THAN (TO_DAYS('2027-02-01')), "
+                + "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+    }
+
+    @Test
+    void testCreate_AddsWithoutMaxValuePartition() {
+        // 准备
+        when(archiveEngine.listPartitions("audit_logs")).thenReturn(List.of(monthly("p202612", "2027-01-01")));
+
+        // 执行
+        int created = partitionManager.createFuturePartitions(SPEC, TODAY);
+
+        // 验证
+        assertEquals(1, created);
+        verify(jdbcTemplate).execute(
+                "ALTER TABLE audit_logs ADD PARTITION (PARTITION p202701 VALUES LESS THAN (TO_DAYS('2027-02-01')))");
+    }
+
+    @Test
+    void testMaintain_ArchivesExpiredAndRefreshesMetrics() {
+        // 准备
+        when(archiveEngine.listPartitions("audit_logs"))
+                .thenReturn(List.of(monthly("p202606", "2026-07-01"), monthly("p202701", "2027-02-01")))
+                .thenReturn(List.of(monthly("p202606", "2026-07-01"), monthly("p202701", "2027-02-01")))
+                .thenReturn(List.of(monthly("p202701", "2027-02-01")));
+        when(archiveEngine.archivePartitions(SPEC, LocalDate.of(2026, 7, 1))).thenReturn(1);
+
+        // 执行
+        partitionManager.maintain(SPEC, 3, TODAY);
+        assertEquals(2, meterRegistry.find("audit.partition.rows").gauges().size());
+        partitionManager.refreshMetrics("audit_logs");
+
+        // 验证：保留期按自然月对齐，已删除分区的指标被移除
+        verify(archiveEngine).archivePartitions(SPEC, LocalDate.of(2026, 7, 1));
+        verify(jdbcTemplate, never()).execute(anyString());
+        assertEquals(1, meterRegistry.find("audit.partition.rows").gauges().size());
+        assertEquals(100, meterRegistry.get("audit.partition.rows").tag("partition", "p202701").gauge().value());
+        assertEquals(2048, meterRegistry.get("audit.partition.bytes").tag("partition", "p202701").gauge().value());
+    }
+
+    @Test
+    void testMaintain_FailureCounted() {
+        // 准备
+        when(archiveEngine.listPartitions("audit_logs")).thenReturn(List.of(monthly("p202609", "2026-10-01")));
+        doThrow(new IllegalStateException("lock wait timeout")).when(jdbcTemplate).execute(anyString());
+
+        // 执行
+        assertThrows(IllegalStateException.class, () -> partitionManager.maintain(SPEC, 3, TODAY));
+
+        // 验证
+        verify(archiveEngine, never()).archivePartitions(any(), any());
+        assertEquals(1, meterRegistry.get("audit.partition.maintenance.failed").tag("table", "audit_logs")
+                .counter().count());
+    }
+
+    private ArchiveEngine.PartitionInfo monthly(String name, String bound) {
+        return new ArchiveEngine.PartitionInfo(name, "RANGE", "to_days(`created_at`)",
+                String.valueOf(LocalDate.parse(bound).toEpochDay() + 719528), 100, 2048);
+    }
+
+    private ArchiveEngine.PartitionInfo maxValue(String name, long rows) {
+        return new ArchiveEngine.PartitionInfo(name, "RANGE", "to_days(`created_at`)", "MAXVALUE", rows, 0);
+    }
+}
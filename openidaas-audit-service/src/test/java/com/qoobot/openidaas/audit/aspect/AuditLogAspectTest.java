@@ -89,7 +89,7 @@ class AuditLogAspectTest {
             when(request.getRemoteAddr()).thenReturn("192.168.1.1");
             when(request.getHeader("User-Agent")).thenReturn("Mozilla/5.0");
 
-            doNothing().when(auditService).recordAuditLog(any(AuditLogCreateDTO.class));
+            when(auditService.submitAuditLog(any(AuditLogCreateDTO.class))).thenReturn(true);
 
             // 执行
             Object resultObj = auditLogAspect.around(joinPoint, auditAnnotation);
@@ -97,7 +97,7 @@ class AuditLogAspectTest {
             // 验证
             assertNotNull(resultObj);
             assertEquals("success", resultObj);
-            verify(auditService, times(1)).recordAuditLog(any(AuditLogCreateDTO.class));
+            verify(auditService, times(1)).submitAuditLog(any(AuditLogCreateDTO.class));
         }
     }
 
@@ -120,13 +120,13 @@ class AuditLogAspectTest {
             when(request.getRequestURI()).thenReturn("/api/test");
             when(request.getMethod()).thenReturn("GET");
 
-            doNothing().when(auditService).recordAuditLog(any(AuditLogCreateDTO.class));
+            when(auditService.submitAuditLog(any(AuditLogCreateDTO.class))).thenReturn(true);
 
             // 执行和验证
             assertThrows(RuntimeException.class, () -> auditLogAspect.around(joinPoint, auditAnnotation));
 
             // 验证
-            verify(auditService, times(1)).recordAuditLog(any(AuditLogCreateDTO.class));
+            verify(auditService, times(1)).submitAuditLog(any(AuditLogCreateDTO.class));
         }
     }
 
@@ -160,7 +160,7 @@ class AuditLogAspectTest {
             assertNotNull(resultObj);
             assertEquals("success", resultObj);
             verify(auditService, times(1)).sendAuditLogAsync(any(AuditLogCreateDTO.class));
-            verify(auditService, never()).recordAuditLog(any(AuditLogCreateDTO.class));
+            verify(auditService, never()).submitAuditLog(any(AuditLogCreateDTO.class));
         }
     }
 
@@ -184,13 +184,13 @@ class AuditLogAspectTest {
             when(requestAttributes.getRequest()).thenReturn(request);
             when(request.getRequestURI()).thenReturn("/api/test");
 
-            doNothing().when(auditService).recordAuditLog(any(AuditLogCreateDTO.class));
+            when(auditService.submitAuditLog(any(AuditLogCreateDTO.class))).thenReturn(true);
 
             // 执行
             auditLogAspect.around(joinPoint, noParamsAnnotation);
 
             // 验证
-            verify(auditService, times(1)).recordAuditLog(argThat(dto -> {
+            verify(auditService, times(1)).submitAuditLog(argThat(dto -> {
                 // 验证请求参数未记录
                 return dto.getRequestParams() == null;
             }));
@@ -222,13 +222,13 @@ class AuditLogAspectTest {
             when(requestAttributes.getRequest()).thenReturn(request);
             when(request.getRequestURI()).thenReturn("/api/test");
 
-            doNothing().when(auditService).recordAuditLog(any(AuditLogCreateDTO.class));
+            when(auditService.submitAuditLog(any(AuditLogCreateDTO.class))).thenReturn(true);
 
             // 执行
             auditLogAspect.around(joinPoint, withResultAnnotation);
 
             // 验证
-            verify(auditService, times(1)).recordAuditLog(argThat(dto -> {
+            verify(auditService, times(1)).submitAuditLog(argThat(dto -> {
                 // 验证响应结果已记录
                 return dto.getResponseResult() != null && dto.getResponseResult().contains("result_data");
             }));
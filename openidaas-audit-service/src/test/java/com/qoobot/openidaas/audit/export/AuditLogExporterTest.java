@@ -0,0 +1,152 @@
+package com.qoobot.openidaas.audit.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qoobot.openidaas.audit.converter.AuditLogConverter;
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.common.vo.audit.AuditLogVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 审计日志流式导出测试
+ *
+ * @author QooBot
+ */
+@ExtendWith(MockitoExtension.class)
+class AuditLogExporterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 2, 0, 0);
+
+    @Mock
+    private AuditLogMapper auditLogMapper;
+
+    @Mock
+    private AuditLogConverter auditLogConverter;
+
+    private AuditLogExporter exporter;
+
+    private List<AuditLog> table;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new AuditLogExporter(auditLogMapper, auditLogConverter, new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(exporter, "fetchSize", 2);
+
+        // 同一时间点的多条记录，验证键集分页按 id 续读
+        table = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            table.add(createLog(id, START.plusHours(id / 2), "desc-" + id));
+        }
+        lenient().when(auditLogMapper.selectExportChunk(eq(START), eq(END), any(), any(), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime afterTime = invocation.getArgument(2);
+            Long afterId = invocation.getArgument(3);
+            int limit = invocation.getArgument(4);
+            return table.stream()
+                    .filter(log -> afterTime == null || log.getOperationTime().isAfter(afterTime)
+                            || (log.getOperationTime().isEqual(afterTime) && log.getId() > afterId))
+                    .limit(limit)
+                    .toList();
+        });
+    }
+
+    @Test
+    void testExport_CsvKeysetPaging() throws Exception {
+        // 准备
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 执行
+        long count = exporter.export(START, END, AuditExportFormat.CSV, out);
+
+        // 验证：5 条按每块 2 行读取 3 次，每条只导出一次
+        assertEquals(5, count);
+        verify(auditLogMapper, times(3)).selectExportChunk(eq(START), eq(END), any(), any(), eq(2));
+        verify(auditLogMapper).selectExportChunk(START, END, null, null, 2);
+        verify(auditLogMapper).selectExportChunk(START, END, START.plusHours(1), 2L, 2);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(6, lines.length);
+        assertTrue(lines[0].startsWith("\uFEFF操作时间,"));
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(lines[i].contains(",desc-" + i + ","));
+        }
+    }
+
+    @Test
+    void testExport_CsvEscaping() throws Exception {
+        // 准备
+        table = List.of(createLog(1L, START, "a,\"b\"\nc"), createLog(2L, START, "=HYPERLINK(\"x\")"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 执行
+        exporter.export(START, END, AuditExportFormat.CSV, out);
+
+        // 验证
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.contains(",\"a,\"\"b\"\"\nc\","));
+        assertTrue(csv.contains(",\"'=HYPERLINK(\"\"x\"\")\","));
+    }
+
+    @Test
+    void testExport_Ndjson() throws Exception {
+        // 准备
+        when(auditLogConverter.toVO(any(AuditLog.class))).thenAnswer(invocation -> {
+            AuditLog auditLog = invocation.getArgument(0);
+            AuditLogVO vo = new AuditLogVO();
+            vo.setId(auditLog.getId());
+            vo.setOperationDesc(auditLog.getOperationDesc());
+            return vo;
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 执行
+        long count = exporter.export(START, END, AuditExportFormat.NDJSON, out);
+
+        // 验证：每行一个 JSON 对象
+        assertEquals(5, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"id\":1"));
+        assertTrue(lines[4].contains("\"operationDesc\":\"desc-5\""));
+    }
+
+    @Test
+    void testExport_MaxRows() throws Exception {
+        // 准备
+        ReflectionTestUtils.setField(exporter, "maxRows", 3L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 执行
+        long count = exporter.export(START, END, AuditExportFormat.CSV, out);
+
+        // 验证：最后一块只读取剩余行数
+        assertEquals(3, count);
+        verify(auditLogMapper).selectExportChunk(START, END, START.plusHours(1), 2L, 1);
+    }
+
+    private AuditLog createLog(Long id, LocalDateTime operationTime, String operationDesc) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(id);
+        auditLog.setOperationType("CREATE");
+        auditLog.setOperationDesc(operationDesc);
+        auditLog.setModule("USER");
+        auditLog.setOperatorName("admin");
+        auditLog.setOperationTime(operationTime);
+        auditLog.setResult("SUCCESS");
+        return auditLog;
+    }
+}
@@ -13,13 +13,17 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -281,13 +285,44 @@ class AuditControllerIntegrationTest {
         String startTime = LocalDateTime.now().minusDays(1).toString().replace("T", " ").substring(0, 19);
         String endTime = LocalDateTime.now().toString().replace("T", " ").substring(0, 19);
 
-        // 执行和验证
-        mockMvc.perform(get("/api/audit/logs/export")
+        // 执行
+        MvcResult mvcResult = mockMvc.perform(get("/api/audit/logs/export")
                         .param("startTime", startTime)
                         .param("endTime", endTime))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // 验证
+        byte[] data = mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(header().exists("Content-Disposition"))
-                .andExpect(header().string("Content-Type", containsString("application/octet-stream")));
+                .andExpect(header().string("Content-Type", containsString("application/octet-stream")))
+                .andReturn().getResponse().getContentAsByteArray();
+        // 验证是Excel文件 (以PK开头)
+        assertEquals("PK", new String(data, 0, 2, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testExportAuditLogs_Csv_Integration() throws Exception {
+        // 准备
+        String startTime = LocalDateTime.now().minusDays(1).toString().replace("T", " ").substring(0, 19);
+        String endTime = LocalDateTime.now().toString().replace("T", " ").substring(0, 19);
+
+        // 执行
+        MvcResult mvcResult = mockMvc.perform(get("/api/audit/logs/export")
+                        .param("startTime", startTime)
+                        .param("endTime", endTime)
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // 验证
+        byte[] data = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString(".csv")))
+                .andReturn().getResponse().getContentAsByteArray();
+        String csv = new String(data, StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("\uFEFF操作时间,操作类型,操作描述"));
     }
 
     @Test
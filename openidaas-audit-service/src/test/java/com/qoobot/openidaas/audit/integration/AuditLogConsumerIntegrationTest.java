@@ -0,0 +1,109 @@
+package com.qoobot.openidaas.audit.integration;
+
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 审计日志 Kafka 消费集成测试（嵌入式 Kafka）
+ *
+ * @author QooBot
+ */
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "audit.kafka.consumer.auto-startup=true",
+        "audit.kafka.consumer.concurrency=1",
+        "audit.kafka.consumer.retry-interval-ms=100",
+        "audit.kafka.consumer.max-retries=1"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"audit-log-topic", "audit-log-topic.DLT"})
+class AuditLogConsumerIntegrationTest {
+
+    private static final String TOPIC = "audit-log-topic";
+    private static final String DEAD_LETTER_TOPIC = "audit-log-topic.DLT";
+
+    @Autowired
+    private KafkaTemplate<String, AuditLogCreateDTO> kafkaTemplate;
+
+    @Autowired
+    private AuditLogMapper auditLogMapper;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Test
+    void testConsume_DeduplicatesAndDeadLettersPoisonRecords() throws InterruptedException {
+        // 准备：重复投递的事件、一条无法反序列化的消息，以及一条标记消息
+        kafkaTemplate.send(TOPIC, "evt-it-1", createDTO("evt-it-1"));
+        kafkaTemplate.send(TOPIC, "evt-it-1", createDTO("evt-it-1"));
+        kafkaTemplate.send(TOPIC, "evt-it-2", createDTO("evt-it-2"));
+        kafkaTemplate.flush();
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafka);
+        KafkaTemplate<String, byte[]> rawTemplate = new KafkaTemplate<>(
+                new DefaultKafkaProducerFactory<>(producerProps, new StringSerializer(), new ByteArraySerializer()));
+        rawTemplate.send(TOPIC, "evt-it-poison", "not-json".getBytes(StandardCharsets.UTF_8));
+        rawTemplate.flush();
+
+        kafkaTemplate.send(TOPIC, "evt-it-3", createDTO("evt-it-3"));
+        kafkaTemplate.flush();
+
+        // 验证：单分区按序消费，标记消息落库时之前的消息均已处理
+        List<String> eventIds = List.of("evt-it-1", "evt-it-2", "evt-it-3");
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!auditLogMapper.selectExistingEventIds(List.of("evt-it-3")).contains("evt-it-3")
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        List<String> stored = auditLogMapper.selectExistingEventIds(eventIds);
+        assertEquals(3, stored.size());
+        assertTrue(stored.containsAll(eventIds));
+
+        // 验证：无法处理的消息按原始字节转入死信主题
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("audit-dlt-test", "false", embeddedKafka);
+        try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, DEAD_LETTER_TOPIC);
+            ConsumerRecord<String, byte[]> deadLetter = KafkaTestUtils.getSingleRecord(consumer, DEAD_LETTER_TOPIC);
+            assertEquals("evt-it-poison", deadLetter.key());
+            assertEquals("not-json", new String(deadLetter.value(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private AuditLogCreateDTO createDTO(String eventId) {
+        AuditLogCreateDTO dto = new AuditLogCreateDTO();
+        dto.setEventId(eventId);
+        dto.setOperationType("CREATE");
+        dto.setOperationDesc("Kafka 消费集成测试");
+        dto.setModule("USER");
+        dto.setOperatorId(1L);
+        dto.setOperatorName("test_admin");
+        dto.setOperationTime(LocalDateTime.now());
+        dto.setResult("SUCCESS");
+        return dto;
+    }
+}
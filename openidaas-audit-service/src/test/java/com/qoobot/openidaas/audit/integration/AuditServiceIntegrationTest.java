@@ -1,7 +1,13 @@
 package com.qoobot.openidaas.audit.integration;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.audit.pipeline.AuditLogBatchWriter;
 import com.qoobot.openidaas.audit.service.AuditService;
 import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import com.qoobot.openidaas.common.dto.audit.AuditLogQueryDTO;
+import com.qoobot.openidaas.common.vo.CursorPageResultVO;
 import com.qoobot.openidaas.common.vo.audit.AuditLogVO;
 import com.qoobot.openidaas.common.vo.audit.AuditStatisticsVO;
 import org.junit.jupiter.api.Test;
@@ -12,7 +18,9 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +40,12 @@ class AuditServiceIntegrationTest {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private AuditLogBatchWriter batchWriter;
+
+    @Autowired
+    private AuditLogMapper auditLogMapper;
+
     @Test
     void testRecordAndRetrieveAuditLog() {
         // 准备
@@ -93,6 +107,24 @@ class AuditServiceIntegrationTest {
         assertNotNull(dto3);
     }
 
+    @Test
+    void testBatchInsert_SkipsDuplicateEventIds() {
+        // 准备：另一消费者已写入同一事件
+        batchWriter.write(List.of(eventDTO("evt-dup-1")));
+        LambdaQueryWrapper<AuditLog> withoutEventId = new LambdaQueryWrapper<AuditLog>().isNull(AuditLog::getEventId);
+        long before = auditLogMapper.selectCount(withoutEventId);
+
+        // 执行：同一批中既有重复事件，也有新事件和没有事件ID的日志
+        batchWriter.write(List.of(eventDTO("evt-dup-1"), eventDTO("evt-dup-2"), eventDTO(null), eventDTO(null)));
+
+        // 验证：重复事件只保留一行，其余照常写入
+        assertEquals(1, auditLogMapper.selectCount(
+                new LambdaQueryWrapper<AuditLog>().eq(AuditLog::getEventId, "evt-dup-1")));
+        assertEquals(1, auditLogMapper.selectCount(
+                new LambdaQueryWrapper<AuditLog>().eq(AuditLog::getEventId, "evt-dup-2")));
+        assertEquals(before + 2, auditLogMapper.selectCount(withoutEventId));
+    }
+
     @Test
     void testQueryAuditLogs() {
         // 准备
@@ -112,6 +144,48 @@ class AuditServiceIntegrationTest {
         assertNotNull(result.getRecords());
     }
 
+    @Test
+    void testQueryAuditLogsByCursor() {
+        // 准备：同一时间点的多条日志，验证游标按 id 续读不重不漏
+        LocalDateTime operationTime = LocalDateTime.now().withNano(0);
+        List<AuditLogCreateDTO> dtoList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AuditLogCreateDTO dto = new AuditLogCreateDTO();
+            dto.setOperationType("CREATE");
+            dto.setModule("CURSOR_TEST");
+            dto.setOperatorId(1L);
+            dto.setOperationTime(operationTime);
+            dto.setResult("SUCCESS");
+            dtoList.add(dto);
+        }
+        auditService.recordAuditLogs(dtoList);
+
+        AuditLogQueryDTO queryDTO = new AuditLogQueryDTO();
+        queryDTO.setModule("CURSOR_TEST");
+        queryDTO.setSize(2);
+        queryDTO.setWithTotal(true);
+
+        // 执行
+        List<Long> ids = new ArrayList<>();
+        CursorPageResultVO<AuditLogVO> page;
+        int pages = 0;
+        do {
+            page = auditService.queryAuditLogsByCursor(queryDTO);
+            page.getRecords().forEach(vo -> ids.add(vo.getId()));
+            queryDTO.setCursor(page.getNextCursor());
+            pages++;
+        } while (page.getHasMore());
+
+        // 验证
+        assertEquals(3, pages);
+        assertEquals(5L, page.getTotal());
+        assertEquals(5, ids.size());
+        assertEquals(5, new HashSet<>(ids).size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) > ids.get(i));
+        }
+    }
+
     @Test
     void testGetUserAuditLogs() {
         // 执行
@@ -292,4 +366,15 @@ class AuditServiceIntegrationTest {
         // 执行 - 不应该抛出异常
         assertDoesNotThrow(() -> auditService.recordAuditLogAsync(createDTO));
     }
+
+    private AuditLogCreateDTO eventDTO(String eventId) {
+        AuditLogCreateDTO dto = new AuditLogCreateDTO();
+        dto.setEventId(eventId);
+        dto.setOperationType("CREATE");
+        dto.setModule("USER");
+        dto.setOperatorId(1L);
+        dto.setOperatorName("admin");
+        dto.setResult("SUCCESS");
+        return dto;
+    }
 }
@@ -0,0 +1,112 @@
+package com.qoobot.openidaas.audit.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 审计指标收集器测试
+ *
+ * @author QooBot
+ */
+class AuditMetricsCollectorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuditMetricsCollector metricsCollector;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metricsCollector = new AuditMetricsCollector(meterRegistry);
+        ReflectionTestUtils.setField(metricsCollector, "maxTagValues", 3);
+        ReflectionTestUtils.setField(metricsCollector, "tenantTopN", 10);
+    }
+
+    @Test
+    void testTaggedCounters_CachedAndCapped() {
+        // 执行
+        metricsCollector.incrementByOperationType("CREATE");
+        metricsCollector.incrementByOperationType("CREATE");
+        for (String module : new String[]{"USER", "ROLE", "AUTH", "APP", "ORG"}) {
+            metricsCollector.incrementByModule(module);
+        }
+
+        // 验证：同一标签复用同一个 Counter，超过上限的取值计入 other
+        assertEquals(1, meterRegistry.find("audit.logs.by.operation.type").counters().size());
+        assertEquals(2, meterRegistry.get("audit.logs.by.operation.type").tag("operation_type", "CREATE")
+                .counter().count());
+        assertEquals(4, meterRegistry.find("audit.logs.by.module").counters().size());
+        assertEquals(2, meterRegistry.get("audit.logs.by.module").tag("module", "other").counter().count());
+    }
+
+    @Test
+    void testTenantCounters_BoundedWithManyTenants() {
+        // 准备
+        Map<Long, Long> byTenant = new HashMap<>();
+        for (long tenantId = 1; tenantId <= 10_000; tenantId++) {
+            byTenant.put(tenantId, 1L);
+        }
+        byTenant.put(null, 1L);
+
+        // 执行
+        metricsCollector.incrementBatch(10_001, 0, Map.of(), Map.of(), byTenant);
+
+        // 验证：10 个独立租户 + other + unknown
+        assertEquals(12, meterRegistry.find("audit.logs.by.tenant").counters().size());
+        assertEquals(10_001, meterRegistry.find("audit.logs.by.tenant").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum());
+        assertEquals(9_990, meterRegistry.get("audit.logs.by.tenant").tag("tenant_id", "other").counter().count());
+    }
+
+    @Test
+    void testTenantCounters_HeavyTenantPromoted() {
+        // 准备：先占满独立标签
+        for (long tenantId = 1; tenantId <= 10; tenantId++) {
+            metricsCollector.incrementByTenant(tenantId);
+        }
+        metricsCollector.incrementBatch(500, 0, Map.of(), Map.of(), Map.of(99L, 500L));
+        assertEquals(500, meterRegistry.get("audit.logs.by.tenant").tag("tenant_id", "other").counter().count());
+
+        // 执行：重新评估后高频租户获得独立标签，被挤出的租户 Counter 被移除
+        ReflectionTestUtils.setField(metricsCollector, "tenantRefreshMs", 0L);
+        metricsCollector.incrementByTenant(99L);
+
+        // 验证
+        assertEquals(1, meterRegistry.get("audit.logs.by.tenant").tag("tenant_id", "99").counter().count());
+        assertTrue(meterRegistry.find("audit.logs.by.tenant").counters().size() <= 12);
+    }
+
+    @Test
+    void testTenantCounters_IdleHeavyTenantDecays() {
+        // 准备：只保留一个独立标签，每批都重新评估
+        ReflectionTestUtils.setField(metricsCollector, "tenantTopN", 1);
+        ReflectionTestUtils.setField(metricsCollector, "tenantRefreshMs", 0L);
+        metricsCollector.incrementBatch(1000, 0, Map.of(), Map.of(), Map.of(1L, 1000L));
+
+        // 执行：历史大租户不再有流量，另一个租户持续少量写入
+        for (int i = 0; i < 5; i++) {
+            metricsCollector.incrementBatch(100, 0, Map.of(), Map.of(), Map.of(2L, 100L));
+        }
+
+        // 验证：累计量仍小于租户 1，但计数衰减后租户 2 接管独立标签
+        assertNull(meterRegistry.find("audit.logs.by.tenant").tag("tenant_id", "1").counter());
+        assertNotNull(meterRegistry.find("audit.logs.by.tenant").tag("tenant_id", "2").counter());
+    }
+
+    @Test
+    void testCustomGauge_UpdatedInPlace() {
+        // 执行
+        metricsCollector.recordActiveOperations(3);
+        metricsCollector.recordActiveOperations(5);
+
+        // 验证
+        assertEquals(1, meterRegistry.find("audit.operations.active").gauges().size());
+        assertEquals(5, meterRegistry.get("audit.operations.active").gauge().value());
+    }
+}
@@ -0,0 +1,255 @@
+package com.qoobot.openidaas.audit.pipeline;
+
+import com.qoobot.openidaas.audit.alert.AuditAlertManager;
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 审计日志写入管道测试
+ *
+ * @author QooBot
+ */
+class AuditIngestionPipelineTest {
+
+    private AuditLogBatchWriter batchWriter;
+    private AuditDeadLetterSink deadLetterSink;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditIngestionPipeline pipeline;
+    private List<Integer> flushedSizes;
+
+    @BeforeEach
+    void setUp() {
+        batchWriter = mock(AuditLogBatchWriter.class);
+        meterRegistry = new SimpleMeterRegistry();
+        flushedSizes = new CopyOnWriteArrayList<>();
+        // 管道在写入后会清空批次列表，需在调用时记录大小
+        when(batchWriter.write(anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            flushedSizes.add(batch.size());
+            return batch.size();
+        });
+        deadLetterSink = mock(AuditDeadLetterSink.class);
+        pipeline = new AuditIngestionPipeline(batchWriter, meterRegistry, mock(AuditAlertManager.class), deadLetterSink);
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void testRingBuffer_FifoAndCapacity() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(5);
+
+        assertEquals(8, buffer.capacity());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(8));
+        assertEquals(8, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertTrue(buffer.offer(8));
+        assertEquals(0, buffer.drainTo(drained, 0));
+        buffer.drainTo(drained, Integer.MAX_VALUE);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), drained);
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testRingBuffer_ConcurrentProducers() throws InterruptedException {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 20_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        Set<Integer> received = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+            Integer value = buffer.poll();
+            if (value != null) {
+                assertTrue(received.add(value), "重复出队：" + value);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * perProducer, received.size());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testSubmit_FlushBySizeAndOnStop() {
+        configure(10, 60_000, AuditIngestionPipeline.OverflowPolicy.DROP);
+        pipeline.start();
+
+        // 执行
+        for (int i = 0; i < 25; i++) {
+            assertTrue(pipeline.submit(createDTO(i)));
+        }
+
+        // 验证：满批立即写入，不足一批的在关闭时写入
+        verify(batchWriter, timeout(5000).times(2)).write(anyList());
+        assertEquals(List.of(10, 10), flushedSizes);
+        pipeline.stop();
+        assertEquals(List.of(10, 10, 5), flushedSizes);
+        assertEquals(3, meterRegistry.get("audit.ingestion.flush.duration").timer().count());
+    }
+
+    @Test
+    void testSubmit_FlushByInterval() {
+        configure(500, 50, AuditIngestionPipeline.OverflowPolicy.DROP);
+        pipeline.start();
+
+        // 执行
+        pipeline.submit(createDTO(1));
+        pipeline.submit(createDTO(2));
+        pipeline.submit(createDTO(3));
+
+        // 验证
+        verify(batchWriter, timeout(5000).times(1)).write(anyList());
+        assertEquals(List.of(3), flushedSizes);
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    @Test
+    void testSubmit_OverflowPolicies() throws InterruptedException {
+        configure(2, 60_000, AuditIngestionPipeline.OverflowPolicy.DROP);
+        ReflectionTestUtils.setField(pipeline, "bufferSize", 2);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(batchWriter.write(anyList())).thenAnswer(invocation -> {
+            if (!Thread.currentThread().getName().equals("audit-ingestion")) {
+                return 1;
+            }
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 2;
+        });
+        pipeline.start();
+
+        // 第一批在后台线程写入时阻塞，后续日志填满缓冲区
+        pipeline.submit(createDTO(1));
+        pipeline.submit(createDTO(2));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertTrue(pipeline.submit(createDTO(3)));
+        assertTrue(pipeline.submit(createDTO(4)));
+
+        // 丢弃策略
+        assertFalse(pipeline.submit(createDTO(5)));
+        assertEquals(1.0, meterRegistry.get("audit.ingestion.dropped").counter().count());
+        assertEquals(2.0, meterRegistry.get("audit.ingestion.queue.depth").gauge().value());
+
+        // 调用线程写入策略
+        ReflectionTestUtils.setField(pipeline, "overflowPolicy", AuditIngestionPipeline.OverflowPolicy.CALLER_RUNS);
+        assertTrue(pipeline.submit(createDTO(6)));
+        assertEquals(1.0, meterRegistry.get("audit.ingestion.caller.runs").counter().count());
+
+        release.countDown();
+        verify(batchWriter, timeout(5000).times(3)).write(anyList());
+    }
+
+    @Test
+    void testFlush_RetriesTransientFailure() {
+        configure(10, 60_000, AuditIngestionPipeline.OverflowPolicy.DROP);
+        doThrow(new IllegalStateException("Communications link failure"))
+                .doAnswer(invocation -> {
+                    List<?> batch = invocation.getArgument(0);
+                    flushedSizes.add(batch.size());
+                    return batch.size();
+                })
+                .when(batchWriter).write(anyList());
+        pipeline.start();
+
+        // 执行
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(createDTO(i));
+        }
+
+        // 验证：重试后整批写入，没有日志转入死信
+        verify(batchWriter, timeout(5000).times(2)).write(anyList());
+        assertEquals(List.of(10), flushedSizes);
+        assertEquals(1.0, meterRegistry.get("audit.ingestion.flush.retried").counter().count());
+        verifyNoInteractions(deadLetterSink);
+    }
+
+    @Test
+    void testFlush_IsolatesFailingRecord() {
+        configure(10, 60_000, AuditIngestionPipeline.OverflowPolicy.DROP);
+        Set<Long> written = ConcurrentHashMap.newKeySet();
+        IllegalStateException failure = new IllegalStateException("Data too long for column 'target_name'");
+        when(batchWriter.write(anyList())).thenAnswer(invocation -> {
+            List<AuditLogCreateDTO> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(dto -> dto.getTargetId() == 7L)) {
+                throw failure;
+            }
+            batch.forEach(dto -> written.add(dto.getTargetId()));
+            return batch.size();
+        });
+        pipeline.start();
+
+        // 执行：一批中只有一条无法落库
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(createDTO(i));
+        }
+
+        // 验证：只有失败的一条转入死信，同批其余日志全部写入
+        verify(deadLetterSink, timeout(5000)).send(argThat(dto -> dto.getTargetId() == 7L), eq(failure));
+        pipeline.stop();
+        verify(deadLetterSink, times(1)).send(any(), any());
+        assertEquals(Set.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 8L, 9L), written);
+        assertEquals(1.0, meterRegistry.get("audit.ingestion.flush.failed").counter().count());
+        assertEquals(2.0, meterRegistry.get("audit.ingestion.flush.retried").counter().count());
+    }
+
+    private void configure(int batchSize, long flushIntervalMs, AuditIngestionPipeline.OverflowPolicy policy) {
+        ReflectionTestUtils.setField(pipeline, "batchSize", batchSize);
+        ReflectionTestUtils.setField(pipeline, "flushIntervalMs", flushIntervalMs);
+        ReflectionTestUtils.setField(pipeline, "overflowPolicy", policy);
+    }
+
+    private AuditLogCreateDTO createDTO(long targetId) {
+        AuditLogCreateDTO dto = new AuditLogCreateDTO();
+        dto.setOperationType("CREATE");
+        dto.setModule("USER");
+        dto.setTargetId(targetId);
+        return dto;
+    }
+}
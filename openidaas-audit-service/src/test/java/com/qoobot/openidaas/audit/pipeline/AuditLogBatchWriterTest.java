@@ -0,0 +1,130 @@
+package com.qoobot.openidaas.audit.pipeline;
+
+import com.qoobot.openidaas.audit.converter.AuditLogConverter;
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.health.AuditHealthIndicator;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.audit.metrics.AuditMetricsCollector;
+import com.qoobot.openidaas.audit.rollup.AuditRollupAccumulator;
+import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 审计日志批量写入测试
+ *
+ * @author QooBot
+ */
+@ExtendWith(MockitoExtension.class)
+class AuditLogBatchWriterTest {
+
+    @Mock
+    private AuditLogMapper auditLogMapper;
+
+    @Mock
+    private AuditLogConverter auditLogConverter;
+
+    @Mock
+    private AuditMetricsCollector metricsCollector;
+
+    @Mock
+    private AuditHealthIndicator healthIndicator;
+
+    @Mock
+    private AuditRollupAccumulator rollupAccumulator;
+
+    @InjectMocks
+    private AuditLogBatchWriter batchWriter;
+
+    private List<Integer> insertedSizes;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(batchWriter, "insertChunkSize", 2);
+        insertedSizes = new ArrayList<>();
+        lenient().when(auditLogConverter.toEntity(any(AuditLogCreateDTO.class))).thenAnswer(invocation -> {
+            AuditLogCreateDTO dto = invocation.getArgument(0);
+            AuditLog auditLog = new AuditLog();
+            auditLog.setOperationType(dto.getOperationType());
+            auditLog.setModule(dto.getModule());
+            auditLog.setTenantId(dto.getTenantId());
+            auditLog.setResult(dto.getResult());
+            auditLog.setErrorMessage(dto.getErrorMessage());
+            auditLog.setOperationTime(dto.getOperationTime());
+            return auditLog;
+        });
+        lenient().when(auditLogMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<?> rows = invocation.getArgument(0);
+            insertedSizes.add(rows.size());
+            return rows.size();
+        });
+    }
+
+    @Test
+    void testWrite_ChunkedMultiRowInsert() {
+        // 准备
+        List<AuditLogCreateDTO> dtoList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            dtoList.add(createDTO("CREATE", "USER", 1L, i == 4 ? "FAILURE" : null));
+        }
+
+        // 执行
+        int written = batchWriter.write(dtoList);
+
+        // 验证：5 条按每块 2 行写入，默认值已补齐
+        assertEquals(5, written);
+        assertEquals(List.of(2, 2, 1), insertedSizes);
+        verify(auditLogMapper, never()).insert(any(AuditLog.class));
+        assertTrue(dtoList.stream().allMatch(dto -> dto.getOperationTime() != null));
+        assertEquals("SUCCESS", dtoList.get(0).getResult());
+        verify(rollupAccumulator).recordAfterCommit(argThat(auditLogs -> auditLogs.size() == 5));
+    }
+
+    @Test
+    void testWrite_MetricsAggregatedPerBatch() {
+        // 准备
+        List<AuditLogCreateDTO> dtoList = List.of(
+                createDTO("CREATE", "USER", 1L, "SUCCESS"),
+                createDTO("CREATE", "ROLE", 1L, "SUCCESS"),
+                createDTO("DELETE", "USER", 2L, "FAILURE"));
+
+        // 执行
+        batchWriter.write(dtoList);
+
+        // 验证：每批只更新一次指标
+        verify(metricsCollector, times(1)).incrementBatch(2, 1,
+                Map.of("CREATE", 2L, "DELETE", 1L),
+                Map.of("USER", 2L, "ROLE", 1L),
+                Map.of(1L, 2L, 2L, 1L));
+        verify(metricsCollector, never()).incrementTotalLogs();
+        verify(healthIndicator, times(1)).recordBatch(eq(2), eq(1), any());
+    }
+
+    @Test
+    void testWrite_EmptyList() {
+        assertEquals(0, batchWriter.write(List.of()));
+        verifyNoInteractions(auditLogMapper, metricsCollector, rollupAccumulator);
+    }
+
+    private AuditLogCreateDTO createDTO(String operationType, String module, Long tenantId, String result) {
+        AuditLogCreateDTO dto = new AuditLogCreateDTO();
+        dto.setOperationType(operationType);
+        dto.setModule(module);
+        dto.setTenantId(tenantId);
+        dto.setResult(result);
+        return dto;
+    }
+}
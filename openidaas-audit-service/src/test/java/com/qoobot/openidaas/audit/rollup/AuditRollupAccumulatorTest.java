@@ -0,0 +1,206 @@
+package com.qoobot.openidaas.audit.rollup;
+
+import com.qoobot.openidaas.audit.entity.AuditLog;
+import com.qoobot.openidaas.audit.entity.AuditOperatorRollup;
+import com.qoobot.openidaas.audit.entity.AuditStatsRollup;
+import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.audit.mapper.AuditRollupMapper;
+import com.qoobot.openidaas.common.exception.BusinessException;
+import com.qoobot.openidaas.common.vo.audit.AuditStatisticsVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 审计统计汇总测试
+ *
+ * @author QooBot
+ */
+class AuditRollupAccumulatorTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private AuditRollupMapper rollupMapper;
+    private AuditLogMapper auditLogMapper;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditRollupAccumulator accumulator;
+    private List<AuditStatsRollup> upsertedStats;
+    private List<AuditOperatorRollup> upsertedOperators;
+
+    @BeforeEach
+    void setUp() {
+        rollupMapper = mock(AuditRollupMapper.class);
+        auditLogMapper = mock(AuditLogMapper.class);
+        meterRegistry = new SimpleMeterRegistry();
+        upsertedStats = new ArrayList<>();
+        upsertedOperators = new ArrayList<>();
+        // 累加器写入的是子列表视图，需在调用时复制
+        when(rollupMapper.upsertStats(anyList())).thenAnswer(invocation -> {
+            List<AuditStatsRollup> rows = invocation.getArgument(0);
+            upsertedStats.addAll(rows);
+            return rows.size();
+        });
+        when(rollupMapper.upsertOperators(anyList())).thenAnswer(invocation -> {
+            List<AuditOperatorRollup> rows = invocation.getArgument(0);
+            upsertedOperators.addAll(rows);
+            return rows.size();
+        });
+        accumulator = new AuditRollupAccumulator(rollupMapper, auditLogMapper, meterRegistry);
+        ReflectionTestUtils.setField(accumulator, "flushIntervalMs", 3_600_000L);
+        accumulator.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        accumulator.stop();
+    }
+
+    @Test
+    void testDecompose_CoarsestAlignedSegments() {
+        List<RollupSegment> segments = RollupGranularity.decompose(
+                DAY.withHour(22).withMinute(30), DAY.plusDays(2).withHour(1).withMinute(15));
+
+        assertEquals(List.of(
+                new RollupSegment(RollupGranularity.MINUTE, DAY.withHour(22).withMinute(30), DAY.withHour(23)),
+                new RollupSegment(RollupGranularity.HOUR, DAY.withHour(23), DAY.plusDays(1)),
+                new RollupSegment(RollupGranularity.DAY, DAY.plusDays(1), DAY.plusDays(2)),
+                new RollupSegment(RollupGranularity.HOUR, DAY.plusDays(2), DAY.plusDays(2).withHour(1)),
+                new RollupSegment(RollupGranularity.MINUTE, DAY.plusDays(2).withHour(1),
+                        DAY.plusDays(2).withHour(1).withMinute(15))), segments);
+    }
+
+    @Test
+    void testFlush_AllGranularitiesAggregated() {
+        // 准备
+        accumulator.record(List.of(
+                auditLog(DAY.withHour(10).withMinute(5), "SUCCESS"),
+                auditLog(DAY.withHour(10).withMinute(5).withSecond(30), "SUCCESS"),
+                auditLog(DAY.withHour(10).withMinute(20), "FAILURE")));
+
+        // 执行
+        accumulator.flush();
+        accumulator.flush();
+
+        // 验证：每条日志计入分钟、小时、天三个粒度，第二次刷新没有增量
+        verify(rollupMapper, times(1)).upsertStats(anyList());
+        assertEquals(6, upsertedStats.size());
+        assertEquals(9, upsertedStats.stream().mapToLong(AuditStatsRollup::getEventCount).sum());
+        assertTrue(upsertedStats.contains(new AuditStatsRollup("MINUTE", DAY.withHour(10).withMinute(5),
+                1L, "USER", "CREATE", "SUCCESS", 2L)));
+        assertTrue(upsertedStats.contains(new AuditStatsRollup("HOUR", DAY.withHour(10),
+                1L, "USER", "CREATE", "FAILURE", 1L)));
+        assertEquals(List.of(
+                        new AuditOperatorRollup("DAY", DAY, 1L, "admin", 3L),
+                        new AuditOperatorRollup("HOUR", DAY.withHour(10), 1L, "admin", 3L)),
+                upsertedOperators.stream()
+                        .sorted((a, b) -> a.getGranularity().compareTo(b.getGranularity()))
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFlush_FailureRestoresIncrements() {
+        // 准备
+        doThrow(new RuntimeException("db down"))
+                .doAnswer(invocation -> {
+                    List<AuditStatsRollup> rows = invocation.getArgument(0);
+                    upsertedStats.addAll(rows);
+                    return rows.size();
+                })
+                .when(rollupMapper).upsertStats(anyList());
+        accumulator.record(List.of(auditLog(DAY.withHour(10), "SUCCESS")));
+
+        // 执行
+        assertThrows(RuntimeException.class, () -> accumulator.flush());
+        accumulator.flush();
+
+        // 验证：失败的增量在下次刷新重写，不丢也不重复
+        assertEquals(3, meterRegistry.get("audit.rollup.flush.failed").counter().count());
+        assertEquals(3, upsertedStats.size());
+        assertTrue(upsertedStats.stream().allMatch(row -> row.getEventCount() == 1L));
+        assertEquals(2, upsertedOperators.size());
+        assertTrue(upsertedOperators.stream().allMatch(row -> row.getEventCount() == 1L));
+    }
+
+    @Test
+    void testRebuild_RecountsWholeDays() {
+        // 准备：查询区间两端闭合，次日零点的日志不计入
+        when(auditLogMapper.selectExportChunk(eq(DAY), eq(DAY.plusDays(1)), isNull(), isNull(), anyInt()))
+                .thenReturn(List.of(
+                        auditLog(DAY.withHour(3), "SUCCESS"),
+                        auditLog(DAY.withHour(4), "SUCCESS"),
+                        auditLog(DAY.plusDays(1), "SUCCESS")));
+
+        // 执行
+        long count = accumulator.rebuild(DAY.withHour(12), DAY.withHour(13));
+
+        // 验证
+        assertEquals(2, count);
+        verify(rollupMapper).deleteStatsRange(DAY, DAY.plusDays(1));
+        verify(rollupMapper).deleteOperatorsRange(DAY, DAY.plusDays(1));
+        assertEquals(6, upsertedStats.stream().mapToLong(AuditStatsRollup::getEventCount).sum());
+        assertTrue(upsertedOperators.contains(new AuditOperatorRollup("DAY", DAY, 1L, "admin", 2L)));
+    }
+
+    @Test
+    void testRebuild_RejectsToday() {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+
+        assertThrows(BusinessException.class, () -> accumulator.rebuild(today.minusDays(1), today.plusHours(1)));
+        verifyNoInteractions(auditLogMapper);
+    }
+
+    @Test
+    void testQuery_MergesSegmentRows() {
+        // 准备
+        AuditRollupQuery rollupQuery = new AuditRollupQuery(rollupMapper, accumulator);
+        LocalDateTime startTime = LocalDate.now().atStartOfDay().minusDays(1).withHour(22).withMinute(30);
+        LocalDateTime endTime = LocalDate.now().atStartOfDay().withHour(1).withMinute(14).withSecond(59);
+        when(rollupMapper.sumStats(anyList())).thenReturn(List.of(
+                new AuditStatsRollup(null, null, null, "USER", "CREATE", "SUCCESS", 7L),
+                new AuditStatsRollup(null, null, null, "ROLE", "CREATE", "FAILURE", 2L),
+                new AuditStatsRollup(null, null, null, "", "LOGIN", "PARTIAL", 1L)));
+        when(rollupMapper.selectTopOperators(anyList(), eq(10))).thenReturn(List.of(
+                new AuditOperatorRollup(null, null, 1L, "admin", 6L),
+                new AuditOperatorRollup(null, null, 2L, "", 4L)));
+
+        // 执行
+        AuditStatisticsVO statistics = rollupQuery.getStatistics(startTime, endTime, 10);
+
+        // 验证
+        assertEquals(10L, statistics.getTotalOperations());
+        assertEquals(7L, statistics.getSuccessCount());
+        assertEquals(2L, statistics.getFailureCount());
+        assertEquals(9L, statistics.getOperationTypeDistribution().get("CREATE"));
+        assertFalse(statistics.getModuleDistribution().containsKey(""));
+        assertEquals(List.of("admin", "2"), new ArrayList<>(statistics.getTopUsers().keySet()));
+        verify(rollupMapper).sumStats(argThat(segments -> segments.size() == 3
+                && segments.get(0).getGranularity() == RollupGranularity.MINUTE
+                && segments.get(2).getTo().equals(endTime.withSecond(0).plusMinutes(1))));
+        verify(rollupMapper).selectTopOperators(argThat(segments -> segments.stream()
+                .noneMatch(segment -> segment.getGranularity() == RollupGranularity.MINUTE)), eq(10));
+    }
+
+    private AuditLog auditLog(LocalDateTime operationTime, String result) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setOperationTime(operationTime);
+        auditLog.setOperationType("CREATE");
+        auditLog.setModule("USER");
+        auditLog.setResult(result);
+        auditLog.setTenantId(1L);
+        auditLog.setOperatorId(1L);
+        auditLog.setOperatorName("admin");
+        return auditLog;
+    }
+}
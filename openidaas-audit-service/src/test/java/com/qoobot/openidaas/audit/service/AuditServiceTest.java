@@ -2,14 +2,19 @@ package com.qoobot.openidaas.audit.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.qoobot.openidaas.audit.alert.AuditAlertManager;
 import com.qoobot.openidaas.audit.converter.AuditLogConverter;
 import com.qoobot.openidaas.audit.entity.AuditLog;
 import com.qoobot.openidaas.audit.mapper.AuditLogMapper;
+import com.qoobot.openidaas.audit.pipeline.AuditLogBatchWriter;
+import com.qoobot.openidaas.audit.query.AuditLogCursor;
+import com.qoobot.openidaas.audit.rollup.AuditRollupQuery;
 import com.qoobot.openidaas.audit.service.impl.AuditServiceImpl;
 import com.qoobot.openidaas.common.dto.audit.AuditLogCreateDTO;
 import com.qoobot.openidaas.common.dto.audit.AuditLogQueryDTO;
 import com.qoobot.openidaas.common.enumeration.AuditResultEnum;
 import com.qoobot.openidaas.common.exception.BusinessException;
+import com.qoobot.openidaas.common.vo.CursorPageResultVO;
 import com.qoobot.openidaas.common.vo.audit.AuditLogVO;
 import com.qoobot.openidaas.common.vo.audit.AuditStatisticsVO;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,6 +50,15 @@ class AuditServiceTest {
     @Mock
     private KafkaTemplate<String, AuditLogCreateDTO> kafkaTemplate;
 
+    @Mock
+    private AuditLogBatchWriter batchWriter;
+
+    @Mock
+    private AuditRollupQuery rollupQuery;
+
+    @Mock
+    private AuditAlertManager alertManager;
+
     @InjectMocks
     private AuditServiceImpl auditService;
 
@@ -147,20 +161,22 @@ class AuditServiceTest {
 
         // 验证
         verify(auditLogMapper, never()).insert(any(AuditLog.class));
+        verify(batchWriter, never()).write(anyList());
     }
 
     @Test
     void testRecordAuditLogs_MultipleLogs() {
         // 准备
         List<AuditLogCreateDTO> dtoList = Arrays.asList(testCreateDTO, testCreateDTO);
-        when(auditLogConverter.toEntity(any(AuditLogCreateDTO.class))).thenReturn(testAuditLog);
-        when(auditLogMapper.insert(any(AuditLog.class))).thenReturn(1);
+        when(batchWriter.write(dtoList)).thenReturn(2);
 
         // 执行
         auditService.recordAuditLogs(dtoList);
 
-        // 验证
-        verify(auditLogMapper, times(2)).insert(any(AuditLog.class));
+        // 验证：整批一次写入，不再逐条插入
+        verify(batchWriter, times(1)).write(dtoList);
+        verify(alertManager).recordSuccess(2);
+        verify(auditLogMapper, never()).insert(any(AuditLog.class));
     }
 
     @Test
@@ -182,7 +198,7 @@ class AuditServiceTest {
         auditService.sendAuditLogAsync(testCreateDTO);
 
         // 验证
-        verify(kafkaTemplate, times(1)).send(eq("audit-log-topic"), any(AuditLogCreateDTO.class));
+        verify(kafkaTemplate, times(1)).send(eq("audit-log-topic"), anyString(), any(AuditLogCreateDTO.class));
     }
 
     @Test
@@ -257,6 +273,66 @@ class AuditServiceTest {
         assertTrue(result.getRecords().isEmpty());
     }
 
+    @Test
+    void testQueryAuditLogsByCursor_FirstPage() {
+        // 准备：多取一条判断是否还有下一页
+        AuditLogQueryDTO queryDTO = new AuditLogQueryDTO();
+        queryDTO.setSize(2);
+        LocalDateTime now = LocalDateTime.now();
+        List<AuditLog> rows = List.of(createAuditLog(3L, now), createAuditLog(2L, now), createAuditLog(1L, now.minusMinutes(1)));
+
+        when(auditLogMapper.selectByCursor(queryDTO, null, null, 3)).thenReturn(rows);
+        when(auditLogConverter.toVO(any(AuditLog.class))).thenReturn(testAuditLogVO);
+
+        // 执行
+        CursorPageResultVO<AuditLogVO> result = auditService.queryAuditLogsByCursor(queryDTO);
+
+        // 验证：游标指向本页最后一条，默认不统计总数
+        assertEquals(2, result.getRecords().size());
+        assertTrue(result.getHasMore());
+        assertNull(result.getTotal());
+        AuditLogCursor cursor = AuditLogCursor.decode(result.getNextCursor());
+        assertEquals(now, cursor.getOperationTime());
+        assertEquals(2L, cursor.getId());
+        verify(auditLogMapper, never()).countByQuery(any());
+        verify(auditLogMapper, never()).selectPage(any(), any());
+    }
+
+    @Test
+    void testQueryAuditLogsByCursor_LastPageWithTotal() {
+        // 准备
+        LocalDateTime cursorTime = LocalDateTime.now();
+        AuditLogQueryDTO queryDTO = new AuditLogQueryDTO();
+        queryDTO.setSize(2);
+        queryDTO.setWithTotal(true);
+        queryDTO.setCursor(AuditLogCursor.encode(cursorTime, 2L));
+
+        when(auditLogMapper.selectByCursor(queryDTO, cursorTime, 2L, 3))
+                .thenReturn(List.of(createAuditLog(1L, cursorTime.minusMinutes(1))));
+        when(auditLogMapper.countByQuery(queryDTO)).thenReturn(3L);
+        when(auditLogConverter.toVO(any(AuditLog.class))).thenReturn(testAuditLogVO);
+
+        // 执行
+        CursorPageResultVO<AuditLogVO> result = auditService.queryAuditLogsByCursor(queryDTO);
+
+        // 验证
+        assertEquals(1, result.getRecords().size());
+        assertFalse(result.getHasMore());
+        assertNull(result.getNextCursor());
+        assertEquals(3L, result.getTotal());
+    }
+
+    @Test
+    void testQueryAuditLogsByCursor_InvalidCursor() {
+        // 准备
+        AuditLogQueryDTO queryDTO = new AuditLogQueryDTO();
+        queryDTO.setCursor("not-a-cursor");
+
+        // 执行和验证
+        assertThrows(BusinessException.class, () -> auditService.queryAuditLogsByCursor(queryDTO));
+        verify(auditLogMapper, never()).selectByCursor(any(), any(), any(), anyInt());
+    }
+
     @Test
     void testGetUserAuditLogs_Success() {
         // 准备
@@ -405,6 +481,7 @@ class AuditServiceTest {
     @Test
     void testGetAuditStatistics_Success() {
         // 准备
+        ReflectionTestUtils.setField(auditService, "rollupEnabled", false);
         LocalDateTime startTime = LocalDateTime.now().minusDays(1);
         LocalDateTime endTime = LocalDateTime.now();
 
@@ -457,6 +534,23 @@ class AuditServiceTest {
         assertFalse(result.getTopUsers().isEmpty());
     }
 
+    @Test
+    void testGetAuditStatistics_FromRollup() {
+        // 准备
+        LocalDateTime startTime = LocalDateTime.now().minusDays(1);
+        LocalDateTime endTime = LocalDateTime.now();
+        AuditStatisticsVO statistics = new AuditStatisticsVO();
+        statistics.setTotalOperations(100L);
+        when(rollupQuery.getStatistics(startTime, endTime, 10)).thenReturn(statistics);
+
+        // 执行
+        AuditStatisticsVO result = auditService.getAuditStatistics(startTime, endTime);
+
+        // 验证：读汇总表，不扫描原始日志
+        assertSame(statistics, result);
+        verify(auditLogMapper, never()).countByTimeRange(any(), any());
+    }
+
     @Test
     void testCountOperationsByTimeRange_Success() {
         // 准备
@@ -546,4 +640,12 @@ class AuditServiceTest {
         // 验证
         verify(auditLogMapper, times(1)).deleteBatchIds(logIds);
     }
+
+    private AuditLog createAuditLog(Long id, LocalDateTime operationTime) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(id);
+        auditLog.setOperationType("CREATE");
+        auditLog.setOperationTime(operationTime);
+        return auditLog;
+    }
 }
@@ -0,0 +1,62 @@
+package com.qoobot.openidaas.audit.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Space-Saving 草图测试
+ *
+ * @author QooBot
+ */
+class SpaceSavingSketchTest {
+
+    @Test
+    void testOffer_KeepsHeavyHitters() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(3);
+        sketch.offer("a", 10);
+        sketch.offer("b", 5);
+        for (String key : List.of("c", "d", "e", "f")) {
+            sketch.offer(key, 1);
+        }
+
+        List<SpaceSavingSketch.Entry<String>> top = sketch.top(2);
+        assertEquals(3, sketch.size());
+        assertEquals(List.of("a", "b"), top.stream().map(SpaceSavingSketch.Entry::getKey).toList());
+        assertEquals(10, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        // 最后进入的项继承被替换项的计数作为误差
+        SpaceSavingSketch.Entry<String> last = sketch.top(3).get(2);
+        assertEquals("f", last.getKey());
+        assertEquals(4, last.getCount());
+        assertEquals(3, last.getError());
+    }
+
+    @Test
+    void testDecay_HalvesCountsAndLetsNewKeysOvertake() {
+        // 准备
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(2);
+        sketch.offer("old", 100);
+        sketch.offer("mid", 30);
+        sketch.offer("new", 1);
+
+        // 执行
+        sketch.decay();
+
+        // 验证：计数、误差减半，顺序不变
+        SpaceSavingSketch.Entry<String> old = sketch.get("old");
+        SpaceSavingSketch.Entry<String> replaced = sketch.get("new");
+        assertEquals(50, old.getCount());
+        assertEquals(15, replaced.getCount());
+        assertEquals(15, replaced.getError());
+        assertEquals(List.of("old", "new"), sketch.top(2).stream().map(SpaceSavingSketch.Entry::getKey).toList());
+
+        // 再衰减两次后，新的流量超过历史大项
+        sketch.decay();
+        sketch.decay();
+        sketch.offer("new", 10);
+        assertEquals("new", sketch.top(1).get(0).getKey());
+    }
+}
@@ -24,10 +24,41 @@ CREATE TABLE audit_logs (
   error_message VARCHAR(500),
   tenant_id BIGINT,
   app_id BIGINT,
+  event_id VARCHAR(64),
   created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE UNIQUE INDEX uk_event_id ON audit_logs (event_id);
+
+DROP TABLE IF EXISTS audit_stats_rollup;
+
+CREATE TABLE audit_stats_rollup (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  granularity VARCHAR(10) NOT NULL,
+  bucket_time TIMESTAMP NOT NULL,
+  tenant_id BIGINT NOT NULL DEFAULT 0,
+  module VARCHAR(50) NOT NULL DEFAULT '',
+  operation_type VARCHAR(50) NOT NULL DEFAULT '',
+  result VARCHAR(20) NOT NULL DEFAULT '',
+  event_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE UNIQUE INDEX uk_bucket_dims ON audit_stats_rollup (granularity, bucket_time, tenant_id, module, operation_type, result);
+
+DROP TABLE IF EXISTS audit_operator_rollup;
+
+CREATE TABLE audit_operator_rollup (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  granularity VARCHAR(10) NOT NULL,
+  bucket_time TIMESTAMP NOT NULL,
+  operator_id BIGINT NOT NULL DEFAULT 0,
+  operator_name VARCHAR(50) NOT NULL DEFAULT '',
+  event_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE UNIQUE INDEX uk_bucket_operator ON audit_operator_rollup (granularity, bucket_time, operator_id, operator_name);
+
 -- 插入测试数据
 INSERT INTO audit_logs (
   operation_type, operation_desc, module, sub_module,
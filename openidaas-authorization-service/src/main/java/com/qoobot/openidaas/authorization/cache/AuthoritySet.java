@@ -0,0 +1,119 @@
+package com.qoobot.openidaas.authorization.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户权限（或角色）编码集合
+ * 不可变，成员判断基于哈希集合为 O(1)，同时保留原有顺序供列表接口返回；
+ * 资源权限判断在精确编码之外还匹配通配授权，通配授权前缀树在首次资源判断时构建
+ *
+ * @author QooBot
+ */
+public final class AuthoritySet {
+
+    private static final AuthoritySet EMPTY = new AuthoritySet(Set.of(), List.of());
+
+    private final Set<String> codes;
+    private final List<String> ordered;
+    private volatile ResourceGrantTrie grants;
+
+    private AuthoritySet(Set<String> codes, List<String> ordered) {
+        this.codes = codes;
+        this.ordered = ordered;
+    }
+
+    /**
+     * 由编码集合构建，重复与空白编码会被去除
+     */
+    public static AuthoritySet of(Collection<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            return EMPTY;
+        }
+        Set<String> unique = new LinkedHashSet<>(codes.size() * 2);
+        for (String code : codes) {
+            if (code != null && !code.isBlank()) {
+                unique.add(code.trim());
+            }
+        }
+        if (unique.isEmpty()) {
+            return EMPTY;
+        }
+        return new AuthoritySet(Set.copyOf(unique), List.copyOf(unique));
+    }
+
+    /**
+     * 解析以逗号分隔的缓存值
+     */
+    public static AuthoritySet parse(String joined) {
+        if (joined == null || joined.isEmpty()) {
+            return EMPTY;
+        }
+        return of(List.of(joined.split(",")));
+    }
+
+    public boolean contains(String code) {
+        return code != null && codes.contains(code);
+    }
+
+    public boolean containsAny(Collection<String> candidates) {
+        for (String candidate : candidates) {
+            if (contains(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsAll(Collection<String> candidates) {
+        for (String candidate : candidates) {
+            if (!contains(candidate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断是否拥有资源权限 resourceType:resourceId:action，支持 doc:*:read、doc:123:*、doc:** 等通配授权
+     */
+    public boolean matchesResource(String resourceType, String resourceId, String action) {
+        if (resourceType == null || resourceId == null || action == null) {
+            return false;
+        }
+        if (codes.contains(resourceType + ":" + resourceId + ":" + action)) {
+            return true;
+        }
+        return grants().matches(resourceType, resourceId, action);
+    }
+
+    private ResourceGrantTrie grants() {
+        ResourceGrantTrie trie = grants;
+        if (trie == null) {
+            // 并发构建的结果相同，无需加锁
+            trie = ResourceGrantTrie.compile(ordered);
+            grants = trie;
+        }
+        return trie;
+    }
+
+    /**
+     * 按原有顺序返回的不可变列表
+     */
+    public List<String> asList() {
+        return ordered;
+    }
+
+    /**
+     * 以逗号连接，作为 Redis 缓存值
+     */
+    public String join() {
+        return String.join(",", ordered);
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+}
@@ -0,0 +1,144 @@
+package com.qoobot.openidaas.authorization.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 用户权限本地近缓存
+ * 位于 Redis 之前，按用户缓存不可变的权限/角色集合，缓存命中时权限判断不经过网络；
+ * 清除用户权限缓存时通过 Redis 发布订阅通知所有实例失效本地副本
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionNearCache implements MessageListener {
+
+    /**
+     * 失效通知频道，消息体为用户ID，"*" 表示全部失效
+     */
+    public static final String INVALIDATION_CHANNEL = "auth:permission:invalidate";
+
+    private static final String ALL_USERS = "*";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${authorization.permission-cache.maximum-size:100000}")
+    private long maximumSize = 100_000;
+
+    @Value("${authorization.permission-cache.expire-seconds:300}")
+    private long expireSeconds = 300;
+
+    private Cache<Long, AuthoritySet> permissions;
+    private Cache<Long, AuthoritySet> roles;
+
+    @PostConstruct
+    public void init() {
+        this.permissions = buildCache();
+        this.roles = buildCache();
+        CaffeineCacheMetrics.monitor(meterRegistry, permissions, "authorization.user-permissions");
+        CaffeineCacheMetrics.monitor(meterRegistry, roles, "authorization.user-roles");
+    }
+
+    /**
+     * 获取用户权限集合，未命中时调用加载函数；加载函数抛出异常时不缓存
+     */
+    public AuthoritySet getPermissions(Long userId, Function<Long, AuthoritySet> loader) {
+        return permissions.get(userId, loader);
+    }
+
+    /**
+     * 获取用户角色集合，未命中时调用加载函数；加载函数抛出异常时不缓存
+     */
+    public AuthoritySet getRoles(Long userId, Function<Long, AuthoritySet> loader) {
+        return roles.get(userId, loader);
+    }
+
+    /**
+     * 批量获取用户权限集合，仅对未命中的用户调用一次批量加载函数；加载函数抛出异常时不缓存
+     */
+    public Map<Long, AuthoritySet> getAllPermissions(Collection<Long> userIds,
+                                                     Function<Set<? extends Long>, Map<Long, AuthoritySet>> loader) {
+        return permissions.getAll(userIds, loader);
+    }
+
+    /**
+     * 批量获取用户角色集合，仅对未命中的用户调用一次批量加载函数；加载函数抛出异常时不缓存
+     */
+    public Map<Long, AuthoritySet> getAllRoles(Collection<Long> userIds,
+                                               Function<Set<? extends Long>, Map<Long, AuthoritySet>> loader) {
+        return roles.getAll(userIds, loader);
+    }
+
+    /**
+     * 失效本实例缓存并通知其他实例
+     */
+    public void evict(Long userId) {
+        invalidateLocal(userId);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 通知失败时其他实例依赖过期时间兜底
+            log.warn("发布权限缓存失效通知失败，userId: {}", userId, e);
+        }
+    }
+
+    /**
+     * 仅失效本实例缓存
+     */
+    public void invalidateLocal(Long userId) {
+        permissions.invalidate(userId);
+        roles.invalidate(userId);
+    }
+
+    /**
+     * 失效本实例全部缓存
+     */
+    public void invalidateAllLocal() {
+        permissions.invalidateAll();
+        roles.invalidateAll();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+        if (ALL_USERS.equals(body)) {
+            invalidateAllLocal();
+            log.debug("收到权限缓存全部失效通知");
+            return;
+        }
+        try {
+            invalidateLocal(Long.valueOf(body));
+            log.debug("收到权限缓存失效通知，userId: {}", body);
+        } catch (NumberFormatException e) {
+            log.warn("忽略无法解析的权限缓存失效通知: {}", body);
+        }
+    }
+
+    private Cache<Long, AuthoritySet> buildCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.qoobot.openidaas.authorization.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 通配资源授权前缀树
+ * 授权编码按 ":" 分段逐级存储，"*" 匹配任意一段，末段为 "**" 时匹配其后的一段或多段，
+ * 例如 doc:*:read、doc:123:*、doc:**；一个粗粒度授权即可替代大量按实例授权的记录
+ *
+ * 匹配时每一层只查找精确分段与 "*" 两个子节点，耗时与分段数相关而与授权数量无关
+ *
+ * @author QooBot
+ */
+public final class ResourceGrantTrie {
+
+    static final String ANY_SEGMENT = "*";
+    static final String ANY_REMAINING = "**";
+
+    private static final ResourceGrantTrie EMPTY = new ResourceGrantTrie(new Node());
+
+    private final Node root;
+
+    private ResourceGrantTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 由授权编码构建，只收录包含通配分段的编码，精确编码由哈希集合直接判断
+     */
+    public static ResourceGrantTrie compile(Collection<String> grants) {
+        Node root = null;
+        for (String grant : grants) {
+            String[] segments = grant.split(":");
+            if (!isWildcard(segments)) {
+                continue;
+            }
+            if (root == null) {
+                root = new Node();
+            }
+            Node node = root;
+            int last = segments.length - 1;
+            for (int i = 0; i <= last; i++) {
+                if (i == last && ANY_REMAINING.equals(segments[i])) {
+                    node.anyRemaining = true;
+                    break;
+                }
+                node = node.children.computeIfAbsent(segments[i], segment -> new Node());
+                node.terminal |= i == last;
+            }
+        }
+        return root == null ? EMPTY : new ResourceGrantTrie(root);
+    }
+
+    private static boolean isWildcard(String[] segments) {
+        for (String segment : segments) {
+            if (ANY_SEGMENT.equals(segment)) {
+                return true;
+            }
+        }
+        return ANY_REMAINING.equals(segments[segments.length - 1]);
+    }
+
+    public boolean isEmpty() {
+        return root.children.isEmpty() && !root.anyRemaining;
+    }
+
+    /**
+     * 判断分段是否被某个通配授权覆盖
+     */
+    public boolean matches(String... segments) {
+        return match(root, segments, 0);
+    }
+
+    private static boolean match(Node node, String[] segments, int depth) {
+        if (depth == segments.length) {
+            return node.terminal;
+        }
+        if (node.anyRemaining) {
+            return true;
+        }
+        Node exact = node.children.get(segments[depth]);
+        if (exact != null && match(exact, segments, depth + 1)) {
+            return true;
+        }
+        Node any = node.children.get(ANY_SEGMENT);
+        return any != null && match(any, segments, depth + 1);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private boolean terminal;
+        private boolean anyRemaining;
+    }
+}
@@ -0,0 +1,29 @@
+package com.qoobot.openidaas.authorization.config;
+
+import com.qoobot.openidaas.authorization.cache.PermissionNearCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 权限缓存配置
+ *
+ * @author QooBot
+ */
+@Configuration
+public class PermissionCacheConfig {
+
+    /**
+     * 订阅权限缓存失效通知
+     */
+    @Bean
+    public RedisMessageListenerContainer permissionCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                          PermissionNearCache permissionNearCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(permissionNearCache, new ChannelTopic(PermissionNearCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -1,15 +1,25 @@
 package com.qoobot.openidaas.authorization.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.qoobot.openidaas.authorization.service.AuthorizationService;
+import com.qoobot.openidaas.common.dto.auth.AuthorizationBatchCheckDTO;
+import com.qoobot.openidaas.common.dto.auth.AuthorizationCheckDTO;
 import com.qoobot.openidaas.common.vo.ResultVO;
+import com.qoobot.openidaas.common.vo.auth.AuthorizationDecisionVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +36,7 @@ import java.util.Map;
 public class AuthorizationController {
 
     private final AuthorizationService authorizationService;
+    private final ObjectMapper objectMapper;
 
     /**
      * 检查用户权限
@@ -149,15 +160,45 @@ public class AuthorizationController {
     @PostMapping("/check")
     @Operation(summary = "权限检查", description = "检查用户是否具有指定权限（支持批量检查）")
     public ResultVO<Map<String, Boolean>> checkPermissions(@RequestBody PermissionCheckRequest request) {
-        Long userId = request.getUserId();
-        Map<String, Boolean> results = new HashMap<>();
-        for (String permission : request.getPermissions()) {
-            boolean hasPermission = authorizationService.hasPermission(userId, permission);
-            results.put(permission, hasPermission);
-        }
+        List<AuthorizationCheckDTO> checks = request.getPermissions().stream()
+                .map(permission -> {
+                    AuthorizationCheckDTO check = new AuthorizationCheckDTO();
+                    check.setUserId(request.getUserId());
+                    check.setCode(permission);
+                    return check;
+                })
+                .toList();
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        authorizationService.evaluate(checks, decision -> results.put(decision.getCode(), decision.getAllowed()));
         return ResultVO.success(results);
     }
 
+    /**
+     * 批量授权评估
+     */
+    @PostMapping("/evaluate")
+    @Operation(summary = "批量授权评估", description = "一次评估多个（用户, 权限/角色/资源）检查项，每个用户只解析一次")
+    public ResultVO<List<AuthorizationDecisionVO>> evaluate(@Valid @RequestBody AuthorizationBatchCheckDTO request) {
+        return ResultVO.success(authorizationService.evaluate(request.getChecks()));
+    }
+
+    /**
+     * 批量授权评估（流式）
+     */
+    @PostMapping(value = "/evaluate/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "批量授权评估（流式）", description = "按检查项顺序逐行返回结果（NDJSON），无需等待整个结果集序列化")
+    public ResponseEntity<StreamingResponseBody> evaluateStream(@Valid @RequestBody AuthorizationBatchCheckDTO request) {
+        StreamingResponseBody body = outputStream -> authorizationService.evaluate(request.getChecks(), decision -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(decision));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * 权限检查请求
      */
@@ -1,6 +1,10 @@
 package com.qoobot.openidaas.authorization.service;
 
+import com.qoobot.openidaas.common.dto.auth.AuthorizationCheckDTO;
+import com.qoobot.openidaas.common.vo.auth.AuthorizationDecisionVO;
+
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 授权服务接口
@@ -9,6 +13,11 @@ import java.util.List;
  */
 public interface AuthorizationService {
 
+    /**
+     * 单次批量检查的最大检查项数
+     */
+    int MAX_BATCH_CHECKS = 1000;
+
     /**
      * 检查用户是否拥有指定权限
      *
@@ -96,4 +105,20 @@ public interface AuthorizationService {
      * @param userId 用户ID
      */
     void clearUserPermissionCache(Long userId);
+
+    /**
+     * 批量评估授权检查项，每个不同用户的权限与角色只解析一次
+     *
+     * @param checks 检查项列表，不超过 {@link #MAX_BATCH_CHECKS} 项
+     * @return 与检查项顺序一致的结果列表
+     */
+    List<AuthorizationDecisionVO> evaluate(List<AuthorizationCheckDTO> checks);
+
+    /**
+     * 批量评估授权检查项，按检查项顺序逐个输出结果
+     *
+     * @param checks 检查项列表，不超过 {@link #MAX_BATCH_CHECKS} 项
+     * @param sink 结果消费者
+     */
+    void evaluate(List<AuthorizationCheckDTO> checks, Consumer<AuthorizationDecisionVO> sink);
 }
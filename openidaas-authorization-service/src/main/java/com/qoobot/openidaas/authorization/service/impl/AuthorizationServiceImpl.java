@@ -1,23 +1,38 @@
 package com.qoobot.openidaas.authorization.service.impl;
 
+import com.qoobot.openidaas.authorization.cache.AuthoritySet;
+import com.qoobot.openidaas.authorization.cache.PermissionNearCache;
 import com.qoobot.openidaas.authorization.service.AuthorizationService;
+import com.qoobot.openidaas.common.dto.auth.AuthorizationCheckDTO;
+import com.qoobot.openidaas.common.enumeration.AuthorizationCheckTypeEnum;
+import com.qoobot.openidaas.common.exception.BusinessException;
 import com.qoobot.openidaas.common.feign.FeignHelper;
 import com.qoobot.openidaas.common.feign.RoleClient;
-import com.qoobot.openidaas.common.vo.ResultVO;
+import com.qoobot.openidaas.common.vo.auth.AuthorizationDecisionVO;
 import com.qoobot.openidaas.common.vo.role.RoleVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * 授权服务实现类
+ * 权限判断优先读取本地近缓存中的不可变集合，未命中时依次回源 Redis 与角色服务
  *
  * @author QooBot
  */
@@ -28,127 +43,313 @@ public class AuthorizationServiceImpl implements AuthorizationService {
 
     private final RoleClient roleClient;
     private final StringRedisTemplate redisTemplate;
+    private final PermissionNearCache permissionNearCache;
 
     private static final String USER_PERMISSIONS_CACHE_PREFIX = "auth:user:permissions:";
     private static final String USER_ROLES_CACHE_PREFIX = "auth:user:roles:";
     private static final long CACHE_EXPIRE_HOURS = 1;
+    /** 与角色服务批量接口的单次上限一致 */
+    private static final int ROLE_SERVICE_BATCH_SIZE = 500;
 
     @Override
     public boolean hasPermission(Long userId, String permCode) {
-        List<String> permissions = getUserPermissions(userId);
-        return permissions.contains(permCode);
+        return permissionSet(userId).contains(permCode);
     }
 
     @Override
     public boolean hasAnyPermission(Long userId, List<String> permCodes) {
-        List<String> permissions = getUserPermissions(userId);
-        return permCodes.stream().anyMatch(permissions::contains);
+        return permissionSet(userId).containsAny(permCodes);
     }
 
     @Override
     public boolean hasAllPermissions(Long userId, List<String> permCodes) {
-        List<String> permissions = getUserPermissions(userId);
-        return permCodes.stream().allMatch(permissions::contains);
+        return permissionSet(userId).containsAll(permCodes);
     }
 
     @Override
     public boolean hasRole(Long userId, String roleCode) {
-        List<String> roles = getUserRoles(userId);
-        return roles.contains(roleCode);
+        return roleSet(userId).contains(roleCode);
     }
 
     @Override
     public boolean hasAnyRole(Long userId, List<String> roleCodes) {
-        List<String> roles = getUserRoles(userId);
-        return roleCodes.stream().anyMatch(roles::contains);
+        return roleSet(userId).containsAny(roleCodes);
     }
 
     @Override
     public boolean hasAllRoles(Long userId, List<String> roleCodes) {
-        List<String> roles = getUserRoles(userId);
-        return roleCodes.stream().allMatch(roles::contains);
+        return roleSet(userId).containsAll(roleCodes);
     }
 
     @Override
     public boolean hasResourceAccess(Long userId, String resourceType, String resourceId, String action) {
-        // 构建资源权限编码：resourceType:resourceId:action
-        String resourcePermCode = String.format("%s:%s:%s", resourceType, resourceId, action);
-        return hasPermission(userId, resourcePermCode);
+        return permissionSet(userId).matchesResource(resourceType, resourceId, action);
     }
 
     @Override
     public List<String> getUserPermissions(Long userId) {
+        return permissionSet(userId).asList();
+    }
+
+    @Override
+    public List<String> getUserRoles(Long userId) {
+        return roleSet(userId).asList();
+    }
+
+    @Override
+    public void clearUserPermissionCache(Long userId) {
+        String permissionsCacheKey = USER_PERMISSIONS_CACHE_PREFIX + userId;
+        String rolesCacheKey = USER_ROLES_CACHE_PREFIX + userId;
+        redisTemplate.delete(List.of(permissionsCacheKey, rolesCacheKey));
+        // 先删除 Redis 再失效近缓存，避免其他实例重新加载到旧值
+        permissionNearCache.evict(userId);
+        log.debug("清除用户权限缓存，userId: {}", userId);
+    }
+
+    @Override
+    public List<AuthorizationDecisionVO> evaluate(List<AuthorizationCheckDTO> checks) {
+        List<AuthorizationDecisionVO> decisions = new ArrayList<>(checks.size());
+        evaluate(checks, decisions::add);
+        return decisions;
+    }
+
+    @Override
+    public void evaluate(List<AuthorizationCheckDTO> checks, Consumer<AuthorizationDecisionVO> sink) {
+        if (checks.size() > MAX_BATCH_CHECKS) {
+            throw new BusinessException("单次最多检查" + MAX_BATCH_CHECKS + "项");
+        }
+
+        // 先收集不同用户，每个用户的权限与角色只解析一次
+        Set<Long> permissionUsers = new LinkedHashSet<>();
+        Set<Long> roleUsers = new LinkedHashSet<>();
+        for (AuthorizationCheckDTO check : checks) {
+            if (check.getUserId() != null) {
+                (check.getType() == AuthorizationCheckTypeEnum.ROLE ? roleUsers : permissionUsers).add(check.getUserId());
+            }
+        }
+        Map<Long, AuthoritySet> permissions = permissionSets(permissionUsers);
+        Map<Long, AuthoritySet> roles = roleSets(roleUsers);
+
+        for (int i = 0; i < checks.size(); i++) {
+            sink.accept(decide(i, checks.get(i), permissions, roles));
+        }
+        log.debug("批量授权检查完成，检查项：{}，权限用户数：{}，角色用户数：{}",
+                checks.size(), permissionUsers.size(), roleUsers.size());
+    }
+
+    private AuthorizationDecisionVO decide(int index, AuthorizationCheckDTO check,
+                                           Map<Long, AuthoritySet> permissions, Map<Long, AuthoritySet> roles) {
+        AuthorizationCheckTypeEnum type = check.getType() == null ? AuthorizationCheckTypeEnum.PERMISSION : check.getType();
+        String code = type == AuthorizationCheckTypeEnum.RESOURCE
+                ? resourcePermCode(check.getResourceType(), check.getResourceId(), check.getAction())
+                : check.getCode();
+        Map<Long, AuthoritySet> authorities = type == AuthorizationCheckTypeEnum.ROLE ? roles : permissions;
+        AuthoritySet granted = check.getUserId() == null ? null : authorities.get(check.getUserId());
+
+        AuthorizationDecisionVO decision = new AuthorizationDecisionVO();
+        decision.setIndex(index);
+        decision.setUserId(check.getUserId());
+        decision.setType(type);
+        decision.setCode(code);
+        decision.setAllowed(granted != null && (type == AuthorizationCheckTypeEnum.RESOURCE
+                ? granted.matchesResource(check.getResourceType(), check.getResourceId(), check.getAction())
+                : granted.contains(code)));
+        return decision;
+    }
+
+    /**
+     * 构建资源权限编码：resourceType:resourceId:action
+     */
+    private static String resourcePermCode(String resourceType, String resourceId, String action) {
+        return resourceType + ":" + resourceId + ":" + action;
+    }
+
+    /**
+     * 批量获取用户权限集合，失败时返回空映射（全部拒绝）
+     */
+    private Map<Long, AuthoritySet> permissionSets(Set<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return permissionNearCache.getAllPermissions(userIds, this::loadAllPermissions);
+        } catch (Exception e) {
+            log.error("批量获取用户权限失败，userIds: {}", userIds, e);
+            return Map.of();
+        }
+    }
+
+    /**
+     * 批量获取用户角色集合，失败时返回空映射（全部拒绝）
+     */
+    private Map<Long, AuthoritySet> roleSets(Set<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return permissionNearCache.getAllRoles(userIds, this::loadAllRoles);
+        } catch (Exception e) {
+            log.error("批量获取用户角色失败，userIds: {}", userIds, e);
+            return Map.of();
+        }
+    }
+
+    /**
+     * 获取用户权限集合：本地近缓存 -> Redis -> 角色服务
+     */
+    private AuthoritySet permissionSet(Long userId) {
+        try {
+            return permissionNearCache.getPermissions(userId, this::loadPermissions);
+        } catch (Exception e) {
+            log.error("获取用户权限失败，userId: {}", userId, e);
+            return AuthoritySet.of(List.of());
+        }
+    }
+
+    /**
+     * 获取用户角色集合：本地近缓存 -> Redis -> 角色服务
+     */
+    private AuthoritySet roleSet(Long userId) {
+        try {
+            return permissionNearCache.getRoles(userId, this::loadRoles);
+        } catch (Exception e) {
+            log.error("获取用户角色失败，userId: {}", userId, e);
+            return AuthoritySet.of(List.of());
+        }
+    }
+
+    /**
+     * 近缓存未命中时加载用户权限，失败时抛出异常，不写入近缓存
+     */
+    private AuthoritySet loadPermissions(Long userId) {
         // 先从缓存获取
         String cacheKey = USER_PERMISSIONS_CACHE_PREFIX + userId;
         String cached = redisTemplate.opsForValue().get(cacheKey);
         if (cached != null && !cached.isEmpty()) {
             log.debug("从缓存获取用户权限，userId: {}", userId);
-            return parsePermissions(cached);
+            return AuthoritySet.parse(cached);
         }
 
-        // 通过Feign客户端获取用户角色，然后获取角色权限
-        try {
-            List<RoleVO> userRoles = FeignHelper.call(() -> roleClient.getUserRoles(userId));
-            List<String> permCodes = new ArrayList<>();
-            
-            for (RoleVO role : userRoles) {
-                List<Long> rolePerms = FeignHelper.call(() -> roleClient.getRolePermissions(role.getId()));
-                // 这里需要将权限ID转换为权限编码，暂时返回空列表
-                // 实际应该通过PermissionClient获取权限详情
-                permCodes.addAll(rolePerms.stream().map(String::valueOf).collect(Collectors.toList()));
-            }
+        // 通过角色服务一次解析用户经由全部角色获得的权限编码
+        AuthoritySet permissions = fetchPermissions(List.of(userId)).get(userId);
 
-            // 存入缓存
-            redisTemplate.opsForValue().set(cacheKey, String.join(",", permCodes), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-            return permCodes;
-        } catch (Exception e) {
-            log.error("获取用户权限失败，userId: {}", userId, e);
-            return List.of();
-        }
+        // 存入缓存
+        redisTemplate.opsForValue().set(cacheKey, permissions.join(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
+        return permissions;
     }
 
-    @Override
-    public List<String> getUserRoles(Long userId) {
+    /**
+     * 近缓存未命中时加载用户角色，失败时抛出异常，不写入近缓存
+     */
+    private AuthoritySet loadRoles(Long userId) {
         // 先从缓存获取
         String cacheKey = USER_ROLES_CACHE_PREFIX + userId;
         String cached = redisTemplate.opsForValue().get(cacheKey);
         if (cached != null && !cached.isEmpty()) {
             log.debug("从缓存获取用户角色，userId: {}", userId);
-            return List.of(cached.split(","));
+            return AuthoritySet.parse(cached);
         }
 
         // 通过Feign客户端获取用户角色
-        try {
-            List<RoleVO> roles = FeignHelper.call(() -> roleClient.getUserRoles(userId));
-            List<String> roleCodes = roles.stream()
-                    .map(RoleVO::getRoleCode)
-                    .collect(Collectors.toList());
+        AuthoritySet roleCodes = fetchRoles(List.of(userId)).get(userId);
 
-            // 存入缓存
-            redisTemplate.opsForValue().set(cacheKey, String.join(",", roleCodes), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-            return roleCodes;
-        } catch (Exception e) {
-            log.error("获取用户角色失败，userId: {}", userId, e);
-            return List.of();
+        // 存入缓存
+        redisTemplate.opsForValue().set(cacheKey, roleCodes.join(), CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
+        return roleCodes;
+    }
+
+    /**
+     * 近缓存未命中的用户批量加载权限：一次 Redis MGET，剩余用户一次调用角色服务批量接口
+     */
+    private Map<Long, AuthoritySet> loadAllPermissions(Set<? extends Long> userIds) {
+        Map<Long, AuthoritySet> result = new HashMap<>(userIds.size() * 2);
+        List<Long> missing = readCached(USER_PERMISSIONS_CACHE_PREFIX, userIds, result);
+        Map<String, String> toCache = new LinkedHashMap<>();
+        for (int from = 0; from < missing.size(); from += ROLE_SERVICE_BATCH_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + ROLE_SERVICE_BATCH_SIZE, missing.size()));
+            fetchPermissions(chunk).forEach((userId, permissions) -> {
+                result.put(userId, permissions);
+                toCache.put(USER_PERMISSIONS_CACHE_PREFIX + userId, permissions.join());
+            });
         }
+        writeCached(toCache);
+        return result;
     }
 
-    @Override
-    public void clearUserPermissionCache(Long userId) {
-        String permissionsCacheKey = USER_PERMISSIONS_CACHE_PREFIX + userId;
-        String rolesCacheKey = USER_ROLES_CACHE_PREFIX + userId;
-        redisTemplate.delete(permissionsCacheKey);
-        redisTemplate.delete(rolesCacheKey);
-        log.debug("清除用户权限缓存，userId: {}", userId);
+    /**
+     * 近缓存未命中的用户批量加载角色：一次 Redis MGET，剩余用户一次调用角色服务批量接口
+     */
+    private Map<Long, AuthoritySet> loadAllRoles(Set<? extends Long> userIds) {
+        Map<Long, AuthoritySet> result = new HashMap<>(userIds.size() * 2);
+        List<Long> missing = readCached(USER_ROLES_CACHE_PREFIX, userIds, result);
+        Map<String, String> toCache = new LinkedHashMap<>();
+        for (int from = 0; from < missing.size(); from += ROLE_SERVICE_BATCH_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + ROLE_SERVICE_BATCH_SIZE, missing.size()));
+            fetchRoles(chunk).forEach((userId, roleCodes) -> {
+                result.put(userId, roleCodes);
+                toCache.put(USER_ROLES_CACHE_PREFIX + userId, roleCodes.join());
+            });
+        }
+        writeCached(toCache);
+        return result;
+    }
+
+    /**
+     * 一次 MGET 读取 Redis 中的缓存值，命中的写入结果，返回未命中的用户
+     */
+    private List<Long> readCached(String prefix, Set<? extends Long> userIds, Map<Long, AuthoritySet> result) {
+        List<Long> ids = new ArrayList<>(userIds);
+        List<String> keys = ids.stream().map(id -> prefix + id).collect(Collectors.toList());
+        List<String> cached = redisTemplate.opsForValue().multiGet(keys);
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String value = cached == null ? null : cached.get(i);
+            if (value != null && !value.isEmpty()) {
+                result.put(ids.get(i), AuthoritySet.parse(value));
+            } else {
+                missing.add(ids.get(i));
+            }
+        }
+        return missing;
     }
 
     /**
-     * 解析权限字符串
+     * 以管道方式回填 Redis，一次往返写入全部键
      */
-    private List<String> parsePermissions(String cached) {
-        if (cached == null || cached.isEmpty()) {
-            return List.of();
+    private void writeCached(Map<String, String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Expiration expiration = Expiration.from(CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            values.forEach((key, value) -> connection.stringCommands().set(
+                    key.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8),
+                    expiration, RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+    }
+
+    /**
+     * 调用角色服务批量接口解析权限编码，每个请求的用户都有对应项
+     */
+    private Map<Long, AuthoritySet> fetchPermissions(List<Long> userIds) {
+        Map<Long, List<String>> permCodes = FeignHelper.call(() -> roleClient.getUsersPermissionCodes(userIds));
+        Map<Long, AuthoritySet> result = new HashMap<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            result.put(userId, AuthoritySet.of(permCodes.getOrDefault(userId, List.of())));
+        }
+        return result;
+    }
+
+    private Map<Long, AuthoritySet> fetchRoles(List<Long> userIds) {
+        // 有效角色包含经角色继承获得的祖先角色
+        Map<Long, List<RoleVO>> roles = FeignHelper.call(() -> roleClient.getUsersEffectiveRoles(userIds));
+        Map<Long, AuthoritySet> result = new HashMap<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            result.put(userId, AuthoritySet.of(roles.getOrDefault(userId, List.of()).stream()
+                    .map(RoleVO::getRoleCode)
+                    .collect(Collectors.toList())));
         }
-        return List.of(cached.split(","));
+        return result;
     }
 }
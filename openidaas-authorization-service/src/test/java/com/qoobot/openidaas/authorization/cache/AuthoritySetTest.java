@@ -0,0 +1,72 @@
+package com.qoobot.openidaas.authorization.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 权限集合与通配资源授权测试
+ *
+ * @author QooBot
+ */
+@DisplayName("权限集合与通配资源授权测试")
+class AuthoritySetTest {
+
+    @Test
+    @DisplayName("精确资源授权")
+    void testExactResourceGrant() {
+        AuthoritySet set = AuthoritySet.of(List.of("doc:123:read", "user:read"));
+
+        assertTrue(set.matchesResource("doc", "123", "read"));
+        assertFalse(set.matchesResource("doc", "123", "write"));
+        assertFalse(set.matchesResource("doc", "124", "read"));
+        assertFalse(set.matchesResource("doc", null, "read"));
+    }
+
+    @Test
+    @DisplayName("单段通配授权")
+    void testSingleSegmentWildcard() {
+        AuthoritySet set = AuthoritySet.of(List.of("doc:*:read", "doc:123:*", "*:*:audit"));
+
+        assertTrue(set.matchesResource("doc", "999", "read"));
+        assertTrue(set.matchesResource("doc", "123", "delete"));
+        assertTrue(set.matchesResource("report", "7", "audit"));
+        assertFalse(set.matchesResource("doc", "999", "write"));
+        assertFalse(set.matchesResource("report", "7", "read"));
+    }
+
+    @Test
+    @DisplayName("末段 ** 授权覆盖其下全部资源")
+    void testRemainingWildcard() {
+        AuthoritySet set = AuthoritySet.of(List.of("doc:**", "folder:9:**"));
+
+        assertTrue(set.matchesResource("doc", "1", "read"));
+        assertTrue(set.matchesResource("folder", "9", "write"));
+        assertFalse(set.matchesResource("folder", "8", "write"));
+        // 通配授权不影响普通权限的精确判断
+        assertFalse(set.contains("doc:read"));
+    }
+
+    @Test
+    @DisplayName("通配授权只回溯精确与通配两个分支")
+    void testBacktracksBetweenExactAndWildcard() {
+        List<String> grants = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            grants.add("doc:" + i + ":read");
+        }
+        grants.add("doc:123:*");
+        grants.add("doc:*:share");
+        AuthoritySet set = AuthoritySet.of(grants);
+
+        assertTrue(set.matchesResource("doc", "123", "share"));
+        assertTrue(set.matchesResource("doc", "5000", "share"));
+        assertTrue(set.matchesResource("doc", "5000", "read"));
+        assertFalse(set.matchesResource("doc", "20000", "read"));
+        assertFalse(ResourceGrantTrie.compile(List.of("doc:1:read")).matches("doc", "1", "read"));
+        assertTrue(ResourceGrantTrie.compile(List.of("doc:1:read")).isEmpty());
+    }
+}
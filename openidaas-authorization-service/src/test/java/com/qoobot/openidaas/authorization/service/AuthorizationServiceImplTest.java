@@ -0,0 +1,230 @@
+package com.qoobot.openidaas.authorization.service;
+
+import com.qoobot.openidaas.authorization.cache.PermissionNearCache;
+import com.qoobot.openidaas.authorization.service.impl.AuthorizationServiceImpl;
+import com.qoobot.openidaas.common.dto.auth.AuthorizationCheckDTO;
+import com.qoobot.openidaas.common.enumeration.AuthorizationCheckTypeEnum;
+import com.qoobot.openidaas.common.exception.BusinessException;
+import com.qoobot.openidaas.common.feign.RoleClient;
+import com.qoobot.openidaas.common.vo.auth.AuthorizationDecisionVO;
+import com.qoobot.openidaas.common.vo.ResultVO;
+import com.qoobot.openidaas.common.vo.role.RoleVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 授权服务近缓存测试
+ *
+ * @author QooBot
+ */
+@DisplayName("授权服务近缓存测试")
+class AuthorizationServiceImplTest {
+
+    private RoleClient roleClient;
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private PermissionNearCache nearCache;
+    private AuthorizationService authorizationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        roleClient = mock(RoleClient.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        nearCache = new PermissionNearCache(redisTemplate, new SimpleMeterRegistry());
+        nearCache.init();
+        authorizationService = new AuthorizationServiceImpl(roleClient, redisTemplate, nearCache);
+    }
+
+    @Test
+    @DisplayName("近缓存命中时不再访问 Redis")
+    void testWarmCacheSkipsRedis() {
+        when(valueOperations.get("auth:user:permissions:1")).thenReturn("user:read,user:write");
+
+        assertTrue(authorizationService.hasPermission(1L, "user:read"));
+        assertTrue(authorizationService.hasAllPermissions(1L, List.of("user:read", "user:write")));
+        assertFalse(authorizationService.hasAnyPermission(1L, List.of("role:delete")));
+        assertEquals(List.of("user:read", "user:write"), authorizationService.getUserPermissions(1L));
+
+        verify(valueOperations, times(1)).get("auth:user:permissions:1");
+    }
+
+    @Test
+    @DisplayName("Redis 未命中时一次批量调用回源角色服务并回填 Redis")
+    void testMissLoadsFromRoleService() {
+        RoleVO role = new RoleVO();
+        role.setId(10L);
+        role.setRoleCode("ADMIN");
+        when(roleClient.getUsersEffectiveRoles(List.of(2L))).thenReturn(ResultVO.success(Map.of(2L, List.of(role))));
+        when(roleClient.getUsersPermissionCodes(List.of(2L)))
+                .thenReturn(ResultVO.success(Map.of(2L, List.of("user:read", "user:write"))));
+
+        assertTrue(authorizationService.hasPermission(2L, "user:write"));
+        assertTrue(authorizationService.hasRole(2L, "ADMIN"));
+
+        verify(roleClient, times(1)).getUsersPermissionCodes(List.of(2L));
+        verify(roleClient, never()).getRolePermissions(anyLong());
+        verify(valueOperations).set(eq("auth:user:permissions:2"), eq("user:read,user:write"), anyLong(), any());
+        verify(valueOperations).set(eq("auth:user:roles:2"), eq("ADMIN"), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("加载失败时不缓存结果")
+    void testFailureIsNotCached() {
+        when(valueOperations.get("auth:user:permissions:3"))
+                .thenThrow(new IllegalStateException("redis down"))
+                .thenReturn("audit:read");
+
+        assertFalse(authorizationService.hasPermission(3L, "audit:read"));
+        assertTrue(authorizationService.hasPermission(3L, "audit:read"));
+    }
+
+    @Test
+    @DisplayName("清除缓存时失效本地副本并广播失效通知")
+    void testClearCachePublishesInvalidation() {
+        when(valueOperations.get("auth:user:permissions:4")).thenReturn("user:read", "user:read,user:delete");
+        assertFalse(authorizationService.hasPermission(4L, "user:delete"));
+
+        authorizationService.clearUserPermissionCache(4L);
+
+        verify(redisTemplate).convertAndSend(PermissionNearCache.INVALIDATION_CHANNEL, "4");
+        assertTrue(authorizationService.hasPermission(4L, "user:delete"));
+    }
+
+    @Test
+    @DisplayName("收到其他实例的失效通知时失效本地副本")
+    void testInvalidationMessageEvictsLocalCopy() {
+        when(valueOperations.get("auth:user:permissions:5")).thenReturn("user:read", "user:write");
+        assertTrue(authorizationService.hasPermission(5L, "user:read"));
+
+        nearCache.onMessage(new DefaultMessage(
+                PermissionNearCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "5".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertFalse(authorizationService.hasPermission(5L, "user:read"));
+        assertTrue(authorizationService.hasPermission(5L, "user:write"));
+    }
+
+    @Test
+    @DisplayName("批量评估时每个用户只解析一次，未命中的用户合并为一次 Redis 与角色服务调用")
+    void testEvaluateResolvesEachUserOnce() {
+        // 用户6已在近缓存中
+        when(valueOperations.get("auth:user:permissions:6")).thenReturn("user:read");
+        authorizationService.hasPermission(6L, "user:read");
+        // 用户7在 Redis 中，用户8需要回源角色服务
+        when(valueOperations.multiGet(List.of("auth:user:permissions:8", "auth:user:permissions:7")))
+                .thenReturn(Arrays.asList(null, "document:42:read"));
+        when(roleClient.getUsersPermissionCodes(List.of(8L)))
+                .thenReturn(ResultVO.success(Map.of(8L, List.of("user:write"))));
+        when(valueOperations.multiGet(List.of("auth:user:roles:6"))).thenReturn(List.of("ADMIN"));
+
+        List<AuthorizationCheckDTO> checks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            checks.add(check(6L, AuthorizationCheckTypeEnum.PERMISSION, "user:read"));
+            checks.add(check(8L, AuthorizationCheckTypeEnum.PERMISSION, "user:read"));
+        }
+        checks.add(check(8L, AuthorizationCheckTypeEnum.PERMISSION, "user:write"));
+        checks.add(check(6L, AuthorizationCheckTypeEnum.ROLE, "ADMIN"));
+        AuthorizationCheckDTO resource = check(7L, AuthorizationCheckTypeEnum.RESOURCE, null);
+        resource.setResourceType("document");
+        resource.setResourceId("42");
+        resource.setAction("read");
+        checks.add(resource);
+
+        List<AuthorizationDecisionVO> decisions = authorizationService.evaluate(checks);
+
+        assertEquals(checks.size(), decisions.size());
+        assertTrue(decisions.get(0).getAllowed());
+        assertFalse(decisions.get(1).getAllowed());
+        assertEquals(20, decisions.get(20).getIndex());
+        assertTrue(decisions.get(20).getAllowed());
+        assertTrue(decisions.get(21).getAllowed());
+        assertEquals("document:42:read", decisions.get(22).getCode());
+        assertTrue(decisions.get(22).getAllowed());
+
+        // 权限与角色各一次 MGET，仅用户8回源角色服务
+        verify(valueOperations, times(2)).multiGet(anyList());
+        verify(roleClient, times(1)).getUsersPermissionCodes(anyList());
+        verify(valueOperations, times(1)).get(anyString());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+
+        // 再次评估全部命中近缓存
+        authorizationService.evaluate(checks);
+        verify(valueOperations, times(2)).multiGet(anyList());
+        verify(roleClient, times(1)).getUsersPermissionCodes(anyList());
+    }
+
+    @Test
+    @DisplayName("批量评估角色时未命中的用户合并为一次角色服务调用")
+    void testEvaluateLoadsRolesInOneCall() {
+        RoleVO admin = new RoleVO();
+        admin.setRoleCode("ADMIN");
+        RoleVO auditor = new RoleVO();
+        auditor.setRoleCode("AUDITOR");
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null, null));
+        when(roleClient.getUsersEffectiveRoles(anyList()))
+                .thenReturn(ResultVO.success(Map.of(11L, List.of(admin, auditor), 12L, List.of(auditor))));
+
+        List<AuthorizationDecisionVO> decisions = authorizationService.evaluate(List.of(
+                check(11L, AuthorizationCheckTypeEnum.ROLE, "ADMIN"),
+                check(12L, AuthorizationCheckTypeEnum.ROLE, "ADMIN"),
+                check(12L, AuthorizationCheckTypeEnum.ROLE, "AUDITOR"),
+                check(13L, AuthorizationCheckTypeEnum.ROLE, "AUDITOR")));
+
+        assertTrue(decisions.get(0).getAllowed());
+        assertFalse(decisions.get(1).getAllowed());
+        assertTrue(decisions.get(2).getAllowed());
+        assertFalse(decisions.get(3).getAllowed());
+        verify(roleClient, times(1)).getUsersEffectiveRoles(anyList());
+        verify(roleClient, never()).getUserEffectiveRoles(anyLong());
+    }
+
+    @Test
+    @DisplayName("批量评估加载失败时全部拒绝且不缓存")
+    void testEvaluateFailureDenies() {
+        when(valueOperations.multiGet(anyList()))
+                .thenThrow(new IllegalStateException("redis down"))
+                .thenReturn(List.of("user:read"));
+        List<AuthorizationCheckDTO> checks = List.of(check(9L, AuthorizationCheckTypeEnum.PERMISSION, "user:read"));
+
+        assertFalse(authorizationService.evaluate(checks).get(0).getAllowed());
+        assertTrue(authorizationService.evaluate(checks).get(0).getAllowed());
+    }
+
+    @Test
+    @DisplayName("批量评估超过上限时拒绝请求")
+    void testEvaluateRejectsOversizedBatch() {
+        List<AuthorizationCheckDTO> checks = Collections.nCopies(AuthorizationService.MAX_BATCH_CHECKS + 1,
+                check(1L, AuthorizationCheckTypeEnum.PERMISSION, "user:read"));
+
+        assertThrows(BusinessException.class, () -> authorizationService.evaluate(checks));
+    }
+
+    private AuthorizationCheckDTO check(Long userId, AuthorizationCheckTypeEnum type, String code) {
+        AuthorizationCheckDTO check = new AuthorizationCheckDTO();
+        check.setUserId(userId);
+        check.setType(type);
+        check.setCode(code);
+        return check;
+    }
+}
@@ -78,4 +78,7 @@ public class AuditLogCreateDTO {
 
     @Schema(description = "应用ID")
     private Long appId;
+
+    @Schema(description = "事件ID（幂等键），同一事件重复投递只记录一次")
+    private String eventId;
 }
@@ -55,4 +55,10 @@ public class AuditLogQueryDTO {
 
     @Schema(description = "每页大小")
     private Integer size = 20;
+
+    @Schema(description = "游标分页：上一页返回的游标，首页为空")
+    private String cursor;
+
+    @Schema(description = "游标分页：是否统计总记录数")
+    private Boolean withTotal = false;
 }
@@ -0,0 +1,28 @@
+package com.qoobot.openidaas.common.dto.auth;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量授权检查DTO
+ *
+ * @author QooBot
+ */
+@Data
+@Schema(description = "批量授权检查请求")
+public class AuthorizationBatchCheckDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Valid
+    @NotEmpty(message = "检查项不能为空")
+    @Size(max = 1000, message = "单次最多检查1000项")
+    @Schema(description = "检查项列表，可包含多个用户")
+    private List<AuthorizationCheckDTO> checks;
+}
@@ -0,0 +1,40 @@
+package com.qoobot.openidaas.common.dto.auth;
+
+import com.qoobot.openidaas.common.enumeration.AuthorizationCheckTypeEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 单项授权检查DTO
+ * PERMISSION、ROLE 类型使用 code；RESOURCE 类型使用 resourceType、resourceId、action
+ *
+ * @author QooBot
+ */
+@Data
+@Schema(description = "单项授权检查")
+public class AuthorizationCheckDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "用户ID不能为空")
+    @Schema(description = "用户ID", example = "1")
+    private Long userId;
+
+    @Schema(description = "检查类型", example = "PERMISSION")
+    private AuthorizationCheckTypeEnum type = AuthorizationCheckTypeEnum.PERMISSION;
+
+    @Schema(description = "权限编码或角色编码", example = "user:read")
+    private String code;
+
+    @Schema(description = "资源类型", example = "document")
+    private String resourceType;
+
+    @Schema(description = "资源ID", example = "42")
+    private String resourceId;
+
+    @Schema(description = "操作类型", example = "read")
+    private String action;
+}
@@ -0,0 +1,20 @@
+package com.qoobot.openidaas.common.enumeration;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 授权检查类型枚举
+ *
+ * @author QooBot
+ */
+@Getter
+@AllArgsConstructor
+public enum AuthorizationCheckTypeEnum {
+    PERMISSION("PERMISSION", "权限"),
+    ROLE("ROLE", "角色"),
+    RESOURCE("RESOURCE", "资源");
+
+    private final String code;
+    private final String description;
+}
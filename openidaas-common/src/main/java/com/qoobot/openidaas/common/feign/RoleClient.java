@@ -10,6 +10,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 角色服务 Feign 客户端
@@ -97,4 +98,22 @@ public interface RoleClient {
      */
     @GetMapping("/api/roles/users/{userId}/roles")
     ResultVO<List<RoleVO>> getUserRoles(@PathVariable("userId") Long userId);
+
+    /**
+     * 获取用户的有效角色列表（含继承的祖先角色）
+     */
+    @GetMapping("/api/roles/users/{userId}/effective-roles")
+    ResultVO<List<RoleVO>> getUserEffectiveRoles(@PathVariable("userId") Long userId);
+
+    /**
+     * 批量获取用户的有效角色列表（含继承的祖先角色，一次请求）
+     */
+    @PostMapping("/api/roles/users/effective-roles")
+    ResultVO<Map<Long, List<RoleVO>>> getUsersEffectiveRoles(@RequestBody List<Long> userIds);
+
+    /**
+     * 批量获取用户的有效权限编码（含继承的权限，一次请求）
+     */
+    @PostMapping("/api/permissions/users/codes")
+    ResultVO<Map<Long, List<String>>> getUsersPermissionCodes(@RequestBody List<Long> userIds);
 }
@@ -0,0 +1,49 @@
+package com.qoobot.openidaas.common.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果封装类
+ *
+ * @param <T> 数据类型
+ * @author QooBot
+ */
+@Data
+@Schema(description = "游标分页结果")
+public class CursorPageResultVO<T> {
+
+    @Schema(description = "每页大小")
+    private Integer pageSize;
+
+    @Schema(description = "是否还有下一页")
+    private Boolean hasMore;
+
+    @Schema(description = "下一页游标，没有下一页时为空")
+    private String nextCursor;
+
+    @Schema(description = "总记录数，未请求统计时为空")
+    private Long total;
+
+    @Schema(description = "数据列表")
+    private List<T> records;
+
+    public CursorPageResultVO() {}
+
+    public CursorPageResultVO(Integer pageSize, String nextCursor, Long total, List<T> records) {
+        this.pageSize = pageSize;
+        this.hasMore = nextCursor != null;
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.records = records;
+    }
+
+    /**
+     * 创建游标分页结果
+     */
+    public static <T> CursorPageResultVO<T> of(Integer pageSize, String nextCursor, Long total, List<T> records) {
+        return new CursorPageResultVO<>(pageSize, nextCursor, total, records);
+    }
+}
@@ -0,0 +1,34 @@
+package com.qoobot.openidaas.common.vo.auth;
+
+import com.qoobot.openidaas.common.enumeration.AuthorizationCheckTypeEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 授权检查结果VO
+ *
+ * @author QooBot
+ */
+@Data
+@Schema(description = "授权检查结果")
+public class AuthorizationDecisionVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "检查项在请求中的序号")
+    private Integer index;
+
+    @Schema(description = "用户ID")
+    private Long userId;
+
+    @Schema(description = "检查类型")
+    private AuthorizationCheckTypeEnum type;
+
+    @Schema(description = "实际检查的权限编码或角色编码")
+    private String code;
+
+    @Schema(description = "是否允许")
+    private Boolean allowed;
+}
@@ -0,0 +1,81 @@
+package com.qoobot.openidaas.gateway.compression;
+
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 内容编码协商
+ * 按 Accept-Encoding 的 q 值在网关支持的编码中选择最优者
+ *
+ * @author QooBot
+ */
+public final class ContentEncodings {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * 网关支持的编码，q 值相同时按此顺序优先
+     */
+    private static final List<String> SUPPORTED = List.of(GZIP, DEFLATE);
+
+    private ContentEncodings() {
+    }
+
+    /**
+     * 选择响应编码
+     *
+     * @param acceptEncoding 请求的 Accept-Encoding 头
+     * @return 选中的编码，客户端不接受任何支持的编码时返回 null
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return null;
+        }
+        String best = null;
+        double bestQ = 0;
+        double wildcardQ = -1;
+        double[] explicitQ = new double[SUPPORTED.size()];
+        Arrays.fill(explicitQ, -1);
+
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = parseQuality(tokens);
+            if ("*".equals(coding)) {
+                wildcardQ = q;
+            } else {
+                int index = SUPPORTED.indexOf(coding);
+                if (index >= 0) {
+                    explicitQ[index] = q;
+                }
+            }
+        }
+
+        for (int i = 0; i < SUPPORTED.size(); i++) {
+            double q = explicitQ[i] >= 0 ? explicitQ[i] : wildcardQ;
+            if (q > bestQ) {
+                bestQ = q;
+                best = SUPPORTED.get(i);
+            }
+        }
+        return best;
+    }
+
+    private static double parseQuality(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String param = tokens[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
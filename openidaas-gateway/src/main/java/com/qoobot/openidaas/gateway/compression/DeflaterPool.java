@@ -0,0 +1,51 @@
+package com.qoobot.openidaas.gateway.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater 对象池
+ * Deflater 持有本地内存，频繁创建和回收代价较高，响应压缩时从池中借用、结束后重置归还。
+ * 一个池只存放同一种输出格式的 Deflater：gzip 需要原始 deflate 流（RFC 1951，由调用方写 gzip 头尾），
+ * HTTP 的 deflate 编码需要 zlib 格式（RFC 1950）
+ *
+ * @author QooBot
+ */
+public class DeflaterPool {
+
+    private final BlockingQueue<Deflater> pool;
+    private final int level;
+    private final boolean nowrap;
+
+    /**
+     * @param nowrap true 时输出不带 zlib 头尾的原始 deflate 流
+     */
+    public DeflaterPool(int maxIdle, int level, boolean nowrap) {
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+        this.level = level;
+        this.nowrap = nowrap;
+    }
+
+    /**
+     * 按池 nowrap 设置的格式借用一个 Deflater
+     */
+    public Deflater borrow() {
+        Deflater deflater = pool.poll();
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+
+    /**
+     * 归还 Deflater，池已满时直接释放
+     */
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    public int idleCount() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,115 @@
+package com.qoobot.openidaas.gateway.compression;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 流式压缩器
+ * 逐个压缩响应体的 DataBuffer，每块输入后同步刷新，不缓存完整响应体。
+ * 同一实例只服务一个响应，调用方需保证按顺序调用。
+ *
+ * @author QooBot
+ */
+public class StreamingCompressor {
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private static final int OUTPUT_CHUNK_SIZE = 8192;
+
+    private final Deflater deflater;
+    private final boolean gzip;
+    private final CRC32 crc = new CRC32();
+    private final byte[] output = new byte[OUTPUT_CHUNK_SIZE];
+    private boolean headerWritten;
+
+    /**
+     * @param deflater gzip 时为原始 deflate 格式（nowrap）的 Deflater，deflate 时为 zlib 格式的 Deflater
+     * @param encoding 内容编码，gzip 或 deflate
+     */
+    public StreamingCompressor(Deflater deflater, String encoding) {
+        this.deflater = deflater;
+        this.gzip = ContentEncodings.GZIP.equals(encoding);
+    }
+
+    /**
+     * 压缩一块输入并释放它，返回本块对应的压缩输出
+     */
+    public DataBuffer compress(DataBuffer input, DataBufferFactory factory) {
+        DataBuffer out = factory.allocateBuffer(Math.max(64, input.readableByteCount() / 2));
+        try {
+            writeHeaderIfNeeded(out);
+            try (DataBuffer.ByteBufferIterator iterator = input.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer chunk = iterator.next();
+                    if (gzip) {
+                        crc.update(chunk.duplicate());
+                    }
+                    deflater.setInput(chunk);
+                    drain(out, Deflater.NO_FLUSH);
+                }
+            }
+            drain(out, Deflater.SYNC_FLUSH);
+            return out;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(out);
+            throw e;
+        } finally {
+            DataBufferUtils.release(input);
+        }
+    }
+
+    /**
+     * 结束压缩流，返回剩余输出和 gzip 尾部
+     */
+    public DataBuffer finish(DataBufferFactory factory) {
+        DataBuffer out = factory.allocateBuffer(64);
+        writeHeaderIfNeeded(out);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int count = deflater.deflate(output, 0, output.length, Deflater.NO_FLUSH);
+            out.write(output, 0, count);
+        }
+        if (gzip) {
+            writeIntLe(out, (int) crc.getValue());
+            writeIntLe(out, (int) deflater.getBytesRead());
+        }
+        return out;
+    }
+
+    private void writeHeaderIfNeeded(DataBuffer out) {
+        if (gzip && !headerWritten) {
+            out.write(GZIP_HEADER);
+            headerWritten = true;
+        }
+    }
+
+    /**
+     * 取出 Deflater 当前可输出的全部数据
+     */
+    private void drain(DataBuffer out, int flush) {
+        while (true) {
+            if (flush == Deflater.NO_FLUSH && deflater.needsInput()) {
+                return;
+            }
+            int count = deflater.deflate(output, 0, output.length, flush);
+            out.write(output, 0, count);
+            if (count < output.length && (flush != Deflater.NO_FLUSH || deflater.needsInput())) {
+                return;
+            }
+        }
+    }
+
+    private static void writeIntLe(DataBuffer out, int value) {
+        out.write((byte) value);
+        out.write((byte) (value >> 8));
+        out.write((byte) (value >> 16));
+        out.write((byte) (value >> 24));
+    }
+}
@@ -6,15 +6,25 @@ import com.alibaba.csp.sentinel.adapter.gateway.sc.SentinelGatewayFilter;
 import com.alibaba.csp.sentinel.adapter.gateway.sc.callback.BlockRequestHandler;
 import com.alibaba.csp.sentinel.adapter.gateway.sc.callback.GatewayCallbackManager;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.EventObserverRegistry;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qoobot.openidaas.gateway.resilience.RouteCircuitBreakers;
+import com.qoobot.openidaas.gateway.resilience.RouteDegradePolicies;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -31,12 +41,19 @@ import java.util.stream.Collectors;
  *
  * @author QooBot
  */
+@Slf4j
 @Configuration
 public class SentinelRateLimiterConfig {
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RouteCircuitBreakers routeCircuitBreakers;
+
+    @Autowired
+    private RouteDefinitionLocator routeDefinitionLocator;
+
     /**
      * 初始化限流规则
      */
@@ -45,8 +62,8 @@ public class SentinelRateLimiterConfig {
         // Gateway限流规则
         initGatewayFlowRules();
 
-        // 熔断降级规则
-        initDegradeRules();
+        // 熔断降级规则在路由刷新后按路由表生成，这里只注册状态观察者
+        registerCircuitBreakerObserver();
 
         // 设置限流回调处理器
         setBlockRequestHandler();
@@ -145,31 +162,53 @@ public class SentinelRateLimiterConfig {
     }
 
     /**
-     * 初始化熔断降级规则
+     * 注册熔断状态观察者：熔断状态同步给路由弹性过滤器，熔断期间暂停重试与对冲
+     */
+    private void registerCircuitBreakerObserver() {
+        EventObserverRegistry.getInstance().addStateChangeObserver("route-resilience",
+                (prevState, newState, rule, snapshotValue) ->
+                        routeCircuitBreakers.onStateChange(rule.getResource(), newState == CircuitBreaker.State.CLOSED));
+    }
+
+    /**
+     * 路由刷新后按实际路由表重新生成熔断降级规则
+     * 规则资源名使用路由ID，与 SentinelGatewayFilter 按路由统计的资源一致；路由表随环境和配置中心变化，
+     * 因此不硬编码路由ID
      */
-    private void initDegradeRules() {
-        List<DegradeRule> rules = new ArrayList<>();
-
-        // 认证服务降级: 异常比例超过50%时熔断
-        DegradeRule authDegradeRule = new DegradeRule();
-        authDegradeRule.setResource("openidaas-auth-service");
-        authDegradeRule.setGrade(DegradeRule.GRADE_EXCEPTION_RATIO);
-        authDegradeRule.setCount(0.5); // 50%异常比例
-        authDegradeRule.setTimeWindow(60); // 熔断60秒
-        authDegradeRule.setMinRequestAmount(10); // 最小请求数
-        rules.add(authDegradeRule);
-
-        // 用户服务降级: 慢调用比例超过50%时熔断
-        DegradeRule userDegradeRule = new DegradeRule();
-        userDegradeRule.setResource("openidaas-user-service");
-        userDegradeRule.setGrade(DegradeRule.GRADE_SLOW_REQUEST_RATIO);
-        userDegradeRule.setCount(0.5); // 50%慢调用比例
-        userDegradeRule.setTimeWindow(30); // 熔断30秒
-        userDegradeRule.setMinRequestAmount(5); // 最小请求数
-        userDegradeRule.setSlowRatioThreshold(200); // 慢调用阈值: 200ms
-        rules.add(userDegradeRule);
+    @EventListener
+    public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        routeDefinitionLocator.getRouteDefinitions().collectList()
+                .subscribe(this::loadDegradeRules,
+                        error -> log.error("Failed to rebuild degrade rules, keeping previous rules", error));
+    }
 
+    void loadDegradeRules(List<RouteDefinition> routes) {
+        List<DegradeRule> rules = RouteDegradePolicies.forRoutes(routes).stream()
+                .map(SentinelRateLimiterConfig::toDegradeRule)
+                .collect(Collectors.toList());
         DegradeRuleManager.loadRules(rules);
+        log.info("Loaded {} degrade rules for routes: {}", rules.size(),
+                rules.stream().map(DegradeRule::getResource).collect(Collectors.joining(", ")));
+    }
+
+    private static DegradeRule toDegradeRule(RouteDegradePolicies.RoutePolicy routePolicy) {
+        RouteDegradePolicies.Policy policy = routePolicy.getPolicy();
+        DegradeRule rule = new DegradeRule(routePolicy.getRouteId());
+        if (policy.getGrade() == RouteDegradePolicies.Grade.SLOW_REQUEST_RATIO) {
+            // 慢调用比例: count 为慢调用耗时阈值（毫秒），slowRatioThreshold 为比例
+            rule.setGrade(RuleConstant.DEGRADE_GRADE_RT);
+            rule.setCount(policy.getSlowCallMillis());
+            rule.setSlowRatioThreshold(policy.getRatio());
+        } else {
+            rule.setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO);
+            rule.setCount(policy.getRatio());
+        }
+        rule.setTimeWindow(policy.getTimeWindowSeconds());
+        rule.setMinRequestAmount(policy.getMinRequestAmount());
+        return rule;
     }
 
     /**
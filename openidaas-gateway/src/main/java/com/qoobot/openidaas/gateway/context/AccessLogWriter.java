@@ -0,0 +1,142 @@
+package com.qoobot.openidaas.gateway.context;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步采样访问日志
+ * 请求线程只做采样判断和入队，格式化与输出由后台线程完成；
+ * 5xx 和慢请求始终记录，队列满时丢弃并计数，不阻塞事件循环
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS_LOG");
+
+    @Value("${gateway.access-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.access-log.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${gateway.access-log.slow-threshold-ms:1000}")
+    private long slowThresholdMs;
+
+    @Value("${gateway.access-log.queue-capacity:8192}")
+    private int queueCapacity;
+
+    private BlockingQueue<Entry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drain, "gateway-access-log");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 记录一次请求，未命中采样时直接返回
+     */
+    public void record(RequestContext context, String method, String path, int status) {
+        if (!enabled) {
+            return;
+        }
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - context.getStartNanos());
+        if (!shouldLog(status, durationMs)) {
+            return;
+        }
+        if (!queue.offer(new Entry(context, method, path, status, durationMs))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * 5xx 与慢请求全量记录，其余按采样率记录
+     */
+    boolean shouldLog(int status, long durationMs) {
+        if (status >= 500 || durationMs >= slowThresholdMs) {
+            return true;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * 因队列已满被丢弃的日志条数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry entry = queue.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    write(entry);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Entry entry;
+                while ((entry = queue.poll()) != null) {
+                    write(entry);
+                }
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write access log", e);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        RequestContext context = entry.context;
+        ACCESS_LOG.info("[TraceID: {}] [SpanID: {}] {} {} from {} ({}) -> {} in {}ms",
+                context.getTraceId(),
+                context.getSpanId(),
+                entry.method,
+                entry.path,
+                context.getClientIp(),
+                context.getClientId(),
+                entry.status,
+                entry.durationMs);
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final RequestContext context;
+        private final String method;
+        private final String path;
+        private final int status;
+        private final long durationMs;
+    }
+}
@@ -0,0 +1,68 @@
+package com.qoobot.openidaas.gateway.context;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 客户端身份解析
+ * 网关内客户端 IP 与客户端标识的唯一计算入口
+ *
+ * @author QooBot
+ */
+public final class ClientIdentity {
+
+    private static final String UNKNOWN = "unknown";
+
+    private ClientIdentity() {
+    }
+
+    /**
+     * 获取客户端真实IP地址
+     * 依次使用 X-Forwarded-For 首个地址、X-Real-IP、连接远端地址
+     */
+    public static String resolveClientIp(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String xForwardedFor = headers.getFirst("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            int comma = xForwardedFor.indexOf(',');
+            return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
+        }
+
+        String xRealIp = headers.getFirst("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return UNKNOWN;
+        }
+        return remoteAddress.getAddress().getHostAddress();
+    }
+
+    /**
+     * 获取客户端标识
+     * 优先级：API Key > 用户ID > 租户ID > IP地址
+     */
+    public static String resolveClientId(ServerHttpRequest request, String clientIp) {
+        HttpHeaders headers = request.getHeaders();
+        String apiKey = headers.getFirst("X-API-Key");
+        if (apiKey != null && !apiKey.isEmpty()) {
+            return "api_key:" + apiKey;
+        }
+
+        String userId = headers.getFirst("X-User-ID");
+        if (userId != null && !userId.isEmpty()) {
+            return "user:" + userId;
+        }
+
+        String tenantId = headers.getFirst("X-Tenant-ID");
+        if (tenantId != null && !tenantId.isEmpty()) {
+            return "tenant:" + tenantId;
+        }
+
+        return "ip:" + clientIp;
+    }
+}
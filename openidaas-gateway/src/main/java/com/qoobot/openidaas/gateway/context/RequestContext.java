@@ -0,0 +1,43 @@
+package com.qoobot.openidaas.gateway.context;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * 请求上下文
+ * 由 RequestContextFilter 在请求入口处一次性计算，后续过滤器从交换属性中读取
+ *
+ * @author QooBot
+ */
+@Getter
+@AllArgsConstructor
+public class RequestContext {
+
+    /**
+     * 交换属性名
+     */
+    public static final String ATTRIBUTE = RequestContext.class.getName();
+
+    private final String traceId;
+
+    private final String spanId;
+
+    private final String parentSpanId;
+
+    private final String clientIp;
+
+    /**
+     * 限流等场景使用的客户端标识，如 api_key:xxx、user:xxx、ip:xxx
+     */
+    private final String clientId;
+
+    private final long startNanos;
+
+    /**
+     * 读取交换中的请求上下文，未经过 RequestContextFilter 时返回 null
+     */
+    public static RequestContext from(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+}
@@ -0,0 +1,45 @@
+package com.qoobot.openidaas.gateway.context;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 追踪 ID 生成器
+ * 基于 ThreadLocalRandom 生成 W3C 风格的 128 位 traceId 与 64 位 spanId，
+ * 不经过 SecureRandom，也不产生中间 UUID 对象
+ *
+ * @author QooBot
+ */
+public final class TraceIdGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TraceIdGenerator() {
+    }
+
+    /**
+     * 生成 32 位十六进制追踪 ID
+     */
+    public static String traceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[32];
+        writeHex(chars, 0, random.nextLong());
+        writeHex(chars, 16, random.nextLong());
+        return new String(chars);
+    }
+
+    /**
+     * 生成 16 位十六进制跨度 ID
+     */
+    public static String spanId() {
+        char[] chars = new char[16];
+        writeHex(chars, 0, ThreadLocalRandom.current().nextLong());
+        return new String(chars);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
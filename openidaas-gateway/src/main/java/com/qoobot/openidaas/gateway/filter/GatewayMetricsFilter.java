@@ -0,0 +1,71 @@
+package com.qoobot.openidaas.gateway.filter;
+
+import com.qoobot.openidaas.gateway.metrics.GatewayMetrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关指标过滤器
+ * 请求结束时按路由记录耗时，并统计总数、成功、失败、认证与限流结果
+ *
+ * @author QooBot
+ */
+@Component
+@RequiredArgsConstructor
+public class GatewayMetricsFilter implements GlobalFilter, Ordered {
+
+    private final GatewayMetrics gatewayMetrics;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Timer.Sample sample = gatewayMetrics.startTimer();
+        gatewayMetrics.recordTotalRequest();
+
+        return chain.filter(exchange)
+                .doFinally(signalType -> record(exchange, sample));
+    }
+
+    private void record(ServerWebExchange exchange, Timer.Sample sample) {
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = statusCode != null ? statusCode.value() : HttpStatus.OK.value();
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        gatewayMetrics.stopTimer(sample,
+                route != null ? route.getId() : null,
+                exchange.getRequest().getMethod().name(),
+                status);
+
+        if (status < 400) {
+            gatewayMetrics.recordSuccessfulRequest();
+        } else {
+            gatewayMetrics.recordFailedRequest();
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            gatewayMetrics.recordRateLimitedRequest();
+        }
+
+        Boolean authenticated = exchange.getAttribute(GatewayMetrics.AUTH_OUTCOME_ATTR);
+        if (authenticated != null) {
+            if (authenticated) {
+                gatewayMetrics.recordAuthSuccess();
+            } else {
+                gatewayMetrics.recordAuthFailed();
+            }
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return -300; // 早于请求上下文过滤器，覆盖完整的过滤器链耗时
+    }
+}
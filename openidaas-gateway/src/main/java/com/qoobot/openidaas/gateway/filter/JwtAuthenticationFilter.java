@@ -1,7 +1,8 @@
 package com.qoobot.openidaas.gateway.filter;
 
-import com.qoobot.openidaas.common.util.JwtUtil;
-import lombok.RequiredArgsConstructor;
+import com.qoobot.openidaas.gateway.metrics.GatewayMetrics;
+import com.qoobot.openidaas.gateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -37,6 +38,7 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
 
             if (!StringUtils.hasText(authHeader) || !authHeader.startsWith("Bearer ")) {
                 if (config.isRequireAuth()) {
+                    exchange.getAttributes().put(GatewayMetrics.AUTH_OUTCOME_ATTR, Boolean.FALSE);
                     exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
                     return exchange.getResponse().setComplete();
                 }
@@ -46,23 +48,25 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
             // 提取token
             String token = authHeader.substring(7);
 
-            // 验证token
+            // 验证token，一次解析得到全部声明
             try {
-                String username = jwtUtil.getUsernameFromToken(token);
-                if (!jwtUtil.validateToken(token)) {
+                Claims claims = jwtUtil.getVerifiedClaims(token);
+                exchange.getAttributes().put(GatewayMetrics.AUTH_OUTCOME_ATTR, claims != null);
+                if (claims == null) {
                     exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
                     return exchange.getResponse().setComplete();
                 }
 
                 // 将用户信息添加到请求头
                 ServerHttpRequest mutatedRequest = request.mutate()
-                        .header("X-User-Id", String.valueOf(jwtUtil.<Long>getClaimFromToken(token, claims -> claims.get("userId", Long.class))))
-                        .header("X-Username", username)
+                        .header("X-User-Id", String.valueOf(claims.get("userId", Long.class)))
+                        .header("X-Username", claims.getSubject())
                         .build();
 
                 return chain.filter(exchange.mutate().request(mutatedRequest).build());
             } catch (Exception e) {
                 log.error("JWT token validation failed", e);
+                exchange.getAttributes().put(GatewayMetrics.AUTH_OUTCOME_ATTR, Boolean.FALSE);
                 exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
                 return exchange.getResponse().setComplete();
             }
@@ -0,0 +1,83 @@
+package com.qoobot.openidaas.gateway.filter;
+
+import com.qoobot.openidaas.gateway.context.AccessLogWriter;
+import com.qoobot.openidaas.gateway.context.ClientIdentity;
+import com.qoobot.openidaas.gateway.context.RequestContext;
+import com.qoobot.openidaas.gateway.context.TraceIdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 请求上下文过滤器
+ * 在请求入口一次性计算追踪ID、跨度ID、客户端IP与客户端标识，存入交换属性供后续过滤器读取，
+ * 向下游传递追踪头，并在请求结束时写入异步采样访问日志
+ *
+ * @author QooBot
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestContextFilter implements GlobalFilter, Ordered {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-ID";
+    public static final String SPAN_ID_HEADER = "X-Span-ID";
+    public static final String PARENT_SPAN_ID_HEADER = "X-Parent-Span-ID";
+
+    private static final String ROOT_SPAN = "root";
+
+    private final AccessLogWriter accessLogWriter;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        // 优先使用请求中已有的追踪ID
+        String traceId = request.getHeaders().getFirst(TRACE_ID_HEADER);
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = TraceIdGenerator.traceId();
+        }
+        String spanId = TraceIdGenerator.spanId();
+        String parentSpanId = request.getHeaders().getFirst(SPAN_ID_HEADER);
+        String clientIp = ClientIdentity.resolveClientIp(request);
+
+        RequestContext context = new RequestContext(
+                traceId,
+                spanId,
+                parentSpanId != null ? parentSpanId : ROOT_SPAN,
+                clientIp,
+                ClientIdentity.resolveClientId(request, clientIp),
+                System.nanoTime());
+
+        // 将追踪信息添加到请求头中
+        String finalTraceId = traceId;
+        ServerHttpRequest mutatedRequest = request.mutate()
+                .headers(headers -> {
+                    headers.set(TRACE_ID_HEADER, finalTraceId);
+                    headers.set(SPAN_ID_HEADER, spanId);
+                    headers.set(PARENT_SPAN_ID_HEADER, context.getParentSpanId());
+                })
+                .build();
+        ServerWebExchange mutatedExchange = exchange.mutate().request(mutatedRequest).build();
+        mutatedExchange.getAttributes().put(RequestContext.ATTRIBUTE, context);
+
+        return chain.filter(mutatedExchange)
+                .doFinally(signalType -> {
+                    HttpStatusCode status = mutatedExchange.getResponse().getStatusCode();
+                    accessLogWriter.record(context,
+                            request.getMethod().name(),
+                            request.getPath().value(),
+                            status != null ? status.value() : 0);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return -200; // 最高优先级执行，确保在其他过滤器之前设置请求上下文
+    }
+}
@@ -1,24 +1,34 @@
 package com.qoobot.openidaas.gateway.filter;
 
+import com.qoobot.openidaas.gateway.compression.ContentEncodings;
+import com.qoobot.openidaas.gateway.compression.DeflaterPool;
+import com.qoobot.openidaas.gateway.compression.StreamingCompressor;
 import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import jakarta.annotation.PostConstruct;
 import java.util.List;
-import java.util.zip.GZIPOutputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 
 /**
  * 响应压缩过滤器
- * 自动对符合条件的响应进行GZIP压缩，提升传输效率
+ * 按 Accept-Encoding 协商 gzip/deflate，对符合条件的响应体进行流式压缩，提升传输效率
  *
  * @author QooBot
  */
@@ -35,81 +45,117 @@ public class ResponseCompressionFilter implements GlobalFilter, Ordered {
         "text/javascript",
         "application/javascript"
     );
-    
+
     private static final int MIN_COMPRESSION_SIZE = 1024; // 1KB
-    private static final String GZIP_ENCODING = "gzip";
-    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+    @Value("${gateway.compression.level:6}")
+    private int compressionLevel;
+
+    @Value("${gateway.compression.deflater-pool-size:64}")
+    private int deflaterPoolSize;
+
+    // gzip 自行写头尾，使用原始 deflate 流；deflate 编码按 RFC 9110 使用 zlib 格式
+    private DeflaterPool gzipDeflaterPool;
+    private DeflaterPool zlibDeflaterPool;
+
+    @PostConstruct
+    public void init() {
+        this.gzipDeflaterPool = new DeflaterPool(deflaterPoolSize, compressionLevel, true);
+        this.zlibDeflaterPool = new DeflaterPool(deflaterPoolSize, compressionLevel, false);
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
-        ServerHttpResponse response = exchange.getResponse();
-        
-        // 检查客户端是否支持GZIP压缩
-        if (!supportsGzipCompression(request)) {
+        if (HttpMethod.HEAD.equals(request.getMethod())) {
             return chain.filter(exchange);
         }
-        
-        // 先执行后续过滤器链
-        return chain.filter(exchange)
-                .then(Mono.fromRunnable(() -> {
-                    // 检查是否应该压缩响应
-                    if (shouldCompressResponse(response)) {
-                        // 设置压缩头部
-                        response.getHeaders().add(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
-                        log.debug("Enabled GZIP compression for response");
-                    }
-                }));
-    }
 
-    /**
-     * 检查客户端是否支持GZIP压缩
-     */
-    private boolean supportsGzipCompression(ServerHttpRequest request) {
-        String acceptEncoding = request.getHeaders().getFirst(ACCEPT_ENCODING_HEADER);
-        return acceptEncoding != null && acceptEncoding.contains(GZIP_ENCODING);
+        // 协商客户端可接受的压缩编码
+        String encoding = ContentEncodings.negotiate(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpResponse compressingResponse = new CompressingResponse(exchange.getResponse(), encoding);
+        return chain.filter(exchange.mutate().response(compressingResponse).build());
     }
 
     /**
-     * 判断是否应该压缩响应
+     * 判断是否应该压缩响应，此时响应头已由下游确定但尚未提交
      */
     private boolean shouldCompressResponse(ServerHttpResponse response) {
-        // 检查内容长度
-        String contentLength = response.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH);
-        if (contentLength != null) {
-            try {
-                long length = Long.parseLong(contentLength);
-                if (length < MIN_COMPRESSION_SIZE) {
-                    return false;
-                }
-            } catch (NumberFormatException e) {
-                // 如果无法解析内容长度，继续检查内容类型
-            }
+        HttpStatusCode status = response.getStatusCode();
+        if (status != null && (status.is1xxInformational()
+                || status.value() == HttpStatus.NO_CONTENT.value()
+                || status.value() == HttpStatus.NOT_MODIFIED.value())) {
+            return false;
         }
-        
+
+        HttpHeaders headers = response.getHeaders();
+        // 上游已经压缩过的响应不再处理
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+
+        // 检查内容长度，未知长度（分块传输）的响应按内容类型决定
+        long contentLength = headers.getContentLength();
+        if (contentLength >= 0 && contentLength < MIN_COMPRESSION_SIZE) {
+            return false;
+        }
+
         // 检查内容类型
-        String contentType = response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+        String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
         if (contentType != null) {
             String mimeType = contentType.split(";")[0].trim().toLowerCase();
             return COMPRESSIBLE_CONTENT_TYPES.contains(mimeType);
         }
-        
+
         return false;
     }
 
     /**
-     * 压缩字节数组
+     * 压缩响应装饰器
+     * 在写出响应体时逐块压缩，不缓存完整响应体
      */
-    private byte[] compress(byte[] data) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
-            gzipOut.write(data);
+    private class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private final String encoding;
+
+        CompressingResponse(ServerHttpResponse delegate, String encoding) {
+            super(delegate);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!shouldCompressResponse(getDelegate())) {
+                return super.writeWith(body);
+            }
+
+            HttpHeaders headers = getDelegate().getHeaders();
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            log.debug("Enabled {} compression for response", encoding);
+
+            DataBufferFactory bufferFactory = bufferFactory();
+            DeflaterPool deflaterPool = ContentEncodings.GZIP.equals(encoding) ? gzipDeflaterPool : zlibDeflaterPool;
+            Flux<DataBuffer> compressed = Flux.using(
+                    deflaterPool::borrow,
+                    deflater -> {
+                        StreamingCompressor compressor = new StreamingCompressor(deflater, encoding);
+                        return Flux.<DataBuffer>from(body)
+                                .map(buffer -> compressor.compress(buffer, bufferFactory))
+                                .concatWith(Mono.fromSupplier(() -> compressor.finish(bufferFactory)));
+                    },
+                    deflaterPool::release);
+            return super.writeWith(compressed);
         }
-        return baos.toByteArray();
     }
 
     @Override
     public int getOrder() {
         return -30; // 在追踪过滤器之后，其他过滤器之前执行
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,236 @@
+package com.qoobot.openidaas.gateway.filter;
+
+import com.qoobot.openidaas.gateway.resilience.AttemptExchange;
+import com.qoobot.openidaas.gateway.resilience.LatencyTracker;
+import com.qoobot.openidaas.gateway.resilience.RetryBudget;
+import com.qoobot.openidaas.gateway.resilience.RouteCircuitBreakers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 路由弹性过滤器
+ * 替代无差别的 retry(3)：
+ * 1. 只对幂等方法重试，非幂等请求（如 POST）直接转发，不会被重放；
+ * 2. 重试与对冲请求受路由级重试预算约束，不超过近期流量的固定比例；
+ * 3. GET/HEAD 请求超过路由 p95 延迟仍未响应时发起对冲请求，先返回者胜出；
+ * 4. Sentinel 熔断器未关闭时暂停该路由的重试与对冲。
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+public class RouteResilienceFilter extends AbstractGatewayFilterFactory<RouteResilienceFilter.Config> {
+
+    private static final Set<HttpMethod> RETRYABLE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    private static final Set<HttpMethod> HEDGEABLE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(
+            HttpStatus.BAD_GATEWAY.value(),
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            HttpStatus.GATEWAY_TIMEOUT.value());
+
+    private final RouteCircuitBreakers circuitBreakers;
+
+    private final ConcurrentMap<String, RouteState> routeStates = new ConcurrentHashMap<>();
+
+    @Value("${gateway.resilience.retry-budget-ratio:0.1}")
+    private double retryBudgetRatio = 0.1;
+
+    @Value("${gateway.resilience.min-retries-per-second:3}")
+    private int minRetriesPerSecond = 3;
+
+    @Value("${gateway.resilience.hedge.min-delay-ms:20}")
+    private long hedgeMinDelayMillis = 20;
+
+    @Value("${gateway.resilience.hedge.max-delay-ms:2000}")
+    private long hedgeMaxDelayMillis = 2000;
+
+    public RouteResilienceFilter(RouteCircuitBreakers circuitBreakers) {
+        super(Config.class);
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (!RETRYABLE_METHODS.contains(method)) {
+                return chain.filter(exchange);
+            }
+
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "default";
+            RouteState state = routeStates.computeIfAbsent(routeId,
+                    id -> new RouteState(new RetryBudget(retryBudgetRatio, minRetriesPerSecond), new LatencyTracker()));
+            state.budget.recordRequest();
+
+            boolean hedge = config.isHedge() && HEDGEABLE_METHODS.contains(method);
+            return execute(exchange, chain, routeId, state, hedge, config.getRetries());
+        };
+    }
+
+    /**
+     * 执行一轮转发（可能包含对冲请求），失败且允许时继续重试
+     */
+    private Mono<Void> execute(ServerWebExchange exchange, GatewayFilterChain chain, String routeId,
+                               RouteState state, boolean hedge, int retriesLeft) {
+        return hedgedRound(exchange, chain, routeId, state, hedge)
+                .flatMap(outcome -> {
+                    if (!outcome.isFailure()) {
+                        outcome.attempt.commitTo(exchange);
+                        return Mono.<Void>empty();
+                    }
+                    if (retriesLeft > 0 && acquireExtraAttempt(routeId, state)) {
+                        log.debug("Retrying route {} after {}", routeId, outcome.describe());
+                        outcome.attempt.discard();
+                        return execute(exchange, chain, routeId, state, hedge, retriesLeft - 1);
+                    }
+                    if (outcome.error != null) {
+                        outcome.attempt.discard();
+                        return Mono.error(outcome.error);
+                    }
+                    // 无法再重试时原样返回后端的错误响应
+                    outcome.attempt.commitTo(exchange);
+                    return Mono.<Void>empty();
+                });
+    }
+
+    /**
+     * 发起主请求，超过对冲延迟仍未返回时再发起一个对冲请求，取第一个成功的结果
+     */
+    private Mono<Outcome> hedgedRound(ServerWebExchange exchange, GatewayFilterChain chain, String routeId,
+                                      RouteState state, boolean hedge) {
+        long p95 = state.latency.p95();
+        if (!hedge || p95 < 0) {
+            return attempt(exchange, chain, state);
+        }
+
+        Duration delay = Duration.ofMillis(Math.max(hedgeMinDelayMillis, Math.min(p95, hedgeMaxDelayMillis)));
+        Sinks.Empty<Void> primaryDone = Sinks.empty();
+        Mono<Outcome> primary = attempt(exchange, chain, state)
+                .doOnNext(outcome -> primaryDone.tryEmitEmpty());
+        Mono<Outcome> hedged = Mono.delay(delay)
+                .takeUntilOther(primaryDone.asMono())
+                .filter(tick -> acquireExtraAttempt(routeId, state))
+                .flatMap(tick -> {
+                    log.debug("Hedging request on route {} after {}ms", routeId, delay.toMillis());
+                    return attempt(exchange, chain, state);
+                });
+
+        return Flux.merge(primary, hedged)
+                .takeUntil(outcome -> !outcome.isFailure())
+                .reduce((previous, current) -> {
+                    // 保留成功的结果，放弃其余尝试
+                    if (!current.isFailure()) {
+                        previous.attempt.discard();
+                        return current;
+                    }
+                    current.attempt.discard();
+                    return previous;
+                });
+    }
+
+    /**
+     * 在独立的交换对象上执行一次转发，错误也作为结果返回
+     */
+    private Mono<Outcome> attempt(ServerWebExchange exchange, GatewayFilterChain chain, RouteState state) {
+        return Mono.defer(() -> {
+            AttemptExchange attemptExchange = new AttemptExchange(exchange);
+            // 已产生结果的尝试由调用方决定提交或放弃，取消信号只清理仍在进行中的尝试
+            AtomicBoolean settled = new AtomicBoolean();
+            return chain.filter(attemptExchange)
+                    .then(Mono.fromCallable(() -> {
+                        state.latency.record(attemptExchange.elapsedMillis());
+                        return new Outcome(attemptExchange, null);
+                    }))
+                    .onErrorResume(error -> Mono.just(new Outcome(attemptExchange, error)))
+                    .doOnNext(outcome -> settled.set(true))
+                    .doOnCancel(() -> {
+                        if (!settled.get()) {
+                            attemptExchange.discard();
+                        }
+                    });
+        });
+    }
+
+    private boolean acquireExtraAttempt(String routeId, RouteState state) {
+        return circuitBreakers.allowsExtraAttempts(routeId) && state.budget.tryAcquire();
+    }
+
+    /**
+     * 路由级预算与延迟统计
+     */
+    private static class RouteState {
+        private final RetryBudget budget;
+        private final LatencyTracker latency;
+
+        RouteState(RetryBudget budget, LatencyTracker latency) {
+            this.budget = budget;
+            this.latency = latency;
+        }
+    }
+
+    /**
+     * 单次尝试的结果
+     */
+    private static class Outcome {
+        private final AttemptExchange attempt;
+        private final Throwable error;
+
+        Outcome(AttemptExchange attempt, Throwable error) {
+            this.attempt = attempt;
+            this.error = error;
+        }
+
+        boolean isFailure() {
+            if (error != null) {
+                return true;
+            }
+            HttpStatusCode status = attempt.getStatusCode();
+            return status != null && RETRYABLE_STATUSES.contains(status.value());
+        }
+
+        String describe() {
+            return error != null ? error.toString() : "status " + attempt.getStatusCode();
+        }
+    }
+
+    public static class Config {
+        private int retries = 2;
+        private boolean hedge = true;
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public void setRetries(int retries) {
+            this.retries = retries;
+        }
+
+        public boolean isHedge() {
+            return hedge;
+        }
+
+        public void setHedge(boolean hedge) {
+            this.hedge = hedge;
+        }
+    }
+}
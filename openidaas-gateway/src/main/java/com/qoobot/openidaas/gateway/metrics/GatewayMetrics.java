@@ -1,63 +1,112 @@
 package com.qoobot.openidaas.gateway.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 网关指标收集器
+ * 请求耗时按路由ID、方法、状态码打标签，不使用原始 URI，避免路径变量导致指标基数无限增长；
+ * Timer 按标签组合缓存，热路径上只做一次 Map 查找
  *
  * @author QooBot
  */
 @Component
 public class GatewayMetrics {
 
+    /**
+     * 认证结果交换属性，值为 Boolean，由认证过滤器写入
+     */
+    public static final String AUTH_OUTCOME_ATTR = GatewayMetrics.class.getName() + ".authOutcome";
+
+    /**
+     * 未匹配到路由的请求使用的路由标签
+     */
+    public static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    /**
+     * Timer 数量超过上限后新组合归入的路由标签
+     */
+    public static final String OVERFLOW_ROUTE = "OTHER";
+
+    private static final Set<String> STANDARD_METHODS = Set.of(
+            "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+    private static final String OTHER_METHOD = "OTHER";
+
     private final MeterRegistry meterRegistry;
-    
+
     // 请求计数器
     private final Counter totalRequests;
     private final Counter successfulRequests;
     private final Counter failedRequests;
-    
+
     // 认证相关计数器
     private final Counter authSuccess;
     private final Counter authFailed;
-    
+
     // 限流相关计数器
     private final Counter rateLimitedRequests;
 
+    // 按标签组合缓存的请求耗时 Timer
+    private final ConcurrentMap<TimerKey, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    // 按路由缓存的路由匹配耗时 Timer
+    private final ConcurrentMap<String, Timer> routeLookupTimers = new ConcurrentHashMap<>();
+
+    // 每次路由匹配执行的断言数量
+    private final DistributionSummary routePredicatesEvaluated;
+
+    @Value("${gateway.metrics.max-timers:2000}")
+    private int maxTimers = 2000;
+
+    @Value("${gateway.metrics.slo-ms:50,100,250,500,1000,2500}")
+    private long[] sloMillis = {50, 100, 250, 500, 1000, 2500};
+
     @Autowired
     public GatewayMetrics(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
-        
+
         // 初始化计数器
         this.totalRequests = Counter.builder("gateway.requests.total")
                 .description("Total number of requests")
                 .register(meterRegistry);
-                
+
         this.successfulRequests = Counter.builder("gateway.requests.successful")
                 .description("Number of successful requests")
                 .register(meterRegistry);
-                
+
         this.failedRequests = Counter.builder("gateway.requests.failed")
                 .description("Number of failed requests")
                 .register(meterRegistry);
-                
+
         this.authSuccess = Counter.builder("gateway.auth.success")
                 .description("Number of successful authentications")
                 .register(meterRegistry);
-                
+
         this.authFailed = Counter.builder("gateway.auth.failed")
                 .description("Number of failed authentications")
                 .register(meterRegistry);
-                
+
         this.rateLimitedRequests = Counter.builder("gateway.requests.ratelimited")
                 .description("Number of rate limited requests")
                 .register(meterRegistry);
+
+        this.routePredicatesEvaluated = DistributionSummary.builder("gateway.route.lookup.predicates")
+                .description("Number of route predicates evaluated per lookup")
+                .register(meterRegistry);
     }
 
     /**
@@ -111,12 +160,107 @@ public class GatewayMetrics {
 
     /**
      * 停止计时器并记录时间
+     *
+     * @param routeId 路由ID，未匹配路由时传 null
+     * @param method  HTTP 方法
+     * @param status  HTTP 状态码
+     */
+    public void stopTimer(Timer.Sample sample, String routeId, String method, int status) {
+        sample.stop(requestTimer(routeId, method, status));
+    }
+
+    /**
+     * 获取请求耗时 Timer，相同标签组合只注册一次
+     */
+    Timer requestTimer(String routeId, String method, int status) {
+        TimerKey key = new TimerKey(
+                routeId != null ? routeId : UNMATCHED_ROUTE,
+                normalizeMethod(method),
+                status);
+        Timer timer = requestTimers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        if (requestTimers.size() >= maxTimers) {
+            key = new TimerKey(OVERFLOW_ROUTE, key.method, key.status);
+        }
+        return requestTimers.computeIfAbsent(key, this::registerTimer);
+    }
+
+    /**
+     * 记录路由匹配开销
+     *
+     * @param routeId   匹配到的路由ID，未匹配时传 null
+     * @param nanos     匹配耗时（纳秒）
+     * @param evaluated 执行的路由断言数量
+     */
+    public void recordRouteLookup(String routeId, long nanos, int evaluated) {
+        String route = routeId != null ? routeId : UNMATCHED_ROUTE;
+        Timer timer = routeLookupTimers.get(route);
+        if (timer == null) {
+            if (routeLookupTimers.size() >= maxTimers) {
+                route = OVERFLOW_ROUTE;
+            }
+            timer = routeLookupTimers.computeIfAbsent(route, id -> Timer.builder("gateway.route.lookup")
+                    .description("Route matching duration")
+                    .tag("route", id)
+                    .register(meterRegistry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        routePredicatesEvaluated.record(evaluated);
+    }
+
+    /**
+     * 已缓存的 Timer 数量
      */
-    public void stopTimer(Timer.Sample sample, String uri, String method, String status) {
-        sample.stop(Timer.builder("gateway.request.duration")
-                .tag("uri", uri)
-                .tag("method", method)
-                .tag("status", status)
-                .register(meterRegistry));
-    }
-}
\ No newline at end of file
+    public int getRequestTimerCount() {
+        return requestTimers.size();
+    }
+
+    private Timer registerTimer(TimerKey key) {
+        Duration[] slos = new Duration[sloMillis.length];
+        for (int i = 0; i < sloMillis.length; i++) {
+            slos[i] = Duration.ofMillis(sloMillis[i]);
+        }
+        return Timer.builder("gateway.request.duration")
+                .description("Gateway request duration")
+                .tag("route", key.routeId)
+                .tag("method", key.method)
+                .tag("status", String.valueOf(key.status))
+                .tag("outcome", outcome(key.status))
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(slos)
+                .register(meterRegistry);
+    }
+
+    private static String normalizeMethod(String method) {
+        return method != null && STANDARD_METHODS.contains(method) ? method : OTHER_METHOD;
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (status >= 300) {
+            return "REDIRECTION";
+        }
+        if (status >= 200) {
+            return "SUCCESS";
+        }
+        return status >= 100 ? "INFORMATIONAL" : "UNKNOWN";
+    }
+
+    /**
+     * Timer 标签组合
+     */
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class TimerKey {
+        private final String routeId;
+        private final String method;
+        private final int status;
+    }
+}
@@ -0,0 +1,301 @@
+package com.qoobot.openidaas.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 本地 + Redis 两级限流
+ * 每个网关节点在本地为客户端维护无锁令牌计数，令牌从 Redis 全局令牌桶批量租用。
+ * 本地有令牌时直接判定，不访问 Redis；令牌低于水位时在后台续租，空闲客户端的剩余令牌定期归还。
+ * 本地令牌耗尽时允许透支 max-over-admission 个请求，因此所有节点合计的超额放行不超过
+ * 节点数 × max-over-admission，透支部分从下一次租约中扣回。
+ * 租约超时或出错时按获批处理（fail-open），超时后才返回的租约把全局桶扣减的令牌原数归还；
+ * 空闲归还时本地桶被关闭，仍持有该桶的请求改用新桶，剩余令牌归还、透支部分从全局桶扣回。
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+public class LocalQuotaRateLimiter {
+
+    private static final String QUOTA_KEY_PREFIX = "rate_limit:quota:";
+
+    /**
+     * 已关闭桶的令牌值，关闭后不再扣减或入账
+     */
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final RedisRateLimitScripts rateLimitScripts;
+
+    @Value("${gateway.rate-limit.requests-per-second:10}")
+    private int requestsPerSecond;
+
+    @Value("${gateway.rate-limit.burst-capacity:20}")
+    private int burstCapacity;
+
+    @Value("${gateway.rate-limit.hybrid.lease-size:5}")
+    private int leaseSize;
+
+    @Value("${gateway.rate-limit.hybrid.max-over-admission:2}")
+    private int maxOverAdmission;
+
+    @Value("${gateway.rate-limit.hybrid.max-clients:100000}")
+    private int maxClients;
+
+    @Value("${gateway.rate-limit.hybrid.idle-release-ticks:5}")
+    private int idleReleaseTicks;
+
+    @Value("${gateway.rate-limit.hybrid.lease-timeout-ms:3000}")
+    private long leaseTimeoutMs;
+
+    private Cache<String, LocalBucket> buckets;
+
+    private Mono<RateLimitResult> admitted;
+
+    /**
+     * 同步周期计数，作为本地桶的粗粒度访问时钟
+     */
+    private volatile long tick;
+
+    public LocalQuotaRateLimiter(RedisRateLimitScripts rateLimitScripts) {
+        this.rateLimitScripts = rateLimitScripts;
+    }
+
+    @PostConstruct
+    public void init() {
+        leaseSize = Math.max(1, Math.min(leaseSize, burstCapacity));
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .build();
+        admitted = Mono.just(new RateLimitResult(true, burstCapacity, -1L, 0L, 0L));
+    }
+
+    /**
+     * 判定请求是否放行
+     * 本地令牌充足时同步返回，仅在本地令牌与透支额度都用尽时等待一次租约
+     */
+    public Mono<RateLimitResult> tryAcquire(String clientId) {
+        LocalBucket bucket = buckets.get(clientId, k -> new LocalBucket());
+        bucket.lastAccessTick = tick;
+
+        if (bucket.tryConsume(maxOverAdmission)) {
+            if (bucket.tokens.get() < (leaseSize + 1) / 2) {
+                refillAsync(clientId, bucket);
+            }
+            return admitted;
+        }
+        if (bucket.isClosed()) {
+            // 桶已在空闲归还时移出缓存，改用新桶
+            return tryAcquire(clientId);
+        }
+
+        long now = System.currentTimeMillis();
+        if (now < bucket.deniedUntil) {
+            return Mono.just(denied(bucket.deniedUntil - now));
+        }
+
+        return lease(clientId, bucket).flatMap(lease -> {
+            if (bucket.tryConsume(maxOverAdmission)) {
+                return admitted;
+            }
+            if (bucket.isClosed()) {
+                return tryAcquire(clientId);
+            }
+            long waitMillis = Math.max(1L, bucket.deniedUntil - System.currentTimeMillis());
+            return Mono.just(denied(waitMillis));
+        });
+    }
+
+    /**
+     * 定期同步：为活跃且令牌偏低的客户端预先续租，空闲客户端移出本地缓存并结清令牌
+     */
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.hybrid.sync-interval-ms:1000}")
+    public void reconcile() {
+        long current = ++tick;
+        buckets.asMap().forEach((clientId, bucket) -> {
+            if (current - bucket.lastAccessTick >= idleReleaseTicks) {
+                if (buckets.asMap().remove(clientId, bucket)) {
+                    long balance = bucket.close();
+                    if (balance > 0) {
+                        settle(clientId, 0, balance);
+                    } else if (balance < 0) {
+                        settle(clientId, -balance, 0);
+                    }
+                }
+            } else if (bucket.tokens.get() < leaseSize) {
+                refillAsync(clientId, bucket);
+            }
+        });
+    }
+
+    /**
+     * 本地持有的令牌数（负数表示透支）
+     */
+    long localTokens(String clientId) {
+        LocalBucket bucket = buckets.getIfPresent(clientId);
+        return bucket != null ? bucket.tokens.get() : 0L;
+    }
+
+    private void refillAsync(String clientId, LocalBucket bucket) {
+        if (bucket.inflight.get() == null && System.currentTimeMillis() >= bucket.deniedUntil) {
+            lease(clientId, bucket).subscribe();
+        }
+    }
+
+    /**
+     * 发起或复用进行中的租约，租约期间到达的请求共享同一次 Redis 调用
+     */
+    private Mono<QuotaLease> lease(String clientId, LocalBucket bucket) {
+        Mono<QuotaLease> existing = bucket.inflight.get();
+        if (existing != null) {
+            return existing;
+        }
+        long balance = bucket.tokens.get();
+        long deficit = balance < 0 && balance != CLOSED ? -balance : 0L;
+        Mono<QuotaLease> created = lease(clientId, bucket, leaseSize + deficit)
+                .doFinally(signal -> bucket.inflight.set(null))
+                .cache();
+        if (bucket.inflight.compareAndSet(null, created)) {
+            return created;
+        }
+        Mono<QuotaLease> raced = bucket.inflight.get();
+        return raced != null ? raced : created;
+    }
+
+    /**
+     * 向全局桶租用令牌
+     * 超时作用在脚本调用本身：超时后脚本调用不取消，结果到达时若已按超时放行，则把获批的令牌还给全局桶
+     */
+    private Mono<QuotaLease> lease(String clientId, LocalBucket bucket, long requested) {
+        return Mono.defer(() -> {
+            AtomicBoolean settled = new AtomicBoolean();
+            Sinks.One<QuotaLease> outcome = Sinks.one();
+            rateLimitScripts.leaseQuota(QUOTA_KEY_PREFIX + clientId,
+                            requestsPerSecond, burstCapacity, requested, 0)
+                    .subscribe(lease -> {
+                        if (settled.compareAndSet(false, true)) {
+                            apply(clientId, bucket, requested, lease);
+                            outcome.tryEmitValue(lease);
+                        } else if (lease.getGranted() > 0) {
+                            log.warn("Quota lease for client {} arrived after timeout, returning {} tokens",
+                                    clientId, lease.getGranted());
+                            settle(clientId, 0, lease.getGranted());
+                        }
+                    }, e -> {
+                        if (settled.compareAndSet(false, true)) {
+                            log.error("Quota lease failed for client {}, granting local lease", clientId, e);
+                            outcome.tryEmitValue(failOpen(bucket, requested));
+                        }
+                    });
+            return outcome.asMono().timeout(Duration.ofMillis(leaseTimeoutMs), Mono.defer(() -> {
+                if (!settled.compareAndSet(false, true)) {
+                    // 结果恰好在超时时到达，以结果为准
+                    return outcome.asMono();
+                }
+                log.error("Quota lease timed out for client {}, granting local lease", clientId);
+                return Mono.just(failOpen(bucket, requested));
+            }));
+        });
+    }
+
+    /**
+     * 租约结果入账，桶已关闭时把获批的令牌还给全局桶
+     */
+    private void apply(String clientId, LocalBucket bucket, long requested, QuotaLease lease) {
+        if (lease.getGranted() > 0) {
+            if (!bucket.credit(lease.getGranted())) {
+                settle(clientId, 0, lease.getGranted());
+            }
+        } else if (requested > 0) {
+            bucket.deniedUntil = System.currentTimeMillis() + lease.getRetryAfterMillis();
+        }
+    }
+
+    private QuotaLease failOpen(LocalBucket bucket, long requested) {
+        bucket.credit(requested);
+        return new QuotaLease(requested, 0L, System.currentTimeMillis(), 0L);
+    }
+
+    /**
+     * 与全局桶结算：归还令牌或扣回透支，结果不计入本地桶
+     */
+    private void settle(String clientId, long requested, long returned) {
+        rateLimitScripts.leaseQuota(QUOTA_KEY_PREFIX + clientId,
+                        requestsPerSecond, burstCapacity, requested, returned)
+                .subscribe(lease -> { },
+                        e -> log.warn("Quota settlement failed for client {}", clientId, e));
+    }
+
+    private RateLimitResult denied(long retryAfterMillis) {
+        long now = System.currentTimeMillis();
+        return new RateLimitResult(false, burstCapacity, 0L, now + retryAfterMillis, retryAfterMillis);
+    }
+
+    /**
+     * 本地令牌桶
+     */
+    static final class LocalBucket {
+
+        /**
+         * 本地可用令牌，负数表示透支，{@link #CLOSED} 表示桶已关闭
+         */
+        final AtomicLong tokens = new AtomicLong();
+
+        /**
+         * 进行中的租约
+         */
+        final AtomicReference<Mono<QuotaLease>> inflight = new AtomicReference<>();
+
+        /**
+         * 全局桶无令牌时，在此时间之前直接拒绝而不访问 Redis
+         */
+        volatile long deniedUntil;
+
+        volatile long lastAccessTick;
+
+        boolean tryConsume(int maxOverAdmission) {
+            long current;
+            do {
+                current = tokens.get();
+                if (current == CLOSED || current - 1 < -maxOverAdmission) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        boolean credit(long amount) {
+            long current;
+            do {
+                current = tokens.get();
+                if (current == CLOSED) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current + amount));
+            return true;
+        }
+
+        /**
+         * 关闭本地桶，返回关闭前的令牌数
+         */
+        long close() {
+            return tokens.getAndSet(CLOSED);
+        }
+
+        boolean isClosed() {
+            return tokens.get() == CLOSED;
+        }
+    }
+}
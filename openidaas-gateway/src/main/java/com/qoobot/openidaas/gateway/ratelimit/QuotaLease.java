@@ -0,0 +1,47 @@
+package com.qoobot.openidaas.gateway.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 配额租约结果
+ *
+ * @author QooBot
+ */
+@Getter
+@AllArgsConstructor
+public class QuotaLease {
+
+    /**
+     * 实际租到的令牌数
+     */
+    private final long granted;
+
+    /**
+     * 全局桶剩余令牌数
+     */
+    private final long remaining;
+
+    /**
+     * 全局桶满时间（毫秒时间戳）
+     */
+    private final long resetAtMillis;
+
+    /**
+     * 未租到令牌时的建议重试间隔（毫秒）
+     */
+    private final long retryAfterMillis;
+
+    /**
+     * 解析租约脚本返回值: {granted, remaining, resetAtMillis, retryAfterMillis}
+     */
+    public static QuotaLease fromScriptResult(List<Long> result) {
+        return new QuotaLease(
+                Math.max(0L, result.get(0)),
+                Math.max(0L, result.get(1)),
+                result.get(2),
+                Math.max(0L, result.get(3)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.qoobot.openidaas.gateway.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 限流判定结果
+ * 由限流脚本一次性返回，用于决定是否放行并生成 X-RateLimit-* 响应头
+ *
+ * @author QooBot
+ */
+@Getter
+@AllArgsConstructor
+public class RateLimitResult {
+
+    /**
+     * 是否放行
+     */
+    private final boolean allowed;
+
+    /**
+     * 限额
+     */
+    private final long limit;
+
+    /**
+     * 剩余配额
+     */
+    private final long remaining;
+
+    /**
+     * 配额重置时间（毫秒时间戳）
+     */
+    private final long resetAtMillis;
+
+    /**
+     * 建议重试间隔（毫秒），放行时为0
+     */
+    private final long retryAfterMillis;
+
+    /**
+     * 解析限流脚本返回值: {allowed, remaining, resetAtMillis, retryAfterMillis}
+     */
+    public static RateLimitResult fromScriptResult(List<Long> result, long limit) {
+        return new RateLimitResult(
+                result.get(0) == 1L,
+                limit,
+                Math.max(0L, result.get(1)),
+                result.get(2),
+                Math.max(0L, result.get(3)));
+    }
+
+    /**
+     * 限流存储不可用时放行
+     */
+    public static RateLimitResult failOpen(long limit) {
+        return new RateLimitResult(true, limit, -1L, System.currentTimeMillis(), 0L);
+    }
+
+    /**
+     * 配额重置时间（秒级时间戳）
+     */
+    public long getResetAtSeconds() {
+        return (resetAtMillis + 999) / 1000;
+    }
+
+    /**
+     * 建议重试间隔（秒），至少1秒
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1L, (retryAfterMillis + 999) / 1000);
+    }
+}
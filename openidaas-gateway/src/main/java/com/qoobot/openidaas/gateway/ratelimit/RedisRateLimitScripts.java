@@ -0,0 +1,149 @@
+package com.qoobot.openidaas.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Redis 限流脚本执行器
+ * 每种限流算法对应一个 Lua 脚本，通过 EVALSHA 在 Redis 端原子执行，
+ * 每次判定只需一次网络往返，多个网关实例并发访问同一客户端时不会丢失更新。
+ * 脚本使用 Redis 服务器时间并以毫秒为精度计算。
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+public class RedisRateLimitScripts {
+
+    private static final String SCRIPT_LOCATION = "scripts/rate_limit/";
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private final RedisScript<List<Long>> tokenBucketScript = loadScript("token_bucket.lua");
+    private final RedisScript<List<Long>> leakyBucketScript = loadScript("leaky_bucket.lua");
+    private final RedisScript<List<Long>> fixedWindowScript = loadScript("fixed_window.lua");
+    private final RedisScript<List<Long>> slidingWindowScript = loadScript("sliding_window.lua");
+    private final RedisScript<List<Long>> slidingWindowCounterScript = loadScript("sliding_window_counter.lua");
+    private final RedisScript<List<Long>> quotaLeaseScript = loadScript("quota_lease.lua");
+
+    public RedisRateLimitScripts(ReactiveRedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 令牌桶
+     *
+     * @param key 桶键
+     * @param tokensPerSecond 每秒补充令牌数
+     * @param capacity 桶容量
+     */
+    public Mono<RateLimitResult> tokenBucket(String key, double tokensPerSecond, long capacity) {
+        return execute(tokenBucketScript, key, capacity,
+                String.valueOf(tokensPerSecond), String.valueOf(capacity), "1");
+    }
+
+    /**
+     * 漏桶
+     *
+     * @param key 桶键
+     * @param leakPerSecond 每秒漏出量
+     * @param capacity 桶容量
+     */
+    public Mono<RateLimitResult> leakyBucket(String key, double leakPerSecond, long capacity) {
+        return execute(leakyBucketScript, key, capacity,
+                String.valueOf(leakPerSecond), String.valueOf(capacity));
+    }
+
+    /**
+     * 固定窗口
+     *
+     * @param key 窗口键
+     * @param windowMillis 窗口大小（毫秒）
+     * @param limit 窗口内允许的请求数
+     */
+    public Mono<RateLimitResult> fixedWindow(String key, long windowMillis, long limit) {
+        return execute(fixedWindowScript, key, limit,
+                String.valueOf(windowMillis), String.valueOf(limit));
+    }
+
+    /**
+     * 滑动窗口（有序集合记录每次请求，精确计数，单次判定 O(log N)）
+     *
+     * @param key 窗口键
+     * @param windowMillis 窗口大小（毫秒）
+     * @param limit 窗口内允许的请求数
+     */
+    public Mono<RateLimitResult> slidingWindow(String key, long windowMillis, long limit) {
+        return execute(slidingWindowScript, key, limit,
+                String.valueOf(windowMillis), String.valueOf(limit),
+                Long.toHexString(ThreadLocalRandom.current().nextLong()));
+    }
+
+    /**
+     * 滑动窗口（双计数器近似，单次判定 O(1)，每个客户端固定两个计数器）
+     *
+     * @param key 窗口键
+     * @param windowMillis 窗口大小（毫秒）
+     * @param limit 窗口内允许的请求数
+     */
+    public Mono<RateLimitResult> slidingWindowCounter(String key, long windowMillis, long limit) {
+        return execute(slidingWindowCounterScript, key, limit,
+                String.valueOf(windowMillis), String.valueOf(limit));
+    }
+
+    /**
+     * 从全局令牌桶租用一批令牌，同时归还本地未使用的令牌
+     *
+     * @param key 全局桶键
+     * @param tokensPerSecond 每秒补充令牌数
+     * @param capacity 桶容量
+     * @param requested 租用令牌数，可部分满足
+     * @param returned 归还令牌数
+     */
+    public Mono<QuotaLease> leaseQuota(String key, double tokensPerSecond, long capacity, long requested, long returned) {
+        return run(quotaLeaseScript, key,
+                String.valueOf(tokensPerSecond), String.valueOf(capacity),
+                String.valueOf(requested), String.valueOf(returned))
+                .map(QuotaLease::fromScriptResult);
+    }
+
+    /**
+     * 执行脚本，Redis 不可用时放行
+     */
+    private Mono<RateLimitResult> execute(RedisScript<List<Long>> script, String key, long limit, String... args) {
+        return run(script, key, args)
+                .map(result -> RateLimitResult.fromScriptResult(result, limit))
+                .onErrorResume(e -> {
+                    log.error("Rate limit script failed for key {}, allowing request", key, e);
+                    return Mono.just(RateLimitResult.failOpen(limit));
+                });
+    }
+
+    private Mono<List<Long>> run(RedisScript<List<Long>> script, String key, String... args) {
+        return redisTemplate.execute(script, Collections.singletonList(key), Arrays.asList(args))
+                .<List<Long>>reduce(new ArrayList<>(), (values, chunk) -> {
+                    values.addAll(chunk);
+                    return values;
+                });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisScript<List<Long>> loadScript(String name) {
+        DefaultRedisScript script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(SCRIPT_LOCATION + name)));
+        script.setResultType(List.class);
+        return script;
+    }
+}
@@ -0,0 +1,120 @@
+package com.qoobot.openidaas.gateway.resilience;
+
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.netty.Connection;
+
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单次转发尝试的交换对象
+ * 每次尝试拥有独立的属性表和响应状态/响应头，多个对冲请求并发执行时互不干扰；
+ * 选中的尝试通过 commitTo 写回原始交换，其余尝试释放后端连接
+ *
+ * @author QooBot
+ */
+public class AttemptExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final AttemptResponse response;
+    private final long startNanos = System.nanoTime();
+
+    public AttemptExchange(ServerWebExchange delegate) {
+        super(delegate);
+        this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+        // 原始请求地址集合会被负载均衡过滤器追加，各尝试使用独立副本
+        Set<URI> originalUrls = delegate.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        if (originalUrls != null) {
+            this.attributes.put(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR, new LinkedHashSet<>(originalUrls));
+        }
+        this.response = new AttemptResponse(delegate.getResponse());
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * 后端返回的状态码，未收到响应时为 null
+     */
+    public HttpStatusCode getStatusCode() {
+        return response.getStatusCode();
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 将本次尝试的路由结果写回原始交换，由外层的响应写出过滤器输出响应体
+     */
+    public void commitTo(ServerWebExchange original) {
+        original.getAttributes().putAll(attributes);
+        ServerHttpResponse originalResponse = original.getResponse();
+        if (response.getStatusCode() != null) {
+            originalResponse.setStatusCode(response.getStatusCode());
+        }
+        originalResponse.getHeaders().putAll(response.getHeaders());
+    }
+
+    /**
+     * 放弃本次尝试，关闭已建立的后端连接
+     */
+    public void discard() {
+        Connection connection = (Connection) attributes.get(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    /**
+     * 只记录状态码和响应头的响应对象，响应体由选中的尝试写回后统一输出
+     */
+    private static class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private volatile HttpStatusCode statusCode;
+
+        AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.statusCode = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean setRawStatusCode(Integer value) {
+            this.statusCode = value != null ? HttpStatusCode.valueOf(value) : null;
+            return true;
+        }
+    }
+}
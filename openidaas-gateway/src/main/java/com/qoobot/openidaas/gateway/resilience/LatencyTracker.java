@@ -0,0 +1,55 @@
+package com.qoobot.openidaas.gateway.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 路由延迟跟踪
+ * 环形缓冲保存最近的响应耗时，按需计算 p95 并缓存一秒，用于确定对冲请求的触发延迟
+ *
+ * @author QooBot
+ */
+public class LatencyTracker {
+
+    private static final int SAMPLE_SIZE = 512;
+    private static final int MIN_SAMPLES = 50;
+    private static final long REFRESH_INTERVAL_MILLIS = 1000;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private volatile long cachedP95 = -1;
+    private volatile long cachedAt;
+
+    /**
+     * 记录一次响应耗时
+     */
+    public void record(long latencyMillis) {
+        int index = cursor.getAndIncrement() & Integer.MAX_VALUE;
+        samples.set(index % SAMPLE_SIZE, latencyMillis);
+    }
+
+    /**
+     * 最近响应耗时的 p95，样本不足时返回 -1
+     */
+    public long p95() {
+        int count = Math.min(cursor.get() & Integer.MAX_VALUE, SAMPLE_SIZE);
+        if (count < MIN_SAMPLES) {
+            return -1;
+        }
+        long now = System.currentTimeMillis();
+        if (now - cachedAt < REFRESH_INTERVAL_MILLIS) {
+            return cachedP95;
+        }
+        long[] copy = new long[count];
+        for (int i = 0; i < count; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        long p95 = copy[(int) Math.ceil(count * 0.95) - 1];
+        cachedP95 = p95;
+        cachedAt = now;
+        return p95;
+    }
+}
@@ -0,0 +1,83 @@
+package com.qoobot.openidaas.gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 重试预算
+ * 滑动窗口内重试与对冲请求总数不超过原始请求数的固定比例（另保留每秒最低额度），
+ * 后端变慢时重试量随流量收敛，不会放大成重试风暴
+ *
+ * @author QooBot
+ */
+public class RetryBudget {
+
+    private static final int WINDOW_SECONDS = 10;
+
+    private final double ratio;
+    private final int minRetriesPerSecond;
+    private final LongSupplier clock;
+
+    private final AtomicLongArray bucketSecond = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray requests = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray retries = new AtomicLongArray(WINDOW_SECONDS);
+
+    /**
+     * @param ratio               允许的重试比例，如 0.1 表示重试量不超过请求量的 10%
+     * @param minRetriesPerSecond 低流量时每秒保底可用的重试次数
+     */
+    public RetryBudget(double ratio, int minRetriesPerSecond) {
+        this(ratio, minRetriesPerSecond, System::currentTimeMillis);
+    }
+
+    RetryBudget(double ratio, int minRetriesPerSecond, LongSupplier clock) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.clock = clock;
+    }
+
+    /**
+     * 记录一次原始请求
+     */
+    public void recordRequest() {
+        requests.incrementAndGet(currentBucket());
+    }
+
+    /**
+     * 尝试为一次重试或对冲请求扣减预算
+     *
+     * @return 预算充足时返回 true
+     */
+    public boolean tryAcquire() {
+        int bucket = currentBucket();
+        long second = bucketSecond.get(bucket);
+        long requestSum = 0;
+        long retrySum = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            if (second - bucketSecond.get(i) < WINDOW_SECONDS) {
+                requestSum += requests.get(i);
+                retrySum += retries.get(i);
+            }
+        }
+        double allowed = Math.max((double) minRetriesPerSecond * WINDOW_SECONDS, requestSum * ratio);
+        if (retrySum >= allowed) {
+            return false;
+        }
+        retries.incrementAndGet(bucket);
+        return true;
+    }
+
+    /**
+     * 定位当前秒所在的桶，跨秒时清空旧桶
+     */
+    private int currentBucket() {
+        long second = clock.getAsLong() / 1000;
+        int bucket = (int) (second % WINDOW_SECONDS);
+        long bucketTime = bucketSecond.get(bucket);
+        if (bucketTime != second && bucketSecond.compareAndSet(bucket, bucketTime, second)) {
+            requests.set(bucket, 0);
+            retries.set(bucket, 0);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,41 @@
+package com.qoobot.openidaas.gateway.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 路由熔断状态
+ * 由 Sentinel 熔断规则的状态变更事件驱动，熔断打开或半开期间不再对该路由发起重试与对冲请求
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+public class RouteCircuitBreakers {
+
+    private final Set<String> trippedRoutes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 更新路由熔断状态
+     *
+     * @param routeId 路由ID（与 Sentinel 规则资源名一致）
+     * @param closed  熔断器是否处于关闭状态
+     */
+    public void onStateChange(String routeId, boolean closed) {
+        if (closed) {
+            trippedRoutes.remove(routeId);
+        } else if (trippedRoutes.add(routeId)) {
+            log.warn("Circuit breaker for route {} is not closed, suspending retries and hedging", routeId);
+        }
+    }
+
+    /**
+     * 路由是否允许额外的重试或对冲请求
+     */
+    public boolean allowsExtraAttempts(String routeId) {
+        return !trippedRoutes.contains(routeId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.qoobot.openidaas.gateway.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由熔断策略
+ * 按实际路由表生成熔断规则：每个挂载 RouteResilienceFilter 的路由一条，资源名即路由ID，
+ * 阈值按路由指向的后端服务选取，v1/v2 等版本路由共用同一服务的阈值。
+ * 路由表来自配置文件且各环境不同，规则随路由刷新重新生成，不再硬编码路由ID
+ *
+ * @author QooBot
+ */
+public final class RouteDegradePolicies {
+
+    public static final String RESILIENCE_FILTER = "RouteResilienceFilter";
+
+    private static final String SERVICE_PREFIX = "openidaas-";
+
+    // 认证服务: 异常比例超过50%时熔断60秒
+    private static final Policy AUTH = new Policy(Grade.EXCEPTION_RATIO, 0.5, 60, 10, 0);
+
+    // 用户服务: 慢调用（200ms）比例超过50%时熔断30秒
+    private static final Policy USER = new Policy(Grade.SLOW_REQUEST_RATIO, 0.5, 30, 5, 200);
+
+    // 其余后端服务: 异常比例超过50%时熔断30秒
+    private static final Policy DEFAULT = new Policy(Grade.EXCEPTION_RATIO, 0.5, 30, 10, 0);
+
+    private static final Map<String, Policy> SERVICE_POLICIES = Map.of(
+            "auth-service", AUTH,
+            "user-service", USER);
+
+    private RouteDegradePolicies() {
+    }
+
+    /**
+     * 为挂载了路由弹性过滤器的路由生成熔断策略
+     */
+    public static List<RoutePolicy> forRoutes(Collection<RouteDefinition> routes) {
+        List<RoutePolicy> policies = new ArrayList<>();
+        for (RouteDefinition route : routes) {
+            boolean resilient = route.getFilters().stream()
+                    .anyMatch(filter -> RESILIENCE_FILTER.equals(filter.getName()));
+            if (resilient) {
+                policies.add(new RoutePolicy(route.getId(),
+                        SERVICE_POLICIES.getOrDefault(serviceName(route.getUri()), DEFAULT)));
+            }
+        }
+        return policies;
+    }
+
+    /**
+     * lb://openidaas-auth-service 取 auth-service，其他形式的地址取主机名
+     */
+    static String serviceName(URI uri) {
+        if (uri == null || uri.getHost() == null) {
+            return "";
+        }
+        String host = uri.getHost();
+        return host.startsWith(SERVICE_PREFIX) ? host.substring(SERVICE_PREFIX.length()) : host;
+    }
+
+    /**
+     * 熔断判定方式
+     */
+    public enum Grade {
+        EXCEPTION_RATIO,
+        SLOW_REQUEST_RATIO
+    }
+
+    /**
+     * 熔断阈值：异常或慢调用比例、熔断时长（秒）、最小请求数、慢调用判定耗时（毫秒，仅慢调用比例使用）
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static final class Policy {
+        private final Grade grade;
+        private final double ratio;
+        private final int timeWindowSeconds;
+        private final int minRequestAmount;
+        private final long slowCallMillis;
+    }
+
+    /**
+     * 路由与其熔断阈值
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static final class RoutePolicy {
+        private final String routeId;
+        private final Policy policy;
+    }
+}
@@ -0,0 +1,110 @@
+package com.qoobot.openidaas.gateway.route;
+
+import com.qoobot.openidaas.gateway.metrics.GatewayMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * 基于路径索引的路由匹配
+ * 替代逐个执行全部路由断言的默认实现：先用 {@link RouteIndex} 按请求路径筛选候选路由，
+ * 再按原有顺序执行候选路由的断言，匹配结果与默认实现一致；
+ * 路由刷新（配置中心推送、RefreshRoutesEvent）完成后重建索引，无需重启
+ *
+ * @author QooBot
+ */
+@Slf4j
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator routeDefinitionLocator;
+    private final GatewayMetrics gatewayMetrics;
+
+    private volatile RouteIndex routeIndex;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                               RouteDefinitionLocator routeDefinitionLocator,
+                                               GlobalCorsProperties globalCorsProperties, Environment environment,
+                                               GatewayMetrics gatewayMetrics) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+        this.gatewayMetrics = gatewayMetrics;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        Mono.zip(routeLocator.getRoutes().collectList(),
+                        routeDefinitionLocator.getRouteDefinitions()
+                                .collectMap(RouteDefinition::getId, Function.identity()))
+                .subscribe(tuple -> rebuild(tuple.getT1(), tuple.getT2()),
+                        error -> log.error("Failed to rebuild route index, keeping previous index", error));
+    }
+
+    /**
+     * 重建路由索引
+     */
+    void rebuild(List<Route> routes, Map<String, RouteDefinition> definitions) {
+        RouteIndex index = RouteIndex.build(routes, definitions);
+        this.routeIndex = index;
+        log.info("Route index rebuilt: {} routes, {} indexed by path, {} always evaluated",
+                index.size(), index.indexedCount(), index.size() - index.indexedCount());
+        if (log.isDebugEnabled()) {
+            log.debug("Indexed routes: {}", routes.stream().map(Route::getId).collect(Collectors.joining(", ")));
+        }
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        RouteIndex index = this.routeIndex;
+        if (index == null) {
+            // 首次刷新完成前退回逐个匹配
+            return super.lookupRoute(exchange);
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger evaluated = new AtomicInteger();
+        List<Route> candidates = index.candidates(exchange.getRequest().getPath().pathWithinApplication());
+        return Flux.fromIterable(candidates)
+                .filterWhen(route -> {
+                    evaluated.incrementAndGet();
+                    exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, route.getId());
+                    return Mono.from(route.getPredicate().apply(exchange))
+                            .onErrorResume(e -> {
+                                log.error("Error applying predicate for route: {}", route.getId(), e);
+                                return Mono.just(false);
+                            });
+                })
+                .next()
+                .doOnNext(route -> {
+                    log.debug("Route matched: {} ({} of {} candidates evaluated)",
+                            route.getId(), evaluated.get(), candidates.size());
+                    validateRoute(route, exchange);
+                })
+                .doOnSuccess(route -> gatewayMetrics.recordRouteLookup(
+                        route != null ? route.getId() : null, System.nanoTime() - start, evaluated.get()));
+    }
+}
@@ -0,0 +1,199 @@
+package com.qoobot.openidaas.gateway.route;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由路径索引
+ * 路由刷新时按 Path 断言的字面量前缀构建分段前缀树，查找时只沿请求路径下降一次，
+ * 得到可能匹配的候选路由，再按路由顺序执行完整断言；
+ * 没有 Path 断言或前缀无法静态解析的路由始终作为候选，保证结果与逐个匹配一致
+ *
+ * @author QooBot
+ */
+public final class RouteIndex {
+
+    private static final String PATH_PREDICATE = "Path";
+
+    private static final RouteIndex EMPTY = new RouteIndex(List.of(), new Node(), new int[0], 0);
+
+    private final List<Route> routes;
+    private final Node root;
+    private final int[] unindexed;
+    private final int indexedCount;
+
+    private RouteIndex(List<Route> routes, Node root, int[] unindexed, int indexedCount) {
+        this.routes = routes;
+        this.root = root;
+        this.unindexed = unindexed;
+        this.indexedCount = indexedCount;
+    }
+
+    public static RouteIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 构建索引
+     *
+     * @param routes      已排序的路由
+     * @param definitions 路由定义，按路由ID关联 Path 断言
+     */
+    public static RouteIndex build(List<Route> routes, Map<String, RouteDefinition> definitions) {
+        Node root = new Node();
+        List<Integer> unindexed = new ArrayList<>();
+        int indexedCount = 0;
+        for (int position = 0; position < routes.size(); position++) {
+            List<String> patterns = pathPatterns(definitions.get(routes.get(position).getId()));
+            if (patterns.isEmpty()) {
+                unindexed.add(position);
+                continue;
+            }
+            for (String pattern : patterns) {
+                root.descend(literalPrefix(pattern)).add(position);
+            }
+            indexedCount++;
+        }
+        root.freeze();
+        return new RouteIndex(List.copyOf(routes), root,
+                unindexed.stream().mapToInt(Integer::intValue).toArray(), indexedCount);
+    }
+
+    /**
+     * 获取请求路径的候选路由，保持路由原有顺序
+     */
+    public List<Route> candidates(PathContainer path) {
+        if (routes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // 位图按位置去重，并天然保持路由顺序
+        BitSet matched = new BitSet(routes.size());
+        mark(unindexed, matched);
+
+        Node node = root;
+        mark(node.positions, matched);
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment)) {
+                continue;
+            }
+            node = node.children.get(segment.valueToMatch());
+            if (node == null) {
+                break;
+            }
+            mark(node.positions, matched);
+        }
+
+        List<Route> result = new ArrayList<>(matched.cardinality());
+        for (int position = matched.nextSetBit(0); position >= 0; position = matched.nextSetBit(position + 1)) {
+            result.add(routes.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * 索引中的路由总数
+     */
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * 按路径前缀建立索引的路由数量
+     */
+    public int indexedCount() {
+        return indexedCount;
+    }
+
+    private static void mark(int[] positions, BitSet matched) {
+        for (int position : positions) {
+            matched.set(position);
+        }
+    }
+
+    /**
+     * 提取路由定义中 Path 断言的路径模式，无法静态解析时返回空列表
+     */
+    static List<String> pathPatterns(RouteDefinition definition) {
+        if (definition == null) {
+            return List.of();
+        }
+        for (PredicateDefinition predicate : definition.getPredicates()) {
+            if (!PATH_PREDICATE.equals(predicate.getName())) {
+                continue;
+            }
+            List<String> patterns = new ArrayList<>();
+            for (String value : predicate.getArgs().values()) {
+                for (String pattern : value.split(",")) {
+                    pattern = pattern.trim();
+                    if (!pattern.startsWith("/")) {
+                        // 非路径参数（如 matchTrailingSlash）跳过，SpEL 等动态值放弃索引
+                        if (pattern.contains("{") || pattern.contains("#")) {
+                            return List.of();
+                        }
+                        continue;
+                    }
+                    patterns.add(pattern);
+                }
+            }
+            // 多个 Path 断言须同时满足，按第一个索引即可
+            return patterns;
+        }
+        return List.of();
+    }
+
+    /**
+     * 路径模式开头不含通配符与变量的字面量分段
+     */
+    static List<String> literalPrefix(String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                break;
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * 前缀树节点，positions 为以该节点为字面量前缀的路由位置
+     */
+    private static final class Node {
+        private Map<String, Node> children = new HashMap<>();
+        private List<Integer> pending = new ArrayList<>();
+        private int[] positions;
+
+        Node descend(List<String> segments) {
+            Node node = this;
+            for (String segment : segments) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            return node;
+        }
+
+        void add(int position) {
+            pending.add(position);
+        }
+
+        void freeze() {
+            positions = pending.stream().mapToInt(Integer::intValue).distinct().toArray();
+            pending = null;
+            for (Node child : children.values()) {
+                child.freeze();
+            }
+            children = Map.copyOf(children);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- 固定窗口限流
+-- KEYS[1]: 窗口状态 Hash (window, count)
+-- ARGV[1]: 窗口大小(毫秒)
+-- ARGV[2]: 窗口内允许的请求数
+-- 返回: {是否放行(1/0), 剩余请求数, 窗口重置时间(毫秒时间戳), 建议重试间隔(毫秒)}
+
+local key = KEYS[1]
+local window_ms = tonumber(ARGV[1])
+local limit = tonumber(ARGV[2])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local window = math.floor(now / window_ms)
+local reset = (window + 1) * window_ms
+
+local state = redis.call('HMGET', key, 'window', 'count')
+local count = 0
+if tonumber(state[1]) == window then
+    count = tonumber(state[2]) or 0
+end
+
+if count >= limit then
+    return {0, 0, reset, reset - now}
+end
+
+count = count + 1
+redis.call('HSET', key, 'window', window, 'count', count)
+redis.call('PEXPIREAT', key, reset)
+
+return {1, limit - count, reset, 0}
@@ -0,0 +1,34 @@
+-- 漏桶限流
+-- KEYS[1]: 桶状态 Hash (level, ts)
+-- ARGV[1]: 每秒漏出量
+-- ARGV[2]: 桶容量
+-- 返回: {是否放行(1/0), 剩余容量, 桶排空时间(毫秒时间戳), 建议重试间隔(毫秒)}
+
+local key = KEYS[1]
+local leak_rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', key, 'level', 'ts')
+local level = tonumber(state[1]) or 0
+local last = tonumber(state[2]) or now
+
+local elapsed = math.max(0, now - last)
+level = math.max(0, level - elapsed * leak_rate / 1000)
+
+local allowed = 0
+local retry_after = 0
+if level + 1 <= capacity then
+    level = level + 1
+    allowed = 1
+else
+    retry_after = math.ceil((level + 1 - capacity) * 1000 / leak_rate)
+end
+
+local drain_ms = math.ceil(level * 1000 / leak_rate)
+redis.call('HSET', key, 'level', level, 'ts', now)
+redis.call('PEXPIRE', key, drain_ms + 1000)
+
+return {allowed, math.floor(capacity - level), now + drain_ms, retry_after}
@@ -0,0 +1,43 @@
+-- 配额租约（两级限流的全局令牌桶）
+-- 网关节点批量租用令牌到本地，空闲节点归还未用完的令牌
+-- KEYS[1]: 桶状态 Hash (tokens, ts)
+-- ARGV[1]: 每秒补充令牌数
+-- ARGV[2]: 桶容量
+-- ARGV[3]: 本次租用令牌数（可部分满足）
+-- ARGV[4]: 本次归还令牌数
+-- 返回: {实际租到的令牌数, 桶内剩余令牌, 桶满时间(毫秒时间戳), 无令牌可租时的建议重试间隔(毫秒)}
+
+local key = KEYS[1]
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+local returned = tonumber(ARGV[4])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local last = tonumber(state[2])
+if tokens == nil or last == nil then
+    tokens = capacity
+    last = now
+end
+
+local elapsed = math.max(0, now - last)
+tokens = math.min(capacity, tokens + elapsed * rate / 1000 + returned)
+
+local granted = math.min(requested, math.floor(tokens))
+tokens = tokens - granted
+
+local retry_after = 0
+if requested > 0 and granted == 0 then
+    retry_after = math.ceil((1 - tokens) * 1000 / rate)
+end
+
+local fill_ms = math.ceil(capacity * 1000 / rate)
+redis.call('HSET', key, 'tokens', tokens, 'ts', now)
+redis.call('PEXPIRE', key, fill_ms * 2)
+
+local reset = now + math.ceil((capacity - tokens) * 1000 / rate)
+return {granted, math.floor(tokens), reset, retry_after}
@@ -0,0 +1,32 @@
+-- 滑动窗口限流（有序集合记录请求时间）
+-- KEYS[1]: 请求日志 ZSet (score = 请求时间毫秒)
+-- ARGV[1]: 窗口大小(毫秒)
+-- ARGV[2]: 窗口内允许的请求数
+-- ARGV[3]: 请求唯一标识，避免同一毫秒内的成员覆盖
+-- 返回: {是否放行(1/0), 剩余请求数, 最早请求滑出窗口的时间(毫秒时间戳), 建议重试间隔(毫秒)}
+
+local key = KEYS[1]
+local window_ms = tonumber(ARGV[1])
+local limit = tonumber(ARGV[2])
+local nonce = ARGV[3]
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+redis.call('ZREMRANGEBYSCORE', key, '-inf', '(' .. (now - window_ms))
+local count = redis.call('ZCARD', key)
+
+local reset = now + window_ms
+if count > 0 then
+    local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES')
+    reset = tonumber(oldest[2]) + window_ms
+end
+
+if count >= limit then
+    return {0, 0, reset, reset - now}
+end
+
+redis.call('ZADD', key, now, now .. ':' .. nonce)
+redis.call('PEXPIRE', key, window_ms)
+
+return {1, limit - count - 1, reset, 0}
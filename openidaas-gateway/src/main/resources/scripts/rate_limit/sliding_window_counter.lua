@@ -0,0 +1,48 @@
+-- 滑动窗口限流（双计数器近似）
+-- 以上一窗口计数按剩余比例加权，加上当前窗口计数估算滑动窗口内的请求数，
+-- 每个客户端只保存两个计数器，判定开销与窗口内请求数无关
+-- KEYS[1]: 窗口状态 Hash (window, curr, prev)
+-- ARGV[1]: 窗口大小(毫秒)
+-- ARGV[2]: 窗口内允许的请求数
+-- 返回: {是否放行(1/0), 剩余请求数, 当前窗口结束时间(毫秒时间戳), 建议重试间隔(毫秒)}
+
+local key = KEYS[1]
+local window_ms = tonumber(ARGV[1])
+local limit = tonumber(ARGV[2])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local window = math.floor(now / window_ms)
+local window_start = window * window_ms
+local reset = window_start + window_ms
+
+local state = redis.call('HMGET', key, 'window', 'curr', 'prev')
+local stored = tonumber(state[1])
+local curr = 0
+local prev = 0
+if stored == window then
+    curr = tonumber(state[2]) or 0
+    prev = tonumber(state[3]) or 0
+elseif stored == window - 1 then
+    prev = tonumber(state[2]) or 0
+end
+
+local elapsed = now - window_start
+local estimated = prev * (window_ms - elapsed) / window_ms + curr
+
+if estimated + 1 > limit then
+    local retry_after = reset - now
+    if curr + 1 <= limit and prev > 0 then
+        -- 上一窗口权重衰减到足以放行一个请求的时间点
+        local target = window_ms * (1 - (limit - 1 - curr) / prev)
+        retry_after = math.max(1, math.ceil(target - elapsed))
+    end
+    return {0, 0, reset, retry_after}
+end
+
+curr = curr + 1
+redis.call('HSET', key, 'window', window, 'curr', curr, 'prev', prev)
+redis.call('PEXPIREAT', key, reset + window_ms)
+
+return {1, math.floor(limit - estimated - 1), reset, 0}
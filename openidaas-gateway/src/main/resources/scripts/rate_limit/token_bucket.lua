@@ -0,0 +1,41 @@
+-- 令牌桶限流
+-- KEYS[1]: 桶状态 Hash (tokens, ts)
+-- ARGV[1]: 每秒补充令牌数
+-- ARGV[2]: 桶容量
+-- ARGV[3]: 本次消耗令牌数
+-- 返回: {是否放行(1/0), 剩余令牌, 桶满时间(毫秒时间戳), 建议重试间隔(毫秒)}
+
+local key = KEYS[1]
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local last = tonumber(state[2])
+if tokens == nil or last == nil then
+    tokens = capacity
+    last = now
+end
+
+local elapsed = math.max(0, now - last)
+tokens = math.min(capacity, tokens + elapsed * rate / 1000)
+
+local allowed = 0
+local retry_after = 0
+if tokens >= requested then
+    tokens = tokens - requested
+    allowed = 1
+else
+    retry_after = math.ceil((requested - tokens) * 1000 / rate)
+end
+
+local fill_ms = math.ceil(capacity * 1000 / rate)
+redis.call('HSET', key, 'tokens', tokens, 'ts', now)
+redis.call('PEXPIRE', key, fill_ms * 2)
+
+local reset = now + math.ceil((capacity - tokens) * 1000 / rate)
+return {allowed, math.floor(tokens), reset, retry_after}
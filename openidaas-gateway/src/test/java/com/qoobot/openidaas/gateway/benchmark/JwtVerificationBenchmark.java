@@ -0,0 +1,99 @@
+package com.qoobot.openidaas.gateway.benchmark;
+
+import com.qoobot.openidaas.gateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关 JWT 验证吞吐量基准
+ * legacy: 原过滤器每个请求解析三次，每次重新构建密钥和解析器
+ * cached: 复用密钥与解析器，已验证令牌命中 Claims 缓存
+ *
+ * 运行: mvn -pl openidaas-gateway test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.qoobot.openidaas.gateway.benchmark.JwtVerificationBenchmark
+ *
+ * @author QooBot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "OpenIDaaSBenchmarkSecretKey1234567890123456789012345678901234567890";
+    private static final int TOKEN_COUNT = 1024;
+
+    private JwtUtil jwtUtil;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxTtlSeconds", 300L);
+        jwtUtil.init();
+
+        tokens = new String[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            tokens[i] = jwtUtil.generateToken("user" + i, (long) i, 1L);
+        }
+    }
+
+    @Benchmark
+    public Object legacy() {
+        String token = nextToken();
+        String username = legacyParse(token).getSubject();
+        legacyParse(token);
+        Long userId = legacyParse(token).get("userId", Long.class);
+        return username + userId;
+    }
+
+    @Benchmark
+    public Object cached() {
+        Claims claims = jwtUtil.getVerifiedClaims(nextToken());
+        return claims.getSubject() + claims.get("userId", Long.class);
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(TOKEN_COUNT)];
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 32}) {
+            new Runner(new OptionsBuilder()
+                    .include(JwtVerificationBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.qoobot.openidaas.gateway.benchmark;
+
+import com.qoobot.openidaas.gateway.context.ClientIdentity;
+import com.qoobot.openidaas.gateway.context.TraceIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求上下文计算开销基准
+ * legacy: 追踪、日志、限流三个过滤器各自生成 UUID 并拆分 X-Forwarded-For
+ * consolidated: RequestContextFilter 一次性计算追踪ID、跨度ID、客户端IP与标识
+ *
+ * 运行（附带 GC 分配统计）: mvn -pl openidaas-gateway test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.qoobot.openidaas.gateway.benchmark.RequestContextBenchmark
+ *
+ * @author QooBot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestContextBenchmark {
+
+    private ServerHttpRequest request;
+
+    @Setup
+    public void setUp() {
+        request = MockServerHttpRequest.get("/api/users/1")
+                .header("X-Forwarded-For", "203.0.113.7, 10.0.0.2, 10.0.0.3")
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 8080))
+                .build();
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        // RequestTracingFilter
+        blackhole.consume(UUID.randomUUID().toString().replace("-", ""));
+        blackhole.consume(UUID.randomUUID().toString().substring(0, 16));
+        blackhole.consume(legacyClientIp(request));
+        // RequestLoggingFilter
+        blackhole.consume(UUID.randomUUID().toString());
+        blackhole.consume(legacyClientIp(request));
+        // RateLimitFilter
+        blackhole.consume("ip:" + legacyClientIp(request));
+    }
+
+    @Benchmark
+    public void consolidated(Blackhole blackhole) {
+        blackhole.consume(TraceIdGenerator.traceId());
+        blackhole.consume(TraceIdGenerator.spanId());
+        String clientIp = ClientIdentity.resolveClientIp(request);
+        blackhole.consume(ClientIdentity.resolveClientId(request, clientIp));
+    }
+
+    private static String legacyClientIp(ServerHttpRequest request) {
+        String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+        return request.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestContextBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
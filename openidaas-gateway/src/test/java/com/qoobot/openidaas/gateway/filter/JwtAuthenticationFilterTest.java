@@ -1,6 +1,6 @@
 package com.qoobot.openidaas.gateway.filter;
 
-import com.qoobot.openidaas.common.util.JwtUtil;
+import com.qoobot.openidaas.gateway.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -14,11 +14,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -103,10 +101,7 @@ class JwtAuthenticationFilterTest {
     @Test
     void testFilter_ValidToken() {
         // 生成有效的JWT令牌
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", 1L);
-        claims.put("tenantId", 1L);
-        String token = jwtUtil.generateAccessToken(claims, "testuser");
+        String token = jwtUtil.generateToken("testuser", 1L, 1L);
         
         MockServerHttpRequest request = MockServerHttpRequest
                 .get("/api/users/profile")
@@ -126,13 +121,15 @@ class JwtAuthenticationFilterTest {
 
     @Test
     void testFilter_ExpiredToken() {
-        // 生成一个已过期的令牌（设置很短的过期时间）
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", 1L);
-        claims.put("tenantId", 1L);
-        String expiredToken = jwtUtil.generateAccessToken(claims, "testuser");
+        // 使用相同密钥、负过期时间生成一个已过期的令牌
+        JwtUtil expiredJwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(expiredJwtUtil, "secret", ReflectionTestUtils.getField(jwtUtil, "secret"));
+        ReflectionTestUtils.setField(expiredJwtUtil, "expiration", -60_000L);
+        ReflectionTestUtils.setField(expiredJwtUtil, "claimsCacheMaxSize", 10L);
+        ReflectionTestUtils.setField(expiredJwtUtil, "claimsCacheMaxTtlSeconds", 60L);
+        expiredJwtUtil.init();
+        String expiredToken = expiredJwtUtil.generateToken("testuser", 1L, 1L);
         
-        // 等待令牌过期（这里只是模拟，实际JWT过期需要等待）
         MockServerHttpRequest request = MockServerHttpRequest
                 .get("/api/users/profile")
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + expiredToken)
@@ -0,0 +1,121 @@
+package com.qoobot.openidaas.gateway.filter;
+
+import com.qoobot.openidaas.gateway.context.AccessLogWriter;
+import com.qoobot.openidaas.gateway.context.RequestContext;
+import com.qoobot.openidaas.gateway.context.TraceIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 请求上下文过滤器测试
+ *
+ * @author QooBot
+ */
+@ExtendWith(MockitoExtension.class)
+class RequestContextFilterTest {
+
+    @Mock
+    private AccessLogWriter accessLogWriter;
+
+    private RequestContextFilter filter;
+
+    private final AtomicReference<ServerWebExchange> downstream = new AtomicReference<>();
+
+    private final GatewayFilterChain chain = exchange -> {
+        downstream.set(exchange);
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        return Mono.empty();
+    };
+
+    @BeforeEach
+    void setUp() {
+        filter = new RequestContextFilter(accessLogWriter);
+    }
+
+    @Test
+    @DisplayName("一次性计算上下文并向下游传递追踪头")
+    void testContextComputedOnce() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/users")
+                .header("X-Forwarded-For", "10.0.0.1, 192.168.1.1")
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 8080))
+                .build();
+
+        filter.filter(MockServerWebExchange.from(request), chain).block();
+
+        RequestContext context = RequestContext.from(downstream.get());
+        assertNotNull(context);
+        assertEquals("10.0.0.1", context.getClientIp());
+        assertEquals("ip:10.0.0.1", context.getClientId());
+        assertEquals("root", context.getParentSpanId());
+        assertEquals(32, context.getTraceId().length());
+        assertEquals(16, context.getSpanId().length());
+
+        var headers = downstream.get().getRequest().getHeaders();
+        assertEquals(context.getTraceId(), headers.getFirst(RequestContextFilter.TRACE_ID_HEADER));
+        assertEquals(context.getSpanId(), headers.getFirst(RequestContextFilter.SPAN_ID_HEADER));
+
+        ArgumentCaptor<RequestContext> captor = ArgumentCaptor.forClass(RequestContext.class);
+        verify(accessLogWriter).record(captor.capture(), eq("GET"), eq("/api/users"), eq(200));
+        assertSame(context, captor.getValue());
+    }
+
+    @Test
+    @DisplayName("沿用上游追踪ID并记录父跨度")
+    void testExistingTraceIdPreserved() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/roles")
+                .header(RequestContextFilter.TRACE_ID_HEADER, "abc123")
+                .header(RequestContextFilter.SPAN_ID_HEADER, "parent01")
+                .header("X-API-Key", "key-1")
+                .build();
+
+        filter.filter(MockServerWebExchange.from(request), chain).block();
+
+        RequestContext context = RequestContext.from(downstream.get());
+        assertEquals("abc123", context.getTraceId());
+        assertEquals("parent01", context.getParentSpanId());
+        assertNotEquals("parent01", context.getSpanId());
+        assertEquals("api_key:key-1", context.getClientId());
+        assertEquals("parent01",
+                downstream.get().getRequest().getHeaders().getFirst(RequestContextFilter.PARENT_SPAN_ID_HEADER));
+    }
+
+    @Test
+    @DisplayName("追踪ID为小写十六进制且互不重复")
+    void testTraceIdFormat() {
+        String first = TraceIdGenerator.traceId();
+        assertTrue(first.matches("[0-9a-f]{32}"));
+        assertTrue(TraceIdGenerator.spanId().matches("[0-9a-f]{16}"));
+        assertNotEquals(first, TraceIdGenerator.traceId());
+    }
+
+    @Test
+    @DisplayName("访问日志对 5xx 和慢请求全量记录，其余按采样率")
+    void testAccessLogSampling() {
+        AccessLogWriter writer = new AccessLogWriter();
+        ReflectionTestUtils.setField(writer, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(writer, "slowThresholdMs", 1000L);
+
+        assertTrue((Boolean) ReflectionTestUtils.invokeMethod(writer, "shouldLog", 503, 10L));
+        assertTrue((Boolean) ReflectionTestUtils.invokeMethod(writer, "shouldLog", 200, 1500L));
+        assertFalse((Boolean) ReflectionTestUtils.invokeMethod(writer, "shouldLog", 200, 10L));
+    }
+}
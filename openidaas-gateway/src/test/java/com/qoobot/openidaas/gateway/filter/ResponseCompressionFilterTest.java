@@ -0,0 +1,162 @@
+package com.qoobot.openidaas.gateway.filter;
+
+import com.qoobot.openidaas.gateway.compression.ContentEncodings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 响应压缩过滤器测试
+ *
+ * @author QooBot
+ */
+class ResponseCompressionFilterTest {
+
+    private ResponseCompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ResponseCompressionFilter();
+        ReflectionTestUtils.setField(filter, "compressionLevel", 6);
+        ReflectionTestUtils.setField(filter, "deflaterPoolSize", 4);
+        filter.init();
+    }
+
+    @Test
+    @DisplayName("分块响应体被流式 gzip 压缩且可完整解压")
+    void testGzipStreamingCompression() throws IOException {
+        String chunk = "{\"id\":1,\"name\":\"openidaas\",\"roles\":[\"admin\",\"user\"]}";
+        int chunks = 200;
+        AtomicInteger emitted = new AtomicInteger();
+        MockServerWebExchange exchange = exchange("gzip, deflate");
+
+        GatewayFilterChain chain = ex -> {
+            ServerHttpResponse response = ex.getResponse();
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            Flux<DataBuffer> body = Flux.range(0, chunks)
+                    .doOnNext(i -> emitted.incrementAndGet())
+                    .map(i -> response.bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+            return response.writeWith(body);
+        };
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals("gzip", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, exchange.getResponse().getHeaders().getFirst(HttpHeaders.VARY));
+        assertEquals(chunks, emitted.get());
+
+        byte[] compressed = bodyBytes(exchange);
+        String decompressed = new String(
+                readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))), StandardCharsets.UTF_8);
+        assertEquals(chunk.repeat(chunks), decompressed);
+        assertTrue(compressed.length < chunk.length() * chunks / 4);
+    }
+
+    @Test
+    @DisplayName("客户端偏好 deflate 时输出 zlib 格式的 deflate 流")
+    void testDeflateNegotiation() throws IOException {
+        String text = "openidaas-".repeat(500);
+        MockServerWebExchange exchange = exchange("gzip;q=0.5, deflate");
+
+        filter.filter(exchange, writeBody(MediaType.TEXT_PLAIN, text, -1)).block();
+
+        assertEquals("deflate", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] compressed = bodyBytes(exchange);
+        assertEquals(0x78, compressed[0] & 0xff);
+        InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed), new Inflater());
+        assertEquals(text, new String(readAll(in), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("小于阈值的响应不压缩")
+    void testSmallResponseNotCompressed() {
+        String text = "{\"ok\":true}";
+        MockServerWebExchange exchange = exchange("gzip");
+
+        filter.filter(exchange, writeBody(MediaType.APPLICATION_JSON, text, text.length())).block();
+
+        assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(text, new String(bodyBytes(exchange), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("不可压缩的内容类型原样返回")
+    void testNonCompressibleContentType() {
+        String text = "x".repeat(4096);
+        MockServerWebExchange exchange = exchange("gzip");
+
+        filter.filter(exchange, writeBody(MediaType.IMAGE_PNG, text, -1)).block();
+
+        assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(4096, bodyBytes(exchange).length);
+    }
+
+    @Test
+    @DisplayName("Accept-Encoding 按 q 值协商")
+    void testNegotiate() {
+        assertEquals("gzip", ContentEncodings.negotiate("br, gzip, deflate"));
+        assertEquals("deflate", ContentEncodings.negotiate("gzip;q=0, deflate;q=0.3"));
+        assertEquals("gzip", ContentEncodings.negotiate("*"));
+        assertNull(ContentEncodings.negotiate("br"));
+        assertNull(ContentEncodings.negotiate("identity, *;q=0"));
+        assertNull(ContentEncodings.negotiate(null));
+    }
+
+    private MockServerWebExchange exchange(String acceptEncoding) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/users")
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+                .build());
+    }
+
+    private GatewayFilterChain writeBody(MediaType contentType, String text, long contentLength) {
+        return ex -> {
+            ServerHttpResponse response = ex.getResponse();
+            response.getHeaders().setContentType(contentType);
+            if (contentLength >= 0) {
+                response.getHeaders().setContentLength(contentLength);
+            }
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(text.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    private byte[] bodyBytes(MockServerWebExchange exchange) {
+        return DataBufferUtils.join(exchange.getResponse().getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .block();
+    }
+
+    private byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        in.transferTo(out);
+        return out.toByteArray();
+    }
+}
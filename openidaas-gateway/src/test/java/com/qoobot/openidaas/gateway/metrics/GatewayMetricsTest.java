@@ -0,0 +1,95 @@
+package com.qoobot.openidaas.gateway.metrics;
+
+import com.qoobot.openidaas.gateway.filter.GatewayMetricsFilter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 网关指标测试
+ *
+ * @author QooBot
+ */
+class GatewayMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private GatewayMetrics gatewayMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        gatewayMetrics = new GatewayMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("相同标签组合复用同一个 Timer")
+    void testTimerCached() {
+        Timer first = gatewayMetrics.requestTimer("user-service", "GET", 200);
+        Timer second = gatewayMetrics.requestTimer("user-service", "GET", 200);
+
+        assertSame(first, second);
+        assertEquals(1, gatewayMetrics.getRequestTimerCount());
+        assertEquals("SUCCESS", first.getId().getTag("outcome"));
+    }
+
+    @Test
+    @DisplayName("高基数流量下 Timer 数量有上限")
+    void testCardinalityBounded() {
+        ReflectionTestUtils.setField(gatewayMetrics, "maxTimers", 10);
+
+        for (int i = 0; i < 10_000; i++) {
+            gatewayMetrics.requestTimer("route-" + i, i % 2 == 0 ? "GET" : "PROPFIND" + i, 200);
+        }
+
+        assertTrue(gatewayMetrics.getRequestTimerCount() <= 12);
+        assertEquals(gatewayMetrics.getRequestTimerCount(),
+                registry.find("gateway.request.duration").timers().size());
+        assertNotNull(registry.find("gateway.request.duration").tag("route", GatewayMetrics.OVERFLOW_ROUTE).timer());
+    }
+
+    @Test
+    @DisplayName("过滤器按路由记录耗时和请求结果")
+    void testFilterRecordsOutcomes() {
+        GatewayMetricsFilter filter = new GatewayMetricsFilter(gatewayMetrics);
+        Route route = Route.async().id("user-service").uri(URI.create("http://localhost")).predicate(e -> true).build();
+
+        for (int userId = 0; userId < 100; userId++) {
+            MockServerWebExchange exchange = MockServerWebExchange.from(
+                    MockServerHttpRequest.get("/api/users/" + userId).build());
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+            HttpStatus status = userId % 10 == 0 ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.OK;
+            boolean authenticated = userId % 10 != 1;
+            GatewayFilterChain chain = e -> {
+                e.getAttributes().put(GatewayMetrics.AUTH_OUTCOME_ATTR, authenticated);
+                e.getResponse().setStatusCode(authenticated ? status : HttpStatus.UNAUTHORIZED);
+                return Mono.empty();
+            };
+            filter.filter(exchange, chain).block();
+        }
+
+        assertEquals(100, registry.get("gateway.requests.total").counter().count());
+        assertEquals(80, registry.get("gateway.requests.successful").counter().count());
+        assertEquals(20, registry.get("gateway.requests.failed").counter().count());
+        assertEquals(10, registry.get("gateway.requests.ratelimited").counter().count());
+        assertEquals(90, registry.get("gateway.auth.success").counter().count());
+        assertEquals(10, registry.get("gateway.auth.failed").counter().count());
+
+        // 路径中的用户ID不会成为标签，只产生 200/401/429 三个 Timer
+        assertEquals(3, registry.find("gateway.request.duration").tag("route", "user-service").timers().size());
+        assertEquals(80, registry.get("gateway.request.duration").tag("status", "200").timer().count());
+    }
+}
@@ -0,0 +1,197 @@
+package com.qoobot.openidaas.gateway.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 两级限流单元测试
+ *
+ * @author QooBot
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("两级限流测试")
+class LocalQuotaRateLimiterTest {
+
+    private static final String CLIENT = "user:1";
+
+    @Mock
+    private RedisRateLimitScripts rateLimitScripts;
+
+    @InjectMocks
+    private LocalQuotaRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(limiter, "requestsPerSecond", 10);
+        ReflectionTestUtils.setField(limiter, "burstCapacity", 100);
+        ReflectionTestUtils.setField(limiter, "leaseSize", 10);
+        ReflectionTestUtils.setField(limiter, "maxOverAdmission", 2);
+        ReflectionTestUtils.setField(limiter, "maxClients", 1000);
+        ReflectionTestUtils.setField(limiter, "idleReleaseTicks", 2);
+        ReflectionTestUtils.setField(limiter, "leaseTimeoutMs", 3000L);
+        limiter.init();
+    }
+
+    @Test
+    @DisplayName("租到令牌后本地判定，不再访问Redis")
+    void testTryAcquire_LocalDecisionAfterLease() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new QuotaLease(10, 90, 0L, 0L)));
+
+        // 首个请求使用透支额度放行，同时发起租约
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(CLIENT).block().isAllowed());
+        }
+
+        verify(rateLimitScripts, times(1)).leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong());
+        assertEquals(5, limiter.localTokens(CLIENT));
+    }
+
+    @Test
+    @DisplayName("全局配额耗尽时超额放行不超过透支上限")
+    void testTryAcquire_OverAdmissionBounded() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new QuotaLease(0, 0, 0L, 60_000L)));
+
+        long admitted = 0;
+        for (int i = 0; i < 50; i++) {
+            if (limiter.tryAcquire(CLIENT).block().isAllowed()) {
+                admitted++;
+            }
+        }
+
+        assertEquals(2, admitted);
+        assertEquals(-2, limiter.localTokens(CLIENT));
+    }
+
+    @Test
+    @DisplayName("被拒绝期间不访问Redis")
+    void testTryAcquire_DeniedWithoutRedisUntilRetry() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new QuotaLease(0, 0, 0L, 60_000L)));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(CLIENT).block();
+        }
+
+        verify(rateLimitScripts, times(1)).leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong());
+        RateLimitResult result = limiter.tryAcquire(CLIENT).block();
+        assertFalse(result.isAllowed());
+        assertTrue(result.getRetryAfterMillis() > 0);
+    }
+
+    @Test
+    @DisplayName("透支部分从下一次租约中扣回")
+    void testTryAcquire_DebtRepaidFromLease() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new QuotaLease(0, 0, 0L, 0L)))
+                .thenReturn(Mono.just(new QuotaLease(12, 0, 0L, 0L)));
+
+        assertTrue(limiter.tryAcquire(CLIENT).block().isAllowed());
+        assertTrue(limiter.tryAcquire(CLIENT).block().isAllowed());
+
+        // 第二次租约额外租回透支的2个令牌
+        verify(rateLimitScripts).leaseQuota(eq("rate_limit:quota:" + CLIENT), eq(10.0), eq(100L), eq(12L), eq(0L));
+        assertEquals(10, limiter.localTokens(CLIENT));
+    }
+
+    @Test
+    @DisplayName("空闲客户端归还剩余令牌")
+    void testReconcile_ReleasesIdleTokens() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new QuotaLease(10, 90, 0L, 0L)));
+        ReflectionTestUtils.setField(limiter, "idleReleaseTicks", 1);
+        limiter.tryAcquire(CLIENT).block();
+        assertEquals(9, limiter.localTokens(CLIENT));
+
+        limiter.reconcile();
+
+        verify(rateLimitScripts).leaseQuota(anyString(), anyDouble(), anyLong(), eq(0L), eq(9L));
+        assertEquals(0, limiter.localTokens(CLIENT));
+    }
+
+    @Test
+    @DisplayName("Redis异常时放行")
+    void testTryAcquire_FailOpenOnRedisError() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.error(new IllegalStateException("redis down")));
+        ReflectionTestUtils.setField(limiter, "maxOverAdmission", 0);
+
+        assertTrue(limiter.tryAcquire(CLIENT).block().isAllowed());
+    }
+
+    @Test
+    @DisplayName("空闲客户端透支的令牌从全局桶扣回")
+    void testReconcile_RepaysIdleOverdraft() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new QuotaLease(0, 0, 0L, 0L)));
+        ReflectionTestUtils.setField(limiter, "idleReleaseTicks", 1);
+        limiter.tryAcquire(CLIENT).block();
+        limiter.tryAcquire(CLIENT).block();
+        assertEquals(-2, limiter.localTokens(CLIENT));
+
+        limiter.reconcile();
+
+        verify(rateLimitScripts).leaseQuota(anyString(), anyDouble(), anyLong(), eq(2L), eq(0L));
+        assertEquals(0, limiter.localTokens(CLIENT));
+    }
+
+    @Test
+    @DisplayName("已关闭的本地桶不再扣减或入账")
+    void testLocalBucket_ClosedRejectsConsume() {
+        LocalQuotaRateLimiter.LocalBucket bucket = new LocalQuotaRateLimiter.LocalBucket();
+        assertTrue(bucket.credit(3));
+
+        assertEquals(3, bucket.close());
+
+        assertTrue(bucket.isClosed());
+        assertFalse(bucket.tryConsume(2));
+        assertFalse(bucket.credit(5));
+    }
+
+    @Test
+    @DisplayName("超时后到达的租约把令牌还给全局桶")
+    void testTryAcquire_LateLeaseReturned() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.delay(Duration.ofMillis(300)).map(x -> new QuotaLease(10, 90, 0L, 0L)))
+                .thenReturn(Mono.just(new QuotaLease(0, 100, 0L, 0L)));
+        ReflectionTestUtils.setField(limiter, "leaseTimeoutMs", 50L);
+        ReflectionTestUtils.setField(limiter, "maxOverAdmission", 0);
+
+        // 超时按获批放行，本地记入请求的令牌
+        assertTrue(limiter.tryAcquire(CLIENT).block().isAllowed());
+        assertEquals(9, limiter.localTokens(CLIENT));
+
+        // 迟到的租约不再入账，获批的令牌原数归还
+        verify(rateLimitScripts, timeout(2000)).leaseQuota(anyString(), anyDouble(), anyLong(), eq(0L), eq(10L));
+        assertEquals(9, limiter.localTokens(CLIENT));
+    }
+
+    @Test
+    @DisplayName("请求持有的桶被空闲归还后改用新桶")
+    void testTryAcquire_DetachedBucketNotCredited() {
+        when(rateLimitScripts.leaseQuota(anyString(), anyDouble(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(Mono.just(new QuotaLease(10, 90, 0L, 0L)));
+        ReflectionTestUtils.setField(limiter, "idleReleaseTicks", 1);
+        limiter.tryAcquire(CLIENT).block();
+        limiter.reconcile();
+
+        // 新请求创建新桶，旧桶的令牌已归还，不会被再次使用
+        assertTrue(limiter.tryAcquire(CLIENT).block().isAllowed());
+        assertEquals(9, limiter.localTokens(CLIENT));
+        verify(rateLimitScripts).leaseQuota(anyString(), anyDouble(), anyLong(), eq(0L), eq(9L));
+    }
+}
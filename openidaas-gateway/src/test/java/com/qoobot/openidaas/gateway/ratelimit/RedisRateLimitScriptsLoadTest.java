@@ -0,0 +1,139 @@
+package com.qoobot.openidaas.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 限流脚本负载测试
+ * 两个独立连接模拟两个网关实例，对同一客户端键并发发起请求，验证吞吐量与放行数量的准确性
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("限流脚本负载测试")
+class RedisRateLimitScriptsLoadTest {
+
+    private static final int TOTAL_REQUESTS = 5000;
+    private static final int CONCURRENCY = 64;
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory nodeAFactory;
+    private static LettuceConnectionFactory nodeBFactory;
+    private static RedisRateLimitScripts nodeA;
+    private static RedisRateLimitScripts nodeB;
+
+    @BeforeAll
+    static void setUp() {
+        nodeAFactory = connect();
+        nodeBFactory = connect();
+        nodeA = new RedisRateLimitScripts(new ReactiveStringRedisTemplate(nodeAFactory));
+        nodeB = new RedisRateLimitScripts(new ReactiveStringRedisTemplate(nodeBFactory));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        nodeAFactory.destroy();
+        nodeBFactory.destroy();
+    }
+
+    @Test
+    @DisplayName("固定窗口并发下精确放行")
+    void testFixedWindow_ExactUnderContention() {
+        String key = key();
+        long allowed = run("fixed-window", scripts -> scripts.fixedWindow(key, 60_000, 1000));
+        assertEquals(1000, allowed);
+    }
+
+    @Test
+    @DisplayName("滑动窗口并发下精确放行")
+    void testSlidingWindow_ExactUnderContention() {
+        String key = key();
+        long allowed = run("sliding-window", scripts -> scripts.slidingWindow(key, 60_000, 1000));
+        assertEquals(1000, allowed);
+    }
+
+    @Test
+    @DisplayName("令牌桶并发下不超发")
+    void testTokenBucket_NoOverAdmission() {
+        String key = key();
+        long start = System.currentTimeMillis();
+        long allowed = run("token-bucket", scripts -> scripts.tokenBucket(key, 10, 500));
+        long elapsedSeconds = (System.currentTimeMillis() - start) / 1000 + 1;
+        assertTrue(allowed >= 500, "allowed=" + allowed);
+        assertTrue(allowed <= 500 + elapsedSeconds * 10, "allowed=" + allowed);
+    }
+
+    @Test
+    @DisplayName("漏桶并发下不超发")
+    void testLeakyBucket_NoOverAdmission() {
+        String key = key();
+        long start = System.currentTimeMillis();
+        long allowed = run("leaky-bucket", scripts -> scripts.leakyBucket(key, 10, 500));
+        long elapsedSeconds = (System.currentTimeMillis() - start) / 1000 + 1;
+        assertTrue(allowed >= 500, "allowed=" + allowed);
+        assertTrue(allowed <= 500 + elapsedSeconds * 10, "allowed=" + allowed);
+    }
+
+    @Test
+    @DisplayName("拒绝结果携带重置时间与重试间隔")
+    void testRejectedResult_CarriesResetAndRetryAfter() {
+        String key = key();
+        nodeA.fixedWindow(key, 60_000, 1).block();
+        RateLimitResult rejected = nodeB.fixedWindow(key, 60_000, 1).block();
+
+        assertTrue(rejected != null && !rejected.isAllowed());
+        assertEquals(0, rejected.getRemaining());
+        assertTrue(rejected.getResetAtMillis() > System.currentTimeMillis() - 1000);
+        assertTrue(rejected.getRetryAfterMillis() > 0 && rejected.getRetryAfterMillis() <= 60_000);
+    }
+
+    /**
+     * 两个节点交替对同一键发起请求，返回放行数量
+     */
+    private long run(String name, Function<RedisRateLimitScripts, Mono<RateLimitResult>> call) {
+        long start = System.nanoTime();
+        Long allowed = Flux.range(0, TOTAL_REQUESTS)
+                .flatMap(i -> call.apply(i % 2 == 0 ? nodeA : nodeB), CONCURRENCY)
+                .filter(RateLimitResult::isAllowed)
+                .count()
+                .block();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("{}: {} requests, {} allowed, {} ops/s", name, TOTAL_REQUESTS, allowed,
+                String.format("%.0f", TOTAL_REQUESTS / seconds));
+        return allowed;
+    }
+
+    /**
+     * 每个用例使用独立键
+     */
+    private static String key() {
+        return "rate_limit:test:" + UUID.randomUUID();
+    }
+
+    private static LettuceConnectionFactory connect() {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        factory.afterPropertiesSet();
+        return factory;
+    }
+}
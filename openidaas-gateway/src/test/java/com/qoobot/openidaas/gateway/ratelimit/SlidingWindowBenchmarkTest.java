@@ -0,0 +1,159 @@
+package com.qoobot.openidaas.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 滑动窗口实现对比基准
+ * 在窗口内已有 100 / 1k / 10k 个请求时，比较原逗号拼接时间戳字符串、有序集合日志与双计数器近似
+ * 三种实现的单次判定耗时和 Redis 中的键大小
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("滑动窗口实现对比基准")
+class SlidingWindowBenchmarkTest {
+
+    private static final long WINDOW_MILLIS = 60_000;
+    private static final int MEASURED_DECISIONS = 200;
+    private static final RedisScript<Long> MEMORY_USAGE_SCRIPT =
+            RedisScript.of("return redis.call('MEMORY', 'USAGE', KEYS[1])", Long.class);
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate redisTemplate;
+    private static RedisRateLimitScripts scripts;
+
+    @BeforeAll
+    static void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+        scripts = new RedisRateLimitScripts(redisTemplate);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @ParameterizedTest(name = "窗口内已有 {0} 个请求")
+    @ValueSource(ints = {100, 1_000, 10_000})
+    @DisplayName("单次判定耗时与键大小")
+    void compareImplementations(int requestsInWindow) {
+        long limit = requestsInWindow + MEASURED_DECISIONS;
+
+        String legacyKey = "rate_limit:bench:legacy:" + UUID.randomUUID();
+        prefillLegacy(legacyKey, requestsInWindow);
+        double legacyMicros = measure(() -> legacySlidingWindow(legacyKey, limit));
+        long legacyBytes = memoryUsage(legacyKey);
+
+        String logKey = "rate_limit:bench:log:" + UUID.randomUUID();
+        for (int i = 0; i < requestsInWindow; i++) {
+            scripts.slidingWindow(logKey, WINDOW_MILLIS, limit).block();
+        }
+        double logMicros = measure(() -> scripts.slidingWindow(logKey, WINDOW_MILLIS, limit));
+        long logBytes = memoryUsage(logKey);
+
+        String counterKey = "rate_limit:bench:counter:" + UUID.randomUUID();
+        for (int i = 0; i < requestsInWindow; i++) {
+            scripts.slidingWindowCounter(counterKey, WINDOW_MILLIS, limit).block();
+        }
+        double counterMicros = measure(() -> scripts.slidingWindowCounter(counterKey, WINDOW_MILLIS, limit));
+        long counterBytes = memoryUsage(counterKey);
+
+        log.info("window={} | legacy string: {} us/op, {} bytes | zset log: {} us/op, {} bytes | counter: {} us/op, {} bytes",
+                requestsInWindow,
+                String.format("%.1f", legacyMicros), legacyBytes,
+                String.format("%.1f", logMicros), logBytes,
+                String.format("%.1f", counterMicros), counterBytes);
+
+        // 双计数器的存储大小与窗口内请求数无关
+        assertTrue(counterBytes < 200, "counter bytes=" + counterBytes);
+        assertTrue(counterBytes < legacyBytes);
+        assertEquals(requestsInWindow + MEASURED_DECISIONS,
+                redisTemplate.opsForZSet().size(logKey).block());
+    }
+
+    /**
+     * 顺序执行判定，返回平均耗时（微秒）
+     */
+    private double measure(Supplier<Mono<?>> decision) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_DECISIONS; i++) {
+            decision.get().block();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_DECISIONS;
+    }
+
+    private long memoryUsage(String key) {
+        return redisTemplate.execute(MEMORY_USAGE_SCRIPT, Collections.singletonList(key))
+                .next()
+                .blockOptional()
+                .orElse(0L);
+    }
+
+    private void prefillLegacy(String key, int requests) {
+        long now = Instant.now().getEpochSecond();
+        StringBuilder timestamps = new StringBuilder();
+        for (int i = 0; i < requests; i++) {
+            if (i > 0) {
+                timestamps.append(',');
+            }
+            timestamps.append(now);
+        }
+        redisTemplate.opsForValue().set(key, timestamps.toString(), Duration.ofHours(1)).block();
+    }
+
+    /**
+     * 原实现：GET 逗号拼接的时间戳字符串，逐个解析过滤后追加当前时间再 SET 回去
+     */
+    private Mono<Boolean> legacySlidingWindow(String key, long limit) {
+        long currentTime = Instant.now().getEpochSecond();
+        return redisTemplate.opsForValue().get(key)
+                .defaultIfEmpty("")
+                .flatMap(existing -> {
+                    String[] timestamps = existing.isEmpty() ? new String[0] : existing.split(",");
+                    StringBuilder kept = new StringBuilder();
+                    int valid = 0;
+                    long windowStart = currentTime - WINDOW_MILLIS / 1000;
+                    for (String timestamp : timestamps) {
+                        long reqTime = Long.parseLong(timestamp);
+                        if (reqTime >= windowStart) {
+                            kept.append(reqTime).append(',');
+                            valid++;
+                        }
+                    }
+                    if (valid >= limit) {
+                        return Mono.just(false);
+                    }
+                    kept.append(currentTime);
+                    return redisTemplate.opsForValue().set(key, kept.toString(), Duration.ofHours(1));
+                });
+    }
+}
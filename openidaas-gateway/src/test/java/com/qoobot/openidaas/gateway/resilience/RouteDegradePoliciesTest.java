@@ -0,0 +1,90 @@
+package com.qoobot.openidaas.gateway.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 路由熔断策略测试
+ *
+ * @author QooBot
+ */
+class RouteDegradePoliciesTest {
+
+    private static final List<String> CONFIG_FILES = List.of(
+            "application.yml", "application-dev.yml", "application-prod.yml", "application-test.yml");
+
+    @Test
+    @DisplayName("各环境中挂载弹性过滤器的路由都有以路由ID命名的熔断规则")
+    void testEveryResilientRouteHasPolicy() {
+        for (String file : CONFIG_FILES) {
+            List<RouteDefinition> routes = loadRoutes(file);
+            List<String> resilientIds = routes.stream()
+                    .filter(route -> route.getFilters().stream()
+                            .anyMatch(filter -> RouteDegradePolicies.RESILIENCE_FILTER.equals(filter.getName())))
+                    .map(RouteDefinition::getId)
+                    .toList();
+            assertFalse(resilientIds.isEmpty(), file);
+
+            List<String> policyIds = RouteDegradePolicies.forRoutes(routes).stream()
+                    .map(RouteDegradePolicies.RoutePolicy::getRouteId)
+                    .toList();
+            assertEquals(resilientIds, policyIds, file);
+        }
+    }
+
+    @Test
+    @DisplayName("版本路由按后端服务选取熔断阈值")
+    void testPolicyFollowsBackendService() {
+        Map<String, RouteDegradePolicies.Policy> policies = RouteDegradePolicies.forRoutes(
+                        loadRoutes("application-prod.yml")).stream()
+                .collect(Collectors.toMap(RouteDegradePolicies.RoutePolicy::getRouteId,
+                        RouteDegradePolicies.RoutePolicy::getPolicy));
+
+        RouteDegradePolicies.Policy authV1 = policies.get("auth-service-v1");
+        assertSame(authV1, policies.get("auth-service-v2"));
+        assertEquals(60, authV1.getTimeWindowSeconds());
+
+        RouteDegradePolicies.Policy userV1 = policies.get("user-service-v1");
+        assertSame(userV1, policies.get("user-service-v2"));
+        assertEquals(RouteDegradePolicies.Grade.SLOW_REQUEST_RATIO, userV1.getGrade());
+        assertEquals(200, userV1.getSlowCallMillis());
+
+        assertEquals(RouteDegradePolicies.Grade.EXCEPTION_RATIO, policies.get("role-service-v1").getGrade());
+        assertEquals(30, policies.get("role-service-v1").getTimeWindowSeconds());
+    }
+
+    @Test
+    @DisplayName("没有弹性过滤器的路由不生成熔断规则")
+    void testRouteWithoutResilienceFilterSkipped() {
+        Map<String, RouteDefinition> routes = loadRoutes("application-dev.yml").stream()
+                .collect(Collectors.toMap(RouteDefinition::getId, Function.identity()));
+        RouteDefinition legacy = routes.get("legacy-users-redirect");
+        assertNotNull(legacy);
+
+        assertTrue(RouteDegradePolicies.forRoutes(List.of(legacy)).isEmpty());
+    }
+
+    private List<RouteDefinition> loadRoutes(String file) {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource(file));
+        Properties properties = yaml.getObject();
+        assertNotNull(properties, file);
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bind("spring.cloud.gateway.routes", Bindable.listOf(RouteDefinition.class))
+                .orElse(List.of());
+    }
+}
@@ -0,0 +1,181 @@
+package com.qoobot.openidaas.gateway.resilience;
+
+import com.qoobot.openidaas.gateway.filter.RouteResilienceFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 路由弹性过滤器测试
+ *
+ * @author QooBot
+ */
+class RouteResilienceFilterTest {
+
+    private static final Route ROUTE = Route.async()
+            .id("user-service")
+            .uri(URI.create("http://localhost"))
+            .predicate(exchange -> true)
+            .build();
+
+    private RouteCircuitBreakers circuitBreakers;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakers = new RouteCircuitBreakers();
+        RouteResilienceFilter factory = new RouteResilienceFilter(circuitBreakers);
+        ReflectionTestUtils.setField(factory, "minRetriesPerSecond", 1);
+        filter = factory.apply(new RouteResilienceFilter.Config());
+    }
+
+    @Test
+    @DisplayName("非幂等请求失败时不重放")
+    void testPostNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        MockServerWebExchange exchange = exchange(HttpMethod.POST);
+
+        filter.filter(exchange, respond(calls, HttpStatus.SERVICE_UNAVAILABLE)).block();
+
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("幂等请求遇到 503 时重试并返回成功结果")
+    void testGetRetriedOnServiceUnavailable() {
+        AtomicInteger calls = new AtomicInteger();
+        GatewayFilterChain chain = ex -> {
+            HttpStatus status = calls.incrementAndGet() == 1 ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK;
+            ex.getResponse().setStatusCode(status);
+            ex.getResponse().getHeaders().set("X-Attempt", String.valueOf(calls.get()));
+            return Mono.empty();
+        };
+        MockServerWebExchange exchange = exchange(HttpMethod.GET);
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(2, calls.get());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals("2", exchange.getResponse().getHeaders().getFirst("X-Attempt"));
+    }
+
+    @Test
+    @DisplayName("重试预算耗尽后不再重试")
+    void testRetryBudgetLimitsRetries() {
+        AtomicInteger calls = new AtomicInteger();
+        int requests = 50;
+        for (int i = 0; i < requests; i++) {
+            filter.filter(exchange(HttpMethod.GET), respond(calls, HttpStatus.SERVICE_UNAVAILABLE)).block();
+        }
+
+        // 预算为 10% 请求量与每秒 1 次保底（窗口 10 秒）中的较大者
+        int retries = calls.get() - requests;
+        assertTrue(retries <= 10, "retries=" + retries);
+        assertTrue(retries > 0);
+    }
+
+    @Test
+    @DisplayName("熔断器未关闭时暂停重试")
+    void testCircuitBreakerSuspendsRetries() {
+        circuitBreakers.onStateChange("user-service", false);
+        AtomicInteger calls = new AtomicInteger();
+
+        filter.filter(exchange(HttpMethod.GET), respond(calls, HttpStatus.BAD_GATEWAY)).block();
+        assertEquals(1, calls.get());
+
+        circuitBreakers.onStateChange("user-service", true);
+        filter.filter(exchange(HttpMethod.GET), respond(calls, HttpStatus.BAD_GATEWAY)).block();
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    @DisplayName("主请求超过 p95 未返回时对冲请求胜出")
+    void testHedgedRequestWins() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 60; i++) {
+            filter.filter(exchange(HttpMethod.GET), respond(calls, HttpStatus.OK)).block();
+        }
+
+        AtomicInteger hedgeCalls = new AtomicInteger();
+        Connection slowConnection = mock(Connection.class);
+        Connection fastConnection = mock(Connection.class);
+        GatewayFilterChain chain = ex -> {
+            int attempt = hedgeCalls.incrementAndGet();
+            ex.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR,
+                    attempt == 1 ? slowConnection : fastConnection);
+            ex.getResponse().setStatusCode(HttpStatus.OK);
+            ex.getResponse().getHeaders().set("X-Attempt", String.valueOf(attempt));
+            Duration latency = attempt == 1 ? Duration.ofSeconds(5) : Duration.ofMillis(5);
+            return Mono.delay(latency).then();
+        };
+        MockServerWebExchange exchange = exchange(HttpMethod.GET);
+
+        long start = System.nanoTime();
+        filter.filter(exchange, chain).block(Duration.ofSeconds(3));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, hedgeCalls.get());
+        assertEquals("2", exchange.getResponse().getHeaders().getFirst("X-Attempt"));
+        assertTrue(elapsedMillis < 1000, "elapsed=" + elapsedMillis);
+        // 胜出尝试的连接交给外层写出响应体，落败尝试的连接被关闭
+        assertSame(fastConnection, exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR));
+        verify(fastConnection, never()).dispose();
+        verify(slowConnection, timeout(1000)).dispose();
+    }
+
+    @Test
+    @DisplayName("重试预算随窗口滚动恢复")
+    void testRetryBudgetWindow() {
+        long[] now = {0};
+        RetryBudget budget = new RetryBudget(0.1, 0, () -> now[0]);
+        for (int i = 0; i < 100; i++) {
+            budget.recordRequest();
+        }
+        int granted = 0;
+        while (budget.tryAcquire()) {
+            granted++;
+        }
+        assertEquals(10, granted);
+
+        now[0] = 11_000;
+        assertFalse(budget.tryAcquire());
+        for (int i = 0; i < 10; i++) {
+            budget.recordRequest();
+        }
+        assertTrue(budget.tryAcquire());
+    }
+
+    private MockServerWebExchange exchange(HttpMethod method) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.method(method, "/api/users/1").build());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+
+    private GatewayFilterChain respond(AtomicInteger calls, HttpStatus status) {
+        return ex -> {
+            calls.incrementAndGet();
+            ex.getResponse().setStatusCode(status);
+            return Mono.empty();
+        };
+    }
+}
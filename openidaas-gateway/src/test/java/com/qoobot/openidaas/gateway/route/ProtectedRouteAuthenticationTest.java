@@ -0,0 +1,128 @@
+package com.qoobot.openidaas.gateway.route;
+
+import com.qoobot.openidaas.gateway.filter.JwtAuthenticationFilter;
+import com.qoobot.openidaas.gateway.metrics.GatewayMetrics;
+import com.qoobot.openidaas.gateway.util.JwtUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.AntPathMatcher;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 受保护路由认证配置测试
+ *
+ * @author QooBot
+ */
+class ProtectedRouteAuthenticationTest {
+
+    private static final List<String> CONFIG_FILES = List.of(
+            "application.yml", "application-dev.yml", "application-prod.yml", "application-test.yml");
+
+    private static final List<String> PROTECTED_SERVICES = List.of(
+            "users", "organizations", "roles", "applications", "audit", "authorization");
+
+    private static final String AUTH_FILTER = "JwtAuthenticationFilter";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Test
+    @DisplayName("各环境的受保护业务路由都挂载了 JWT 认证过滤器")
+    void testProtectedRoutesRequireAuthentication() {
+        for (String file : CONFIG_FILES) {
+            List<RouteDefinition> routes = loadRoutes(file);
+            assertFalse(routes.isEmpty(), file);
+
+            for (RouteDefinition route : routes) {
+                if (!isProtected(route)) {
+                    continue;
+                }
+                Optional<FilterDefinition> authFilter = authFilter(route);
+                assertTrue(authFilter.isPresent(), file + " " + route.getId());
+                assertEquals("true", authFilter.get().getArgs().get("requireAuth"), file + " " + route.getId());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("认证服务与管理界面路由不要求认证")
+    void testPublicRoutesSkipAuthentication() {
+        for (RouteDefinition route : loadRoutes("application.yml")) {
+            if (route.getId().startsWith("auth-service") || route.getId().startsWith("admin-ui")) {
+                assertTrue(authFilter(route).isEmpty(), route.getId());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("未携带令牌访问 /api/users/** 返回 401")
+    void testUnauthenticatedUserRequestRejected() {
+        RouteDefinition userRoute = loadRoutes("application.yml").stream()
+                .filter(route -> paths(route).stream().anyMatch(path -> pathMatcher.match(path, "/api/users/1")))
+                .findFirst()
+                .orElseThrow();
+        FilterDefinition definition = authFilter(userRoute).orElseThrow();
+
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        JwtAuthenticationFilter factory = new JwtAuthenticationFilter(jwtUtil);
+        JwtAuthenticationFilter.Config config = factory.newConfig();
+        config.setRequireAuth(Boolean.parseBoolean(definition.getArgs().get("requireAuth")));
+
+        GatewayFilterChain chain = mock(GatewayFilterChain.class);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1").build());
+
+        factory.apply(config).filter(exchange, chain).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertEquals(Boolean.FALSE, exchange.getAttribute(GatewayMetrics.AUTH_OUTCOME_ATTR));
+        verify(chain, never()).filter(any());
+        verifyNoInteractions(jwtUtil);
+    }
+
+    private boolean isProtected(RouteDefinition route) {
+        return paths(route).stream().anyMatch(path -> PROTECTED_SERVICES.stream()
+                .anyMatch(service -> path.matches("/api/(v\\d+/)?" + service + "/\\*\\*")));
+    }
+
+    private Optional<FilterDefinition> authFilter(RouteDefinition route) {
+        return route.getFilters().stream()
+                .filter(filter -> AUTH_FILTER.equals(filter.getName()))
+                .findFirst();
+    }
+
+    private List<String> paths(RouteDefinition route) {
+        return route.getPredicates().stream()
+                .filter(predicate -> "Path".equals(predicate.getName()))
+                .map(PredicateDefinition::getArgs)
+                .flatMap(args -> args.values().stream())
+                .toList();
+    }
+
+    private List<RouteDefinition> loadRoutes(String file) {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource(file));
+        Properties properties = yaml.getObject();
+        assertNotNull(properties, file);
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bind("spring.cloud.gateway.routes", Bindable.listOf(RouteDefinition.class))
+                .orElse(List.of());
+    }
+}
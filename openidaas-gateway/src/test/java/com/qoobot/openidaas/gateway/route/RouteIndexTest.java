@@ -0,0 +1,144 @@
+package com.qoobot.openidaas.gateway.route;
+
+import com.qoobot.openidaas.gateway.metrics.GatewayMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 路由路径索引测试
+ *
+ * @author QooBot
+ */
+class RouteIndexTest {
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<String, RouteDefinition> definitions = new HashMap<>();
+
+    @Test
+    @DisplayName("按路径前缀筛选候选路由并保持路由顺序")
+    void testCandidatesFollowPathPrefix() {
+        route("admin-ui-static", "/admin/static/**");
+        route("user-service", "/api/users/**");
+        route("user-detail", "/api/users/{id}");
+        route("admin-ui-index", "/admin/**");
+        unindexedRoute("host-route");
+
+        RouteIndex index = RouteIndex.build(routes, definitions);
+
+        assertEquals(List.of("user-service", "user-detail", "host-route"), ids(index, "/api/users/1"));
+        assertEquals(List.of("admin-ui-static", "admin-ui-index", "host-route"), ids(index, "/admin/static/app.js"));
+        assertEquals(List.of("admin-ui-index", "host-route"), ids(index, "/admin/login"));
+        assertEquals(List.of("host-route"), ids(index, "/unknown"));
+        assertEquals(4, index.indexedCount());
+    }
+
+    @Test
+    @DisplayName("索引匹配结果与逐个断言匹配一致")
+    void testIndexedLookupMatchesLinearScan() {
+        route("auth-service", "/api/auth/**");
+        route("user-service", "/api/users/**", "/api/v1/users/**");
+        route("tenant-route", "/api/tenants/{tenant}/apps/**");
+        route("wildcard-route", "/api/*/health");
+        route("root-route", "/**");
+        RouteIndex index = RouteIndex.build(routes, definitions);
+
+        for (String path : List.of("/api/auth/login", "/api/users", "/api/v1/users/7", "/api/tenants/acme/apps/1",
+                "/api/audit/health", "/api/unknown", "/", "/api/users/")) {
+            MockServerWebExchange exchange = exchange(path);
+            Route expected = Flux.fromIterable(routes)
+                    .filterWhen(route -> route.getPredicate().apply(exchange))
+                    .blockFirst();
+            Route actual = Flux.fromIterable(index.candidates(PathContainer.parsePath(path)))
+                    .filterWhen(route -> route.getPredicate().apply(exchange))
+                    .blockFirst();
+            assertSame(expected, actual, path);
+        }
+    }
+
+    @Test
+    @DisplayName("路由刷新后重建索引并记录匹配开销")
+    void testHandlerMappingUsesRebuiltIndex() {
+        route("user-service", "/api/users/**");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IndexedRoutePredicateHandlerMapping mapping = new IndexedRoutePredicateHandlerMapping(
+                mock(FilteringWebHandler.class), mock(RouteLocator.class), mock(RouteDefinitionLocator.class),
+                new GlobalCorsProperties(), new MockEnvironment(), new GatewayMetrics(registry));
+        mapping.rebuild(routes, definitions);
+
+        assertEquals("user-service", mapping.lookupRoute(exchange("/api/users/1")).block().getId());
+        assertNull(mapping.lookupRoute(exchange("/api/roles/1")).block());
+
+        // 热更新：新增路由后重建索引即可生效
+        route("role-service", "/api/roles/**");
+        mapping.rebuild(routes, definitions);
+        assertEquals("role-service", mapping.lookupRoute(exchange("/api/roles/1")).block().getId());
+
+        assertEquals(1, registry.get("gateway.route.lookup").tag("route", "user-service").timer().count());
+        assertEquals(1, registry.get("gateway.route.lookup").tag("route", GatewayMetrics.UNMATCHED_ROUTE).timer().count());
+        // 每次查找只执行候选路由的断言
+        assertEquals(3, registry.get("gateway.route.lookup.predicates").summary().count());
+        assertEquals(2, registry.get("gateway.route.lookup.predicates").summary().totalAmount());
+    }
+
+    private void route(String id, String... patterns) {
+        List<PathPattern> parsed = new ArrayList<>();
+        for (String pattern : patterns) {
+            parsed.add(PathPatternParser.defaultInstance.parse(pattern));
+        }
+        routes.add(Route.async()
+                .id(id)
+                .uri(URI.create("http://localhost"))
+                .predicate(exchange -> parsed.stream().anyMatch(
+                        pattern -> pattern.matches(exchange.getRequest().getPath().pathWithinApplication())))
+                .build());
+
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setPredicates(List.of(new PredicateDefinition("Path=" + String.join(",", patterns))));
+        definitions.put(id, definition);
+    }
+
+    private void unindexedRoute(String id) {
+        routes.add(Route.async()
+                .id(id)
+                .uri(URI.create("http://localhost"))
+                .predicate(exchange -> "tenant.example.com".equals(exchange.getRequest().getHeaders().getFirst("Host")))
+                .build());
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setPredicates(List.of(new PredicateDefinition("Host=tenant.example.com")));
+        definitions.put(id, definition);
+    }
+
+    private List<String> ids(RouteIndex index, String path) {
+        return index.candidates(PathContainer.parsePath(path)).stream().map(Route::getId).toList();
+    }
+
+    private MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).build());
+    }
+}
@@ -1,11 +1,15 @@
 package com.qoobot.openidaas.gateway.util;
 
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -143,4 +147,24 @@ class JwtUtilTest {
         assertEquals(jwtUtil.getUserIdFromToken(token1), jwtUtil.getUserIdFromToken(token2));
         assertEquals(jwtUtil.getTenantIdFromToken(token1), jwtUtil.getTenantIdFromToken(token2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetVerifiedClaims_CachedUntilExpiry() {
+        Claims first = jwtUtil.getVerifiedClaims(validToken);
+        Claims second = jwtUtil.getVerifiedClaims(validToken);
+        assertNotNull(first);
+        assertSame(first, second); // 第二次命中缓存，不再解析
+        assertEquals(username, first.getSubject());
+        assertEquals(userId, first.get("userId", Long.class));
+    }
+
+    @Test
+    void testGetVerifiedClaims_TamperedPayloadRejected() {
+        jwtUtil.getVerifiedClaims(validToken);
+        String[] parts = validToken.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"userId\":2}".getBytes(StandardCharsets.UTF_8));
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+        assertNull(jwtUtil.getVerifiedClaims(forged));
+    }
+}
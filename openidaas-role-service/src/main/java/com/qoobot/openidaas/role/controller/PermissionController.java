@@ -14,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 权限管理Controller
@@ -113,6 +114,16 @@ public class PermissionController {
         return ResultVO.success(hasPermission);
     }
 
+    /**
+     * 批量解析用户的有效权限编码
+     */
+    @PostMapping("/users/codes")
+    @Operation(summary = "批量获取用户权限编码", description = "一次请求解析多个用户经由角色获得的有效权限编码")
+    public ResultVO<Map<Long, List<String>>> getUsersPermissionCodes(@RequestBody List<Long> userIds) {
+        Map<Long, List<String>> permissionCodes = permissionService.getUsersPermissionCodes(userIds);
+        return ResultVO.success(permissionCodes);
+    }
+
     /**
      * 获取用户的菜单树
      */
@@ -14,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 角色管理Controller
@@ -160,4 +161,24 @@ public class RoleController {
         List<RoleVO> roles = roleService.getUserRoles(userId);
         return ResultVO.success(roles);
     }
+
+    /**
+     * 获取用户的有效角色列表
+     */
+    @GetMapping("/users/{userId}/effective-roles")
+    @Operation(summary = "获取用户的有效角色列表", description = "获取用户直接拥有的角色及其继承的祖先角色")
+    public ResultVO<List<RoleVO>> getUserEffectiveRoles(@Parameter(description = "用户ID") @PathVariable Long userId) {
+        List<RoleVO> roles = roleService.getUserEffectiveRoles(userId);
+        return ResultVO.success(roles);
+    }
+
+    /**
+     * 批量获取用户的有效角色列表
+     */
+    @PostMapping("/users/effective-roles")
+    @Operation(summary = "批量获取用户的有效角色列表", description = "一次请求获取多个用户直接拥有的角色及其继承的祖先角色")
+    public ResultVO<Map<Long, List<RoleVO>>> getUsersEffectiveRoles(@RequestBody List<Long> userIds) {
+        Map<Long, List<RoleVO>> roles = roleService.getUsersEffectiveRoles(userIds);
+        return ResultVO.success(roles);
+    }
 }
@@ -0,0 +1,22 @@
+package com.qoobot.openidaas.role.entity;
+
+import lombok.Data;
+
+/**
+ * 角色有效权限编码（联表查询结果）
+ *
+ * @author QooBot
+ */
+@Data
+public class RolePermissionCode {
+
+    /**
+     * 角色ID
+     */
+    private Long roleId;
+
+    /**
+     * 权限编码
+     */
+    private String permCode;
+}
@@ -0,0 +1,158 @@
+package com.qoobot.openidaas.role.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 权限位图索引
+ * 权限编码被映射为连续的整数ID，每个角色编译为权限ID位图，用户的有效权限为其有效角色
+ * （直接分配的角色及其祖先，见 {@link RoleHierarchy}）位图的并集；
+ * 权限判断由字符串列表扫描变为按字（64位）进行的位运算
+ *
+ * 已发布的位图不再修改，角色重新编译时整体替换并递增版本号，持有旧位图的调用方据此判断是否需要重新合并
+ *
+ * @author QooBot
+ */
+public final class PermissionBitmapIndex {
+
+    private final Map<String, Integer> codeIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> idCodes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Map<Long, BitSet> roleBits = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile RoleHierarchy hierarchy = RoleHierarchy.empty();
+
+    /**
+     * 获取权限编码对应的整数ID，不存在时分配新ID
+     */
+    public int intern(String permCode) {
+        return codeIds.computeIfAbsent(permCode, code -> {
+            int id = nextId.getAndIncrement();
+            idCodes.put(id, code);
+            return id;
+        });
+    }
+
+    /**
+     * 编译（或重新编译）角色的权限位图
+     */
+    public void compileRole(Long roleId, Collection<String> permCodes) {
+        BitSet bits = new BitSet();
+        for (String permCode : permCodes) {
+            bits.set(intern(permCode));
+        }
+        roleBits.put(roleId, bits);
+        generation.incrementAndGet();
+    }
+
+    /**
+     * 移除角色位图
+     */
+    public void removeRole(Long roleId) {
+        if (roleBits.remove(roleId) != null) {
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * 替换角色继承关系
+     */
+    public void setHierarchy(RoleHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        generation.incrementAndGet();
+    }
+
+    public RoleHierarchy hierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * 当前版本号，任一角色位图或继承关系变化时递增
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 按继承关系展开直接分配的角色并合并位图，得到用户的有效权限位图；未编译的角色视为没有权限
+     */
+    public BitSet union(long[] roleIds) {
+        BitSet result = new BitSet(nextId.get());
+        for (long roleId : hierarchy.expand(roleIds)) {
+            BitSet bits = roleBits.get(roleId);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将权限编码集合编译为查询位图，未知编码被忽略
+     */
+    public BitSet compile(Collection<String> permCodes) {
+        BitSet bits = new BitSet(nextId.get());
+        for (String permCode : permCodes) {
+            Integer id = permCode == null ? null : codeIds.get(permCode);
+            if (id != null) {
+                bits.set(id);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 将位图还原为权限编码，按编码排序
+     */
+    public List<String> decode(BitSet bits) {
+        List<String> codes = new ArrayList<>(bits.cardinality());
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            codes.add(idCodes.get(id));
+        }
+        codes.sort(null);
+        return codes;
+    }
+
+    public boolean contains(BitSet userBits, String permCode) {
+        Integer id = permCode == null ? null : codeIds.get(permCode);
+        return id != null && userBits.get(id);
+    }
+
+    public boolean containsAny(BitSet userBits, Collection<String> permCodes) {
+        return userBits.intersects(compile(permCodes));
+    }
+
+    public boolean containsAll(BitSet userBits, Collection<String> permCodes) {
+        BitSet required = new BitSet(nextId.get());
+        for (String permCode : permCodes) {
+            Integer id = permCode == null ? null : codeIds.get(permCode);
+            if (id == null) {
+                // 没有任何角色拥有的编码，必然不满足
+                return false;
+            }
+            required.set(id);
+        }
+        required.andNot(userBits);
+        return required.isEmpty();
+    }
+
+    /**
+     * 已分配ID的权限编码数量
+     */
+    public int codeCount() {
+        return codeIds.size();
+    }
+
+    /**
+     * 已编译的角色数量
+     */
+    public int roleCount() {
+        return roleBits.size();
+    }
+}
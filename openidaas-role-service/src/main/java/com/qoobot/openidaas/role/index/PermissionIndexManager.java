@@ -0,0 +1,339 @@
+package com.qoobot.openidaas.role.index;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.qoobot.openidaas.role.entity.Role;
+import com.qoobot.openidaas.role.entity.RolePermissionCode;
+import com.qoobot.openidaas.role.entity.UserRole;
+import com.qoobot.openidaas.role.mapper.PermissionMapper;
+import com.qoobot.openidaas.role.mapper.RoleMapper;
+import com.qoobot.openidaas.role.mapper.UserRoleMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 权限位图索引管理
+ * 首次使用时以两次查询（全部角色、全部角色权限）构建索引与角色继承关系；角色权限变更时只重新编译该角色，
+ * 角色增删改时重建继承关系，权限定义变更时整体重建；其他实例的变更依赖定期重建同步
+ * 用户的角色列表按用户缓存，角色位图或继承关系变化后在下次访问时重新合并，无需再次查询数据库；
+ * 缓存过期时间从角色列表加载时算起，重新合并不会延长，保证用户角色在有效期内一定会重新加载
+ *
+ * 所有变更均在事务提交后生效，避免回滚导致索引与数据库不一致
+ *
+ * @author QooBot
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionIndexManager {
+
+    private final PermissionMapper permissionMapper;
+    private final RoleMapper roleMapper;
+    private final UserRoleMapper userRoleMapper;
+
+    @Value("${role.permission-index.user-cache-size:100000}")
+    private long userCacheSize = 100_000;
+
+    @Value("${role.permission-index.user-expire-seconds:300}")
+    private long userExpireSeconds = 300;
+
+    @Value("${role.permission-index.rebuild-seconds:600}")
+    private long rebuildSeconds = 600;
+
+    private volatile PermissionBitmapIndex index;
+    private volatile long builtAt;
+    private Ticker ticker = Ticker.systemTicker();
+    private Cache<Long, UserPermissions> users;
+
+    @PostConstruct
+    public void init() {
+        long expireNanos = Duration.ofSeconds(userExpireSeconds).toNanos();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(userCacheSize)
+                .ticker(ticker)
+                .expireAfter(new Expiry<Long, UserPermissions>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, UserPermissions user, long currentTime) {
+                        return Math.max(0, expireNanos - (currentTime - user.loadedAt));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, UserPermissions user, long currentTime,
+                                                  long currentDuration) {
+                        // 重新合并沿用原加载时间，不重置过期时间
+                        return Math.max(0, expireNanos - (currentTime - user.loadedAt));
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, UserPermissions user, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public boolean hasPermission(Long userId, String permCode) {
+        UserPermissions user = resolve(userId);
+        return user.index.contains(user.bits, permCode);
+    }
+
+    public boolean hasAnyPermission(Long userId, Collection<String> permCodes) {
+        UserPermissions user = resolve(userId);
+        return user.index.containsAny(user.bits, permCodes);
+    }
+
+    public boolean hasAllPermissions(Long userId, Collection<String> permCodes) {
+        UserPermissions user = resolve(userId);
+        return user.index.containsAll(user.bits, permCodes);
+    }
+
+    /**
+     * 用户的有效角色：直接分配的角色及其继承的祖先角色
+     */
+    public List<Role> effectiveRoles(Long userId) {
+        UserPermissions user = resolve(userId);
+        return user.index.hierarchy().effectiveRoles(user.roleIds);
+    }
+
+    /**
+     * 批量解析用户的有效权限编码（含继承），缓存未命中的用户以一次查询加载角色
+     */
+    public Map<Long, List<String>> permissionCodes(Collection<Long> userIds) {
+        Map<Long, List<String>> result = new LinkedHashMap<>(userIds.size() * 2);
+        resolveAll(userIds).forEach((userId, user) -> result.put(userId, user.index.decode(user.bits)));
+        return result;
+    }
+
+    /**
+     * 批量解析用户的有效角色（含继承的祖先角色），缓存未命中的用户以一次查询加载角色
+     */
+    public Map<Long, List<Role>> effectiveRoles(Collection<Long> userIds) {
+        Map<Long, List<Role>> result = new LinkedHashMap<>(userIds.size() * 2);
+        resolveAll(userIds).forEach((userId, user) ->
+                result.put(userId, user.index.hierarchy().effectiveRoles(user.roleIds)));
+        return result;
+    }
+
+    /**
+     * 当前角色继承关系
+     */
+    public RoleHierarchy hierarchy() {
+        return index().hierarchy();
+    }
+
+    /**
+     * 角色新增、修改、删除或启停后重建继承关系
+     */
+    public void refreshHierarchy() {
+        afterCommit(() -> {
+            RoleHierarchy hierarchy = loadHierarchy();
+            index().setHierarchy(hierarchy);
+            log.debug("重建角色继承关系，角色数：{}", hierarchy.size());
+        });
+    }
+
+    /**
+     * 角色权限或启用状态变更后重新编译该角色
+     */
+    public void refreshRole(Long roleId) {
+        afterCommit(() -> {
+            PermissionBitmapIndex current = index();
+            current.compileRole(roleId, permissionMapper.selectPermissionCodesByRoleId(roleId));
+            log.debug("重新编译角色权限位图，roleId: {}", roleId);
+        });
+    }
+
+    /**
+     * 角色删除后移除其位图
+     */
+    public void removeRole(Long roleId) {
+        afterCommit(() -> {
+            PermissionBitmapIndex current = index;
+            if (current != null) {
+                current.removeRole(roleId);
+            }
+        });
+    }
+
+    /**
+     * 用户角色变更后失效该用户
+     */
+    public void evictUser(Long userId) {
+        afterCommit(() -> users.invalidate(userId));
+    }
+
+    /**
+     * 权限定义变更后丢弃索引，下次访问时重建
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            index = null;
+            users.invalidateAll();
+            log.debug("权限位图索引已失效");
+        });
+    }
+
+    PermissionBitmapIndex index() {
+        PermissionBitmapIndex current = index;
+        if (current == null || isStale()) {
+            synchronized (this) {
+                current = index;
+                if (current == null || isStale()) {
+                    current = build();
+                    builtAt = System.nanoTime();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private boolean isStale() {
+        return System.nanoTime() - builtAt > Duration.ofSeconds(rebuildSeconds).toNanos();
+    }
+
+    private PermissionBitmapIndex build() {
+        long start = System.nanoTime();
+        Map<Long, List<String>> codesByRole = new HashMap<>();
+        for (RolePermissionCode row : permissionMapper.selectAllRolePermissionCodes()) {
+            codesByRole.computeIfAbsent(row.getRoleId(), id -> new ArrayList<>()).add(row.getPermCode());
+        }
+        PermissionBitmapIndex built = new PermissionBitmapIndex();
+        built.setHierarchy(loadHierarchy());
+        codesByRole.forEach(built::compileRole);
+        log.info("构建权限位图索引完成，角色数：{}，权限编码数：{}，耗时：{}ms",
+                built.roleCount(), built.codeCount(), (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+
+    private RoleHierarchy loadHierarchy() {
+        return RoleHierarchy.build(roleMapper.selectList(new LambdaQueryWrapper<Role>()));
+    }
+
+    private UserPermissions resolve(Long userId) {
+        PermissionBitmapIndex current = index();
+        return refresh(userId, users.getIfPresent(userId), current);
+    }
+
+    private Map<Long, UserPermissions> resolveAll(Collection<Long> userIds) {
+        PermissionBitmapIndex current = index();
+        Map<Long, UserPermissions> loaded = users.getAll(userIds, ids -> loadAll(ids, current));
+        Map<Long, UserPermissions> result = new LinkedHashMap<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            result.put(userId, refresh(userId, loaded.get(userId), current));
+        }
+        return result;
+    }
+
+    private UserPermissions refresh(Long userId, UserPermissions user, PermissionBitmapIndex current) {
+        if (user == null || user.isExpired()) {
+            user = compile(userRoleMapper.selectActiveRolesByUserId(userId), current);
+            users.put(userId, user);
+        } else if (user.index != current || user.generation != current.generation()) {
+            // 角色位图或继承关系有变化，只需重新合并
+            user = user.recompile(current);
+            users.put(userId, user);
+        }
+        return user;
+    }
+
+    private Map<Long, UserPermissions> loadAll(Set<? extends Long> userIds, PermissionBitmapIndex current) {
+        Map<Long, List<UserRole>> rolesByUser = new HashMap<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            rolesByUser.put(userId, new ArrayList<>());
+        }
+        for (UserRole userRole : userRoleMapper.selectActiveRolesByUserIds(userIds)) {
+            rolesByUser.get(userRole.getUserId()).add(userRole);
+        }
+        Map<Long, UserPermissions> result = new HashMap<>(userIds.size() * 2);
+        rolesByUser.forEach((userId, userRoles) -> result.put(userId, compile(userRoles, current)));
+        return result;
+    }
+
+    private UserPermissions compile(List<UserRole> userRoles, PermissionBitmapIndex current) {
+        long[] roleIds = new long[userRoles.size()];
+        LocalDateTime expiresAt = null;
+        for (int i = 0; i < roleIds.length; i++) {
+            UserRole userRole = userRoles.get(i);
+            roleIds[i] = userRole.getRoleId();
+            LocalDateTime expireTime = userRole.getExpireTime();
+            if (expireTime != null && (expiresAt == null || expireTime.isBefore(expiresAt))) {
+                expiresAt = expireTime;
+            }
+        }
+        return UserPermissions.compile(roleIds, expiresAt, ticker.read(), current);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 用户的有效角色与合并后的权限位图
+     */
+    private static final class UserPermissions {
+
+        private final long[] roleIds;
+        /** 最早到期的临时角色授权时间，到期后重新加载角色列表 */
+        private final LocalDateTime expiresAt;
+        /** 角色列表从数据库加载的时间（缓存时钟），缓存过期时间由此计算 */
+        private final long loadedAt;
+        private final PermissionBitmapIndex index;
+        private final long generation;
+        private final BitSet bits;
+
+        private UserPermissions(long[] roleIds, LocalDateTime expiresAt, long loadedAt,
+                                PermissionBitmapIndex index, long generation, BitSet bits) {
+            this.roleIds = roleIds;
+            this.expiresAt = expiresAt;
+            this.loadedAt = loadedAt;
+            this.index = index;
+            this.generation = generation;
+            this.bits = bits;
+        }
+
+        static UserPermissions compile(long[] roleIds, LocalDateTime expiresAt, long loadedAt,
+                                       PermissionBitmapIndex index) {
+            // 先读取版本号再合并，合并期间的变更会在下次访问时被发现
+            long generation = index.generation();
+            return new UserPermissions(roleIds, expiresAt, loadedAt, index, generation, index.union(roleIds));
+        }
+
+        UserPermissions recompile(PermissionBitmapIndex current) {
+            return compile(roleIds, expiresAt, loadedAt, current);
+        }
+
+        boolean isExpired() {
+            return expiresAt != null && !expiresAt.isAfter(LocalDateTime.now());
+        }
+    }
+}
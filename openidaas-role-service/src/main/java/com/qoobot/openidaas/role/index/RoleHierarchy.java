@@ -0,0 +1,125 @@
+package com.qoobot.openidaas.role.index;
+
+import com.qoobot.openidaas.role.entity.Role;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 角色继承关系
+ * 由一次查询得到的全部角色构建，为每个角色物化其有效角色集合（自身及沿 parentId 向上的全部祖先），
+ * 子角色继承祖先角色的权限；禁用的角色不授予权限，也不再向上继承
+ *
+ * 不可变，角色新增、修改、删除后整体重建
+ *
+ * @author QooBot
+ */
+@Slf4j
+public final class RoleHierarchy {
+
+    private static final long[] NONE = new long[0];
+
+    private final Map<Long, Role> roles;
+    private final Map<Long, long[]> effective;
+
+    private RoleHierarchy(Map<Long, Role> roles, Map<Long, long[]> effective) {
+        this.roles = roles;
+        this.effective = effective;
+    }
+
+    public static RoleHierarchy empty() {
+        return new RoleHierarchy(Map.of(), Map.of());
+    }
+
+    public static RoleHierarchy build(Collection<Role> roleList) {
+        Map<Long, Role> roles = new HashMap<>(roleList.size() * 2);
+        for (Role role : roleList) {
+            roles.put(role.getId(), role);
+        }
+        Map<Long, long[]> effective = new HashMap<>(roles.size() * 2);
+        for (Role role : roleList) {
+            effective.put(role.getId(), materialize(role, roles));
+        }
+        return new RoleHierarchy(Map.copyOf(roles), effective);
+    }
+
+    private static long[] materialize(Role role, Map<Long, Role> roles) {
+        List<Long> chain = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        Role current = role;
+        while (current != null && current.isEnabled()) {
+            if (!visited.add(current.getId())) {
+                log.warn("角色继承关系存在环，roleId: {}", role.getId());
+                break;
+            }
+            chain.add(current.getId());
+            Long parentId = current.getParentId();
+            current = parentId == null || parentId == 0L ? null : roles.get(parentId);
+        }
+        return chain.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 展开直接分配的角色，得到去重后的有效角色ID
+     */
+    public long[] expand(long[] roleIds) {
+        if (roleIds.length == 0) {
+            return NONE;
+        }
+        Set<Long> result = new LinkedHashSet<>();
+        for (long roleId : roleIds) {
+            long[] chain = effective.get(roleId);
+            if (chain == null) {
+                // 层级构建之后新增的角色，至少包含自身
+                result.add(roleId);
+                continue;
+            }
+            for (long id : chain) {
+                result.add(id);
+            }
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 有效角色列表，按展开顺序（直接角色在前，祖先在后）
+     */
+    public List<Role> effectiveRoles(long[] roleIds) {
+        long[] expanded = expand(roleIds);
+        List<Role> result = new ArrayList<>(expanded.length);
+        for (long roleId : expanded) {
+            Role role = roles.get(roleId);
+            if (role != null) {
+                result.add(role);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断 ancestorId 是否为 roleId 自身或其祖先（不考虑启用状态），用于防止形成环
+     */
+    public boolean isAncestorOrSelf(Long ancestorId, Long roleId) {
+        Set<Long> visited = new HashSet<>();
+        Long current = roleId;
+        while (current != null && current != 0L && visited.add(current)) {
+            if (current.equals(ancestorId)) {
+                return true;
+            }
+            Role role = roles.get(current);
+            current = role == null ? null : role.getParentId();
+        }
+        return false;
+    }
+
+    public int size() {
+        return roles.size();
+    }
+}
@@ -2,6 +2,7 @@ package com.qoobot.openidaas.role.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.qoobot.openidaas.role.entity.Permission;
+import com.qoobot.openidaas.role.entity.RolePermissionCode;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -65,4 +66,28 @@ public interface PermissionMapper extends BaseMapper<Permission> {
      */
     @Select("SELECT COUNT(DISTINCT role_id) FROM role_permissions WHERE perm_id = #{permId} AND deleted = 0")
     int countRoles(@Param("permId") Long permId);
+
+    /**
+     * 查询所有启用角色的启用权限编码，用于构建权限位图索引
+     *
+     * @return 角色ID与权限编码对
+     */
+    @Select("SELECT rp.role_id AS roleId, p.perm_code AS permCode "
+            + "FROM role_permissions rp "
+            + "JOIN roles r ON r.id = rp.role_id AND r.enabled = 1 "
+            + "JOIN permissions p ON p.id = rp.perm_id AND p.enabled = 1")
+    List<RolePermissionCode> selectAllRolePermissionCodes();
+
+    /**
+     * 查询角色的启用权限编码，角色禁用时返回空列表
+     *
+     * @param roleId 角色ID
+     * @return 权限编码列表
+     */
+    @Select("SELECT p.perm_code "
+            + "FROM role_permissions rp "
+            + "JOIN roles r ON r.id = rp.role_id AND r.enabled = 1 "
+            + "JOIN permissions p ON p.id = rp.perm_id AND p.enabled = 1 "
+            + "WHERE rp.role_id = #{roleId}")
+    List<String> selectPermissionCodesByRoleId(@Param("roleId") Long roleId);
 }
@@ -6,6 +6,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,6 +34,34 @@ public interface UserRoleMapper extends BaseMapper<UserRole> {
     @Select("SELECT DISTINCT user_id FROM user_roles WHERE role_id = #{roleId} AND deleted = 0")
     List<Long> selectUserIdsByRoleId(@Param("roleId") Long roleId);
 
+    /**
+     * 查询用户当前有效的角色关联（授权未过期）
+     * 不按角色启用状态过滤：停用角色在继承关系中展开为空，启用后已缓存的用户重新合并即可生效
+     *
+     * @param userId 用户ID
+     * @return 角色ID与过期时间
+     */
+    @Select("SELECT ur.role_id AS roleId, ur.expire_time AS expireTime "
+            + "FROM user_roles ur "
+            + "WHERE ur.user_id = #{userId} "
+            + "AND (ur.expire_time IS NULL OR ur.expire_time > CURRENT_TIMESTAMP)")
+    List<UserRole> selectActiveRolesByUserId(@Param("userId") Long userId);
+
+    /**
+     * 批量查询用户当前有效的角色关联（授权未过期，不按角色启用状态过滤）
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID、角色ID与过期时间
+     */
+    @Select("<script>"
+            + "SELECT ur.user_id AS userId, ur.role_id AS roleId, ur.expire_time AS expireTime "
+            + "FROM user_roles ur "
+            + "WHERE ur.user_id IN "
+            + "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach> "
+            + "AND (ur.expire_time IS NULL OR ur.expire_time &gt; CURRENT_TIMESTAMP)"
+            + "</script>")
+    List<UserRole> selectActiveRolesByUserIds(@Param("userIds") Collection<? extends Long> userIds);
+
     /**
      * 删除用户的角色
      *
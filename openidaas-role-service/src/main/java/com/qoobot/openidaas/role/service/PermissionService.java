@@ -7,6 +7,7 @@ import com.qoobot.openidaas.common.vo.permission.PermissionVO;
 import com.qoobot.openidaas.role.entity.Permission;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 权限服务接口
@@ -15,6 +16,11 @@ import java.util.List;
  */
 public interface PermissionService extends IService<Permission> {
 
+    /**
+     * 批量解析权限编码时单次允许的最大用户数
+     */
+    int MAX_BATCH_USERS = 500;
+
     /**
      * 获取权限列表
      *
@@ -79,6 +85,32 @@ public interface PermissionService extends IService<Permission> {
      */
     boolean hasPermission(Long userId, String permCode);
 
+    /**
+     * 检查用户是否拥有任一权限
+     *
+     * @param userId 用户ID
+     * @param permCodes 权限编码列表
+     * @return 是否有权限
+     */
+    boolean hasAnyPermission(Long userId, List<String> permCodes);
+
+    /**
+     * 检查用户是否拥有全部权限
+     *
+     * @param userId 用户ID
+     * @param permCodes 权限编码列表
+     * @return 是否有权限
+     */
+    boolean hasAllPermissions(Long userId, List<String> permCodes);
+
+    /**
+     * 批量解析用户的有效权限编码
+     *
+     * @param userIds 用户ID列表，不超过 {@link #MAX_BATCH_USERS} 个
+     * @return 用户ID到权限编码列表的映射，每个请求的用户都有对应项
+     */
+    Map<Long, List<String>> getUsersPermissionCodes(List<Long> userIds);
+
     /**
      * 获取用户的权限菜单树
      *
@@ -7,6 +7,7 @@ import com.qoobot.openidaas.common.vo.role.RoleVO;
 import com.qoobot.openidaas.role.entity.Role;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 角色服务接口
@@ -113,6 +114,22 @@ public interface RoleService extends IService<Role> {
      */
     List<RoleVO> getUserRoles(Long userId);
 
+    /**
+     * 获取用户的有效角色列表（直接分配的角色及其继承的祖先角色）
+     *
+     * @param userId 用户ID
+     * @return 角色列表
+     */
+    List<RoleVO> getUserEffectiveRoles(Long userId);
+
+    /**
+     * 批量获取用户的有效角色列表（直接分配的角色及其继承的祖先角色）
+     *
+     * @param userIds 用户ID列表，不超过 {@link PermissionService#MAX_BATCH_USERS} 个
+     * @return 用户ID到角色列表的映射，每个请求的用户都有对应项
+     */
+    Map<Long, List<RoleVO>> getUsersEffectiveRoles(List<Long> userIds);
+
     /**
      * 启用角色
      *
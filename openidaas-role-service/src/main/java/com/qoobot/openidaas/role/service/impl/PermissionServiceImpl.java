@@ -7,6 +7,7 @@ import com.qoobot.openidaas.common.dto.permission.PermissionUpdateDTO;
 import com.qoobot.openidaas.common.exception.BusinessException;
 import com.qoobot.openidaas.common.vo.permission.PermissionVO;
 import com.qoobot.openidaas.role.entity.Permission;
+import com.qoobot.openidaas.role.index.PermissionIndexManager;
 import com.qoobot.openidaas.role.mapper.PermissionMapper;
 import com.qoobot.openidaas.role.service.PermissionService;
 import lombok.RequiredArgsConstructor;
@@ -16,7 +17,10 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -32,6 +36,7 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
 
     private final PermissionMapper permissionMapper;
     private final StringRedisTemplate redisTemplate;
+    private final PermissionIndexManager permissionIndexManager;
 
     private static final String USER_PERMISSIONS_CACHE_PREFIX = "user:permissions:";
     private static final long CACHE_EXPIRE_HOURS = 1;
@@ -181,10 +186,37 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
 
     @Override
     public boolean hasPermission(Long userId, String permCode) {
-        // 先从缓存获取
-        List<PermissionVO> permissions = getUserPermissions(userId);
-        return permissions.stream()
-                .anyMatch(p -> permCode.equals(p.getPermCode()));
+        return permissionIndexManager.hasPermission(userId, permCode);
+    }
+
+    @Override
+    public boolean hasAnyPermission(Long userId, List<String> permCodes) {
+        return permissionIndexManager.hasAnyPermission(userId, permCodes);
+    }
+
+    @Override
+    public boolean hasAllPermissions(Long userId, List<String> permCodes) {
+        return permissionIndexManager.hasAllPermissions(userId, permCodes);
+    }
+
+    @Override
+    public Map<Long, List<String>> getUsersPermissionCodes(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(userIds);
+        distinctIds.remove(null);
+        if (distinctIds.size() > MAX_BATCH_USERS) {
+            throw new BusinessException("单次最多查询" + MAX_BATCH_USERS + "个用户的权限");
+        }
+
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        // 由权限位图索引解析，包含经角色继承获得的权限；缓存未命中的用户以一次查询加载角色
+        Map<Long, List<String>> result = permissionIndexManager.permissionCodes(distinctIds);
+        log.debug("批量解析用户权限编码，用户数：{}", distinctIds.size());
+        return result;
     }
 
     @Override
@@ -250,6 +282,7 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
     private void clearPermissionsCache() {
         // 清除所有用户权限缓存
         // 实际应使用Redis通配符删除
+        permissionIndexManager.invalidateAll();
         log.debug("清除权限缓存");
     }
 }
@@ -9,9 +9,11 @@ import com.qoobot.openidaas.common.vo.role.RoleVO;
 import com.qoobot.openidaas.role.entity.Role;
 import com.qoobot.openidaas.role.entity.RolePermission;
 import com.qoobot.openidaas.role.entity.UserRole;
+import com.qoobot.openidaas.role.index.PermissionIndexManager;
 import com.qoobot.openidaas.role.mapper.RoleMapper;
 import com.qoobot.openidaas.role.mapper.RolePermissionMapper;
 import com.qoobot.openidaas.role.mapper.UserRoleMapper;
+import com.qoobot.openidaas.role.service.PermissionService;
 import com.qoobot.openidaas.role.service.RoleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +23,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +44,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
     private final RoleMapper roleMapper;
     private final RolePermissionMapper rolePermissionMapper;
     private final UserRoleMapper userRoleMapper;
+    private final PermissionIndexManager permissionIndexManager;
 
     @Override
     public List<RoleVO> getRoleList(Integer roleType) {
@@ -52,10 +60,12 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
     @Override
     public List<RoleVO> getRoleTree(Long parentId) {
         Long actualParentId = parentId == null ? 0L : parentId;
-        List<Role> roles = roleMapper.selectList(new LambdaQueryWrapper<Role>()
-                .eq(Role::getParentId, actualParentId)
-                .orderByAsc(Role::getSortOrder, Role::getId));
-        return buildRoleTree(roles);
+        // 一次查询全部角色，在内存中按父角色分组组装
+        Map<Long, List<Role>> childrenByParent = roleMapper.selectList(new LambdaQueryWrapper<Role>()
+                        .orderByAsc(Role::getSortOrder, Role::getId))
+                .stream()
+                .collect(Collectors.groupingBy(role -> role.getParentId() == null ? 0L : role.getParentId()));
+        return buildRoleTree(actualParentId, childrenByParent, new HashSet<>());
     }
 
     @Override
@@ -84,6 +94,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         role.setParentId(parentId);
 
         roleMapper.insert(role);
+        permissionIndexManager.refreshHierarchy();
 
         log.info("角色创建成功，角色ID：{}", role.getId());
         return convertToVO(role);
@@ -106,11 +117,25 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
             throw new BusinessException("角色编码已存在：" + updateDTO.getRoleCode());
         }
 
+        // 检查父角色，不能移动到自身或其子角色下
+        Long parentId = updateDTO.getParentId();
+        if (parentId != null && parentId != 0L) {
+            if (roleMapper.selectById(parentId) == null) {
+                throw new BusinessException("父角色不存在");
+            }
+            if (permissionIndexManager.hierarchy().isAncestorOrSelf(updateDTO.getId(), parentId)) {
+                throw new BusinessException("父角色不能是当前角色或其子角色");
+            }
+        }
+
         // 更新角色信息
         Role role = new Role();
         BeanUtils.copyProperties(updateDTO, role);
         roleMapper.updateById(role);
 
+        permissionIndexManager.refreshRole(updateDTO.getId());
+        permissionIndexManager.refreshHierarchy();
+
         log.info("角色更新成功，角色ID：{}", updateDTO.getId());
         return convertToVO(roleMapper.selectById(updateDTO.getId()));
     }
@@ -148,6 +173,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
 
         // 删除角色
         roleMapper.deleteById(id);
+        permissionIndexManager.removeRole(id);
+        permissionIndexManager.refreshHierarchy();
 
         log.info("角色删除成功，角色ID：{}", id);
     }
@@ -186,6 +213,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
             }
         }
 
+        permissionIndexManager.refreshRole(roleId);
+
         log.info("权限分配成功，roleId: {}, count: {}", roleId, permIds.size());
     }
 
@@ -207,6 +236,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
                     .eq(RolePermission::getPermId, permId));
         }
 
+        permissionIndexManager.refreshRole(roleId);
+
         log.info("权限移除成功，roleId: {}, count: {}", roleId, permIds.size());
     }
 
@@ -251,6 +282,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         userRole.setIsTemporary(expireTime != null ? 1 : 0);
         userRoleMapper.insert(userRole);
 
+        permissionIndexManager.evictUser(userId);
+
         log.info("角色分配成功，userId: {}, roleId: {}", userId, roleId);
     }
 
@@ -261,6 +294,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
 
         userRoleMapper.deleteByUserIdAndRoleId(userId, roleId);
 
+        permissionIndexManager.evictUser(userId);
+
         log.info("角色移除成功，userId: {}, roleId: {}", userId, roleId);
     }
 
@@ -270,6 +305,35 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         return roles.stream().map(this::convertToVO).collect(Collectors.toList());
     }
 
+    @Override
+    public List<RoleVO> getUserEffectiveRoles(Long userId) {
+        return permissionIndexManager.effectiveRoles(userId).stream()
+                .map(this::convertToVO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<Long, List<RoleVO>> getUsersEffectiveRoles(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(userIds);
+        distinctIds.remove(null);
+        if (distinctIds.size() > PermissionService.MAX_BATCH_USERS) {
+            throw new BusinessException("单次最多查询" + PermissionService.MAX_BATCH_USERS + "个用户的角色");
+        }
+
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+        // 由权限位图索引解析，缓存未命中的用户以一次查询加载角色
+        Map<Long, List<RoleVO>> result = new LinkedHashMap<>(distinctIds.size() * 2);
+        permissionIndexManager.effectiveRoles(distinctIds).forEach((userId, roles) ->
+                result.put(userId, roles.stream().map(this::convertToVO).collect(Collectors.toList())));
+        log.debug("批量解析用户有效角色，用户数：{}", distinctIds.size());
+        return result;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void enableRole(Long id) {
@@ -283,6 +347,9 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         role.setEnabled(1);
         roleMapper.updateById(role);
 
+        permissionIndexManager.refreshRole(id);
+        permissionIndexManager.refreshHierarchy();
+
         log.info("角色启用成功，角色ID：{}", id);
     }
 
@@ -299,24 +366,27 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         role.setEnabled(0);
         roleMapper.updateById(role);
 
+        permissionIndexManager.refreshRole(id);
+        permissionIndexManager.refreshHierarchy();
+
         log.info("角色禁用成功，角色ID：{}", id);
     }
 
     /**
      * 构建角色树
      */
-    private List<RoleVO> buildRoleTree(List<Role> roles) {
-        List<RoleVO> voList = roles.stream()
+    private List<RoleVO> buildRoleTree(Long parentId, Map<Long, List<Role>> childrenByParent, Set<Long> visited) {
+        List<RoleVO> voList = childrenByParent.getOrDefault(parentId, List.of()).stream()
                 .map(this::convertToVO)
                 .collect(Collectors.toList());
 
-        // 为每个角色递归加载子角色
         for (RoleVO vo : voList) {
-            List<Role> children = roleMapper.selectList(new LambdaQueryWrapper<Role>()
-                    .eq(Role::getParentId, vo.getId())
-                    .orderByAsc(Role::getId));
-            if (!children.isEmpty()) {
-                vo.setChildren(buildRoleTree(children));
+            // 父子关系存在环时不再向下展开
+            if (visited.add(vo.getId())) {
+                List<RoleVO> children = buildRoleTree(vo.getId(), childrenByParent, visited);
+                if (!children.isEmpty()) {
+                    vo.setChildren(children);
+                }
             }
         }
 
@@ -0,0 +1,134 @@
+package com.qoobot.openidaas.role.benchmark;
+
+import com.qoobot.openidaas.role.index.PermissionBitmapIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 权限判断开销基准
+ * list: 原实现，在用户权限编码列表上逐个比较字符串
+ * bitmap: 权限位图索引，单个判断为一次位读取，任一/全部判断为按字位运算
+ *
+ * 用户权限分布在 10 个角色中，查询集合包含 8 个编码，其中一半为用户拥有的编码
+ *
+ * 运行: mvn -pl openidaas-role-service test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.qoobot.openidaas.role.benchmark.PermissionCheckBenchmark
+ *
+ * @author QooBot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionCheckBenchmark {
+
+    private static final int ROLES = 10;
+    private static final int QUERY_SIZE = 8;
+
+    @Param({"10", "100", "1000"})
+    private int permissions;
+
+    private List<String> userCodes;
+    private String lastCode;
+    private List<String> anyQuery;
+    private List<String> allQuery;
+
+    private PermissionBitmapIndex index;
+    private BitSet userBits;
+
+    @Setup
+    public void setUp() {
+        index = new PermissionBitmapIndex();
+        // 系统中其他角色占用的编码，使位图规模接近真实环境
+        List<String> others = new ArrayList<>();
+        for (int i = 0; i < permissions; i++) {
+            others.add("other:perm:" + i);
+        }
+        index.compileRole(0L, others);
+
+        userCodes = new ArrayList<>(permissions);
+        List<List<String>> roleCodes = new ArrayList<>();
+        for (int r = 0; r < ROLES; r++) {
+            roleCodes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < permissions; i++) {
+            String code = "module" + (i % 17) + ":resource" + i + ":read";
+            userCodes.add(code);
+            roleCodes.get(i % ROLES).add(code);
+        }
+        long[] roleIds = new long[ROLES];
+        for (int r = 0; r < ROLES; r++) {
+            roleIds[r] = r + 1;
+            index.compileRole(roleIds[r], roleCodes.get(r));
+        }
+        userBits = index.union(roleIds);
+        lastCode = userCodes.get(userCodes.size() - 1);
+
+        anyQuery = new ArrayList<>();
+        for (int i = 0; i < QUERY_SIZE; i++) {
+            anyQuery.add("missing:perm:" + i);
+        }
+        // 任一判断：仅最后一个编码命中，原实现需扫描到末尾
+        anyQuery.set(QUERY_SIZE - 1, lastCode);
+
+        allQuery = new ArrayList<>();
+        for (int i = 0; i < QUERY_SIZE; i++) {
+            allQuery.add(userCodes.get(userCodes.size() - 1 - (i % Math.min(QUERY_SIZE / 2, userCodes.size()))));
+        }
+    }
+
+    @Benchmark
+    public boolean hasPermissionList() {
+        return userCodes.stream().anyMatch(lastCode::equals);
+    }
+
+    @Benchmark
+    public boolean hasPermissionBitmap() {
+        return index.contains(userBits, lastCode);
+    }
+
+    @Benchmark
+    public boolean hasAnyPermissionList() {
+        return anyQuery.stream().anyMatch(userCodes::contains);
+    }
+
+    @Benchmark
+    public boolean hasAnyPermissionBitmap() {
+        return index.containsAny(userBits, anyQuery);
+    }
+
+    @Benchmark
+    public boolean hasAllPermissionsList() {
+        return userCodes.containsAll(allQuery);
+    }
+
+    @Benchmark
+    public boolean hasAllPermissionsBitmap() {
+        return index.containsAll(userBits, allQuery);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PermissionCheckBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
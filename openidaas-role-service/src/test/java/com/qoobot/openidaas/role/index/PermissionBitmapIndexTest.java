@@ -0,0 +1,273 @@
+package com.qoobot.openidaas.role.index;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.qoobot.openidaas.role.entity.Role;
+import com.qoobot.openidaas.role.entity.RolePermissionCode;
+import com.qoobot.openidaas.role.entity.UserRole;
+import com.qoobot.openidaas.role.mapper.PermissionMapper;
+import com.qoobot.openidaas.role.mapper.RoleMapper;
+import com.qoobot.openidaas.role.mapper.UserRoleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 权限位图索引测试
+ *
+ * @author QooBot
+ */
+@DisplayName("权限位图索引测试")
+class PermissionBitmapIndexTest {
+
+    private PermissionMapper permissionMapper;
+    private RoleMapper roleMapper;
+    private UserRoleMapper userRoleMapper;
+    private PermissionIndexManager manager;
+
+    @BeforeEach
+    void setUp() {
+        permissionMapper = mock(PermissionMapper.class);
+        roleMapper = mock(RoleMapper.class);
+        userRoleMapper = mock(UserRoleMapper.class);
+        manager = new PermissionIndexManager(permissionMapper, roleMapper, userRoleMapper);
+        manager.init();
+    }
+
+    @Test
+    @DisplayName("用户权限为角色位图的并集")
+    void testUnionOfRoleBitmaps() {
+        PermissionBitmapIndex index = new PermissionBitmapIndex();
+        index.compileRole(1L, List.of("user:read", "user:write"));
+        index.compileRole(2L, List.of("user:read", "role:read"));
+
+        BitSet bits = index.union(new long[]{1L, 2L});
+
+        assertEquals(3, index.codeCount());
+        assertEquals(3, bits.cardinality());
+        assertTrue(index.contains(bits, "role:read"));
+        assertFalse(index.contains(bits, "role:delete"));
+        assertTrue(index.containsAny(bits, List.of("role:delete", "user:write")));
+        assertFalse(index.containsAny(bits, List.of("role:delete", "audit:read")));
+        assertTrue(index.containsAll(bits, List.of("user:read", "role:read")));
+        assertFalse(index.containsAll(bits, List.of("user:read", "role:delete")));
+        assertTrue(index.containsAll(bits, List.of()));
+        assertFalse(index.contains(index.union(new long[]{3L}), "user:read"));
+    }
+
+    @Test
+    @DisplayName("首次访问一次性构建索引并缓存用户角色")
+    void testBuildOnceAndCacheUserRoles() {
+        when(permissionMapper.selectAllRolePermissionCodes())
+                .thenReturn(List.of(row(1L, "user:read"), row(1L, "user:write"), row(2L, "role:read")));
+        when(userRoleMapper.selectActiveRolesByUserId(10L)).thenReturn(List.of(userRole(1L, null)));
+
+        assertTrue(manager.hasPermission(10L, "user:read"));
+        assertTrue(manager.hasAllPermissions(10L, List.of("user:read", "user:write")));
+        assertFalse(manager.hasAnyPermission(10L, List.of("role:read")));
+
+        verify(permissionMapper, times(1)).selectAllRolePermissionCodes();
+        verify(userRoleMapper, times(1)).selectActiveRolesByUserId(10L);
+    }
+
+    @Test
+    @DisplayName("角色权限变更时只重新编译该角色")
+    void testRefreshRoleIsIncremental() {
+        when(permissionMapper.selectAllRolePermissionCodes()).thenReturn(List.of(row(1L, "user:read")));
+        when(userRoleMapper.selectActiveRolesByUserId(10L)).thenReturn(List.of(userRole(1L, null)));
+        assertFalse(manager.hasPermission(10L, "user:delete"));
+
+        when(permissionMapper.selectPermissionCodesByRoleId(1L)).thenReturn(List.of("user:read", "user:delete"));
+        manager.refreshRole(1L);
+
+        assertTrue(manager.hasPermission(10L, "user:delete"));
+        verify(permissionMapper, times(1)).selectAllRolePermissionCodes();
+        // 用户角色列表无需重新查询
+        verify(userRoleMapper, times(1)).selectActiveRolesByUserId(10L);
+    }
+
+    @Test
+    @DisplayName("用户角色变更、临时角色到期与权限定义变更时重新加载")
+    void testEvictionAndExpiry() {
+        when(permissionMapper.selectAllRolePermissionCodes())
+                .thenReturn(List.of(row(1L, "user:read"), row(2L, "role:read")));
+        when(userRoleMapper.selectActiveRolesByUserId(10L))
+                .thenReturn(List.of(userRole(1L, null)), List.of(userRole(1L, null), userRole(2L, null)));
+        when(userRoleMapper.selectActiveRolesByUserId(11L))
+                .thenReturn(List.of(userRole(2L, LocalDateTime.now().minusSeconds(1))), List.of());
+
+        assertFalse(manager.hasPermission(10L, "role:read"));
+        manager.evictUser(10L);
+        assertTrue(manager.hasPermission(10L, "role:read"));
+
+        // 授权已到期的条目在下次访问时重新加载
+        manager.hasPermission(11L, "role:read");
+        assertFalse(manager.hasPermission(11L, "role:read"));
+
+        manager.invalidateAll();
+        manager.hasPermission(10L, "role:read");
+        verify(permissionMapper, times(2)).selectAllRolePermissionCodes();
+    }
+
+    @Test
+    @DisplayName("子角色继承祖先角色的权限，继承在禁用角色处中断")
+    void testInheritedPermissions() {
+        // 3 -> 2 -> 1，4 -> 5(禁用) -> 1
+        when(roleMapper.selectList(any())).thenReturn(List.of(
+                role(1L, 0L, true), role(2L, 1L, true), role(3L, 2L, true),
+                role(5L, 1L, false), role(4L, 5L, true)));
+        when(permissionMapper.selectAllRolePermissionCodes()).thenReturn(List.of(
+                row(1L, "user:read"), row(2L, "role:read"), row(3L, "audit:read"), row(5L, "org:read")));
+        when(userRoleMapper.selectActiveRolesByUserId(10L)).thenReturn(List.of(userRole(3L, null)));
+        when(userRoleMapper.selectActiveRolesByUserId(11L)).thenReturn(List.of(userRole(4L, null)));
+
+        assertTrue(manager.hasAllPermissions(10L, List.of("user:read", "role:read", "audit:read")));
+        assertEquals(List.of(3L, 2L, 1L), manager.effectiveRoles(10L).stream().map(Role::getId).toList());
+        assertFalse(manager.hasAnyPermission(11L, List.of("user:read", "org:read")));
+        assertEquals(List.of(4L), manager.effectiveRoles(11L).stream().map(Role::getId).toList());
+
+        RoleHierarchy hierarchy = manager.hierarchy();
+        assertTrue(hierarchy.isAncestorOrSelf(1L, 3L));
+        assertTrue(hierarchy.isAncestorOrSelf(1L, 4L));
+        assertFalse(hierarchy.isAncestorOrSelf(3L, 1L));
+        verify(roleMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    @DisplayName("停用角色重新启用后，已缓存的用户无需重新加载即获得权限")
+    void testReenabledRoleReachesCachedUser() {
+        when(roleMapper.selectList(any()))
+                .thenReturn(List.of(role(1L, 0L, false)))
+                .thenReturn(List.of(role(1L, 0L, true)));
+        when(permissionMapper.selectAllRolePermissionCodes()).thenReturn(List.of(row(1L, "user:read")));
+        when(permissionMapper.selectPermissionCodesByRoleId(1L)).thenReturn(List.of("user:read"));
+        when(userRoleMapper.selectActiveRolesByUserId(10L)).thenReturn(List.of(userRole(1L, null)));
+        assertFalse(manager.hasPermission(10L, "user:read"));
+        assertEquals(List.of(), manager.effectiveRoles(10L));
+
+        manager.refreshRole(1L);
+        manager.refreshHierarchy();
+
+        assertTrue(manager.hasPermission(10L, "user:read"));
+        assertEquals(List.of(1L), manager.effectiveRoles(10L).stream().map(Role::getId).toList());
+        verify(userRoleMapper, times(1)).selectActiveRolesByUserId(10L);
+    }
+
+    @Test
+    @DisplayName("重新合并不延长用户缓存的过期时间")
+    void testRecompileKeepsLoadTime() {
+        AtomicLong nanos = new AtomicLong();
+        ReflectionTestUtils.setField(manager, "ticker", (Ticker) nanos::get);
+        ReflectionTestUtils.setField(manager, "userExpireSeconds", 300L);
+        manager.init();
+        when(permissionMapper.selectAllRolePermissionCodes()).thenReturn(List.of(row(1L, "user:read")));
+        when(permissionMapper.selectPermissionCodesByRoleId(1L)).thenReturn(List.of("user:read"));
+        when(userRoleMapper.selectActiveRolesByUserId(10L)).thenReturn(List.of(userRole(1L, null)));
+        assertTrue(manager.hasPermission(10L, "user:read"));
+
+        // 有效期内角色位图多次变化，每次都只重新合并
+        for (int i = 0; i < 4; i++) {
+            nanos.addAndGet(Duration.ofSeconds(60).toNanos());
+            manager.refreshRole(1L);
+            assertTrue(manager.hasPermission(10L, "user:read"));
+        }
+        verify(userRoleMapper, times(1)).selectActiveRolesByUserId(10L);
+
+        // 距加载已超过有效期，重新查询角色列表
+        nanos.addAndGet(Duration.ofSeconds(61).toNanos());
+        assertTrue(manager.hasPermission(10L, "user:read"));
+        verify(userRoleMapper, times(2)).selectActiveRolesByUserId(10L);
+    }
+
+    @Test
+    @DisplayName("继承关系变更后只重新合并，不重新查询用户角色")
+    void testRefreshHierarchy() {
+        when(roleMapper.selectList(any()))
+                .thenReturn(List.of(role(1L, 0L, true), role(2L, 0L, true)))
+                .thenReturn(List.of(role(1L, 0L, true), role(2L, 1L, true)));
+        when(permissionMapper.selectAllRolePermissionCodes()).thenReturn(List.of(row(1L, "user:read")));
+        when(userRoleMapper.selectActiveRolesByUserId(10L)).thenReturn(List.of(userRole(2L, null)));
+        assertFalse(manager.hasPermission(10L, "user:read"));
+
+        manager.refreshHierarchy();
+
+        assertTrue(manager.hasPermission(10L, "user:read"));
+        verify(permissionMapper, times(1)).selectAllRolePermissionCodes();
+        verify(userRoleMapper, times(1)).selectActiveRolesByUserId(10L);
+    }
+
+    @Test
+    @DisplayName("批量解析权限编码时缓存未命中的用户一次查询加载")
+    void testBulkPermissionCodes() {
+        when(roleMapper.selectList(any())).thenReturn(List.of(role(1L, 0L, true), role(2L, 1L, true)));
+        when(permissionMapper.selectAllRolePermissionCodes())
+                .thenReturn(List.of(row(1L, "user:read"), row(2L, "role:write"), row(2L, "audit:read")));
+        when(userRoleMapper.selectActiveRolesByUserId(10L)).thenReturn(List.of(userRole(1L, null)));
+        when(userRoleMapper.selectActiveRolesByUserIds(any()))
+                .thenReturn(List.of(userRole(11L, 2L, null)));
+        assertTrue(manager.hasPermission(10L, "user:read"));
+
+        Map<Long, List<String>> codes = manager.permissionCodes(List.of(10L, 11L, 12L));
+
+        assertEquals(List.of(10L, 11L, 12L), List.copyOf(codes.keySet()));
+        assertEquals(List.of("user:read"), codes.get(10L));
+        assertEquals(List.of("audit:read", "role:write", "user:read"), codes.get(11L));
+        assertEquals(List.of(), codes.get(12L));
+        verify(userRoleMapper, times(1)).selectActiveRolesByUserIds(any());
+    }
+
+    @Test
+    @DisplayName("批量解析有效角色时缓存未命中的用户一次查询加载")
+    void testBulkEffectiveRoles() {
+        when(roleMapper.selectList(any())).thenReturn(List.of(role(1L, 0L, true), role(2L, 1L, true)));
+        when(userRoleMapper.selectActiveRolesByUserIds(any()))
+                .thenReturn(List.of(userRole(10L, 2L, null), userRole(11L, 1L, null)));
+
+        Map<Long, List<Role>> roles = manager.effectiveRoles(List.of(10L, 11L, 12L));
+
+        assertEquals(List.of(10L, 11L, 12L), List.copyOf(roles.keySet()));
+        assertEquals(List.of(2L, 1L), roles.get(10L).stream().map(Role::getId).toList());
+        assertEquals(List.of(1L), roles.get(11L).stream().map(Role::getId).toList());
+        assertEquals(List.of(), roles.get(12L));
+        verify(userRoleMapper, times(1)).selectActiveRolesByUserIds(any());
+        verify(userRoleMapper, never()).selectActiveRolesByUserId(any());
+    }
+
+    private RolePermissionCode row(Long roleId, String permCode) {
+        RolePermissionCode row = new RolePermissionCode();
+        row.setRoleId(roleId);
+        row.setPermCode(permCode);
+        return row;
+    }
+
+    private Role role(Long id, Long parentId, boolean enabled) {
+        Role role = new Role();
+        role.setId(id);
+        role.setParentId(parentId);
+        role.setEnabled(enabled ? 1 : 2);
+        return role;
+    }
+
+    private UserRole userRole(Long roleId, LocalDateTime expireTime) {
+        return userRole(null, roleId, expireTime);
+    }
+
+    private UserRole userRole(Long userId, Long roleId, LocalDateTime expireTime) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        userRole.setExpireTime(expireTime);
+        return userRole;
+    }
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.qoobot.openidaas.role.entity.Permission;
 import com.qoobot.openidaas.role.entity.Role;
 import com.qoobot.openidaas.role.entity.RolePermission;
+import com.qoobot.openidaas.role.entity.RolePermissionCode;
 import com.qoobot.openidaas.role.entity.UserRole;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -462,3 +463,109 @@ class UserRoleMapperTest {
         assertNotNull(userRole.getId());
     }
 }
+
+/**
+ * PermissionMapper 测试
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("PermissionMapper 测试")
+class PermissionMapperTest {
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private RolePermissionMapper rolePermissionMapper;
+
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+
+    private Role testRole;
+
+    @BeforeEach
+    void setUp() {
+        testRole = new Role();
+        testRole.setRoleCode("TEST_PERM_CODE_ROLE");
+        testRole.setRoleName("测试权限编码角色");
+        testRole.setRoleType(2);
+        testRole.setEnabled(1);
+        roleMapper.insert(testRole);
+
+        grant(testRole.getId(), permission("test:read", 1));
+        grant(testRole.getId(), permission("test:write", 1));
+        grant(testRole.getId(), permission("test:disabled", 0));
+    }
+
+    @Test
+    @DisplayName("测试查询角色的启用权限编码")
+    void testSelectPermissionCodesByRoleId() {
+        // 执行
+        List<String> result = permissionMapper.selectPermissionCodesByRoleId(testRole.getId());
+
+        // 验证：禁用的权限不返回
+        assertEquals(2, result.size());
+        assertTrue(result.containsAll(List.of("test:read", "test:write")));
+    }
+
+    @Test
+    @DisplayName("测试查询全部角色权限编码 - 角色禁用")
+    void testSelectAllRolePermissionCodes_RoleDisabled() {
+        // 准备
+        testRole.setEnabled(0);
+        roleMapper.updateById(testRole);
+
+        // 执行
+        List<RolePermissionCode> result = permissionMapper.selectAllRolePermissionCodes();
+
+        // 验证
+        assertTrue(result.stream().noneMatch(item -> item.getRoleId().equals(testRole.getId())));
+        assertTrue(permissionMapper.selectPermissionCodesByRoleId(testRole.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试批量查询用户有效角色")
+    void testSelectActiveRolesByUserIds() {
+        // 准备：用户20有效授权，用户21授权已过期，用户22无角色
+        assign(20L, null);
+        assign(21L, LocalDateTime.now().minusDays(1));
+
+        // 执行
+        List<UserRole> result = userRoleMapper.selectActiveRolesByUserIds(List.of(20L, 21L, 22L));
+
+        // 验证
+        assertEquals(1, result.size());
+        assertEquals(20L, result.get(0).getUserId());
+        assertEquals(testRole.getId(), result.get(0).getRoleId());
+    }
+
+    private Long permission(String permCode, int enabled) {
+        Permission permission = new Permission();
+        permission.setPermCode(permCode);
+        permission.setPermName(permCode);
+        permission.setPermType("api");
+        permission.setEnabled(enabled);
+        permissionMapper.insert(permission);
+        return permission.getId();
+    }
+
+    private void grant(Long roleId, Long permId) {
+        RolePermission rolePermission = new RolePermission();
+        rolePermission.setRoleId(roleId);
+        rolePermission.setPermId(permId);
+        rolePermissionMapper.insert(rolePermission);
+    }
+
+    private void assign(Long userId, LocalDateTime expireTime) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(testRole.getId());
+        userRole.setGrantTime(LocalDateTime.now());
+        userRole.setExpireTime(expireTime);
+        userRoleMapper.insert(userRole);
+    }
+}